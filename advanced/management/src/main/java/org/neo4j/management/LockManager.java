@@ -24,6 +24,7 @@ import java.util.List;
 import org.neo4j.jmx.Description;
 import org.neo4j.jmx.ManagementInterface;
 import org.neo4j.kernel.info.LockInfo;
+import org.neo4j.kernel.info.LockWaitInfo;
 
 @ManagementInterface( name = LockManager.NAME )
 @Description( "Information about the Neo4j lock status" )
@@ -42,4 +43,8 @@ public interface LockManager
                   + "The parameter is used to get locks where threads have waited for at least the specified number "
                   + "of milliseconds, a value of 0 retrieves all contended locks." )
     List<LockInfo> getContendedLocks( long minWaitTime );
+
+    @Description( "Lock contention per resource type: how many times and for how long clients have waited for "
+                  + "locks, how many deadlocks were averted, and which resources were waited for most often." )
+    List<LockWaitInfo> getLockWaits();
 }
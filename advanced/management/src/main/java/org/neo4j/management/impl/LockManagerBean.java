@@ -21,6 +21,7 @@ package org.neo4j.management.impl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.management.NotCompliantMBeanException;
 
@@ -28,8 +29,11 @@ import org.neo4j.helpers.Service;
 import org.neo4j.jmx.impl.ManagementBeanProvider;
 import org.neo4j.jmx.impl.ManagementData;
 import org.neo4j.jmx.impl.Neo4jMBean;
+import org.neo4j.kernel.impl.locking.LockWaitStatistics;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.info.LockInfo;
+import org.neo4j.kernel.info.LockWaitInfo;
+import org.neo4j.kernel.monitoring.Monitors;
 import org.neo4j.management.LockManager;
 
 @Service.Implementation( ManagementBeanProvider.class )
@@ -54,12 +58,22 @@ public final class LockManagerBean extends ManagementBeanProvider
 
     private static class LockManagerImpl extends Neo4jMBean implements LockManager
     {
+        private static final int MOST_CONTENDED_RESOURCES = 10;
+
         private final Locks lockManager;
+        private final LockWaitStatistics lockWaits = new LockWaitStatistics();
 
         LockManagerImpl( ManagementData management ) throws NotCompliantMBeanException
         {
             super( management );
             this.lockManager = lockManager( management );
+            monitorLockWaits( management );
+        }
+
+        private void monitorLockWaits( ManagementData management )
+        {
+            management.getKernelData().graphDatabase().getDependencyResolver()
+                    .resolveDependency( Monitors.class ).addMonitorListener( lockWaits );
         }
 
         private Locks lockManager( ManagementData management )
@@ -80,12 +94,13 @@ public final class LockManagerBean extends ManagementBeanProvider
         {
             super( management, mxBean );
             this.lockManager = lockManager( management );
+            monitorLockWaits( management );
         }
 
         @Override
         public long getNumberOfAvertedDeadlocks()
         {
-            return -1l;
+            return lockWaits.totalDeadlocks();
         }
 
         @Override
@@ -109,5 +124,24 @@ public final class LockManagerBean extends ManagementBeanProvider
             // Contended locks can no longer be found by the new lock manager, since that knowledge is not centralized.
             return getLocks();
         }
+
+        @Override
+        public List<LockWaitInfo> getLockWaits()
+        {
+            List<LockWaitInfo> result = new ArrayList<>();
+            for ( Locks.ResourceType type : lockWaits.resourceTypes() )
+            {
+                long[] resourceIds = lockWaits.mostContendedResources( type, MOST_CONTENDED_RESOURCES );
+                String[] resources = new String[resourceIds.length];
+                for ( int i = 0; i < resources.length; i++ )
+                {
+                    resources[i] = String.valueOf( resourceIds[i] );
+                }
+                result.add( new LockWaitInfo( type.toString(), lockWaits.waits( type ),
+                        TimeUnit.NANOSECONDS.toMillis( lockWaits.totalWaitTimeNanos( type ) ),
+                        lockWaits.deadlocks( type ), lockWaits.waitTimeHistogram( type ), resources ) );
+            }
+            return result;
+        }
     }
 }
@@ -56,6 +56,13 @@ public class TestLockManagerBean
         assertEquals( "unexpected lock count", 0, lockManager.getLocks().size() );
     }
 
+    @Test
+    public void restingGraphHasNoLockWaits()
+    {
+        assertEquals( 0, lockManager.getNumberOfAvertedDeadlocks() );
+        assertEquals( 0, lockManager.getLockWaits().size() );
+    }
+
     @Test
     public void modifiedNodeImpliesLock()
     {
@@ -17,10 +17,11 @@
  * You should have received a copy of the GNU General Public License
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
-package org.neo4j.cypher.internal.spi.v2_1
+package org.neo4j.cypher.internal.compiler.v2_1
 
-
-//This class should live here, but until we have to touch
-//disk, let's have it in the compiler. Convenient.
-case object HardcodedGraphStatistics
-  extends org.neo4j.cypher.internal.compiler.v2_1.HardcodedGraphStatisticsValues
+/*
+One end of a range, used when seeking a range of values in a schema index
+ */
+final case class Bound[+V](value: V, inclusive: Boolean) {
+  def map[T](f: V => T): Bound[T] = Bound(f(value), inclusive)
+}
@@ -20,7 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v2_1
 
 import mutation.UpdateAction
-import pipes.MutableMaps
+import pipes.{SlotKey, SlottedMap, MutableMaps}
 import collection.{immutable, Iterator}
 import collection.mutable.{Queue, Map => MutableMap}
 
@@ -35,11 +35,25 @@ case class ExecutionContext(m: MutableMap[String, Any] = MutableMaps.empty,
   extends MutableMap[String, Any] {
   def get(key: String): Option[Any] = m.get(key)
 
+  override def apply(key: String): Any = m(key)
+
   def iterator: Iterator[(String, Any)] = m.iterator
 
   override def size = m.size
 
-  def ++(other: ExecutionContext): ExecutionContext = copy(m = m ++ other.m)
+  def getOrElse(key: SlotKey, default: => Any): Any = m match {
+    case slotted: SlottedMap => slotted.getOrElse(key, default)
+    case _                   => m.getOrElse(key.name, default)
+  }
+
+  def update(key: SlotKey, value: Any) {
+    m match {
+      case slotted: SlottedMap => slotted.update(key, value)
+      case _                   => m.update(key.name, value)
+    }
+  }
+
+  def ++(other: ExecutionContext): ExecutionContext = copy(m = copyOfMap ++= other.m)
 
   override def foreach[U](f: ((String, Any)) => U) {
     m.foreach(f)
@@ -58,24 +72,47 @@ case class ExecutionContext(m: MutableMap[String, Any] = MutableMaps.empty,
   override def toMap[T, U](implicit ev: (String, Any) <:< (T, U)): immutable.Map[T, U] = m.toMap(ev)
 
   def newWith(newEntries: Seq[(String, Any)]) =
-    createWithNewMap(MutableMaps.create(this.m) ++= newEntries)
+    createWithNewMap(copyOfMap ++= newEntries)
 
   def newWith(newEntries: scala.collection.Map[String, Any]) =
-    createWithNewMap(MutableMaps.create(this.m) ++= newEntries)
+    createWithNewMap(copyOfMap ++= newEntries)
 
-  def newFrom(newEntries: Seq[(String, Any)]) =
-    createWithNewMap(MutableMaps.create(newEntries: _*))
+  def newFrom(newEntries: Seq[(String, Any)]) = m match {
+    case slotted: SlottedMap => createWithNewMap(slotted.empty ++= newEntries)
+    case _                   => createWithNewMap(MutableMaps.create(newEntries: _*))
+  }
 
-  def newFrom(newEntries: scala.collection.Map[String, Any]) =
-    createWithNewMap(MutableMaps.create(newEntries))
+  def newFrom(newEntries: scala.collection.Map[String, Any]) = m match {
+    case slotted: SlottedMap => createWithNewMap(slotted.empty ++= newEntries)
+    case _                   => createWithNewMap(MutableMaps.create(newEntries))
+  }
+
+  def newWithKey(key: SlotKey, value: Any): ExecutionContext = {
+    val row = createWithNewMap(copyOfMap)
+    row(key) = value
+    row
+  }
+
+  def newWithKeys(key1: SlotKey, value1: Any, key2: SlotKey, value2: Any): ExecutionContext = {
+    val row = createWithNewMap(copyOfMap)
+    row(key1) = value1
+    row(key2) = value2
+    row
+  }
 
   def newWith(newEntry: (String, Any)) =
-    createWithNewMap(MutableMaps.create(this.m) += newEntry)
+    createWithNewMap(copyOfMap += newEntry)
 
   override def clone(): ExecutionContext = newFrom(m)
 
   protected def createWithNewMap(newMap: MutableMap[String, Any]) = {
     copy(m = newMap)
   }
+
+  // Rows backed by slots are copied as a flat array, anything else is rehashed into a new map
+  private def copyOfMap: MutableMap[String, Any] = m match {
+    case slotted: SlottedMap => slotted.clone()
+    case _                   => MutableMaps.create(m)
+  }
 }
 
@@ -51,4 +51,7 @@ class HardcodedGraphStatisticsValues extends GraphStatistics {
 
   def nodesCardinality: Double =
     NODES_CARDINALITY
+
+  def indexUniqueValuesSelectivity(labelId: LabelId, propertyKeyId: PropertyKeyId): Option[Double] =
+    None
 }
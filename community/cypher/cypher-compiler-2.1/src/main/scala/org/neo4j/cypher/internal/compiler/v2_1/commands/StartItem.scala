@@ -31,6 +31,7 @@ import org.neo4j.cypher.internal.compiler.v2_1.commands.expressions.Literal
 import org.neo4j.cypher.internal.compiler.v2_1.mutation.CreateNode
 import org.neo4j.cypher.internal.compiler.v2_1.data.SeqVal
 import org.neo4j.cypher.internal.compiler.v2_1.mutation.CreateRelationship
+import org.neo4j.cypher.internal.compiler.v2_1.Bound
 import java.net.URL
 
 trait NodeStartItemIdentifiers extends StartItem {
@@ -96,6 +97,13 @@ case class SchemaIndex(identifier: String, label: String, property: String, kind
   extends StartItem(identifier, Map("label" -> label, "property" -> property) ++ query.map("query" -> _.toString()))
   with ReadOnlyStartItem with Hint with NodeStartItemIdentifiers
 
+case class SchemaIndexRange(identifier: String, label: String, property: String,
+                            lower: Option[Bound[Expression]], upper: Option[Bound[Expression]])
+  extends StartItem(identifier, Map("label" -> label, "property" -> property) ++
+    lower.map(bound => (if (bound.inclusive) "from" else "after") -> bound.value.toString()) ++
+    upper.map(bound => (if (bound.inclusive) "to" else "before") -> bound.value.toString()))
+  with ReadOnlyStartItem with NodeStartItemIdentifiers
+
 case class NodeById(varName: String, expression: Expression)
   extends StartItem(varName, Map("name" -> expression.toString()))
   with ReadOnlyStartItem with NodeStartItemIdentifiers
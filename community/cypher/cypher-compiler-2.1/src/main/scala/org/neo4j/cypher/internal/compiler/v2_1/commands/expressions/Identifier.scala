@@ -20,14 +20,16 @@
 package org.neo4j.cypher.internal.compiler.v2_1.commands.expressions
 
 import org.neo4j.cypher.internal.compiler.v2_1._
-import pipes.QueryState
+import pipes.{SlotKeyCache, QueryState}
 import symbols._
 import org.neo4j.graphdb.NotFoundException
 import org.neo4j.helpers.ThisShouldNotHappenError
 
 case class Identifier(entityName: String) extends Expression with Typed {
+  private val key = new SlotKeyCache(entityName)
+
   def apply(ctx: ExecutionContext)(implicit state: QueryState): Any =
-    ctx.getOrElse(entityName, throw new NotFoundException("Unknown identifier `%s`.".format(entityName)))
+    ctx.getOrElse(key(state), throw new NotFoundException("Unknown identifier `%s`.".format(entityName)))
 
   override def toString: String = entityName
 
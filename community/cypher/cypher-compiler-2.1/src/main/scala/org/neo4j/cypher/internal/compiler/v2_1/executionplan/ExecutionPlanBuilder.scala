@@ -38,7 +38,8 @@ import org.neo4j.cypher.internal.compiler.v2_1.planner.CantHandleQueryException
 
 case class PipeInfo(pipe: Pipe,
                     updating: Boolean,
-                    periodicCommit: Option[PeriodicCommitInfo] = None)
+                    periodicCommit: Option[PeriodicCommitInfo] = None,
+                    slots: Option[Slots] = None)
 
 case class PeriodicCommitInfo(size: Option[Long]) {
   def batchRowCount = size.getOrElse(/* defaultSize */ 1000L)
@@ -59,10 +60,10 @@ class ExecutionPlanBuilder(graph: GraphDatabaseService,
   def build(planContext: PlanContext, inputQuery: ParsedQuery): ExecutionPlan = {
     val abstractQuery = inputQuery.abstractQuery
 
-    val PipeInfo(pipe, isUpdating, periodicCommitInfo) = pipeBuilder.producePlan(inputQuery, planContext)
+    val PipeInfo(pipe, isUpdating, periodicCommitInfo, slots) = pipeBuilder.producePlan(inputQuery, planContext)
 
     val columns = getQueryResultColumns(abstractQuery, pipe.symbols)
-    val func = getExecutionPlanFunction(pipe, columns, periodicCommitInfo, isUpdating, abstractQuery.getQueryText)
+    val func = getExecutionPlanFunction(pipe, columns, periodicCommitInfo, isUpdating, slots, abstractQuery.getQueryText)
 
     new ExecutionPlan {
       def execute(queryContext: QueryContext, params: Map[String, Any]) = func(queryContext, params, false)
@@ -98,6 +99,7 @@ class ExecutionPlanBuilder(graph: GraphDatabaseService,
                                        columns: List[String],
                                        periodicCommit: Option[PeriodicCommitInfo],
                                        updating: Boolean,
+                                       slots: Option[Slots],
                                        queryId: AnyRef) =
     (queryContext: QueryContext, params: Map[String, Any], profile: Boolean) => {
 
@@ -114,6 +116,8 @@ class ExecutionPlanBuilder(graph: GraphDatabaseService,
       if (profile)
         builder.setPipeDecorator(new Profiler())
 
+      slots.foreach(builder.setSlots)
+
       builder.runWithQueryState(graph, queryId, params) {
         state =>
           val results = pipe.createResults(state)
@@ -133,9 +137,11 @@ class ExecutionPlanBuilder(graph: GraphDatabaseService,
 class ExecutionWorkflowBuilder(initialQueryContext: QueryContext) {
   private val taskCloser = new TaskCloser
   private var externalResource: ExternalResource = new CSVResources(taskCloser)
+  private val spillFiles = new SpillFiles(taskCloser)
   private val queryContextBuilder: MappingBuilder[QueryContext] = new EagerMappingBuilder(initialQueryContext)
   private var pipeDecorator: PipeDecorator = NullPipeDecorator
   private var exceptionDecorator: CypherException => CypherException = identity
+  private var slots: Option[Slots] = None
 
   def transformQueryContext(f: QueryContext => QueryContext) {
     queryContextBuilder += f
@@ -155,6 +161,10 @@ class ExecutionWorkflowBuilder(initialQueryContext: QueryContext) {
     exceptionDecorator = newDecorator
   }
 
+  def setSlots(newSlots: Slots) {
+    slots = Some(newSlots)
+  }
+
   def buildClosingIterator(results: Iterator[ExecutionContext]) =
     new ClosingIterator(results, taskCloser, exceptionDecorator)
 
@@ -163,7 +173,8 @@ class ExecutionWorkflowBuilder(initialQueryContext: QueryContext) {
 
   def runWithQueryState[T](graph: GraphDatabaseService, queryId: AnyRef, params: Map[String, Any])(f: QueryState => T) = {
     taskCloser.addTask(queryContext.close)
-    val state = new QueryState(graph, queryContext, externalResource, params, pipeDecorator, queryId = queryId)
+    val state = new QueryState(graph, queryContext, externalResource, params, pipeDecorator, spillFiles,
+      queryId = queryId, slots = slots)
     try {
       try {
         f(state)
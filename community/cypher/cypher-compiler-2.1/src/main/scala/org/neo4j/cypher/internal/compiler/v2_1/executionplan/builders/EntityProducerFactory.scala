@@ -22,7 +22,7 @@ package org.neo4j.cypher.internal.compiler.v2_1.executionplan.builders
 import org.neo4j.cypher.internal.compiler.v2_1._
 import commands._
 import mutation.GraphElementPropertyFunctions
-import pipes.{EntityProducer, QueryState}
+import pipes.{indexRangeSeek, EntityProducer, QueryState}
 import org.neo4j.cypher.{EntityNotFoundException, IndexHintException, InternalException}
 import org.neo4j.graphdb.{PropertyContainer, Relationship, Node}
 import org.neo4j.cypher.internal.compiler.v2_1.spi.PlanContext
@@ -43,6 +43,7 @@ class EntityProducerFactory extends GraphElementPropertyFunctions {
       nodeByIndex orElse
       nodeByIndexQuery orElse
       nodeByIndexHint orElse
+      nodeByIndexRange orElse
       nodeByLabel orElse
       nodesAll
 
@@ -150,6 +151,21 @@ class EntityProducerFactory extends GraphElementPropertyFunctions {
       }
   }
 
+  val nodeByIndexRange: PartialFunction[(PlanContext, StartItem), EntityProducer[Node]] = {
+    case (planContext, startItem @ SchemaIndexRange(identifier, labelName, propertyName, lower, upper)) =>
+
+      val indexGetter = planContext.getIndexRule(labelName, propertyName) orElse planContext.getUniqueIndexRule(labelName, propertyName)
+
+      val index = indexGetter getOrElse
+        (throw new InternalException("Something went wrong trying to build your query."))
+
+      asProducer[Node](startItem) { (m: ExecutionContext, state: QueryState) =>
+        val lowerValue = lower.map(_.map(_(m)(state)))
+        val upperValue = upper.map(_.map(_(m)(state)))
+        indexRangeSeek(state.query, index, lowerValue, upperValue)
+      }
+  }
+
   val relationshipByIndex: PartialFunction[(PlanContext, StartItem), EntityProducer[Relationship]] = {
     case (planContext, startItem @ RelationshipByIndex(varName, idxName, key, value)) =>
       planContext.checkRelIndex(idxName)
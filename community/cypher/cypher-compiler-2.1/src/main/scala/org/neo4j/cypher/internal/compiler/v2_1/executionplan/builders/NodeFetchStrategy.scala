@@ -34,7 +34,7 @@ to be true for that node
  */
 object NodeFetchStrategy {
 
-  val nodeStrategies: Seq[NodeStrategy] = Seq(NodeByIdStrategy, IndexSeekStrategy, LabelScanStrategy, GlobalStrategy)
+  val nodeStrategies: Seq[NodeStrategy] = Seq(NodeByIdStrategy, IndexSeekStrategy, IndexRangeSeekStrategy, LabelScanStrategy, GlobalStrategy)
 
   def findStartStrategy(node: String, where: Seq[Predicate], ctx: PlanContext, symbols: SymbolTable): RatedStartItem = {
     val ratedItems = nodeStrategies.flatMap(_.findRatedStartItems(node, where, ctx, symbols))
@@ -63,6 +63,7 @@ object NodeFetchStrategy {
 import NodeFetchStrategy.Single
 import NodeFetchStrategy.Global
 import NodeFetchStrategy.IndexEquality
+import NodeFetchStrategy.IndexRange
 import NodeFetchStrategy.LabelScan
 
 /*
@@ -149,6 +150,48 @@ object IndexSeekStrategy extends NodeStrategy {
   }
 }
 
+object IndexRangeSeekStrategy extends NodeStrategy {
+
+  def findRatedStartItems(node: String, where: Seq[Predicate], ctx: PlanContext, symbols: SymbolTable): Seq[RatedStartItem] = {
+    val labelPredicates: Seq[SolvedPredicate[LabelName]] = findLabelsForNode(node, where)
+    val boundsByProperty: Map[PropertyKey, Seq[RangeBound]] = findRangeBoundsOnProperty(node, where, symbols).groupBy(_.propertyKey)
+
+    for (
+      labelPredicate <- labelPredicates;
+      (propertyKey, bounds) <- boundsByProperty.toSeq if hasIndex(ctx, labelPredicate.solution, propertyKey)
+    ) yield {
+      val lower = bounds.collectFirst { case bound if bound.isLower => bound.bound }
+      val upper = bounds.collectFirst { case bound if !bound.isLower => bound.bound }
+      val schemaIndexRange = SchemaIndexRange(node, labelPredicate.solution, propertyKey, lower, upper)
+      val predicates = Seq.empty // The index may return values of other types, so the range predicates are not solved
+      RatedStartItem(schemaIndexRange, IndexRange, predicates)
+    }
+  }
+
+  private def hasIndex(ctx: PlanContext, label: LabelName, propertyKey: PropertyKey) =
+    ctx.getIndexRule(label, propertyKey).nonEmpty || ctx.getUniqueIndexRule(label, propertyKey).nonEmpty
+
+  private case class RangeBound(propertyKey: PropertyKey, isLower: Boolean, bound: Bound[Expression])
+
+  private def findRangeBoundsOnProperty(identifier: IdentifierName, where: Seq[Predicate], symbols: SymbolTable): Seq[RangeBound] = {
+    def computable(expression: Expression): Boolean = expression.symbolDependenciesMet(symbols)
+
+    where.collect {
+      // n.prop > value
+      case GreaterThan(Property(Identifier(id), key), expression) if id == identifier && computable(expression) => RangeBound(key.name, isLower = true, Bound(expression, inclusive = false))
+      case GreaterThanOrEqual(Property(Identifier(id), key), expression) if id == identifier && computable(expression) => RangeBound(key.name, isLower = true, Bound(expression, inclusive = true))
+      case LessThan(Property(Identifier(id), key), expression) if id == identifier && computable(expression) => RangeBound(key.name, isLower = false, Bound(expression, inclusive = false))
+      case LessThanOrEqual(Property(Identifier(id), key), expression) if id == identifier && computable(expression) => RangeBound(key.name, isLower = false, Bound(expression, inclusive = true))
+
+      // value < n.prop
+      case LessThan(expression, Property(Identifier(id), key)) if id == identifier && computable(expression) => RangeBound(key.name, isLower = true, Bound(expression, inclusive = false))
+      case LessThanOrEqual(expression, Property(Identifier(id), key)) if id == identifier && computable(expression) => RangeBound(key.name, isLower = true, Bound(expression, inclusive = true))
+      case GreaterThan(expression, Property(Identifier(id), key)) if id == identifier && computable(expression) => RangeBound(key.name, isLower = false, Bound(expression, inclusive = false))
+      case GreaterThanOrEqual(expression, Property(Identifier(id), key)) if id == identifier && computable(expression) => RangeBound(key.name, isLower = false, Bound(expression, inclusive = true))
+    }
+  }
+}
+
 object GlobalStrategy extends NodeStrategy {
   def findRatedStartItems(node: String, where: Seq[Predicate], ctx: PlanContext, symbols: SymbolTable): Seq[RatedStartItem] =
     Seq(RatedStartItem(AllNodes(node), Global, Seq.empty))
@@ -24,8 +24,12 @@ import symbols._
 
 case class AllNodesScanPipe(ident: String)(implicit pipeMonitor: PipeMonitor) extends Pipe {
 
-  protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] =
-    state.query.nodeOps.all.map(n => ExecutionContext.from(ident -> n))
+  private val identKey = new SlotKeyCache(ident)
+
+  protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
+    val key = identKey(state)
+    state.query.nodeOps.all.map(n => state.newExecutionContext(key, n))
+  }
 
   def exists(predicate: Pipe => Boolean): Boolean = predicate(this)
 
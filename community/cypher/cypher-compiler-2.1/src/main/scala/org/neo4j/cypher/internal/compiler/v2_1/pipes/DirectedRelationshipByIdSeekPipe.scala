@@ -30,7 +30,7 @@ case class DirectedRelationshipByIdSeekPipe(ident: String, relIdExpr: Seq[Expres
 
   protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
     val relIds = relIdExpr.flatMap(expr => Option(expr.apply(ExecutionContext.empty)(state)))
-    new IdSeekIterator[Relationship](ident, state.query.relationshipOps, relIds.iterator).map {
+    new IdSeekIterator[Relationship](ident, state.query.relationshipOps, relIds.iterator, state).map {
       ctx =>
         val r = ctx(ident)
         r match {
@@ -19,17 +19,16 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_1.pipes
 
-import aggregation.AggregationFunction
 import org.neo4j.cypher.internal.compiler.v2_1._
 import commands.expressions.{Expression, AggregationExpression}
 import data.SimpleVal
 import symbols._
-import collection.mutable.{Map => MutableMap}
 
 // Eager aggregation means that this pipe will eagerly load the whole resulting sub graphs before starting
 // to emit aggregated results.
 // Cypher is lazy until it can't - this pipe will eagerly load the full match
-case class EagerAggregationPipe(source: Pipe, keyExpressions: Map[String, Expression], aggregations: Map[String, AggregationExpression])
+case class EagerAggregationPipe(source: Pipe, keyExpressions: Map[String, Expression], aggregations: Map[String, AggregationExpression],
+                                maxGroupsInMemory: Int = HashAggregation.DEFAULT_MAX_GROUPS_IN_MEMORY)
                           (implicit pipeMonitor: PipeMonitor) extends PipeWithSource(source, pipeMonitor) {
   def oldKeyExpressions: Seq[Expression] = keyExpressions.values.toSeq
 
@@ -47,22 +46,9 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Map[String, Expres
   }
 
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState) = {
-    // This is the temporary storage used while the aggregation is going on
-    val result = MutableMap[NiceHasher, (ExecutionContext, Seq[AggregationFunction])]()
-    val keyNames: Seq[String] = keyExpressions.map(_._1).toSeq
-    val aggregationNames: Seq[String] = aggregations.map(_._1).toSeq
-
-    def createResults(key: NiceHasher, aggregator: scala.Seq[AggregationFunction], ctx: ExecutionContext): ExecutionContext = {
-      val newMap = MutableMaps.empty
-
-      //add key values
-      (keyNames zip key.original).foreach(newMap += _)
-
-      //add aggregated values
-      (aggregationNames zip aggregator.map(_.result)).foreach(newMap += _)
-
-      ctx.newFrom(newMap)
-    }
+    val keyNames: Array[String] = keyExpressions.keys.toArray
+    val aggregationNames: Array[String] = aggregations.keys.toArray
+    val aggregation = new HashAggregation(keyNames, aggregationNames, aggregations.values.toArray, maxGroupsInMemory, state)
 
     def createEmptyResult(params:Map[String,Any]): Iterator[ExecutionContext] = {
       val newMap = MutableMaps.empty
@@ -73,19 +59,12 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Map[String, Expres
       Iterator.single(ExecutionContext(newMap))
     }
 
-    input.foreach(ctx => {
-      val groupValues: NiceHasher = new NiceHasher(keyNames.map(ctx))
-      val aggregateFunctions: Seq[AggregationFunction] = aggregations.map(_._2.createAggregationFunction).toSeq
-      val (_, functions) = result.getOrElseUpdate(groupValues, (ctx, aggregateFunctions))
-      functions.foreach(func => func(ctx)(state))
-    })
+    input.foreach(aggregation.add)
 
-    if (result.isEmpty && keyNames.isEmpty) {
+    if (aggregation.isEmpty && keyNames.isEmpty) {
       createEmptyResult(state.params)
     } else {
-      result.map {
-        case (key, (ctx, aggregator)) => createResults(key, aggregator, ctx)
-      }.toIterator
+      aggregation.result()
     }
   }
 
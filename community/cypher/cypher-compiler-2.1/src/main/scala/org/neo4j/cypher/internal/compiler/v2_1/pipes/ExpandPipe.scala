@@ -26,25 +26,30 @@ import org.neo4j.graphdb.{Relationship, Direction, Node}
 
 case class ExpandPipe(source: Pipe, from: String, relName: String, to: String, dir: Direction, types: Seq[String])
                      (implicit pipeMonitor: PipeMonitor) extends PipeWithSource(source, pipeMonitor) {
-  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
-    input.flatMap {
-      row =>
-        getFromNode(row) match {
-          case n: Node =>
-            val relationships: Iterator[Relationship] = state.query.getRelationshipsFor(n, dir, types)
-            relationships.map {
-              case r => row.newWith(Seq(relName -> r, to -> r.getOtherNode(n)))
-            }
-
-          case null => None
-
-          case value => throw new InternalException(s"Expected to find a node at $from but found $value instead")
+  private val fromKey = new SlotKeyCache(from)
+  private val relKey = new SlotKeyCache(relName)
+  private val toKey = new SlotKeyCache(to)
+
+  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] =
+    input.flatMap(row => expand(row, state))
+
+  def expand(row: ExecutionContext, state: QueryState): Iterator[ExecutionContext] =
+    getFromNode(row, state) match {
+      case n: Node =>
+        val relationships: Iterator[Relationship] = state.query.getRelationshipsFor(n, dir, types)
+        val rel = relKey(state)
+        val other = toKey(state)
+        relationships.map {
+          case r => row.newWithKeys(rel, r, other, r.getOtherNode(n))
         }
+
+      case null => Iterator.empty
+
+      case value => throw new InternalException(s"Expected to find a node at $from but found $value instead")
     }
-  }
 
-  def getFromNode(row: ExecutionContext): Any =
-    row.getOrElse(from, throw new InternalException(s"Expected to find a node at $from but found nothing"))
+  def getFromNode(row: ExecutionContext, state: QueryState): Any =
+    row.getOrElse(fromKey(state), throw new InternalException(s"Expected to find a node at $from but found nothing"))
 
   def executionPlanDescription =
     source.executionPlanDescription.
@@ -0,0 +1,276 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_1.pipes
+
+import org.neo4j.cypher.internal.compiler.v2_1.{Comparer, ExecutionContext}
+import org.neo4j.cypher.InternalException
+import org.neo4j.graphdb.{Relationship, Node}
+import java.io._
+import java.util.{Arrays, Comparator, PriorityQueue}
+import scala.collection.mutable.ArrayBuffer
+
+/*
+A row together with the values it is sorted by. The values are extracted once, instead of being looked up in the row
+for every comparison. The sequence number is the position of the row in the input, and keeps the sort stable.
+*/
+final class SortEntry(val keys: Array[Any], val sequence: Long, val row: ExecutionContext)
+
+object SortEntry {
+  def apply(row: ExecutionContext, keyColumns: Array[String], sequence: Long): SortEntry = {
+    val keys = new Array[Any](keyColumns.length)
+    var i = 0
+    while (i < keys.length) {
+      keys(i) = row(keyColumns(i))
+      i += 1
+    }
+    new SortEntry(keys, sequence, row)
+  }
+}
+
+class SortEntryComparator(ascending: Array[Boolean])(implicit qtx: QueryState) extends Comparator[SortEntry] {
+  private val comparer = new Comparer {}
+
+  def compare(a: SortEntry, b: SortEntry): Int = {
+    var i = 0
+    while (i < ascending.length) {
+      val res = Integer.signum(comparer.compare(a.keys(i), b.keys(i)))
+      if (res != 0)
+        return if (ascending(i)) res else -res
+      i += 1
+    }
+    java.lang.Long.compare(a.sequence, b.sequence)
+  }
+}
+
+/*
+Sorts rows while keeping at most maxRowsInMemory of them in memory. When there are more, the rows in memory are sorted
+and spilled to a temporary file as a run, and the runs are merged as the result is read. No more than MAX_MERGE_WIDTH
+runs are read at a time, when there are more the oldest ones are first merged into a new run. Rows holding values that
+can not be written to a file, like paths or collections, are kept in memory regardless of the budget.
+
+The runs are files of the query's SpillFiles, so they are deleted when the query is closed even if the result is not
+read to the end.
+*/
+class ExternalSorter(keyColumns: Array[String], comparator: SortEntryComparator, maxRowsInMemory: Int, state: QueryState) {
+  import ExternalSorter._
+
+  private val buffer = new ArrayBuffer[SortEntry]
+  private val runs = new ArrayBuffer[Run]
+  private var sequence = 0L
+  private var spillable = true
+
+  def add(row: ExecutionContext) {
+    buffer += SortEntry(row, keyColumns, sequence)
+    sequence += 1
+    if (spillable && buffer.size >= maxRowsInMemory) {
+      spillable = buffer.forall(entry => SpilledRows.canWrite(entry.row))
+      if (spillable)
+        spill()
+    }
+  }
+
+  def result(): Iterator[ExecutionContext] = {
+    val inMemory = sorted()
+    if (runs.isEmpty)
+      inMemory.iterator.map(_.row)
+    else {
+      while (runs.size >= MAX_MERGE_WIDTH)
+        mergeOldestRuns()
+      new MergingIterator(runs.map(new RunReader(_)) :+ inMemory.iterator).map(_.row)
+    }
+  }
+
+  private def sorted(): Array[SortEntry] = {
+    val entries = buffer.toArray
+    buffer.clear()
+    Arrays.sort(entries, comparator)
+    entries
+  }
+
+  private def spill() {
+    val entries = sorted()
+    runs += writeRun(entries.iterator, entries.length)
+  }
+
+  private def mergeOldestRuns() {
+    val merged = runs.take(MAX_MERGE_WIDTH)
+    runs.remove(0, merged.size)
+    runs += writeRun(new MergingIterator(merged.map(new RunReader(_))), merged.map(_.size).sum)
+  }
+
+  private def writeRun(entries: Iterator[SortEntry], size: Int): Run = {
+    val files = state.spillFiles
+    val file = files.create("cypher-sort", ".run")
+    try {
+      val out = files.openOutput(file)
+      out.writeInt(size)
+      entries.foreach { entry =>
+        out.writeLong(entry.sequence)
+        SpilledRows.write(out, entry.row)
+      }
+      out.close()
+    } catch {
+      case e: IOException =>
+        files.delete(file)
+        throw new InternalException("Unable to spill sorted rows to " + file, e)
+    }
+    new Run(file, size)
+  }
+
+  private class RunReader(run: Run) extends Iterator[SortEntry] {
+    private val in = state.spillFiles.openInput(run.file)
+    private var remaining = in.readInt()
+
+    def hasNext = remaining > 0
+
+    def next(): SortEntry = {
+      if (!hasNext)
+        Iterator.empty.next()
+      try {
+        val sequence = in.readLong()
+        val entry = SortEntry(SpilledRows.read(in, state), keyColumns, sequence)
+        remaining -= 1
+        if (remaining == 0)
+          state.spillFiles.delete(run.file)
+        entry
+      } catch {
+        case e: IOException =>
+          state.spillFiles.delete(run.file)
+          throw new InternalException("Unable to read sorted rows from " + run.file, e)
+      }
+    }
+  }
+
+  private class MergingIterator(sources: Seq[Iterator[SortEntry]]) extends Iterator[SortEntry] {
+    private val heads = new PriorityQueue[(SortEntry, Iterator[SortEntry])](sources.size, new Comparator[(SortEntry, Iterator[SortEntry])] {
+      def compare(a: (SortEntry, Iterator[SortEntry]), b: (SortEntry, Iterator[SortEntry])) = comparator.compare(a._1, b._1)
+    })
+    sources.foreach(advance)
+
+    def hasNext = !heads.isEmpty
+
+    def next(): SortEntry = {
+      if (!hasNext)
+        Iterator.empty.next()
+      val (entry, source) = heads.poll()
+      advance(source)
+      entry
+    }
+
+    private def advance(source: Iterator[SortEntry]) {
+      if (source.hasNext)
+        heads.add((source.next(), source))
+    }
+  }
+}
+
+object ExternalSorter {
+  val MAX_MERGE_WIDTH = 64
+
+  private final class Run(val file: File, val size: Int)
+}
+
+/*
+Writes rows holding nothing but simple values, nodes and relationships, and reads them back. Nodes and relationships
+are written as their ids and looked up again when read.
+*/
+object SpilledRows {
+  private final val NULL = 0
+  private final val BOOLEAN = 1
+  private final val BYTE = 2
+  private final val SHORT = 3
+  private final val INT = 4
+  private final val LONG = 5
+  private final val FLOAT = 6
+  private final val DOUBLE = 7
+  private final val CHAR = 8
+  private final val STRING = 9
+  private final val NODE = 10
+  private final val RELATIONSHIP = 11
+
+  def canWrite(row: ExecutionContext): Boolean = row.forall {
+    case (_, value) => canWriteValue(value)
+  }
+
+  private def canWriteValue(value: Any): Boolean = value match {
+    case null | _: Boolean | _: Byte | _: Short | _: Int | _: Long | _: Float | _: Double | _: Char | _: String |
+         _: Node | _: Relationship => true
+    case _ => false
+  }
+
+  def write(out: DataOutput, row: ExecutionContext) {
+    out.writeInt(row.size)
+    row.foreach {
+      case (key, value) =>
+        out.writeUTF(key)
+        writeValue(out, value)
+    }
+  }
+
+  def read(in: DataInput, state: QueryState): ExecutionContext = {
+    val row = state.newExecutionContext()
+    var count = in.readInt()
+    while (count > 0) {
+      row += in.readUTF() -> readValue(in, state)
+      count -= 1
+    }
+    row
+  }
+
+  private def writeValue(out: DataOutput, value: Any) {
+    value match {
+      case null            => out.writeByte(NULL)
+      case v: Boolean      => out.writeByte(BOOLEAN); out.writeBoolean(v)
+      case v: Byte         => out.writeByte(BYTE); out.writeByte(v)
+      case v: Short        => out.writeByte(SHORT); out.writeShort(v)
+      case v: Int          => out.writeByte(INT); out.writeInt(v)
+      case v: Long         => out.writeByte(LONG); out.writeLong(v)
+      case v: Float        => out.writeByte(FLOAT); out.writeFloat(v)
+      case v: Double       => out.writeByte(DOUBLE); out.writeDouble(v)
+      case v: Char         => out.writeByte(CHAR); out.writeChar(v)
+      case v: String       => out.writeByte(STRING); out.writeInt(v.length); out.writeChars(v)
+      case v: Node         => out.writeByte(NODE); out.writeLong(v.getId)
+      case v: Relationship => out.writeByte(RELATIONSHIP); out.writeLong(v.getId)
+    }
+  }
+
+  private def readValue(in: DataInput, state: QueryState): Any = in.readByte().toInt match {
+    case NULL         => null
+    case BOOLEAN      => in.readBoolean()
+    case BYTE         => in.readByte()
+    case SHORT        => in.readShort()
+    case INT          => in.readInt()
+    case LONG         => in.readLong()
+    case FLOAT        => in.readFloat()
+    case DOUBLE       => in.readDouble()
+    case CHAR         => in.readChar()
+    case STRING       =>
+      val chars = new Array[Char](in.readInt())
+      var i = 0
+      while (i < chars.length) {
+        chars(i) = in.readChar()
+        i += 1
+      }
+      new String(chars)
+    case NODE         => state.query.nodeOps.getById(in.readLong())
+    case RELATIONSHIP => state.query.relationshipOps.getById(in.readLong())
+    case tag          => throw new InternalException("Unknown type of spilled value: " + tag)
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_1.pipes
+
+import org.neo4j.cypher.internal.compiler.v2_1.{PlanDescription, ExecutionContext}
+import org.neo4j.cypher.internal.compiler.v2_1.symbols.SymbolTable
+import scala.annotation.tailrec
+
+/*
+Runs a chain of streaming operators - filters, projections and expands - as one pipe. Rows are pushed through all of
+the operators in one loop, instead of being pulled through one iterator, decorator and monitor call per operator.
+
+The original pipes are kept, and are what describes the plan. They are also what runs when the query is profiled, so
+that rows and db hits are still reported per operator.
+
+This is fusion of interpreted pipes, not code generation: the operators still run their own expressions over boxed
+rows, one virtual call per operator and row, and no class is generated for the chain.
+*/
+case class FusedPipe(unfused: Pipe)(implicit pipeMonitor: PipeMonitor) extends Pipe {
+
+  private val (source: Pipe, operators: Array[Pipe]) = FusedPipe.split(unfused)
+
+  override def createResults(state: QueryState): Iterator[ExecutionContext] =
+    if (state.decorator eq NullPipeDecorator) super.createResults(state) else unfused.createResults(state)
+
+  protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] =
+    new FusedIterator(source.createResults(state), operators, state)
+
+  def exists(pred: Pipe => Boolean): Boolean = pred(this) || unfused.exists(pred)
+
+  def executionPlanDescription: PlanDescription = unfused.executionPlanDescription
+
+  def symbols: SymbolTable = unfused.symbols
+
+  override def sources: Seq[Pipe] = unfused.sources
+
+  override def monitor = pipeMonitor
+}
+
+object FusedPipe {
+  def canFuse(pipe: Pipe): Boolean = pipe match {
+    case _: FilterPipe        => true
+    case _: ProjectionNewPipe => true
+    case _: ExpandPipe        => true
+    case _                    => false
+  }
+
+  // Only chains of at least two operators are worth fusing, a single one runs just as well on its own
+  def fuse(pipe: Pipe)(implicit pipeMonitor: PipeMonitor): Pipe =
+    if (canFuse(pipe) && canFuse(sourceOf(pipe))) FusedPipe(pipe) else pipe
+
+  private def sourceOf(pipe: Pipe): Pipe = pipe.sources.head
+
+  private def split(pipe: Pipe): (Pipe, Array[Pipe]) = {
+    @tailrec
+    def collect(pipe: Pipe, operators: List[Pipe]): (Pipe, Array[Pipe]) =
+      if (canFuse(pipe)) collect(sourceOf(pipe), pipe :: operators)
+      else (pipe, operators.toArray)
+
+    collect(pipe, List.empty)
+  }
+}
+
+/*
+pending(i) holds the rows that still have to go through operator i and onwards, the last one holds rows that made it
+through all of them. Expanding a row sets up the rows for the next operator, and rows are always taken from the last
+operator that has any, which gives the same depth-first order as the nested pipes would.
+*/
+class FusedIterator(input: Iterator[ExecutionContext], operators: Array[Pipe], state: QueryState)
+  extends Iterator[ExecutionContext] {
+
+  private val pending = new Array[Iterator[ExecutionContext]](operators.length + 1)
+  pending(0) = input
+  private var nextRow: ExecutionContext = null
+
+  def hasNext: Boolean = {
+    if (nextRow == null)
+      nextRow = fetch()
+    nextRow != null
+  }
+
+  def next(): ExecutionContext = {
+    if (!hasNext)
+      Iterator.empty.next()
+    val row = nextRow
+    nextRow = null
+    row
+  }
+
+  private def fetch(): ExecutionContext = {
+    var level = operators.length
+    while (level >= 0) {
+      val rows = pending(level)
+      if (rows == null || !rows.hasNext) {
+        pending(level) = null
+        level -= 1
+      } else {
+        val row = push(rows.next(), level)
+        if (row != null)
+          return row
+        level = operators.length
+      }
+    }
+    null
+  }
+
+  // Returns the row if it made it through all operators, or null if it was filtered out or expanded
+  private def push(input: ExecutionContext, from: Int): ExecutionContext = {
+    var row = input
+    var i = from
+    while (i < operators.length) {
+      operators(i) match {
+        case filter: FilterPipe =>
+          if (!filter.predicate.isTrue(row)(state))
+            return null
+
+        case projection: ProjectionNewPipe =>
+          row = projection.project(row, state)
+
+        case expand: ExpandPipe =>
+          pending(i + 1) = expand.expand(row, state)
+          return null
+      }
+      i += 1
+    }
+    row
+  }
+}
@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_1.pipes
+
+import org.neo4j.cypher.internal.compiler.v2_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_1.commands.expressions.AggregationExpression
+import org.neo4j.cypher.internal.compiler.v2_1.pipes.aggregation.AggregationFunction
+import org.neo4j.cypher.InternalException
+import org.neo4j.collection.primitive.{PrimitiveLongObjectMap, Primitive}
+import org.neo4j.graphdb.Node
+import java.io._
+import scala.collection.mutable.{ArrayBuffer, HashMap => MutableHashMap}
+
+/*
+The key values of a group, together with the functions aggregating the rows of the group.
+*/
+final class AggregationGroup(val key: Array[Any], val functions: Array[AggregationFunction])
+
+/*
+Groups rows by the values of the key columns and aggregates every group. Groups on a single node or integer column are
+kept in a primitive map keyed by the node id or the integer, so no hasher is created per row; when a value of another
+type shows up, the groups are moved to a map keyed by NiceHasher.
+
+At most maxGroupsInMemory groups are kept in memory. Once that many exist, rows starting a new group are written to
+one of a few partition files, chosen by the hash of the key, and every partition is aggregated on its own when the
+result is read. Rows for groups already in memory keep being aggregated in memory. Rows holding values that can not
+be written to a file, like paths or collections, force the partitions back into memory. The partition files belong to
+the query's SpillFiles, so they are deleted when the query is closed even if the result is not read to the end.
+*/
+class HashAggregation(keyColumns: Array[String], aggregationColumns: Array[String],
+                      aggregations: Array[AggregationExpression], maxGroupsInMemory: Int, state: QueryState,
+                      depth: Int = 0) {
+  import HashAggregation._
+
+  private val groups = new ArrayBuffer[AggregationGroup]
+  private var keyKind = if (keyColumns.length == 1) UNDECIDED else GENERIC
+  private var primitiveGroups: PrimitiveLongObjectMap[AggregationGroup] =
+    if (keyKind == UNDECIDED) Primitive.longObjectMap[AggregationGroup]() else null
+  private var genericGroups: MutableHashMap[NiceHasher, AggregationGroup] =
+    if (keyKind == GENERIC) new MutableHashMap[NiceHasher, AggregationGroup] else null
+  private var partitions: Array[Partition] = null
+  private var spillable = depth < MAX_DEPTH
+  private var template: ExecutionContext = null
+
+  def isEmpty: Boolean = groups.isEmpty && partitions == null
+
+  def add(row: ExecutionContext) {
+    if (template == null)
+      template = row
+    if (partitions != null && !SpilledRows.canWrite(row))
+      unspill()
+
+    if (keyKind != GENERIC) {
+      val value = row(keyColumns(0))
+      if (keyKind == UNDECIDED)
+        keyKind = kindOf(value)
+      if (keyKind == NODE && value.isInstanceOf[Node])
+        addPrimitive(value.asInstanceOf[Node].getId, value, row)
+      else if (keyKind == LONG && value.isInstanceOf[java.lang.Long])
+        addPrimitive(value.asInstanceOf[Long], value, row)
+      else {
+        moveToGenericGroups()
+        addGeneric(row)
+      }
+    } else {
+      addGeneric(row)
+    }
+  }
+
+  def result(): Iterator[ExecutionContext] = {
+    val inMemoryGroups = if (keyKind == GENERIC) genericGroups.valuesIterator else groups.iterator
+    val inMemory = inMemoryGroups.map(createResult)
+    if (partitions == null) {
+      inMemory
+    } else {
+      val spilled = partitions
+      partitions = null
+      spilled.foreach(_.finish())
+      inMemory ++ spilled.iterator.flatMap(aggregatePartition)
+    }
+  }
+
+  private def addPrimitive(id: Long, value: Any, row: ExecutionContext) {
+    val group = primitiveGroups.get(id)
+    if (group != null)
+      aggregate(group, row)
+    else if (!spilled(row, (id ^ (id >>> 32)).toInt)) {
+      val created = createGroup(Array(value))
+      primitiveGroups.put(id, created)
+      aggregate(created, row)
+    }
+  }
+
+  private def addGeneric(row: ExecutionContext) {
+    val key = new NiceHasher(keyColumns.map(row))
+    genericGroups.get(key) match {
+      case Some(group) =>
+        aggregate(group, row)
+      case None if !spilled(row, key.hashCode()) =>
+        val created = createGroup(key.original.toArray)
+        genericGroups.put(key, created)
+        aggregate(created, row)
+      case _ =>
+    }
+  }
+
+  private def createGroup(key: Array[Any]): AggregationGroup = {
+    val functions = new Array[AggregationFunction](aggregations.length)
+    var i = 0
+    while (i < functions.length) {
+      functions(i) = aggregations(i).createAggregationFunction
+      i += 1
+    }
+    val group = new AggregationGroup(key, functions)
+    groups += group
+    group
+  }
+
+  private def aggregate(group: AggregationGroup, row: ExecutionContext) {
+    val functions = group.functions
+    var i = 0
+    while (i < functions.length) {
+      functions(i)(row)(state)
+      i += 1
+    }
+  }
+
+  private def moveToGenericGroups() {
+    keyKind = GENERIC
+    primitiveGroups = null
+    genericGroups = new MutableHashMap[NiceHasher, AggregationGroup]
+    groups.foreach(group => genericGroups.put(new NiceHasher(group.key), group))
+  }
+
+  /*
+  Writes the row to its partition if it starts a new group and the budget is used up. Returns false when the row
+  should start a new group in memory instead.
+  */
+  private def spilled(row: ExecutionContext, hash: Int): Boolean = {
+    if (partitions == null) {
+      if (!spillable || groups.size < maxGroupsInMemory || !SpilledRows.canWrite(row))
+        return false
+      partitions = Array.fill(PARTITIONS)(new Partition)
+    }
+    partitions(partitionOf(hash)).write(row)
+    true
+  }
+
+  private def unspill() {
+    val spilled = partitions
+    partitions = null
+    spillable = false
+    spilled.foreach(_.finish())
+    spilled.foreach(_.rows().foreach(add))
+  }
+
+  private def partitionOf(hash: Int): Int = {
+    val mixed = hash * 0x9E3779B97F4A7C15L
+    ((mixed >>> (60 - PARTITION_BITS * depth)) & (PARTITIONS - 1)).toInt
+  }
+
+  private def aggregatePartition(partition: Partition): Iterator[ExecutionContext] = {
+    val aggregation = new HashAggregation(keyColumns, aggregationColumns, aggregations, maxGroupsInMemory, state, depth + 1)
+    aggregation.template = template
+    partition.rows().foreach(aggregation.add)
+    aggregation.result()
+  }
+
+  private def createResult(group: AggregationGroup): ExecutionContext = {
+    val newMap = MutableMaps.empty
+    var i = 0
+    while (i < keyColumns.length) {
+      newMap += keyColumns(i) -> group.key(i)
+      i += 1
+    }
+    i = 0
+    while (i < aggregationColumns.length) {
+      newMap += aggregationColumns(i) -> group.functions(i).result
+      i += 1
+    }
+    template.newFrom(newMap)
+  }
+
+  private class Partition {
+    private val file = state.spillFiles.create("cypher-aggregation", ".partition")
+    private val out = state.spillFiles.openOutput(file)
+    private var rowCount = 0
+
+    def write(row: ExecutionContext) {
+      try {
+        SpilledRows.write(out, row)
+        rowCount += 1
+      } catch {
+        case e: IOException =>
+          state.spillFiles.delete(file)
+          throw new InternalException("Unable to spill aggregated rows to " + file, e)
+      }
+    }
+
+    def finish() {
+      out.close()
+    }
+
+    def rows(): Iterator[ExecutionContext] = new Iterator[ExecutionContext] {
+      private val in = state.spillFiles.openInput(file)
+      private var remaining = rowCount
+      if (remaining == 0)
+        close()
+
+      def hasNext = remaining > 0
+
+      def next(): ExecutionContext = {
+        if (!hasNext)
+          Iterator.empty.next()
+        try {
+          val row = SpilledRows.read(in, state)
+          remaining -= 1
+          if (remaining == 0)
+            close()
+          row
+        } catch {
+          case e: IOException =>
+            close()
+            throw new InternalException("Unable to read aggregated rows from " + file, e)
+        }
+      }
+
+      private def close() {
+        state.spillFiles.delete(file)
+      }
+    }
+  }
+}
+
+object HashAggregation {
+  val DEFAULT_MAX_GROUPS_IN_MEMORY = 100000
+
+  private final val UNDECIDED = 0
+  private final val NODE = 1
+  private final val LONG = 2
+  private final val GENERIC = 3
+
+  private final val PARTITION_BITS = 4
+  private final val PARTITIONS = 1 << PARTITION_BITS
+  private final val MAX_DEPTH = 3
+
+  private def kindOf(value: Any): Int = value match {
+    case _: Node => NODE
+    case _: Long => LONG
+    case _ => GENERIC
+  }
+}
@@ -25,7 +25,7 @@ import org.neo4j.cypher.internal.compiler.v2_1.ExecutionContext
 import org.neo4j.cypher.internal.compiler.v2_1.commands.expressions.NumericHelper
 import org.neo4j.cypher.EntityNotFoundException
 
-class IdSeekIterator[T <: PropertyContainer](ident: String, operations: Operations[T], nodeIds: Iterator[Any])
+class IdSeekIterator[T <: PropertyContainer](ident: String, operations: Operations[T], nodeIds: Iterator[Any], state: QueryState)
   extends Iterator[ExecutionContext] with NumericHelper {
 
   private var cached = cacheNext()
@@ -35,7 +35,7 @@ class IdSeekIterator[T <: PropertyContainer](ident: String, operations: Operatio
   def next() = cached match {
     case Some(result) =>
       cached = cacheNext()
-      ExecutionContext.from(ident -> result)
+      state.newExecutionContext(ident -> result)
     case None =>
       Iterator.empty.next
   }
@@ -29,7 +29,7 @@ case class NodeByIdSeekPipe(ident: String, nodeIdsExpr: Seq[Expression])(implici
 
   protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
     val nodeIds = nodeIdsExpr.map(_.apply(ExecutionContext.empty)(state))
-    new IdSeekIterator[Node](ident, state.query.nodeOps, nodeIds.iterator)
+    new IdSeekIterator[Node](ident, state.query.nodeOps, nodeIds.iterator, state)
   }
 
   def exists(predicate: Pipe => Boolean): Boolean = predicate(this)
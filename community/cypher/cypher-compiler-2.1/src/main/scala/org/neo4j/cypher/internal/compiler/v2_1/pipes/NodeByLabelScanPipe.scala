@@ -26,6 +26,8 @@ import org.neo4j.cypher.internal.compiler.v2_1.symbols.SymbolTable
 
 case class NodeByLabelScanPipe(ident: String, label: Either[String, LabelId])(implicit pipeMonitor: PipeMonitor) extends Pipe {
 
+  private val identKey = new SlotKeyCache(ident)
+
   protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
     val optLabelId = label match {
       case Left(str)      => state.query.getOptLabelId(str).map(LabelId)
@@ -35,7 +37,8 @@ case class NodeByLabelScanPipe(ident: String, label: Either[String, LabelId])(im
     optLabelId match {
       case Some(labelId) =>
         val nodes = state.query.getNodesByLabel(labelId.id)
-        nodes.map(n => ExecutionContext.from(ident -> n))
+        val key = identKey(state)
+        nodes.map(n => state.newExecutionContext(key, n))
       case None =>
         Iterator.empty
     }
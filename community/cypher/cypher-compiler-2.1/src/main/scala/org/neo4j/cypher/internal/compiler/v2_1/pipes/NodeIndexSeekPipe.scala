@@ -43,7 +43,7 @@ case class NodeIndexSeekPipe(ident: String, label: Either[String, LabelId], prop
         val descriptor = new IndexDescriptor(labelId.id, propertyKeyId.id)
         val value = valueExpr(ExecutionContext.empty)(state)
         val iterator = state.query.exactIndexSearch(descriptor, value)
-        iterator.map(node => ExecutionContext.from(ident -> node))
+        iterator.map(node => state.newExecutionContext(ident -> node))
       }
       case _ => Iterator.empty
     }
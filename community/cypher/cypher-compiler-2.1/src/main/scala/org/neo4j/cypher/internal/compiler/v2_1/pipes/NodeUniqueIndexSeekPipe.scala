@@ -46,7 +46,7 @@ case class NodeUniqueIndexSeekPipe(ident: String,
         val descriptor = new IndexDescriptor(labelId.id, propertyKeyId.id)
         val value = valueExpr(ExecutionContext.empty)(state)
         state.query.exactUniqueIndexSearch(descriptor, value) match {
-          case Some(node) => Iterator(ExecutionContext.from(ident -> node))
+          case Some(node) => Iterator(state.newExecutionContext(ident -> node))
           case _          => Iterator.empty
         }
       }
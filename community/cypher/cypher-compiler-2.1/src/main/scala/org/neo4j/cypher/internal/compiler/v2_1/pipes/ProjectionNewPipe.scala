@@ -34,18 +34,25 @@ case class ProjectionNewPipe(source: Pipe, expressions: Map[String, Expression])
     source.symbols.add(newIdentifiers)
   }
 
+  private val projections: Array[(SlotKeyCache, Expression)] = expressions.toArray.map {
+    case (name, expression) => new SlotKeyCache(name) -> expression
+  }
+
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState) =
-    input.map {
-      original =>
-        val projection = ExecutionContext.empty
-        expressions.foreach {
-          case (name, expression) =>
-            projection += name -> expression(original)(state)
-        }
-
-        projection
+    input.map(original => project(original, state))
+
+  def project(original: ExecutionContext, state: QueryState): ExecutionContext = {
+    val projection = state.newExecutionContext()
+    var i = 0
+    while (i < projections.length) {
+      val (key, expression) = projections(i)
+      projection(key(state)) = expression(original)(state)
+      i += 1
     }
 
+    projection
+  }
+
   override def executionPlanDescription =
     source.executionPlanDescription
       .andThen(this, "Projection",
@@ -31,11 +31,26 @@ case class QueryState(db: GraphDatabaseService,
                       resources: ExternalResource,
                       params: Map[String, Any],
                       decorator: PipeDecorator,
+                      spillFiles: SpillFiles,
                       timeReader: TimeReader = new TimeReader,
                       var initialContext: Option[ExecutionContext] = None,
-                      queryId: AnyRef = UUID.randomUUID().toString) {
+                      queryId: AnyRef = UUID.randomUUID().toString,
+                      slots: Option[Slots] = None) {
   def readTimeStamp(): Long = timeReader.getTime
 
+  def newExecutionContext(): ExecutionContext = slots match {
+    case Some(s) => ExecutionContext(s.newRow)
+    case None    => ExecutionContext.empty
+  }
+
+  def newExecutionContext(entry: (String, Any)): ExecutionContext = newExecutionContext() += entry
+
+  def newExecutionContext(key: SlotKey, value: Any): ExecutionContext = {
+    val row = newExecutionContext()
+    row(key) = value
+    row
+  }
+
   def graphDatabaseAPI: GraphDatabaseAPI = db match {
     case i: GraphDatabaseAPI => i
     case _                   => throw new IllegalStateException("Graph database does not implement GraphDatabaseAPI")
@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_1.pipes
+
+import scala.collection.mutable
+
+/*
+Slots assign every identifier of a query a fixed index when the query is planned. Rows created from them store their
+values in a flat array, so that looking up or adding a value does not have to hash into, or copy, a map of its own.
+*/
+final class Slots(identifiers: Iterable[String]) {
+  private val names: Array[String] = identifiers.toArray.distinct
+  private val slotFor = new java.util.HashMap[String, Integer](names.length * 2)
+
+  for (slot <- 0 until names.length)
+    slotFor.put(names(slot), slot)
+
+  def size: Int = names.length
+
+  def slotOf(identifier: String): Int = {
+    val slot = slotFor.get(identifier)
+    if (slot == null) -1 else slot.intValue()
+  }
+
+  def identifierAt(slot: Int): String = names(slot)
+
+  def newRow: SlottedMap = new SlottedMap(this)
+
+  override def toString = names.mkString("Slots(", ", ", ")")
+}
+
+/*
+An identifier resolved against the slots of a query. Rows backed by the same slots are read and written through the
+slot, any other row by name.
+*/
+final class SlotKey(val name: String, val slots: Slots) {
+  val slot: Int = if (slots == null) -1 else slots.slotOf(name)
+
+  def isSlotIn(row: SlottedMap): Boolean = slot >= 0 && (row.slots eq slots)
+}
+
+/*
+Gives the pipes and expressions of a plan their SlotKeys. Plans are cached and run many times with the same slots, so
+the identifier is looked up when the plan first runs, not for every row.
+*/
+final class SlotKeyCache(name: String) {
+  @volatile private var key: SlotKey = null
+
+  def apply(state: QueryState): SlotKey = {
+    val slots = state.slots.orNull
+    val cached = key
+    if (cached != null && (cached.slots eq slots))
+      cached
+    else {
+      val resolved = new SlotKey(name, slots)
+      key = resolved
+      resolved
+    }
+  }
+}
+
+/*
+A row backed by Slots. Identifiers that were not known when the slots were assigned still work, they end up in an
+overflow map that is only created when needed.
+*/
+final class SlottedMap private(val slots: Slots, private val slotValues: Array[Any], private var overflow: mutable.Map[String, Any])
+  extends mutable.Map[String, Any] {
+
+  def this(slots: Slots) = this(slots, SlottedMap.emptyValues(slots.size), null)
+
+  def get(key: String): Option[Any] = {
+    val slot = slots.slotOf(key)
+    if (slot >= 0) {
+      val value = slotValues(slot)
+      if (SlottedMap.isAbsent(value)) None else Some(value)
+    }
+    else if (overflow == null) None
+    else overflow.get(key)
+  }
+
+  override def apply(key: String): Any = {
+    val slot = slots.slotOf(key)
+    if (slot >= 0) {
+      val value = slotValues(slot)
+      if (SlottedMap.isAbsent(value)) default(key) else value
+    }
+    else if (overflow == null) default(key)
+    else overflow.getOrElse(key, default(key))
+  }
+
+  override def contains(key: String): Boolean = {
+    val slot = slots.slotOf(key)
+    if (slot >= 0) !SlottedMap.isAbsent(slotValues(slot))
+    else overflow != null && overflow.contains(key)
+  }
+
+  def getOrElse(key: SlotKey, default: => Any): Any =
+    if (key.isSlotIn(this)) {
+      val value = slotValues(key.slot)
+      if (SlottedMap.isAbsent(value)) default else value
+    }
+    else getOrElse(key.name, default)
+
+  def update(key: SlotKey, value: Any) {
+    if (key.isSlotIn(this))
+      slotValues(key.slot) = value
+    else
+      update(key.name, value)
+  }
+
+  def +=(kv: (String, Any)): this.type = {
+    update(kv._1, kv._2)
+    this
+  }
+
+  override def update(key: String, value: Any) {
+    val slot = slots.slotOf(key)
+    if (slot >= 0)
+      slotValues(slot) = value
+    else {
+      if (overflow == null)
+        overflow = MutableMaps.empty
+      overflow.update(key, value)
+    }
+  }
+
+  def -=(key: String): this.type = {
+    val slot = slots.slotOf(key)
+    if (slot >= 0)
+      slotValues(slot) = SlottedMap.Absent
+    else if (overflow != null)
+      overflow -= key
+    this
+  }
+
+  override def ++=(entries: TraversableOnce[(String, Any)]): this.type = entries match {
+    case other: SlottedMap if other.slots eq slots =>
+      var slot = 0
+      while (slot < slotValues.length) {
+        val value = other.slotValues(slot)
+        if (!SlottedMap.isAbsent(value))
+          slotValues(slot) = value
+        slot += 1
+      }
+      if (other.overflow != null)
+        other.overflow.foreach(this += _)
+      this
+
+    case _ =>
+      super.++=(entries)
+  }
+
+  def iterator: Iterator[(String, Any)] = {
+    val slotted = (0 until slotValues.length).iterator.collect {
+      case slot if !SlottedMap.isAbsent(slotValues(slot)) => slots.identifierAt(slot) -> slotValues(slot)
+    }
+    if (overflow == null) slotted else slotted ++ overflow.iterator
+  }
+
+  override def size: Int = {
+    var count = if (overflow == null) 0 else overflow.size
+    var slot = 0
+    while (slot < slotValues.length) {
+      if (!SlottedMap.isAbsent(slotValues(slot)))
+        count += 1
+      slot += 1
+    }
+    count
+  }
+
+  override def empty: SlottedMap = new SlottedMap(slots)
+
+  override def clone(): SlottedMap =
+    new SlottedMap(slots, slotValues.clone(), if (overflow == null) null else MutableMaps.create(overflow))
+}
+
+object SlottedMap {
+  private object Absent
+
+  private def isAbsent(value: Any) = value.asInstanceOf[AnyRef] eq Absent
+
+  private def emptyValues(size: Int): Array[Any] = {
+    val values = new Array[Any](size)
+    java.util.Arrays.fill(values.asInstanceOf[Array[AnyRef]], Absent)
+    values
+  }
+}
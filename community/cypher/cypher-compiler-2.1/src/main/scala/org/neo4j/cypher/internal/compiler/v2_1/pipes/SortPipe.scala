@@ -19,7 +19,7 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_1.pipes
 
-import org.neo4j.cypher.internal.compiler.v2_1.{Comparer, ExecutionContext}
+import org.neo4j.cypher.internal.compiler.v2_1.ExecutionContext
 
 trait SortDescription {
   def id: String
@@ -27,29 +27,24 @@ trait SortDescription {
 case class Ascending(id:String) extends SortDescription
 case class Descending(id:String) extends SortDescription
 
-case class SortPipe(source: Pipe, orderBy: Seq[SortDescription])(implicit monitor: PipeMonitor)
-  extends PipeWithSource(source, monitor) with Comparer {
-  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] =
-    input.toList.
-      sortWith((a, b) => compareBy(a, b, orderBy)(state)).iterator
+case class SortPipe(source: Pipe, orderBy: Seq[SortDescription], maxRowsInMemory: Int = SortPipe.DEFAULT_MAX_ROWS_IN_MEMORY)
+                   (implicit monitor: PipeMonitor) extends PipeWithSource(source, monitor) {
+  private val keyColumns: Array[String] = orderBy.map(_.id).toArray
+  private val ascending: Array[Boolean] = orderBy.map(_.isInstanceOf[Ascending]).toArray
+
+  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
+    val sorter = new ExternalSorter(keyColumns, new SortEntryComparator(ascending)(state), maxRowsInMemory, state)
+    input.foreach(sorter.add)
+    sorter.result()
+  }
 
   def executionPlanDescription = source.executionPlanDescription.andThen(this, "Sort", "descr" -> orderBy)
 
   def symbols = source.symbols
 
   override def isLazy = false
+}
 
-  private def compareBy(a: ExecutionContext, b: ExecutionContext, order: Seq[SortDescription])(implicit qtx: QueryState): Boolean = order match {
-    case Nil => false
-    case sort :: tail =>
-      val column = sort.id
-      val aVal = a(column)
-      val bVal = b(column)
-
-      Math.signum(compare(aVal, bVal)) match {
-        case 1 => sort.isInstanceOf[Descending]
-        case -1 => sort.isInstanceOf[Ascending]
-        case 0 => compareBy(a, b, tail)
-      }
-  }
+object SortPipe {
+  val DEFAULT_MAX_ROWS_IN_MEMORY = 100000
 }
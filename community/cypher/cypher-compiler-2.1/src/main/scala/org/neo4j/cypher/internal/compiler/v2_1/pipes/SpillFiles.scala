@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_1.pipes
+
+import org.neo4j.cypher.internal.compiler.v2_1.TaskCloser
+import java.io._
+import scala.collection.mutable
+
+/*
+The temporary files a query spills rows to, and the streams open on them. A pipe deletes its files once it has read
+them back. Whatever is left when the query is closed, because its results were not read to the end or it failed, is
+closed and deleted then.
+*/
+class SpillFiles(closer: TaskCloser, directory: File = null) {
+  private val files = new mutable.LinkedHashMap[File, List[Closeable]]
+  private var registered = false
+
+  def create(prefix: String, suffix: String): File = synchronized {
+    if (!registered) {
+      registered = true
+      closer.addTask(_ => deleteAll())
+    }
+    val file = File.createTempFile(prefix, suffix, directory)
+    files(file) = Nil
+    file
+  }
+
+  def openOutput(file: File): DataOutputStream =
+    track(file, new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+
+  def openInput(file: File): DataInputStream =
+    track(file, new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+
+  def delete(file: File) {
+    val streams = synchronized(files.remove(file))
+    streams.foreach(_.foreach(closeQuietly))
+    file.delete()
+  }
+
+  private def track[T <: Closeable](file: File, stream: T): T = synchronized {
+    files(file) = stream :: files.getOrElse(file, Nil)
+    stream
+  }
+
+  private def deleteAll() {
+    synchronized(files.keys.toList).foreach(delete)
+  }
+
+  private def closeQuietly(stream: Closeable) {
+    try {
+      stream.close()
+    } catch {
+      case _: IOException =>
+    }
+  }
+}
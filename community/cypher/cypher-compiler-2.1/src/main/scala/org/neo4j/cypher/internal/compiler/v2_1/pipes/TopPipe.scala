@@ -24,44 +24,29 @@ import commands.SortItem
 import commands.expressions.Expression
 import data.SimpleVal
 
-import scala.math._
-import java.util.Comparator
+import java.util.{Arrays, Collections, PriorityQueue}
 
 /*
  * TopPipe is used when a query does a ORDER BY ... LIMIT query. Instead of ordering the whole result set and then
- * returning the matching top results, we only keep the top results in heap, which allows us to release memory earlier
+ * returning the matching top results, we only keep the top results in heap, which allows us to release memory earlier.
+ * They are kept in a bounded heap with the worst of them on top, so every other row is compared to that one only.
  */
 case class TopPipe(source: Pipe, sortDescription: List[SortItem], countExpression: Expression)
-             (implicit pipeMonitor: PipeMonitor) extends PipeWithSource(source, pipeMonitor) with Comparer {
+             (implicit pipeMonitor: PipeMonitor) extends PipeWithSource(source, pipeMonitor) {
 
   val sortItems = sortDescription.toArray
-  val sortItemsCount = sortItems.size
-
-  type SortDataWithContext = (Array[Any],ExecutionContext)
-
-  class LessThanComparator(comparer: Comparer)(implicit qtx : QueryState) extends Ordering[SortDataWithContext] {
-    override def compare(a: SortDataWithContext, b: SortDataWithContext): Int = {
-      val v1 = a._1
-      val v2 = b._1
-      var i = 0
-      while (i < sortItemsCount) {
-        val res = signum(comparer.compare(v1(i), v2(i)))
-        if (res != 0) {
-          val sortItem = sortItems(i)
-          return if (sortItem.ascending) res else -res
-        }
-        i += 1
-      }
-      0
+  private val ascending: Array[Boolean] = sortItems.map(_.ascending)
+
+  def sortEntry(ctx: ExecutionContext, sequence: Long)(implicit qtx: QueryState): SortEntry = {
+    val keys = new Array[Any](sortItems.length)
+    var i = 0
+    while (i < keys.length) {
+      keys(i) = sortItems(i)(ctx)
+      i += 1
     }
+    new SortEntry(keys, sequence, ctx)
   }
 
-  def binarySearch(array: Array[SortDataWithContext], comparator: Comparator[SortDataWithContext])(key: SortDataWithContext) = {
-    java.util.Arrays.binarySearch(array.asInstanceOf[Array[SortDataWithContext]],key, comparator)
-  }
-
-  def arrayEntry(ctx : ExecutionContext)(implicit qtx : QueryState) : SortDataWithContext = (sortItems.map(_(ctx)),ctx)
-
   protected def internalCreateResults(input:Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
     implicit val s = state
     if (input.isEmpty)
@@ -69,39 +54,31 @@ case class TopPipe(source: Pipe, sortDescription: List[SortItem], countExpressio
     else if (sortDescription.isEmpty)
       input
     else {
-
-      val lessThan = new LessThanComparator(this)
-
       val first = input.next()
       val count = countExpression(first).asInstanceOf[Number].intValue()
-      var result = new Array[SortDataWithContext](count)
-      result(0) = arrayEntry(first)
-      var last : Int = 0
-
-      while ( last < count - 1 && input.hasNext ) {
-        last += 1
-        result(last) = arrayEntry(input.next())
-      }
-
-      if (input.isEmpty) {
-        result.slice(0,last + 1).sorted(lessThan).iterator.map(_._2)
-      } else {
-        result = result.sorted(lessThan)
+      if (count <= 0)
+        Iterator.empty
+      else {
+        val lessThan = new SortEntryComparator(ascending)
+        val worstFirst = new PriorityQueue[SortEntry](count, Collections.reverseOrder(lessThan))
+        worstFirst.add(sortEntry(first, 0))
+        var sequence = 1L
 
-        val search = binarySearch(result, lessThan) _
         input.foreach {
           ctx =>
-            val next = arrayEntry(ctx)
-            if (lessThan.compare(next, result(last)) < 0) {
-              val idx = search(next)
-              val insertPosition = if (idx < 0 )  - idx - 1 else idx + 1
-              if (insertPosition >= 0 && insertPosition < count) {
-                Array.copy(result, insertPosition, result, insertPosition + 1, count - insertPosition - 1)
-                result(insertPosition) = next
-              }
+            val next = sortEntry(ctx, sequence)
+            sequence += 1
+            if (worstFirst.size < count)
+              worstFirst.add(next)
+            else if (lessThan.compare(next, worstFirst.peek()) < 0) {
+              worstFirst.poll()
+              worstFirst.add(next)
             }
         }
-        result.toIterator.map(_._2)
+
+        val result = worstFirst.toArray(new Array[SortEntry](worstFirst.size))
+        Arrays.sort(result, lessThan)
+        result.iterator.map(_.row)
       }
     }
   }
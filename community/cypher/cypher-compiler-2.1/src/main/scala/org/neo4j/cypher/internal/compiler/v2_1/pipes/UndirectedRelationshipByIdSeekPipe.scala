@@ -31,7 +31,7 @@ case class UndirectedRelationshipByIdSeekPipe(ident: String, relIdExpr: Seq[Expr
 
   protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
     val relIds = relIdExpr.flatMap(expr => Option(expr.apply(ExecutionContext.empty)(state)))
-    new IdSeekIterator[Relationship](ident, state.query.relationshipOps, relIds.iterator).flatMap {
+    new IdSeekIterator[Relationship](ident, state.query.relationshipOps, relIds.iterator, state).flatMap {
       ctx =>
         val r = ctx(ident) match {
           case r: Relationship => r
@@ -24,39 +24,124 @@ import org.neo4j.cypher.internal.compiler.v2_1.ExecutionContext
 import org.neo4j.cypher.InternalException
 import org.neo4j.cypher.internal.compiler.v2_1.symbols._
 import scala.collection.mutable
+import scala.collection.mutable.ArrayBuffer
+import org.neo4j.collection.primitive.Primitive
 
+/*
+When distinctEndNodes is set, the relationships are not bound and only the distinct reachable nodes matter, so instead
+of enumerating every path the pipe visits the graph breadth first and yields every node reachable from a start node
+once. This is only correct when reaching a node again can not make it an end node when it was not one before, which
+holds for a minimum length of zero, or for a minimum length of one when the direction is not BOTH.
+*/
 case class VarLengthExpandPipe(source: Pipe, fromName: String, relName: String, toName: String, dir: Direction,
-                               types: Seq[String], min: Int, max: Option[Int])(implicit pipeMonitor: PipeMonitor)
+                               types: Seq[String], min: Int, max: Option[Int], distinctEndNodes: Boolean = false)
+                              (implicit pipeMonitor: PipeMonitor)
   extends PipeWithSource(source, pipeMonitor) {
 
+  // The relationships of a path are kept in reverse, so that branches share the relationships they have in common
+  private final class PathState(val node: Node, val rels: List[Relationship], val length: Int)
+
   private def varLengthExpand(node: Node, state: QueryState, maxDepth: Option[Int]): Iterator[(Node, Seq[Relationship])] = {
-    val stack = new mutable.Stack[(Node, Seq[Relationship])]
-    stack.push((node, Seq.empty))
+    val stack = new mutable.Stack[PathState]
+    val maxLength = maxDepth.getOrElse(Int.MaxValue)
+    stack.push(new PathState(node, Nil, 0))
 
     new Iterator[(Node, Seq[Relationship])] {
       def next(): (Node, Seq[Relationship]) = {
-        val (node, rels) = stack.pop()
-        if (rels.length < maxDepth.getOrElse(Int.MaxValue)) {
-          val relationships: Iterator[Relationship] = state.query.getRelationshipsFor(node, dir, types)
+        val path = stack.pop()
+        if (path.length < maxLength) {
+          val relationships: Iterator[Relationship] = state.query.getRelationshipsFor(path.node, dir, types)
           relationships.foreach { rel =>
-            val otherNode = rel.getOtherNode(node)
-            if (!rels.contains(rel)) {
-              stack.push((otherNode, rels :+ rel))
+            val otherNode = rel.getOtherNode(path.node)
+            if (!hasRelationship(path.rels, rel.getId)) {
+              stack.push(new PathState(otherNode, rel :: path.rels, path.length + 1))
             }
           }
         }
-        (node, rels)
+        (path.node, path.rels.reverse)
       }
 
       def hasNext: Boolean = stack.nonEmpty
     }
   }
 
+  private def hasRelationship(rels: List[Relationship], id: Long): Boolean = {
+    var remaining = rels
+    while (remaining.nonEmpty) {
+      if (remaining.head.getId == id)
+        return true
+      remaining = remaining.tail
+    }
+    false
+  }
+
+  private def reachableNodes(start: Node, state: QueryState, minDepth: Int, maxDepth: Option[Int]): Iterator[Node] = new Iterator[Node] {
+    private val maxLength = maxDepth.getOrElse(Int.MaxValue)
+    private val startId = start.getId
+    private val visited = Primitive.longSet()
+    private var frontier = ArrayBuffer(start)
+    private var nextFrontier = new ArrayBuffer[Node]
+    private var position = 0
+    private var depth = 0
+    private var current: Node = null
+    private var relationships: Iterator[Relationship] = Iterator.empty
+    private var nextNode: Node = null
+
+    if (minDepth == 0) {
+      visited.add(startId)
+      nextNode = start
+    }
+
+    def hasNext: Boolean = {
+      if (nextNode == null)
+        nextNode = fetchNext()
+      nextNode != null
+    }
+
+    def next(): Node = {
+      if (!hasNext)
+        Iterator.empty.next()
+      val node = nextNode
+      nextNode = null
+      node
+    }
+
+    private def fetchNext(): Node = {
+      while (true) {
+        while (relationships.hasNext) {
+          val otherNode = relationships.next().getOtherNode(current)
+          if (visited.add(otherNode.getId)) {
+            if (otherNode.getId != startId)
+              nextFrontier += otherNode
+            return otherNode
+          }
+        }
+
+        if (depth < maxLength && position < frontier.size) {
+          current = frontier(position)
+          position += 1
+          relationships = state.query.getRelationshipsFor(current, dir, types)
+        } else if (depth < maxLength && nextFrontier.nonEmpty) {
+          frontier = nextFrontier
+          nextFrontier = new ArrayBuffer[Node]
+          position = 0
+          depth += 1
+        } else {
+          return null
+        }
+      }
+      null
+    }
+  }
+
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
     input.flatMap {
       row => {
         val fromNode: Any = getFromNode(row)
         fromNode match {
+          case n: Node if distinctEndNodes =>
+            reachableNodes(n, state, min, max).map(node => row.newWith(toName -> node))
+
           case n: Node =>
             val paths = varLengthExpand(n, state, max)
             paths.collect {
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_1.pipes
+
+import org.neo4j.cypher.internal.compiler.v2_1.Bound
+import org.neo4j.cypher.internal.compiler.v2_1.spi.QueryContext
+import org.neo4j.graphdb.Node
+import org.neo4j.kernel.api.index.IndexDescriptor
+
+/*
+Finds the nodes in an index with values inside a range. Indexes only know how to seek ranges of numbers or
+strings, so for other bounds all nodes with the label are returned, and the range predicates that are still
+applied on top take care of the rest.
+ */
+object indexRangeSeek {
+  def apply(query: QueryContext, index: IndexDescriptor, lower: Option[Bound[Any]], upper: Option[Bound[Any]]): Iterator[Node] = {
+    val values = lower.map(_.value).toSeq ++ upper.map(_.value)
+
+    if (values.contains(null))
+      Iterator.empty // Comparing to null is never true
+    else if (values.forall(_.isInstanceOf[Number]))
+      query.rangeIndexSeekByNumber(index, lower.map(_.map(_.asInstanceOf[Number])), upper.map(_.map(_.asInstanceOf[Number])))
+    else if (values.forall(isString))
+      query.rangeIndexSeekByString(index, lower.map(_.map(_.toString)), upper.map(_.map(_.toString)))
+    else
+      query.getNodesByLabel(index.getLabelId)
+  }
+
+  private def isString(value: Any) = value.isInstanceOf[String] || value.isInstanceOf[Character]
+}
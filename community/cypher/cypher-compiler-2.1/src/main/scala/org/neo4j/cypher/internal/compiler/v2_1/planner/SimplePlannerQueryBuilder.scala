@@ -161,13 +161,14 @@ class SimplePlannerQueryBuilder extends PlannerQueryBuilder {
                                            subQueryLookupTable: Map[PatternExpression, QueryGraph],
                                            clauses: Seq[Clause]): (PlannerQuery, Map[PatternExpression, QueryGraph]) =
     clauses match {
-        case Return(false, ListedReturnItems(expressions), optOrderBy, skip, limit) :: tl =>
+        case Return(distinct, ListedReturnItems(expressions), optOrderBy, skip, limit) :: tl =>
 
           val (projections, aggregations) = produceProjectionsMap(expressions)
 
           val sortItems = produceSortItems(optOrderBy)
 
-          val projection = if (aggregations.isEmpty)
+          // Distinct rows are planned as an aggregation that only has grouping keys
+          val projection = if (aggregations.isEmpty && !distinct)
             QueryProjection(
               projections = projections,
               sortItems = sortItems,
@@ -25,11 +25,12 @@ import org.neo4j.cypher.internal.compiler.v2_1.ast.Expression
 import org.neo4j.cypher.internal.compiler.v2_1.planner.logical.plans._
 import org.neo4j.cypher.internal.compiler.v2_1.Monitors
 import org.neo4j.cypher.internal.compiler.v2_1.executionplan.PipeInfo
-import org.neo4j.cypher.internal.compiler.v2_1.planner.CantHandleQueryException
+import org.neo4j.cypher.internal.compiler.v2_1.planner.{SelectionPredicates, CantHandleQueryException}
 import org.neo4j.cypher.internal.compiler.v2_1.commands.True
 import org.neo4j.cypher.internal.compiler.v2_1.ast.convert.OtherConverters._
 import org.neo4j.cypher.internal.compiler.v2_1.symbols._
 import org.neo4j.cypher.internal.compiler.v2_1.commands.expressions.AggregationExpression
+import org.neo4j.graphdb.Direction
 
 
 class PipeExecutionPlanBuilder(monitors: Monitors) {
@@ -37,11 +38,17 @@ class PipeExecutionPlanBuilder(monitors: Monitors) {
   def build(plan: LogicalPlan): PipeInfo = {
     val updating = false
 
+    // Chains of streaming operators are fused into one pipe, so their sources are built without fusing them first
     def buildPipe(plan: LogicalPlan): Pipe = {
+      implicit val monitor = monitors.newMonitor[PipeMonitor]()
+      FusedPipe.fuse(buildOperator(plan))
+    }
+
+    def buildOperator(plan: LogicalPlan): Pipe = {
       implicit val monitor = monitors.newMonitor[PipeMonitor]()
       plan match {
         case Projection(left, expressions) =>
-          ProjectionNewPipe(buildPipe(left), toLegacyExpressions(expressions))
+          ProjectionNewPipe(buildOperator(left), toLegacyExpressions(expressions))
 
         case sr @ SingleRow(ids) =>
           NullPipe(new SymbolTable(sr.typeInfo))
@@ -67,14 +74,18 @@ class PipeExecutionPlanBuilder(monitors: Monitors) {
         case NodeIndexUniqueSeek(IdName(id), labelId, propertyKeyId, valueExpr) =>
           NodeUniqueIndexSeekPipe(id, Right(labelId), Right(propertyKeyId), valueExpr.asCommandExpression)
 
+        case NodeIndexRangeSeek(IdName(id), labelId, propertyKeyId, lower, upper) =>
+          NodeIndexRangeSeekPipe(id, Right(labelId), Right(propertyKeyId),
+            lower.map(_.map(_.asCommandExpression)), upper.map(_.map(_.asCommandExpression)))
+
         case Selection(predicates, left) =>
-          FilterPipe(buildPipe(left), predicates.map(_.asCommandPredicate).reduce(_ ++ _))
+          FilterPipe(buildOperator(left), predicates.map(_.asCommandPredicate).reduce(_ ++ _))
 
         case CartesianProduct(left, right) =>
           CartesianProductPipe(buildPipe(left), buildPipe(right))
 
         case Expand(left, IdName(fromName), dir, types, IdName(toName), IdName(relName), SimplePatternLength) =>
-          ExpandPipe(buildPipe(left), fromName, relName, toName, dir, types.map(_.name))
+          ExpandPipe(buildOperator(left), fromName, relName, toName, dir, types.map(_.name))
 
         case Expand(left, IdName(fromName), dir, types, IdName(toName), IdName(relName), VarPatternLength(min, max)) =>
           VarLengthExpandPipe(buildPipe(left), fromName, relName, toName, dir, types.map(_.name), min, max)
@@ -119,6 +130,18 @@ class PipeExecutionPlanBuilder(monitors: Monitors) {
         case SortedLimit(input, exp, sortItems) =>
           TopPipe(buildPipe(input), sortItems.map(_.asCommandSortItem).toList, exp.asCommandExpression)
 
+        // Only the distinct grouping keys are kept, so when they don't use the relationships of a var length expand
+        // below, every reachable node is only needed once
+        case Aggregation(Projection(Expand(left, IdName(fromName), dir, types, IdName(toName), IdName(relName), VarPatternLength(min, max)), expressions),
+                         groupingExpressions, aggregatingExpressions)
+          if aggregatingExpressions.isEmpty && canExpandToDistinctNodes(dir, min) &&
+            groupingExpressions.keys.forall(key => expressions.get(key).exists(!SelectionPredicates.idNames(_).contains(IdName(relName)))) =>
+          val expand = VarLengthExpandPipe(buildPipe(left), fromName, relName, toName, dir, types.map(_.name), min, max, distinctEndNodes = true)
+          EagerAggregationPipe(
+            ProjectionNewPipe(expand, toLegacyExpressions(expressions.filterKeys(groupingExpressions.contains))),
+            groupingExpressions.mapValues(_.asCommandExpression),
+            Map.empty)
+
         case Aggregation(input, groupingExpressions, aggregatingExpressions) =>
           EagerAggregationPipe(
             buildPipe(input),
@@ -132,7 +155,27 @@ class PipeExecutionPlanBuilder(monitors: Monitors) {
 
     val topLevelPipe = buildPipe(plan)
 
-    PipeInfo(topLevelPipe, updating, None)
+    PipeInfo(topLevelPipe, updating, None, Some(assignSlots(plan)))
+  }
+
+  private def canExpandToDistinctNodes(dir: Direction, min: Int) = min == 0 || (min == 1 && dir != Direction.BOTH)
+
+  // Every identifier gets its own slot in the rows of the query, regardless of which part of the plan introduces it
+  def assignSlots(plan: LogicalPlan): Slots = {
+    val identifiers = Set.newBuilder[String]
+
+    def collect(plan: LogicalPlan) {
+      identifiers ++= plan.availableSymbols.map(_.name)
+      plan match {
+        case Aggregation(_, _, aggregatingExpressions) => identifiers ++= aggregatingExpressions.keys
+        case _                                         =>
+      }
+      plan.lhs.foreach(collect)
+      plan.rhs.foreach(collect)
+    }
+
+    collect(plan)
+    new Slots(identifiers.result().toSeq.sorted)
   }
 
   def toLegacyExpressions(expressions: Map[String, Expression]) = expressions.mapValues(_.asCommandExpression)
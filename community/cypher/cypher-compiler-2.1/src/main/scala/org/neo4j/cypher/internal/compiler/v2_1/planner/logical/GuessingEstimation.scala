@@ -31,6 +31,7 @@ object GuessingEstimation {
   val PREDICATE_SELECTIVITY: Double = 0.2
   val INDEX_SEEK_SELECTIVITY: Double = 0.08
   val UNIQUE_INDEX_SEEK_SELECTIVITY: Double = 0.05
+  val INDEX_RANGE_SEEK_SELECTIVITY: Double = 0.3
   val DEFAULT_EXPAND_RELATIONSHIP_DEGREE: Double = 2.0
 }
 
@@ -52,12 +53,19 @@ class StatisticsBackedCardinalityModel(statistics: GraphStatistics,
     case NodeByIdSeek(_, nodeIds) =>
       nodeIds.size
 
-    case NodeIndexSeek(_, _, _, _) =>
-      statistics.nodesCardinality * INDEX_SEEK_SELECTIVITY
+    case NodeIndexSeek(_, labelId, propertyKeyId, _) =>
+      statistics.indexUniqueValuesSelectivity(labelId, propertyKeyId) match {
+        // An index with a given ratio of distinct values to entries holds this many entries per value on average
+        case Some(selectivity) if selectivity > 0 => 1.0 / selectivity
+        case _                                    => statistics.nodesCardinality * INDEX_SEEK_SELECTIVITY
+      }
 
     case NodeIndexUniqueSeek(_, _, _, _) =>
       statistics.nodesCardinality * UNIQUE_INDEX_SEEK_SELECTIVITY
 
+    case NodeIndexRangeSeek(_, labelId, _, lower, upper) =>
+      statistics.nodesWithLabelCardinality(labelId) * math.pow(INDEX_RANGE_SEEK_SELECTIVITY, lower.size + upper.size)
+
     case NodeHashJoin(_, left, right) =>
       math.min(cardinality(left), cardinality(right))
 
@@ -45,6 +45,9 @@ class SimpleCostModel(cardinality: CardinalityModel) extends CostModel {
     case _: NodeIndexSeek =>
       cardinality(plan) * INDEX_OVERHEAD_COST_PER_ROW
 
+    case _: NodeIndexRangeSeek =>
+      cardinality(plan) * INDEX_OVERHEAD_COST_PER_ROW
+
     case _: NodeIndexUniqueSeek =>
       cardinality(plan) * INDEX_OVERHEAD_COST_PER_ROW
 
@@ -23,9 +23,9 @@ import org.neo4j.cypher.internal.compiler.v2_1.ast._
 import org.neo4j.kernel.api.index.IndexDescriptor
 import org.neo4j.cypher.internal.compiler.v2_1.PropertyKeyId
 import org.neo4j.cypher.internal.compiler.v2_1.planner.logical.plans._
-import org.neo4j.cypher.internal.compiler.v2_1.planner.QueryGraph
+import org.neo4j.cypher.internal.compiler.v2_1.planner.{SemanticTable, QueryGraph}
 import org.neo4j.cypher.internal.compiler.v2_1.planner.logical._
-import org.neo4j.cypher.internal.compiler.v2_1.LabelId
+import org.neo4j.cypher.internal.compiler.v2_1.{Bound, LabelId}
 import org.neo4j.cypher.internal.compiler.v2_1.planner.logical.steps.QueryPlanProducer._
 
 
@@ -79,3 +79,51 @@ object indexSeekLeafPlanner extends IndexLeafPlanner {
   protected def findIndexesForLabel(labelId: Int)(implicit context: QueryGraphSolvingContext): Iterator[IndexDescriptor] =
     context.planContext.indexesGetForLabel(labelId)
 }
+
+object indexRangeSeekLeafPlanner extends LeafPlanner {
+  def apply(qg: QueryGraph)(implicit context: QueryGraphSolvingContext) = {
+    implicit val semanticTable = context.semanticTable
+    val labelPredicateMap = qg.selections.labelPredicates
+
+    // The range predicates are not marked as solved: the index may return values of other types
+    // (or, for numbers, values just outside the range), so they are still applied as filters
+    val boundsByProperty: Map[(IdName, PropertyKeyId), Seq[RangeBound]] =
+      qg.selections.flatPredicates.flatMap(rangeBound(_)).groupBy(bound => (bound.idName, bound.propertyKeyId))
+
+    CandidateList(
+      boundsByProperty.toSeq.flatMap {
+        case ((idName, propertyKeyId), bounds) =>
+          val lower = bounds.collectFirst { case bound if bound.isLower => bound.bound }
+          val upper = bounds.collectFirst { case bound if !bound.isLower => bound.bound }
+          for (labelPredicate <- labelPredicateMap.getOrElse(idName, Set.empty).toSeq;
+               label <- labelPredicate.labels;
+               labelId <- label.id if hasIndex(labelId, propertyKeyId))
+          yield planNodeIndexRangeSeek(idName, labelId, propertyKeyId, lower, upper, Seq(labelPredicate))
+      }
+    )
+  }
+
+  private def hasIndex(labelId: LabelId, propertyKeyId: PropertyKeyId)(implicit context: QueryGraphSolvingContext) =
+    (context.planContext.indexesGetForLabel(labelId.id) ++ context.planContext.uniqueIndexesGetForLabel(labelId.id))
+      .exists(_.getPropertyKeyId == propertyKeyId.id)
+
+  private case class RangeBound(idName: IdName, propertyKeyId: PropertyKeyId, isLower: Boolean, bound: Bound[Expression])
+
+  private def rangeBound(predicate: Expression)(implicit semanticTable: SemanticTable): Option[RangeBound] = predicate match {
+    // n.prop > value
+    case GreaterThan(Property(Identifier(name), key), ConstantExpression(value)) => bound(name, key, isLower = true, value, inclusive = false)
+    case GreaterThanOrEqual(Property(Identifier(name), key), ConstantExpression(value)) => bound(name, key, isLower = true, value, inclusive = true)
+    case LessThan(Property(Identifier(name), key), ConstantExpression(value)) => bound(name, key, isLower = false, value, inclusive = false)
+    case LessThanOrEqual(Property(Identifier(name), key), ConstantExpression(value)) => bound(name, key, isLower = false, value, inclusive = true)
+    // value < n.prop
+    case LessThan(ConstantExpression(value), Property(Identifier(name), key)) => bound(name, key, isLower = true, value, inclusive = false)
+    case LessThanOrEqual(ConstantExpression(value), Property(Identifier(name), key)) => bound(name, key, isLower = true, value, inclusive = true)
+    case GreaterThan(ConstantExpression(value), Property(Identifier(name), key)) => bound(name, key, isLower = false, value, inclusive = false)
+    case GreaterThanOrEqual(ConstantExpression(value), Property(Identifier(name), key)) => bound(name, key, isLower = false, value, inclusive = true)
+    case _ => None
+  }
+
+  private def bound(name: String, key: PropertyKeyName, isLower: Boolean, value: Expression, inclusive: Boolean)
+                   (implicit semanticTable: SemanticTable): Option[RangeBound] =
+    key.id.map(propertyKeyId => RangeBound(IdName(name), propertyKeyId, isLower, Bound(value, inclusive)))
+}
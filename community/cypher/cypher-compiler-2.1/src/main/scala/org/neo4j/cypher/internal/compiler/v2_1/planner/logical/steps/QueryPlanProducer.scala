@@ -25,7 +25,7 @@ import org.neo4j.cypher.internal.compiler.v2_1.ast.{Add, RelTypeName, PatternExp
 import org.neo4j.cypher.internal.compiler.v2_1.planner.logical.plans._
 import org.neo4j.cypher.internal.compiler.v2_1.planner.{AggregationProjection, PlannerQuery, QueryGraph}
 import org.neo4j.cypher.internal.compiler.v2_1.pipes.SortDescription
-import org.neo4j.cypher.internal.compiler.v2_1.PropertyKeyId
+import org.neo4j.cypher.internal.compiler.v2_1.{Bound, PropertyKeyId}
 import org.neo4j.cypher.internal.compiler.v2_1.LabelId
 
 object QueryPlanProducer {
@@ -120,6 +120,17 @@ object QueryPlanProducer {
       )
     )
 
+  def planNodeIndexRangeSeek(idName: IdName, label: LabelId, propertyKeyId: PropertyKeyId,
+                             lower: Option[Bound[Expression]], upper: Option[Bound[Expression]],
+                             solvedPredicates: Seq[Expression] = Seq.empty) =
+    QueryPlan(
+      NodeIndexRangeSeek(idName, label, propertyKeyId, lower, upper),
+      PlannerQuery(graph = QueryGraph.empty
+        .addPatternNodes(idName)
+        .addPredicates(solvedPredicates: _*)
+      )
+    )
+
   def planNodeHashJoin(node: IdName, left: QueryPlan, right: QueryPlan) =
     QueryPlan(
       NodeHashJoin(node, left.plan, right.plan),
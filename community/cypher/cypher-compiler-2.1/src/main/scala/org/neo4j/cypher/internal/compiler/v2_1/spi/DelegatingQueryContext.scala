@@ -21,6 +21,7 @@ package org.neo4j.cypher.internal.compiler.v2_1.spi
 
 import org.neo4j.graphdb.{PropertyContainer, Direction, Node}
 import org.neo4j.kernel.api.index.IndexDescriptor
+import org.neo4j.cypher.internal.compiler.v2_1.Bound
 import org.neo4j.kernel.InternalAbstractGraphDatabase
 import org.neo4j.graphdb.factory.GraphDatabaseSettings
 
@@ -77,6 +78,12 @@ class DelegatingQueryContext(inner: QueryContext) extends QueryContext {
 
   def exactIndexSearch(index: IndexDescriptor, value: Any): Iterator[Node] = inner.exactIndexSearch(index, value)
 
+  def rangeIndexSeekByNumber(index: IndexDescriptor, lower: Option[Bound[Number]], upper: Option[Bound[Number]]): Iterator[Node] =
+    inner.rangeIndexSeekByNumber(index, lower, upper)
+
+  def rangeIndexSeekByString(index: IndexDescriptor, lower: Option[Bound[String]], upper: Option[Bound[String]]): Iterator[Node] =
+    inner.rangeIndexSeekByString(index, lower, upper)
+
   def getNodesByLabel(id: Int): Iterator[Node] = inner.getNodesByLabel(id)
 
   def upgrade(context: QueryContext): LockingQueryContext = inner.upgrade(context)
@@ -24,6 +24,7 @@ import org.neo4j.kernel.api.exceptions.KernelException
 import org.neo4j.cypher.CypherExecutionException
 import org.neo4j.cypher.internal.compiler.v2_1.spi
 import org.neo4j.kernel.api.index.IndexDescriptor
+import org.neo4j.cypher.internal.compiler.v2_1.Bound
 import org.neo4j.kernel.api.TokenNameLookup
 
 class ExceptionTranslatingQueryContext(inner: QueryContext) extends DelegatingQueryContext(inner) {
@@ -88,6 +89,12 @@ class ExceptionTranslatingQueryContext(inner: QueryContext) extends DelegatingQu
   override def exactIndexSearch(index: IndexDescriptor, value: Any): Iterator[Node] =
     translateException(super.exactIndexSearch(index, value))
 
+  override def rangeIndexSeekByNumber(index: IndexDescriptor, lower: Option[Bound[Number]], upper: Option[Bound[Number]]): Iterator[Node] =
+    translateException(super.rangeIndexSeekByNumber(index, lower, upper))
+
+  override def rangeIndexSeekByString(index: IndexDescriptor, lower: Option[Bound[String]], upper: Option[Bound[String]]): Iterator[Node] =
+    translateException(super.rangeIndexSeekByString(index, lower, upper))
+
   override def getNodesByLabel(id: Int): Iterator[Node] =
     translateException(super.getNodesByLabel(id))
 
@@ -19,7 +19,7 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_1.spi
 
-import org.neo4j.cypher.internal.compiler.v2_1.{RelTypeId, LabelId}
+import org.neo4j.cypher.internal.compiler.v2_1.{PropertyKeyId, RelTypeId, LabelId}
 import org.neo4j.graphdb.Direction
 
 trait GraphStatistics {
@@ -29,4 +29,10 @@ trait GraphStatistics {
   def relationshipsWithTypeSelectivity(relTypeId: RelTypeId): Double
   def degreeByRelationshipTypeAndDirection(relTypeId: RelTypeId, direction: Direction): Double
   def degreeByLabelRelationshipTypeAndDirection(labelId: LabelId, relTypeId: RelTypeId, direction: Direction): Double
+
+  /**
+   * Ratio of distinct values to entries of the index on the label and property, if the index exists and has been
+   * sampled. 1.0 means every value is unique.
+   */
+  def indexUniqueValuesSelectivity(labelId: LabelId, propertyKeyId: PropertyKeyId): Option[Double]
 }
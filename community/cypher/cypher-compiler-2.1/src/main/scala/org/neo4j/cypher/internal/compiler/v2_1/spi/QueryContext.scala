@@ -24,6 +24,7 @@ import org.neo4j.graphdb._
 import org.neo4j.kernel.api.constraints.UniquenessConstraint
 import org.neo4j.kernel.api.index.IndexDescriptor
 import org.neo4j.cypher.QueryStatistics
+import org.neo4j.cypher.internal.compiler.v2_1.Bound
 
 /*
  * Developer note: This is an attempt at an internal graph database API, which defines a clean cut between
@@ -74,6 +75,10 @@ trait QueryContext extends TokenContext {
 
   def exactUniqueIndexSearch(index: IndexDescriptor, value: Any): Option[Node]
 
+  def rangeIndexSeekByNumber(index: IndexDescriptor, lower: Option[Bound[Number]], upper: Option[Bound[Number]]): Iterator[Node]
+
+  def rangeIndexSeekByString(index: IndexDescriptor, lower: Option[Bound[String]], upper: Option[Bound[String]]): Iterator[Node]
+
   def getNodesByLabel(id: Int): Iterator[Node]
 
   def upgradeToLockingQueryContext: LockingQueryContext = upgrade(this)
@@ -21,6 +21,7 @@ package org.neo4j.cypher.internal.compiler.v2_1.spi
 
 import org.neo4j.graphdb.{PropertyContainer, Relationship, Direction, Node}
 import org.neo4j.kernel.api.index.IndexDescriptor
+import org.neo4j.cypher.internal.compiler.v2_1.Bound
 
 
 trait Locker {
@@ -49,6 +50,12 @@ class RepeatableReadQueryContext(inner: QueryContext, locker: Locker) extends De
   override def exactIndexSearch(index: IndexDescriptor, value: Any): Iterator[Node] =
     lockAll(inner.exactIndexSearch(index, value))
 
+  override def rangeIndexSeekByNumber(index: IndexDescriptor, lower: Option[Bound[Number]], upper: Option[Bound[Number]]): Iterator[Node] =
+    lockAll(inner.rangeIndexSeekByNumber(index, lower, upper))
+
+  override def rangeIndexSeekByString(index: IndexDescriptor, lower: Option[Bound[String]], upper: Option[Bound[String]]): Iterator[Node] =
+    lockAll(inner.rangeIndexSeekByString(index, lower, upper))
+
   override def getNodesByLabel(id: Int): Iterator[Node] = lockAll(inner.getNodesByLabel(id))
 
   val nodeOpsValue = new RepeatableReadOperations[Node](inner.nodeOps)
@@ -20,9 +20,9 @@
 package org.neo4j.cypher.internal.compiler.v2_1.executionplan.builders
 
 import org.neo4j.cypher.internal.compiler.v2_1._
-import commands.{HasLabel, Equals}
+import commands.{GreaterThan, HasLabel, Equals}
 import commands.values.{UnresolvedLabel, UnresolvedProperty}
-import commands.expressions.{Property, Identifier}
+import commands.expressions.{Literal, Property, Identifier}
 import spi.PlanContext
 import symbols._
 import org.neo4j.kernel.api.index.IndexDescriptor
@@ -69,4 +69,23 @@ class NodeFetchStrategyTest extends MockitoSugar with Assertions {
     // Then
     assert(foundStartItem.rating === NodeFetchStrategy.IndexEquality)
   }
+
+  @Test def should_select_schema_index_range_for_range_predicate() {
+    //Given
+    val noSymbols = new SymbolTable()
+    val rangePredicate = GreaterThan(Property(Identifier("a"), UnresolvedProperty(propertyName)), Literal(42))
+    val labelPredicate = HasLabel(Identifier("a"), UnresolvedLabel(labelName))
+    val planCtx = mock[PlanContext]
+    val indexDescriptor = new IndexDescriptor(0, 0)
+
+    when(planCtx.getIndexRule(labelName, propertyName)).thenReturn(Some(indexDescriptor))
+
+    // When
+    val foundStartItem = NodeFetchStrategy.findStartStrategy("a", Seq(rangePredicate, labelPredicate), planCtx, noSymbols)
+
+    // Then
+    assert(foundStartItem.rating === NodeFetchStrategy.IndexRange)
+    assert(foundStartItem.s === commands.SchemaIndexRange("a", labelName, propertyName, Some(Bound(Literal(42), inclusive = false)), None))
+    assert(foundStartItem.solvedPredicates === Seq.empty)
+  }
 }
@@ -32,6 +32,10 @@ import collection.mutable.{Map => MutableMap}
 import java.lang.{Iterable => JIterable}
 import org.neo4j.cypher.internal.compiler.v2_1.commands.values.TokenType.PropertyKey
 import org.scalatest.mock.MockitoSugar
+import org.neo4j.cypher.internal.compiler.v2_1.TaskCloser
+import org.neo4j.cypher.internal.compiler.v2_1.spi.{Operations, QueryContext}
+import org.neo4j.graphdb.Node
+import org.mockito.Mockito._
 
 class EagerAggregationPipeTest extends JUnitSuite with MockitoSugar {
 
@@ -111,6 +115,101 @@ class EagerAggregationPipeTest extends JUnitSuite with MockitoSugar {
     assertEquals(List(Map("count(name)" -> 3)), aggregationPipe.createResults(QueryStateHelper.empty).toList)
   }
 
+  @Test def shouldGroupOnNodes() {
+    val (nodes, query) = mockNodes(3)
+    val source = new FakePipe(List(
+      Map("n" -> nodes(0), "age" -> 36),
+      Map("n" -> nodes(1), "age" -> 38),
+      Map("n" -> nodes(0), "age" -> 31),
+      Map("n" -> nodes(2), "age" -> 31),
+      Map("n" -> nodes(0), "age" -> 1)), createSymbolTableFor("n"), "age" -> CTNumber)
+
+    val grouping = Map("count(*)" -> CountStar(), "sum(age)" -> Sum(Identifier("age")))
+    val aggregationPipe = new EagerAggregationPipe(source, createReturnItemsFor("n"), grouping, maxGroupsInMemory = 1)
+
+    val results = aggregationPipe.createResults(QueryStateHelper.emptyWith(query = query)).map(_.m.toMap).toList
+    assertEquals(Set(
+      Map("n" -> nodes(0), "count(*)" -> 3, "sum(age)" -> 68),
+      Map("n" -> nodes(1), "count(*)" -> 1, "sum(age)" -> 38),
+      Map("n" -> nodes(2), "count(*)" -> 1, "sum(age)" -> 31)), results.toSet)
+    assertEquals(3, results.size)
+  }
+
+  @Test def shouldAggregateEveryGroupOnceWhenSpilling() {
+    val rows = for (i <- 0 until 200) yield Map[String, Any]("name" -> ("n" + (i % 50)), "age" -> i)
+    val source = new FakePipe(rows, createSymbolTableFor("name"), "age" -> CTNumber)
+
+    val grouping = Map("count(*)" -> CountStar(), "sum(age)" -> Sum(Identifier("age")))
+    val aggregationPipe = new EagerAggregationPipe(source, createReturnItemsFor("name"), grouping, maxGroupsInMemory = 3)
+
+    val results = aggregationPipe.createResults(QueryStateHelper.empty).map(_.m.toMap).toList
+    val expected = (0 until 50).map(i => Map("name" -> ("n" + i), "count(*)" -> 4, "sum(age)" -> (4 * i + 300)))
+    assertEquals(expected.toSet, results.toSet)
+    assertEquals(50, results.size)
+  }
+
+  @Test def shouldGroupOnIntegersMixedWithOtherValues() {
+    val source = new FakePipe(List(
+      Map("x" -> 1L),
+      Map("x" -> 2L),
+      Map("x" -> null),
+      Map("x" -> "a"),
+      Map("x" -> 1L),
+      Map("x" -> null)), createSymbolTableFor("x"))
+
+    val aggregationPipe = new EagerAggregationPipe(source, createReturnItemsFor("x"), Map("count(*)" -> CountStar()))
+
+    assertEquals(Set(
+      Map("x" -> 1L, "count(*)" -> 2),
+      Map("x" -> 2L, "count(*)" -> 1),
+      Map("x" -> null, "count(*)" -> 2),
+      Map("x" -> "a", "count(*)" -> 1)), getResults(aggregationPipe).asScala.toSet)
+  }
+
+  @Test def shouldKeepGroupsInMemoryWhenRowsCanNotBeSpilled() {
+    val rows = for (i <- 0 until 20) yield Map[String, Any]("name" -> ("n" + (i % 10)), "c" -> (if (i == 15) Seq(i) else i))
+    val source = new FakePipe(rows, createSymbolTableFor("name"))
+
+    val aggregationPipe = new EagerAggregationPipe(source, createReturnItemsFor("name"), Map("count(*)" -> CountStar()), maxGroupsInMemory = 2)
+
+    val results = aggregationPipe.createResults(QueryStateHelper.empty).map(_.m.toMap).toList
+    assertEquals((0 until 10).map(i => Map("name" -> ("n" + i), "count(*)" -> 2)).toSet, results.toSet)
+    assertEquals(10, results.size)
+  }
+
+  @Test def shouldDeletePartitionsWhenReadAndWhenTheQueryIsClosed() {
+    val directory = java.nio.file.Files.createTempDirectory("aggregation-pipe-test").toFile
+    val rows = for (i <- 0 until 200) yield Map[String, Any]("name" -> ("n" + (i % 50)))
+    def aggregationPipe = new EagerAggregationPipe(new FakePipe(rows, createSymbolTableFor("name")),
+      createReturnItemsFor("name"), Map("count(*)" -> CountStar()), maxGroupsInMemory = 3)
+
+    val closer = new TaskCloser
+    val state = QueryStateHelper.empty.copy(spillFiles = new SpillFiles(closer, directory))
+    val abandoned = aggregationPipe.createResults(state)
+    abandoned.next()
+    assertTrue(directory.list().length > 0)
+    closer.close(success = true)
+    assertEquals(0, directory.list().length)
+
+    val read = aggregationPipe.createResults(state.copy(spillFiles = new SpillFiles(new TaskCloser, directory)))
+    assertEquals(50, read.size)
+    assertEquals(0, directory.list().length)
+    directory.delete()
+  }
+
+  private def mockNodes(count: Int): (Seq[Node], QueryContext) = {
+    val nodes = (0 until count).map { i =>
+      val node = mock[Node]
+      when(node.getId).thenReturn(i)
+      node
+    }
+    val nodeOps = mock[Operations[Node]]
+    nodes.foreach(node => when(nodeOps.getById(node.getId)).thenReturn(node))
+    val query = mock[QueryContext]
+    when(query.nodeOps).thenReturn(nodeOps)
+    (nodes, query)
+  }
+
   private def createSymbolTableFor(name: String) = name -> CTNode
 
   private def getResults(p: Pipe): JIterable[Map[String, Any]] = p.createResults(QueryStateHelper.empty).map(_.m.toMap).toIterable.asJava
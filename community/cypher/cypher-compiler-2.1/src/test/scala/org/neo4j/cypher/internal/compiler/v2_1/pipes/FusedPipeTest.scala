@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_1.pipes
+
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_1.spi.QueryContext
+import org.neo4j.cypher.internal.compiler.v2_1.commands.{Not, Equals, GreaterThan}
+import org.neo4j.cypher.internal.compiler.v2_1.commands.expressions.{Identifier, Literal}
+import org.neo4j.cypher.internal.compiler.v2_1.symbols._
+import org.neo4j.cypher.internal.compiler.v2_1.profiler.Profiler
+import org.mockito.Mockito._
+import org.mockito.Matchers._
+import org.mockito.stubbing.Answer
+import org.mockito.invocation.InvocationOnMock
+import org.neo4j.graphdb.{Relationship, Direction, Node}
+
+class FusedPipeTest extends CypherFunSuite {
+
+  implicit val monitor = mock[PipeMonitor]
+
+  test("should produce the same rows as the pipes it fuses") {
+    def pipes = FilterPipe(
+      ProjectionNewPipe(
+        FilterPipe(new FakePipe((1 to 10).map(i => Map("a" -> i)), "a" -> CTNumber), GreaterThan(Identifier("a"), Literal(2))),
+        Map("b" -> Identifier("a"))),
+      Not(Equals(Identifier("b"), Literal(5))))
+
+    val fused = FusedPipe.fuse(pipes)
+
+    fused.getClass should equal(classOf[FusedPipe])
+    fused.createResults(QueryStateHelper.empty).toList should equal(pipes.createResults(QueryStateHelper.empty).toList)
+  }
+
+  test("should expand depth first, like the pipes it fuses") {
+    val n1 = newMockedNode(1)
+    val n2 = newMockedNode(2)
+    val n3 = newMockedNode(3)
+    val n4 = newMockedNode(4)
+    val n5 = newMockedNode(5)
+    val query = mockGraph(n1 -> n2, n1 -> n3, n2 -> n4, n2 -> n5, n3 -> n4)
+    def pipes = ExpandPipe(
+      FilterPipe(
+        ExpandPipe(new FakePipe(Seq(Map("a" -> n1), Map("a" -> n3)), "a" -> CTNode), "a", "r1", "b", Direction.OUTGOING, Seq.empty),
+        Not(Equals(Identifier("b"), Literal(n3)))),
+      "b", "r2", "c", Direction.OUTGOING, Seq.empty)
+
+    val fused = FusedPipe.fuse(pipes)
+
+    fused.getClass should equal(classOf[FusedPipe])
+    val state = QueryStateHelper.emptyWith(query = query)
+    val result = fused.createResults(state).toList
+    result.map(row => (row("a"), row("b"), row("c"))) should equal(List((n1, n2, n4), (n1, n2, n5)))
+    result should equal(pipes.createResults(state).toList)
+  }
+
+  test("should not fuse a single operator") {
+    val pipe = FilterPipe(new FakePipe(Seq(Map("a" -> 1)), "a" -> CTNumber), GreaterThan(Identifier("a"), Literal(2)))
+
+    FusedPipe.fuse(pipe) should equal(pipe)
+  }
+
+  test("should run the pipes it fuses when profiling") {
+    def pipes = ProjectionNewPipe(
+      FilterPipe(new FakePipe((1 to 3).map(i => Map("a" -> i)), "a" -> CTNumber), GreaterThan(Identifier("a"), Literal(1))),
+      Map("b" -> Identifier("a")))
+    val fused = FusedPipe.fuse(pipes)
+    val profiler = new Profiler
+
+    val result = fused.createResults(QueryStateHelper.emptyWith(decorator = profiler)).toList
+
+    result should equal(List(Map("b" -> 2), Map("b" -> 3)))
+    fused.executionPlanDescription.toString should equal(pipes.executionPlanDescription.toString)
+  }
+
+  private def mockGraph(edges: (Node, Node)*): QueryContext = {
+    val relationships = edges.zipWithIndex.map {
+      case ((from, to), id) =>
+        val relationship = mock[Relationship]
+        when(relationship.getId).thenReturn(id)
+        when(relationship.getOtherNode(from)).thenReturn(to)
+        from -> relationship
+    }
+    val query = mock[QueryContext]
+    when(query.getRelationshipsFor(any(), any(), any())).thenAnswer(new Answer[Iterator[Relationship]] {
+      def answer(invocation: InvocationOnMock): Iterator[Relationship] = {
+        val node = invocation.getArguments()(0)
+        relationships.filter(_._1 == node).map(_._2).iterator
+      }
+    })
+    query
+  }
+
+  private def newMockedNode(id: Int) = {
+    val node = mock[Node]
+    when(node.getId).thenReturn(id)
+    node
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_1.pipes
+
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_1.spi.QueryContext
+import org.neo4j.cypher.internal.compiler.v2_1.commands.expressions.Literal
+import org.neo4j.cypher.internal.compiler.v2_1.{Bound, PropertyKeyId, LabelId}
+import org.neo4j.graphdb.Node
+import org.mockito.Mockito
+import org.neo4j.kernel.api.index.IndexDescriptor
+
+class NodeIndexRangeSeekPipeTest extends CypherFunSuite {
+
+  implicit val monitor = mock[PipeMonitor]
+
+  test("should return nodes found by number range seek") {
+    // given
+    val node = mock[Node]
+    val descriptor = new IndexDescriptor(11, 10)
+    val query = mock[QueryContext]
+    Mockito.when(query.rangeIndexSeekByNumber(descriptor, Some(Bound[Number](10, inclusive = true)), Some(Bound[Number](20, inclusive = false))))
+      .thenReturn(Iterator(node))
+    val queryState = QueryStateHelper.emptyWith(query = query)
+
+    // when
+    val pipe = NodeIndexRangeSeekPipe("n", Right(LabelId(11)), Right(PropertyKeyId(10)),
+      Some(Bound(Literal(10), inclusive = true)), Some(Bound(Literal(20), inclusive = false)))
+    val result = pipe.createResults(queryState)
+
+    // then
+    result.map(_("n")).toList should equal(List(node))
+  }
+
+  test("should return nodes found by open string range seek") {
+    // given
+    val node = mock[Node]
+    val descriptor = new IndexDescriptor(11, 10)
+    val query = mock[QueryContext]
+    Mockito.when(query.getOptLabelId("label")).thenReturn(Some(11))
+    Mockito.when(query.getOptPropertyKeyId("prop")).thenReturn(Some(10))
+    Mockito.when(query.rangeIndexSeekByString(descriptor, Some(Bound("hello", inclusive = false)), None))
+      .thenReturn(Iterator(node))
+    val queryState = QueryStateHelper.emptyWith(query = query)
+
+    // when
+    val pipe = NodeIndexRangeSeekPipe("n", Left("label"), Left("prop"), Some(Bound(Literal("hello"), inclusive = false)), None)
+    val result = pipe.createResults(queryState)
+
+    // then
+    result.map(_("n")).toList should equal(List(node))
+  }
+
+  test("should fall back to label scan when bounds are neither numbers nor strings") {
+    // given
+    val node = mock[Node]
+    val query = mock[QueryContext]
+    Mockito.when(query.getNodesByLabel(11)).thenReturn(Iterator(node))
+    val queryState = QueryStateHelper.emptyWith(query = query)
+
+    // when
+    val pipe = NodeIndexRangeSeekPipe("n", Right(LabelId(11)), Right(PropertyKeyId(10)),
+      Some(Bound(Literal(10), inclusive = true)), Some(Bound(Literal("hello"), inclusive = true)))
+    val result = pipe.createResults(queryState)
+
+    // then
+    result.map(_("n")).toList should equal(List(node))
+  }
+
+  test("should return empty iterator when a bound is null") {
+    // given
+    val queryState = QueryStateHelper.emptyWith(query = mock[QueryContext])
+
+    // when
+    val pipe = NodeIndexRangeSeekPipe("n", Right(LabelId(11)), Right(PropertyKeyId(10)), Some(Bound(Literal(null), inclusive = true)), None)
+    val result = pipe.createResults(queryState)
+
+    // then
+    result should be(empty)
+  }
+
+  test("should return empty iterator when labelId cannot be resolved") {
+    // given
+    val query = mock[QueryContext]
+    Mockito.when(query.getOptLabelId("label")).thenReturn(None)
+    val queryState = QueryStateHelper.emptyWith(query = query)
+
+    // when
+    val pipe = NodeIndexRangeSeekPipe("n", Left("label"), Right(PropertyKeyId(10)), Some(Bound(Literal(10), inclusive = true)), None)
+    val result = pipe.createResults(queryState)
+
+    // then
+    result should be(empty)
+  }
+}
@@ -20,12 +20,15 @@
 package org.neo4j.cypher.internal.compiler.v2_1.pipes
 
 import org.neo4j.graphdb.GraphDatabaseService
+import org.neo4j.cypher.internal.compiler.v2_1.TaskCloser
 import org.neo4j.cypher.internal.compiler.v2_1.spi.QueryContext
 
 object QueryStateHelper {
   def empty: QueryState = emptyWith()
 
   def emptyWith(db: GraphDatabaseService = null, query: QueryContext = null, resources: ExternalResource = null,
-                params: Map[String, Any] = Map.empty, decorator: PipeDecorator = NullPipeDecorator) =
-    QueryState(db = db, query = query, resources = resources, params = params, decorator = decorator)
+                params: Map[String, Any] = Map.empty, decorator: PipeDecorator = NullPipeDecorator,
+                closer: TaskCloser = new TaskCloser) =
+    QueryState(db = db, query = query, resources = resources, params = params, decorator = decorator,
+      spillFiles = new SpillFiles(closer))
 }
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_1.pipes
+
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_1.ExecutionContext
+
+class SlottedMapTest extends CypherFunSuite {
+
+  val slots = new Slots(Seq("a", "b", "c"))
+
+  test("should only contain the identifiers that were set") {
+    val row = slots.newRow += "a" -> 1 += "c" -> null
+
+    row should equal(Map("a" -> 1, "c" -> null))
+    row.size should equal(2)
+    row.contains("b") should equal(false)
+    row.get("c") should equal(Some(null))
+  }
+
+  test("should keep identifiers without a slot") {
+    val row = slots.newRow += "a" -> 1 += "x" -> 2
+
+    row should equal(Map("a" -> 1, "x" -> 2))
+    row("x") should equal(2)
+  }
+
+  test("should remove identifiers") {
+    val row = slots.newRow += "a" -> 1 += "b" -> 2 += "x" -> 3
+
+    row -= "b"
+    row -= "x"
+
+    row should equal(Map("a" -> 1))
+    intercept[NoSuchElementException](row("b"))
+  }
+
+  test("should not share values with copies") {
+    val original = ExecutionContext(slots.newRow += "a" -> 1)
+
+    val copy = original.newWith("b" -> 2)
+
+    copy should equal(Map("a" -> 1, "b" -> 2))
+    original should equal(Map("a" -> 1))
+    copy.m.getClass should equal(classOf[SlottedMap])
+  }
+
+  test("should merge rows of the same slots") {
+    val lhs = ExecutionContext(slots.newRow += "a" -> 1 += "x" -> 3)
+    val rhs = ExecutionContext(slots.newRow += "b" -> 2 += "a" -> 4)
+
+    (lhs ++ rhs) should equal(Map("a" -> 4, "b" -> 2, "x" -> 3))
+    lhs should equal(Map("a" -> 1, "x" -> 3))
+  }
+
+  test("should create new rows with the same slots") {
+    val row = ExecutionContext(slots.newRow += "a" -> 1)
+
+    val newRow = row.newFrom(Seq("b" -> 2))
+
+    newRow should equal(Map("b" -> 2))
+    newRow.m.getClass should equal(classOf[SlottedMap])
+  }
+
+  test("should read and write identifiers through their slot keys") {
+    val row = ExecutionContext(slots.newRow)
+
+    row(new SlotKey("b", slots)) = 2
+    row(new SlotKey("x", slots)) = 3
+
+    row should equal(Map("b" -> 2, "x" -> 3))
+    row.getOrElse(new SlotKey("b", slots), 0) should equal(2)
+    row.getOrElse(new SlotKey("c", slots), 0) should equal(0)
+  }
+
+  test("should access rows of other slots by name") {
+    val otherSlots = new Slots(Seq("b", "a"))
+    val slotted = ExecutionContext(otherSlots.newRow += "a" -> 1)
+    val unslotted = ExecutionContext.from("a" -> 1)
+
+    slotted.newWithKey(new SlotKey("b", slots), 2) should equal(Map("a" -> 1, "b" -> 2))
+    unslotted.newWithKey(new SlotKey("b", slots), 2) should equal(Map("a" -> 1, "b" -> 2))
+    slotted.getOrElse(new SlotKey("a", slots), 0) should equal(1)
+    unslotted.getOrElse(new SlotKey("a", null), 0) should equal(1)
+  }
+
+  test("should only resolve slot keys again when the slots change") {
+    val cache = new SlotKeyCache("b")
+    val state = QueryStateHelper.empty.copy(slots = Some(slots))
+
+    val key = cache(state)
+
+    key.slot should equal(slots.slotOf("b"))
+    cache(state.copy()) should be theSameInstanceAs key
+    cache(QueryStateHelper.empty).slot should equal(-1)
+  }
+}
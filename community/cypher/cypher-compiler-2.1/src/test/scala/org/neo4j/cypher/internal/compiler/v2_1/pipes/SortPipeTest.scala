@@ -24,6 +24,11 @@ import org.junit.Assert._
 import org.neo4j.cypher.internal.compiler.v2_1.symbols._
 import collection.mutable.{Map=>MutableMap}
 import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_1.TaskCloser
+import org.neo4j.cypher.internal.compiler.v2_1.spi.{Operations, QueryContext}
+import org.neo4j.graphdb.Node
+import org.mockito.Mockito._
+import util.Random
 
 class SortPipeTest extends CypherFunSuite with MockitoSugar {
 
@@ -90,4 +95,76 @@ class SortPipeTest extends CypherFunSuite with MockitoSugar {
       MutableMap("y" -> 2),
       MutableMap("y" -> null)), sortPipe.createResults(QueryStateHelper.empty).toList)
   }
+
+  test("sorts more rows than it keeps in memory") {
+    val r = new Random(1337)
+    val values = (0 until 100).map(i => r.nextInt(20))
+    val source = new FakePipe(values.zipWithIndex.map {
+      case (x, i) => MutableMap[String, Any]("x" -> x, "i" -> i, "s" -> ("row" + i))
+    }, "x" -> CTNumber, "i" -> CTNumber, "s" -> CTString)
+
+    val sortPipe = new SortPipe(source, List(Descending("x")), maxRowsInMemory = 7)
+
+    val expected = values.zipWithIndex.sortBy(-_._1).map {
+      case (x, i) => MutableMap[String, Any]("x" -> x, "i" -> i, "s" -> ("row" + i))
+    }.toList
+    assertEquals(expected, sortPipe.createResults(QueryStateHelper.empty).toList)
+  }
+
+  test("reads spilled nodes back from the database") {
+    val nodes = (0 until 5).map { i =>
+      val node = mock[Node]
+      when(node.getId).thenReturn(i)
+      node
+    }
+    val nodeOps = mock[Operations[Node]]
+    nodes.foreach(node => when(nodeOps.getById(node.getId)).thenReturn(node))
+    val query = mock[QueryContext]
+    when(query.nodeOps).thenReturn(nodeOps)
+    val source = new FakePipe(nodes.reverse.map(node => MutableMap[String, Any]("n" -> node, "id" -> node.getId)),
+      "n" -> CTNode, "id" -> CTNumber)
+
+    val sortPipe = new SortPipe(source, List(Ascending("id")), maxRowsInMemory = 2)
+
+    assertEquals(nodes.toList, sortPipe.createResults(QueryStateHelper.emptyWith(query = query)).map(_("n")).toList)
+  }
+
+  test("keeps rows in memory that can not be spilled") {
+    val source = new FakePipe((0 until 10).reverse.map(i => MutableMap[String, Any]("x" -> i, "c" -> Seq(i))),
+      "x" -> CTNumber, "c" -> CTCollection(CTNumber))
+
+    val sortPipe = new SortPipe(source, List(Ascending("x")), maxRowsInMemory = 3)
+
+    assertEquals((0 until 10).map(i => Seq(i)).toList,
+      sortPipe.createResults(QueryStateHelper.empty).map(_("c")).toList)
+  }
+
+  test("merges more runs than it reads at a time") {
+    val directory = java.nio.file.Files.createTempDirectory("sort-pipe-test").toFile
+    val values = (0 until ExternalSorter.MAX_MERGE_WIDTH * 3).map(i => (i * 7919) % 1000)
+    val source = new FakePipe(values.map(x => MutableMap[String, Any]("x" -> x)), "x" -> CTNumber)
+    val state = QueryStateHelper.empty.copy(spillFiles = new SpillFiles(new TaskCloser, directory))
+
+    val sortPipe = new SortPipe(source, List(Ascending("x")), maxRowsInMemory = 1)
+
+    assertEquals(values.sorted.toList, sortPipe.createResults(state).map(_("x")).toList)
+    assertEquals(0, directory.list().length)
+    directory.delete()
+  }
+
+  test("deletes spilled runs when the query is closed before the result is read") {
+    val directory = java.nio.file.Files.createTempDirectory("sort-pipe-test").toFile
+    val source = new FakePipe((0 until 20).map(x => MutableMap[String, Any]("x" -> x)), "x" -> CTNumber)
+    val closer = new TaskCloser
+    val state = QueryStateHelper.empty.copy(spillFiles = new SpillFiles(closer, directory))
+
+    val sortPipe = new SortPipe(source, List(Descending("x")), maxRowsInMemory = 3)
+    val result = sortPipe.createResults(state)
+
+    assertEquals(19, result.next()("x"))
+    assertTrue(directory.list().length > 0)
+    closer.close(success = true)
+    assertEquals(0, directory.list().length)
+    directory.delete()
+  }
 }
@@ -112,6 +112,24 @@ class TopPipeTest extends Assertions with MockitoSugar {
     assert(result === List(10,null))
   }
 
+  @Test def zeroLimitReturnsNothing() {
+    val input = createFakePipeWith(5)
+
+    val pipe = new TopPipe(input, List(SortItem(Identifier("a"), ascending = true)), Literal(0))
+    val result = pipe.createResults(QueryStateHelper.empty).map(ctx => ctx("a")).toList
+
+    assert(result === List.empty)
+  }
+
+  @Test def keepsTheFirstRowsOfEqualValues() {
+    val input = new FakePipe((0 until 10).map(i => Map("a" -> i % 2, "b" -> i)), "a" -> CTInteger, "b" -> CTInteger)
+
+    val pipe = new TopPipe(input, List(SortItem(Identifier("a"), ascending = true)), Literal(3))
+    val result = pipe.createResults(QueryStateHelper.empty).map(ctx => ctx("b")).toList
+
+    assert(result === List(0, 2, 4))
+  }
+
   private def createFakePipeWith(count: Int): FakePipe = {
 
     val r = new Random(1337)
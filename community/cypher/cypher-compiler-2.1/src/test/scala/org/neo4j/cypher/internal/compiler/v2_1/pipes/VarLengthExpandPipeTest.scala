@@ -250,6 +250,86 @@ class VarLengthExpandPipeTest extends CypherFunSuite {
     fourth("b") should equal(endNode)
   }
 
+  test("should yield every reachable node once when only distinct end nodes are needed") {
+    // given
+    val startNode = newMockedNode(1)
+    val middleNode = newMockedNode(2)
+    val endNode = newMockedNode(3)
+    val leftRelationship1 = newMockedRealtionship(1, startNode, middleNode)
+    val leftRelationship2 = newMockedRealtionship(2, startNode, middleNode)
+    val rightRelationship = newMockedRealtionship(3, middleNode, endNode)
+    val shortcut = newMockedRealtionship(4, startNode, endNode)
+
+    val query = mock[QueryContext]
+    replyWithMap(query, Map(
+        (startNode, Direction.OUTGOING) -> Seq(leftRelationship1, leftRelationship2, shortcut),
+        (middleNode, Direction.OUTGOING) -> Seq(rightRelationship)
+      ).withDefaultValue(Seq.empty)
+    )
+    val queryState = QueryStateHelper.emptyWith(query = query)
+
+    val left = newMockedPipe(SymbolTable(Map("a" -> CTNode)))
+    when(left.createResults(queryState)).thenReturn(Iterator(row("a" -> startNode)))
+
+    // when
+    val result = VarLengthExpandPipe(left, "a", "r", "b", Direction.OUTGOING, Seq.empty, 1, None, distinctEndNodes = true).createResults(queryState).toList
+
+    // then
+    result.map(_("a")) should equal(List(startNode, startNode))
+    result.map(_("b")) should equal(List(middleNode, endNode))
+  }
+
+  test("should stop at the max length when only distinct end nodes are needed") {
+    // given
+    val startNode = newMockedNode(1)
+    val middleNode = newMockedNode(2)
+    val endNode = newMockedNode(3)
+    val leftRelationship = newMockedRealtionship(1, startNode, middleNode)
+    val rightRelationship = newMockedRealtionship(2, middleNode, endNode)
+
+    val query = mock[QueryContext]
+    replyWithMap(query, Map(
+        (startNode, Direction.OUTGOING) -> Seq(leftRelationship),
+        (middleNode, Direction.OUTGOING) -> Seq(rightRelationship)
+      ).withDefaultValue(Seq.empty)
+    )
+    val queryState = QueryStateHelper.emptyWith(query = query)
+
+    val left = newMockedPipe(SymbolTable(Map("a" -> CTNode)))
+    when(left.createResults(queryState)).thenReturn(Iterator(row("a" -> startNode)))
+
+    // when
+    val result = VarLengthExpandPipe(left, "a", "r", "b", Direction.OUTGOING, Seq.empty, 0, Some(1), distinctEndNodes = true).createResults(queryState).toList
+
+    // then
+    result.map(_("b")) should equal(List(startNode, middleNode))
+  }
+
+  test("should reach the start node through a cycle when only distinct end nodes are needed") {
+    // given
+    val startNode = newMockedNode(1)
+    val otherNode = newMockedNode(2)
+    val outgoing = newMockedRealtionship(1, startNode, otherNode)
+    val incoming = newMockedRealtionship(2, otherNode, startNode)
+
+    val query = mock[QueryContext]
+    replyWithMap(query, Map(
+        (startNode, Direction.OUTGOING) -> Seq(outgoing),
+        (otherNode, Direction.OUTGOING) -> Seq(incoming)
+      ).withDefaultValue(Seq.empty)
+    )
+    val queryState = QueryStateHelper.emptyWith(query = query)
+
+    val left = newMockedPipe(SymbolTable(Map("a" -> CTNode)))
+    when(left.createResults(queryState)).thenReturn(Iterator(row("a" -> startNode)))
+
+    // when
+    val result = VarLengthExpandPipe(left, "a", "r", "b", Direction.OUTGOING, Seq.empty, 1, None, distinctEndNodes = true).createResults(queryState).toList
+
+    // then
+    result.map(_("b")) should equal(List(otherNode, startNode))
+  }
+
   private def row(values: (String, Any)*) = ExecutionContext.from(values: _*)
 
   private def newMockedNode(id: Int) = {
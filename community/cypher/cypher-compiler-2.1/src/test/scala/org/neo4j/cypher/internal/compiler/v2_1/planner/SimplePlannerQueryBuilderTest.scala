@@ -670,5 +670,23 @@ class SimplePlannerQueryBuilderTest extends CypherFunSuite with LogicalPlanningT
     query.graph.patternNodes should be (Set(IdName("n")))
   }
 
+  test("MATCH n RETURN DISTINCT n.prop") {
+    val (query, _) = buildPlannerQuery("MATCH n RETURN DISTINCT n.prop")
+
+    query.projection match {
+      case AggregationProjection(groupingKeys, aggregationExpression, sorting, limit, skip) =>
+        groupingKeys should equal(Map("n.prop" -> Property(Identifier("n")(pos), PropertyKeyName("prop")(pos))(pos)))
+        sorting should be (empty)
+        limit should be (empty)
+        skip should be (empty)
+        aggregationExpression should be (empty)
+
+      case x =>
+        fail(s"Expected AggregationProjection, got $x")
+    }
+
+    query.graph.patternNodes should be (Set(IdName("n")))
+  }
+
   def relType(name: String): RelTypeName = RelTypeName(name)_
 }
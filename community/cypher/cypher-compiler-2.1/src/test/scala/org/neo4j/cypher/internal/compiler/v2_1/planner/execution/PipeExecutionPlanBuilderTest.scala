@@ -25,7 +25,7 @@ import org.neo4j.cypher.internal.compiler.v2_1.ast.convert.ExpressionConverters.
 import org.neo4j.cypher.internal.compiler.v2_1.planner._
 import org.neo4j.cypher.internal.compiler.v2_1.pipes._
 import org.neo4j.cypher.internal.compiler.v2_1.planner.logical.plans._
-import org.neo4j.cypher.internal.compiler.v2_1.ast.{Collection, SignedIntegerLiteral}
+import org.neo4j.cypher.internal.compiler.v2_1.ast.{Identifier, Equals, Collection, SignedIntegerLiteral}
 import org.neo4j.cypher.internal.compiler.v2_1.LabelId
 import org.neo4j.graphdb.Direction
 
@@ -158,4 +158,56 @@ class PipeExecutionPlanBuilderTest extends CypherFunSuite with LogicalPlanningTe
       ExpandPipe( AllNodesScanPipe("c"), "c", "r2", "b", Direction.INCOMING, Seq() )
     ))
   }
+
+  test("fuses a chain of streaming operators") {
+    val predicate: Equals = Equals(Identifier("a")_, Identifier("b")_)_
+    val logicalPlan = Selection(Seq(predicate), Expand(AllNodesScan("a"), "a", Direction.INCOMING, Seq(), "b", "r1", SimplePatternLength))
+    val pipeInfo = planBuilder.build(logicalPlan)
+
+    pipeInfo.pipe should equal(FusedPipe(FilterPipe(
+      ExpandPipe( AllNodesScanPipe("a"), "a", "r1", "b", Direction.INCOMING, Seq() ),
+      predicate.asCommandPredicate
+    )))
+  }
+
+  test("expands to distinct nodes when only distinct end nodes are kept") {
+    val expand = Expand(AllNodesScan("a"), "a", Direction.OUTGOING, Seq(), "b", "r", VarPatternLength(1, Some(6)))
+    val projection = Projection(expand, Map("a" -> Identifier("a")_, "b" -> Identifier("b")_, "r" -> Identifier("r")_))
+    val logicalPlan = Aggregation(projection, Map("b" -> Identifier("b")_), Map.empty)
+    val pipeInfo = planBuilder.build(logicalPlan)
+
+    pipeInfo.pipe should equal(EagerAggregationPipe(
+      ProjectionNewPipe(
+        VarLengthExpandPipe(AllNodesScanPipe("a"), "a", "r", "b", Direction.OUTGOING, Seq(), 1, Some(6), distinctEndNodes = true),
+        Map("b" -> legacy.Identifier("b"))),
+      Map("b" -> legacy.Identifier("b")),
+      Map.empty))
+  }
+
+  test("expands every path when the relationships are kept") {
+    val expand = Expand(AllNodesScan("a"), "a", Direction.OUTGOING, Seq(), "b", "r", VarPatternLength(1, Some(6)))
+    val projection = Projection(expand, Map("a" -> Identifier("a")_, "b" -> Identifier("b")_, "r" -> Identifier("r")_))
+    val logicalPlan = Aggregation(projection, Map("b" -> Identifier("b")_, "r" -> Identifier("r")_), Map.empty)
+    val pipeInfo = planBuilder.build(logicalPlan)
+
+    pipeInfo.pipe should equal(EagerAggregationPipe(
+      ProjectionNewPipe(
+        VarLengthExpandPipe(AllNodesScanPipe("a"), "a", "r", "b", Direction.OUTGOING, Seq(), 1, Some(6)),
+        Map("a" -> legacy.Identifier("a"), "b" -> legacy.Identifier("b"), "r" -> legacy.Identifier("r"))),
+      Map("b" -> legacy.Identifier("b"), "r" -> legacy.Identifier("r")),
+      Map.empty))
+  }
+
+  test("assigns a slot to every identifier of the plan") {
+    val logicalPlan =
+      NodeHashJoin(
+        "b",
+        Expand(AllNodesScan("a"), "a", Direction.INCOMING, Seq(), "b", "r1", SimplePatternLength),
+        Expand(AllNodesScan("c"), "c", Direction.INCOMING, Seq(), "b", "r2", SimplePatternLength)
+      )
+    val slots = planBuilder.build(logicalPlan).slots.get
+
+    slots.size should equal(5)
+    Seq("a", "b", "c", "r1", "r2").map(slots.slotOf).toSet should equal((0 until 5).toSet)
+  }
 }
@@ -25,7 +25,7 @@ import org.neo4j.cypher.internal.compiler.v2_1.planner.logical.plans._
 import org.neo4j.cypher.internal.compiler.v2_1.ast._
 import org.neo4j.graphdb.Direction
 import org.mockito.Mockito._
-import org.neo4j.cypher.internal.compiler.v2_1.RelTypeId
+import org.neo4j.cypher.internal.compiler.v2_1.{LabelId, PropertyKeyId, RelTypeId}
 import scala.collection.mutable
 
 class CostModelExpectationTest extends CypherFunSuite with LogicalPlanningTestSupport {
@@ -165,4 +165,46 @@ class CostModelExpectationTest extends CypherFunSuite with LogicalPlanningTestSu
 
     cost1 should be < cost2
   }
+
+  test("select(label scan) < index seek on a property with few distinct values") {
+    val semanticTable = newMockedSemanticTable
+    val statistics = newMockedStatistics
+    when(statistics.nodesWithLabelCardinality(LabelId(12))).thenReturn(1000.0)
+    when(statistics.indexUniqueValuesSelectivity(LabelId(12), PropertyKeyId(15))).thenReturn(Some(0.001))
+    val cost = newMetricsFactory.newMetrics(statistics, semanticTable).cost
+
+    val cost1 = cost(
+      Selection(
+        Seq(Equals(Property(Identifier("a")_, PropertyKeyName("active")_)_, True()_)_),
+        NodeByLabelScan("a", Right(LabelId(12)))
+      )
+    )
+
+    val cost2 = cost(
+      NodeIndexSeek("a", LabelId(12), PropertyKeyId(15), True()_)
+    )
+
+    cost1 should be < cost2
+  }
+
+  test("index seek on a property with many distinct values < select(label scan)") {
+    val semanticTable = newMockedSemanticTable
+    val statistics = newMockedStatistics
+    when(statistics.nodesWithLabelCardinality(LabelId(12))).thenReturn(1000.0)
+    when(statistics.indexUniqueValuesSelectivity(LabelId(12), PropertyKeyId(15))).thenReturn(Some(0.5))
+    val cost = newMetricsFactory.newMetrics(statistics, semanticTable).cost
+
+    val cost1 = cost(
+      NodeIndexSeek("a", LabelId(12), PropertyKeyId(15), StringLiteral("Andres")_)
+    )
+
+    val cost2 = cost(
+      Selection(
+        Seq(Equals(Property(Identifier("a")_, PropertyKeyName("name")_)_, StringLiteral("Andres")_)_),
+        NodeByLabelScan("a", Right(LabelId(12)))
+      )
+    )
+
+    cost1 should be < cost2
+  }
 }
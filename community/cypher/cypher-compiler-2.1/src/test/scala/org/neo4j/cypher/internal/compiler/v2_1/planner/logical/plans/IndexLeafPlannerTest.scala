@@ -23,8 +23,8 @@ import org.neo4j.cypher.internal.commons.CypherFunSuite
 import org.neo4j.kernel.api.index.IndexDescriptor
 import org.neo4j.cypher.internal.compiler.v2_1.planner._
 import org.neo4j.cypher.internal.compiler.v2_1.ast._
-import org.neo4j.cypher.internal.compiler.v2_1.planner.logical.steps.{indexSeekLeafPlanner, uniqueIndexSeekLeafPlanner}
-import org.neo4j.cypher.internal.compiler.v2_1.PropertyKeyId
+import org.neo4j.cypher.internal.compiler.v2_1.planner.logical.steps.{indexRangeSeekLeafPlanner, indexSeekLeafPlanner, uniqueIndexSeekLeafPlanner}
+import org.neo4j.cypher.internal.compiler.v2_1.{Bound, PropertyKeyId}
 import org.neo4j.cypher.internal.compiler.v2_1.LabelId
 import org.neo4j.cypher.internal.compiler.v2_1.planner.logical.Candidates
 import org.neo4j.cypher.internal.compiler.v2_1.planner.logical.steps.QueryPlanProducer._
@@ -126,4 +126,52 @@ class IndexLeafPlannerTest extends CypherFunSuite with LogicalPlanningTestSuppor
     // then
     resultPlans should equal(Candidates(planNodeIndexUniqueSeek(idName, labelId, propertyKeyId, SignedIntegerLiteral("42")_, Seq(equals, hasLabels))))
   }
+
+  test("index range seek when there is an index on the property") {
+    // given
+    val identifier = Identifier("n")_
+    val labelId = LabelId(12)
+    val propertyKeyId = PropertyKeyId(15)
+    val idName = IdName("n")
+    val hasLabels = HasLabels(identifier, Seq(LabelName("Awesome")_))_
+    val greaterThan = GreaterThan(
+      Property(identifier, PropertyKeyName("prop")_)_,
+      SignedIntegerLiteral("42")_
+    )_
+    val lessThanOrEqual = LessThanOrEqual(
+      Property(identifier, PropertyKeyName("prop")_)_,
+      SignedIntegerLiteral("50")_
+    )_
+    val qg = QueryGraph(
+      selections = Selections(Set(
+        Predicate(Set(idName), greaterThan),
+        Predicate(Set(idName), lessThanOrEqual),
+        Predicate(Set(idName), hasLabels))),
+      patternNodes = Set(idName))
+
+    val semanticTable = newMockedSemanticTable
+    when(semanticTable.resolvedLabelIds).thenReturn(mutable.Map("Awesome" -> labelId))
+    when(semanticTable.resolvedPropertyKeyNames).thenReturn(mutable.Map("prop" -> propertyKeyId))
+    when(semanticTable.isNode(identifier)).thenReturn(true)
+
+    val factory = newMockedMetricsFactory
+    implicit val context = newMockedQueryGraphSolvingContext(
+      semanticTable = semanticTable,
+      planContext = newMockedPlanContext,
+      query = qg,
+      metrics = factory.newMetrics(statistics, semanticTable))
+    when(context.planContext.indexesGetForLabel(12)).thenAnswer(new Answer[Iterator[IndexDescriptor]] {
+      override def answer(invocation: InvocationOnMock) = Iterator(new IndexDescriptor(12, 15))
+    })
+    when(context.planContext.uniqueIndexesGetForLabel(12)).thenReturn(Iterator())
+
+    // when
+    val resultPlans = indexRangeSeekLeafPlanner(qg)
+
+    // then the range predicates are left to be applied as filters
+    resultPlans should equal(Candidates(planNodeIndexRangeSeek(idName, labelId, propertyKeyId,
+      Some(Bound(SignedIntegerLiteral("42")_, inclusive = false)),
+      Some(Bound(SignedIntegerLiteral("50")_, inclusive = true)),
+      Seq(hasLabels))))
+  }
 }
@@ -20,26 +20,68 @@
 package org.neo4j.cypher.internal.spi.v2_1
 
 import org.neo4j.cypher.internal.compiler.v2_1.spi.GraphStatistics
-import org.neo4j.cypher.internal.compiler.v2_1.{RelTypeId, LabelId}
+import org.neo4j.cypher.internal.compiler.v2_1.{HardcodedGraphStatistics, PropertyKeyId, RelTypeId, LabelId}
 import org.neo4j.graphdb.Direction
-import org.neo4j.kernel.api.heuristics.StatisticsData
+import org.neo4j.kernel.api.ReadOperations
+import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException
+import org.neo4j.kernel.api.index.IndexDescriptor
+import org.neo4j.kernel.impl.nioneo.store.counts.CountsStore.ANY
+import org.neo4j.kernel.impl.nioneo.store.counts.StaleCountsException
 
-class TransactionBoundGraphStatistics(statistics: StatisticsData) extends GraphStatistics {
+/**
+ * Statistics read from the exact counts the kernel maintains for committed data, and from the latest samples of
+ * its indexes. While the counts are out of date, and until they have been rebuilt, the hardcoded estimates are used.
+ */
+class TransactionBoundGraphStatistics(operations: ReadOperations) extends GraphStatistics {
+
+  private val estimates = HardcodedGraphStatistics
 
-  def nodesCardinality =
-    statistics.liveNodesRatio() * statistics.maxAddressableNodes()
+  def nodesCardinality: Double =
+    counted(estimates.nodesCardinality) {
+      operations.countsForNode(ANY)
+    }
 
-  def nodesWithLabelCardinality(labelId: LabelId) =
-     nodesWithLabelSelectivity(labelId) * nodesCardinality
+  def nodesWithLabelCardinality(labelId: LabelId): Double =
+    counted(estimates.nodesWithLabelCardinality(labelId)) {
+      operations.countsForNode(labelId.id)
+    }
 
   def nodesWithLabelSelectivity(labelId: LabelId): Double =
-    statistics.labelDistribution( labelId.id )
+    counted(estimates.nodesWithLabelSelectivity(labelId)) {
+      ratio(operations.countsForNode(labelId.id), operations.countsForNode(ANY))
+    }
 
-  def relationshipsWithTypeSelectivity(relTypeId: RelTypeId): Double = ???
+  def relationshipsWithTypeSelectivity(relTypeId: RelTypeId): Double =
+    counted(estimates.relationshipsWithTypeSelectivity(relTypeId)) {
+      ratio(operations.countsForRelationship(ANY, relTypeId.id, Direction.OUTGOING),
+            operations.countsForRelationship(ANY, ANY, Direction.OUTGOING))
+    }
 
   def degreeByRelationshipTypeAndDirection(relTypeId: RelTypeId, direction: Direction): Double =
-    statistics.degree( StatisticsData.RELATIONSHIP_DEGREE_FOR_NODE_WITHOUT_LABEL, relTypeId.id, direction )
+    counted(estimates.degreeByRelationshipTypeAndDirection(relTypeId, direction)) {
+      ratio(operations.countsForRelationship(ANY, relTypeId.id, direction), operations.countsForNode(ANY))
+    }
 
   def degreeByLabelRelationshipTypeAndDirection(labelId: LabelId, relTypeId: RelTypeId, direction: Direction): Double =
-    statistics.degree( labelId.id, relTypeId.id, direction )
+    counted(estimates.degreeByLabelRelationshipTypeAndDirection(labelId, relTypeId, direction)) {
+      ratio(operations.countsForRelationship(labelId.id, relTypeId.id, direction), operations.countsForNode(labelId.id))
+    }
+
+  def indexUniqueValuesSelectivity(labelId: LabelId, propertyKeyId: PropertyKeyId): Option[Double] =
+    try {
+      val selectivity = operations.indexUniqueValuesSelectivity(new IndexDescriptor(labelId.id, propertyKeyId.id))
+      if (selectivity.isNaN) None else Some(selectivity)
+    } catch {
+      case _: IndexNotFoundKernelException => None
+    }
+
+  private def counted(estimate: => Double)(count: => Double): Double =
+    try {
+      count
+    } catch {
+      case _: StaleCountsException => estimate
+    }
+
+  private def ratio(part: Double, whole: Double): Double =
+    if (whole == 0) 0.0 else part / whole
 }
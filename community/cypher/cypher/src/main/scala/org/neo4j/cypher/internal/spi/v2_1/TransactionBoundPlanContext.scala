@@ -91,5 +91,5 @@ class TransactionBoundPlanContext(statement: Statement, kernelAPI: KernelAPI, gd
     statement.readOperations().schemaStateGetOrCreate(key, javaCreator)
   }
 
-  def statistics: GraphStatistics = HardcodedGraphStatistics
+  val statistics: GraphStatistics = new TransactionBoundGraphStatistics(statement.readOperations())
 }
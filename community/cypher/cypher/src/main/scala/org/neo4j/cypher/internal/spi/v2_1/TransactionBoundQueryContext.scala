@@ -35,6 +35,7 @@ import org.neo4j.kernel.api.exceptions.schema.{AlreadyConstrainedException, Alre
 import org.neo4j.kernel.api.index.{IndexDescriptor, InternalIndexState}
 import org.neo4j.helpers.collection.IteratorUtil
 import org.neo4j.cypher.internal.compiler.v2_1.spi._
+import org.neo4j.cypher.internal.compiler.v2_1.Bound
 import org.neo4j.collection.primitive.PrimitiveLongIterator
 import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge
 import org.neo4j.graphdb.factory.GraphDatabaseSettings
@@ -116,6 +117,16 @@ class TransactionBoundQueryContext(graph: GraphDatabaseAPI,
   def exactIndexSearch(index: IndexDescriptor, value: Any) =
     mapToScala(statement.readOperations().nodesGetFromIndexLookup(index, value))(nodeOps.getById)
 
+  def rangeIndexSeekByNumber(index: IndexDescriptor, lower: Option[Bound[Number]], upper: Option[Bound[Number]]) =
+    mapToScala(statement.readOperations().nodesGetFromIndexRangeSeekByNumber(index,
+      lower.map(_.value).orNull, lower.exists(_.inclusive),
+      upper.map(_.value).orNull, upper.exists(_.inclusive)))(nodeOps.getById)
+
+  def rangeIndexSeekByString(index: IndexDescriptor, lower: Option[Bound[String]], upper: Option[Bound[String]]) =
+    mapToScala(statement.readOperations().nodesGetFromIndexRangeSeekByString(index,
+      lower.map(_.value).orNull, lower.exists(_.inclusive),
+      upper.map(_.value).orNull, upper.exists(_.inclusive)))(nodeOps.getById)
+
   def exactUniqueIndexSearch(index: IndexDescriptor, value: Any): Option[Node] = {
     val nodeId: Long = statement.readOperations().nodeGetUniqueFromIndexLookup(index, value)
     if (StatementConstants.NO_SUCH_NODE == nodeId) None else Some(nodeOps.getById(nodeId))
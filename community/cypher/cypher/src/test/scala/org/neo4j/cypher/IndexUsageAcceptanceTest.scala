@@ -34,4 +34,31 @@ class IndexUsageAcceptanceTest extends ExecutionEngineJUnitSuite{
     // Then
     assert(result.isEmpty, "Should not find anything here")
   }
+
+  @Test
+  def should_use_index_for_range_predicates() {
+    // Given
+    execute("CREATE (:Person { age: 10 }), (:Person { age: 20 }), (:Person { age: 30 }), (:Person { age: 40 }), (:Person { age: 'old' })")
+    graph.createIndex("Person", "age")
+
+    // When
+    val result = execute("MATCH (n:Person) WHERE n.age >= 20 AND n.age < 40 RETURN n.age AS age")
+
+    // Then
+    assert(result.executionPlanDescription().toString.contains("SchemaIndexRange"))
+    assert(result.columnAs[Number]("age").map(_.intValue()).toSet === Set(20, 30))
+  }
+
+  @Test
+  def should_use_index_for_string_range_predicates_with_the_experimental_planner() {
+    // Given
+    execute("CREATE (:Person { name: 'Andres' }), (:Person { name: 'Jake' }), (:Person { name: 'Stefan' }), (:Person { name: 42 })")
+    graph.createIndex("Person", "name")
+
+    // When
+    val result = execute("CYPHER experimental MATCH (n:Person) WHERE n.name > 'B' RETURN n.name AS name")
+
+    // Then
+    assert(result.columnAs[String]("name").toSet === Set("Jake", "Stefan"))
+  }
 }
@@ -373,6 +373,24 @@ class MatchAcceptanceTest extends ExecutionEngineFunSuite with QueryStatisticsTe
       )
   }
 
+  test("should return every node reachable through var length paths once") {
+    createNodes("A", "B", "C", "D")
+    relate("A" -> "KNOWS" -> "B")
+    relate("A" -> "KNOWS" -> "C")
+    relate("B" -> "KNOWS" -> "C")
+    relate("C" -> "KNOWS" -> "D")
+    relate("D" -> "KNOWS" -> "A")
+
+    val outgoing = executeWithNewPlanner("match (a {name:'A'})-[*..6]->x return distinct x")
+    val undirected = executeWithNewPlanner("match (a {name:'A'})-[*1..2]-x return distinct x")
+
+    outgoing.toList should have size 4
+    outgoing.toSet should equal(
+      Set(Map("x" -> node("A")), Map("x" -> node("B")), Map("x" -> node("C")), Map("x" -> node("D"))))
+    undirected.toSet should equal(
+      Set(Map("x" -> node("B")), Map("x" -> node("C")), Map("x" -> node("D"))))
+  }
+
   test("should return a var length path without minimal length") {
     createNodes("A", "B", "C")
     val r1 = relate("A" -> "KNOWS" -> "B")
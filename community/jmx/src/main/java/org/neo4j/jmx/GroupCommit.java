@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.jmx;
+
+@ManagementInterface( name = GroupCommit.NAME )
+@Description( "Information about how many commits share each force of the logical log, see logical_log_group_commit" )
+public interface GroupCommit
+{
+    final String NAME = "Group commit";
+
+    @Description( "Whether concurrently committing transactions share forces of the logical log" )
+    boolean isEnabled();
+
+    @Description( "The number of forces of the logical log made for group commits" )
+    long getNumberOfForces();
+
+    @Description( "The average number of commits made durable by each force of the logical log" )
+    double getAverageBatchSize();
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.jmx.impl;
+
+import javax.management.NotCompliantMBeanException;
+
+import org.neo4j.helpers.Service;
+import org.neo4j.jmx.GroupCommit;
+import org.neo4j.kernel.impl.nioneo.xa.NeoStoreXaDataSource;
+import org.neo4j.kernel.impl.transaction.XaDataSourceManager;
+
+@Service.Implementation( ManagementBeanProvider.class )
+public final class GroupCommitBean extends ManagementBeanProvider
+{
+    public GroupCommitBean()
+    {
+        super( GroupCommit.class );
+    }
+
+    @Override
+    protected Neo4jMBean createMBean( ManagementData management ) throws NotCompliantMBeanException
+    {
+        return new GroupCommitImpl( management );
+    }
+
+    private static class GroupCommitImpl extends Neo4jMBean implements GroupCommit
+    {
+        private final XaDataSourceManager xadsm;
+
+        GroupCommitImpl( ManagementData management ) throws NotCompliantMBeanException
+        {
+            super( management );
+            this.xadsm = management.getKernelData().graphDatabase().getDependencyResolver()
+                    .resolveDependency( XaDataSourceManager.class );
+        }
+
+        public boolean isEnabled()
+        {
+            return groupCommit() != null;
+        }
+
+        public long getNumberOfForces()
+        {
+            org.neo4j.kernel.impl.transaction.xaframework.GroupCommit groupCommit = groupCommit();
+            return groupCommit == null ? 0 : groupCommit.getForceCount();
+        }
+
+        public double getAverageBatchSize()
+        {
+            org.neo4j.kernel.impl.transaction.xaframework.GroupCommit groupCommit = groupCommit();
+            return groupCommit == null ? 0 : groupCommit.getAverageBatchSize();
+        }
+
+        private org.neo4j.kernel.impl.transaction.xaframework.GroupCommit groupCommit()
+        {
+            NeoStoreXaDataSource neoStoreDataSource = xadsm.getNeoStoreDataSource();
+            if ( neoStoreDataSource == null )
+            {
+                return null;
+            }
+            return neoStoreDataSource.getXaContainer().getLogicalLog().getGroupCommit();
+        }
+    }
+}
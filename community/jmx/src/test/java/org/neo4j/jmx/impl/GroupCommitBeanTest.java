@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.jmx.impl;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.jmx.GroupCommit;
+import org.neo4j.jmx.JmxUtils;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.logical_log_group_commit;
+
+public class GroupCommitBeanTest
+{
+    private GraphDatabaseService db;
+
+    @After
+    public void shutdown()
+    {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldExposeGroupCommitForcesAndBatchSize() throws Exception
+    {
+        // GIVEN
+        db = new TestGraphDatabaseFactory().newImpermanentDatabaseBuilder()
+                .setConfig( logical_log_group_commit, "true" ).newGraphDatabase();
+        ObjectName groupCommit = JmxUtils.getObjectName( db, GroupCommit.NAME );
+
+        // WHEN
+        for ( int i = 0; i < 3; i++ )
+        {
+            try ( Transaction tx = db.beginTx() )
+            {
+                db.createNode();
+                tx.success();
+            }
+        }
+
+        // THEN
+        assertEquals( true, JmxUtils.getAttribute( groupCommit, "Enabled" ) );
+        assertTrue( JmxUtils.<Long>getAttribute( groupCommit, "NumberOfForces" ) >= 3 );
+        assertEquals( 1d, JmxUtils.<Double>getAttribute( groupCommit, "AverageBatchSize" ), 0d );
+    }
+
+    @Test
+    public void shouldReportGroupCommitAsDisabledByDefault() throws Exception
+    {
+        // GIVEN
+        db = new TestGraphDatabaseFactory().newImpermanentDatabase();
+
+        // WHEN
+        ObjectName groupCommit = JmxUtils.getObjectName( db, GroupCommit.NAME );
+
+        // THEN
+        assertEquals( false, JmxUtils.getAttribute( groupCommit, "Enabled" ) );
+        assertEquals( 0L, JmxUtils.getAttribute( groupCommit, "NumberOfForces" ) );
+    }
+}
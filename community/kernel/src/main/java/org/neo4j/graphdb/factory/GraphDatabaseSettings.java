@@ -36,6 +36,7 @@ import org.neo4j.kernel.impl.cache.MonitorGc;
 import static org.neo4j.helpers.Settings.ANY;
 import static org.neo4j.helpers.Settings.BOOLEAN;
 import static org.neo4j.helpers.Settings.BYTES;
+import static org.neo4j.helpers.Settings.DURATION;
 import static org.neo4j.helpers.Settings.FALSE;
 import static org.neo4j.helpers.Settings.INTEGER;
 import static org.neo4j.helpers.Settings.NO_DEFAULT;
@@ -168,6 +169,21 @@ public abstract class GraphDatabaseSettings
                   "Default is 25M" )
     public static final Setting<Long> logical_log_rotation_threshold = setting( "logical_log_rotation_threshold", BYTES, "25M" );
 
+    @Description( "Let concurrently committing transactions share forces of the logical log, so that many " +
+                  "transactions can be made durable by a single force. Transactions are applied, and so become " +
+                  "visible, only once their commit has been forced. Not used in a cluster." )
+    public static final Setting<Boolean> logical_log_group_commit = setting( "logical_log_group_commit", BOOLEAN, FALSE );
+
+    @Description( "The longest time that the transaction forcing the logical log for a group commit waits for " +
+                  "more transactions to join before forcing." )
+    public static final Setting<Long> logical_log_group_commit_max_delay = setting(
+            "logical_log_group_commit_max_delay", DURATION, "0ms" );
+
+    @Description( "The number of transactions that makes a group commit force the logical log right away, " +
+                  "without waiting for the max delay to pass." )
+    public static final Setting<Integer> logical_log_group_commit_max_batch_size = setting(
+            "logical_log_group_commit_max_batch_size", INTEGER, "100", min( 1 ) );
+
     @Description("Use a quick approach for rebuilding the ID generators. This give quicker recovery time, " +
             "but will limit the ability to reuse the space of deleted entities.")
     public static final Setting<Boolean> rebuild_idgenerators_fast = setting("rebuild_idgenerators_fast", BOOLEAN, TRUE );
@@ -182,6 +198,22 @@ public abstract class GraphDatabaseSettings
     @Description("The size to allocate for a memory mapping pool to be shared between all stores.")
     public static final Setting<Long> all_stores_total_mapped_memory_size = setting("all_stores_total_mapped_memory_size", BYTES, "500M" );
 
+    @Description("Use a single page cache, of size all_stores_total_mapped_memory_size and with pages of " +
+            "mapped_memory_page_size, shared between all stores instead of the mapped memory sizes configured per store.")
+    public static final Setting<Boolean> use_shared_page_cache = setting("use_shared_page_cache", BOOLEAN, FALSE );
+
+    @Description("Keep the pages of the shared page cache in direct buffers, outside of the Java heap, rather than " +
+            "in heap buffers.")
+    public static final Setting<Boolean> page_cache_direct_buffers = setting("page_cache_direct_buffers", BOOLEAN, TRUE );
+
+    @Description("How often dirty pages of the shared page cache are written out in the background.")
+    public static final Setting<Long> page_cache_flush_interval = setting("page_cache_flush_interval", DURATION, "1s" );
+
+    @Description("How often schema indexes are sampled in the background, to keep the query planner informed of " +
+            "how many distinct values they hold. Indexes are always sampled when they have been populated. " +
+            "Set to 0 to only sample indexes then.")
+    public static final Setting<Long> index_sampling_interval = setting("index_sampling_interval", DURATION, "10m" );
+
     @Description("Tell Neo4j to regularly log memory mapping statistics.")
     public static final Setting<Boolean> log_mapped_memory_stats = setting("log_mapped_memory_stats", BOOLEAN, FALSE );
 
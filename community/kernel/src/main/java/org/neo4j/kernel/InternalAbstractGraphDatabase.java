@@ -122,10 +122,14 @@ import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
 import org.neo4j.kernel.impl.locking.community.CommunityLockManger;
+import org.neo4j.kernel.impl.locking.striped.StripedLocksFactory;
+import org.neo4j.kernel.impl.nioneo.store.ConcurrentIdGeneratorFactory;
 import org.neo4j.kernel.impl.nioneo.store.DefaultWindowPoolFactory;
 import org.neo4j.kernel.impl.nioneo.store.FileSystemAbstraction;
+import org.neo4j.kernel.impl.nioneo.store.PageCacheWindowPoolFactory;
 import org.neo4j.kernel.impl.nioneo.store.StoreFactory;
 import org.neo4j.kernel.impl.nioneo.store.StoreId;
+import org.neo4j.kernel.impl.nioneo.store.windowpool.WindowPoolFactory;
 import org.neo4j.kernel.impl.nioneo.xa.NeoStoreProvider;
 import org.neo4j.kernel.impl.nioneo.xa.NeoStoreXaDataSource;
 import org.neo4j.kernel.impl.nioneo.xa.NioNeoDbPersistenceSource;
@@ -214,6 +218,7 @@ public abstract class InternalAbstractGraphDatabase
         public static final Setting<Boolean> read_only = GraphDatabaseSettings.read_only;
         public static final Setting<Boolean> use_memory_mapped_buffers =
                 GraphDatabaseSettings.use_memory_mapped_buffers;
+        public static final Setting<Boolean> use_shared_page_cache = GraphDatabaseSettings.use_shared_page_cache;
         public static final Setting<Boolean> execution_guard_enabled = GraphDatabaseSettings.execution_guard_enabled;
         public static final Setting<String> cache_type = GraphDatabaseSettings.cache_type;
         public static final Setting<Boolean> ephemeral = setting( "ephemeral", Settings.BOOLEAN, Settings.FALSE );
@@ -225,6 +230,16 @@ public abstract class InternalAbstractGraphDatabase
         public static final Setting<String> lock_manager = setting( "lock_manager", STRING, "" );
         public static final Setting<Boolean> statistics_enabled =
                 setting("statistics_enabled", Settings.BOOLEAN, Settings.FALSE);
+        // Number of ids each thread grabs at a time from the node, relationship and property id generators.
+        // 0 means that ids are allocated one by one from the shared generators.
+        @SuppressWarnings("unchecked")
+        public static final Setting<Integer> concurrent_id_allocation_batch_size =
+                setting( "concurrent_id_allocation_batch_size", Settings.INTEGER, "0", Settings.min( 0 ) );
+        // Number of threads applying the record changes of transactions replayed during recovery at startup.
+        // 0 means that each transaction is applied in full before the next one is replayed.
+        @SuppressWarnings("unchecked")
+        public static final Setting<Integer> recovery_threads =
+                setting( "recovery_threads", Settings.INTEGER, "0", Settings.min( 0 ) );
     }
 
     private static final long MAX_NODE_ID = IdType.NODE.getMaxValue();
@@ -818,8 +833,12 @@ public abstract class InternalAbstractGraphDatabase
                 logging.getMessagesLog( StoreFactory.class ), txHook );
     }
 
-    protected DefaultWindowPoolFactory createWindowPoolFactory()
+    protected WindowPoolFactory createWindowPoolFactory()
     {
+        if ( config.get( Configuration.use_shared_page_cache ) )
+        {
+            return life.add( new PageCacheWindowPoolFactory( config, jobScheduler ) );
+        }
         return new DefaultWindowPoolFactory();
     }
 
@@ -923,24 +942,30 @@ public abstract class InternalAbstractGraphDatabase
 
     protected IdGeneratorFactory createIdGeneratorFactory()
     {
+        int batchSize = config.get( Configuration.concurrent_id_allocation_batch_size );
+        if ( batchSize > 0 )
+        {
+            return new ConcurrentIdGeneratorFactory( new DefaultIdGeneratorFactory(), batchSize, jobScheduler );
+        }
         return new DefaultIdGeneratorFactory();
     }
 
     protected Locks createLockManager()
     {
         String key = config.get( Configuration.lock_manager );
+        Locks.Factory defaultFactory = null;
         for ( Locks.Factory candidate : Service.load(Locks.Factory.class) )
         {
             String candidateId = candidate.getKeys().iterator().next();
             if( candidateId.equals( key ))
             {
-                return candidate.newInstance( ResourceTypes.values() );
+                return candidate.newInstance( ResourceTypes.values(), monitors.newMonitor( Locks.Monitor.class ) );
             }
-            else if(key.equals( "" ))
+            // The striped lock manager always comes with the kernel, so any other implementation on the class path,
+            // like the one of the HA module, was put there on purpose and takes precedence.
+            if ( defaultFactory == null || defaultFactory.getKeys().iterator().next().equals( StripedLocksFactory.KEY ) )
             {
-                logging.getMessagesLog( InternalAbstractGraphDatabase.class )
-                        .info( "No locking implementation specified, defaulting to '" + candidateId + "'" );
-                return candidate.newInstance( ResourceTypes.values() );
+                defaultFactory = candidate;
             }
         }
 
@@ -950,6 +975,13 @@ public abstract class InternalAbstractGraphDatabase
         }
         else if(key.equals( "" ))
         {
+            if ( defaultFactory != null )
+            {
+                logging.getMessagesLog( InternalAbstractGraphDatabase.class )
+                        .info( "No locking implementation specified, defaulting to '" +
+                               defaultFactory.getKeys().iterator().next() + "'" );
+                return defaultFactory.newInstance( ResourceTypes.values(), monitors.newMonitor( Locks.Monitor.class ) );
+            }
             logging.getMessagesLog( InternalAbstractGraphDatabase.class )
                     .info( "No locking implementation specified, defaulting to 'community'" );
             return new CommunityLockManger();
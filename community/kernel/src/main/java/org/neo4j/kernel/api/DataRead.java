@@ -48,6 +48,39 @@ interface DataRead
     PrimitiveLongIterator nodesGetFromIndexLookup( IndexDescriptor index, Object value )
             throws IndexNotFoundKernelException;
 
+    /**
+     * Returns the nodes with a numeric value in the given range, a {@code null} bound leaving the range
+     * open in that direction.
+     *
+     * @throws org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException
+     *          if no such index found.
+     */
+    PrimitiveLongIterator nodesGetFromIndexRangeSeekByNumber( IndexDescriptor index,
+                                                              Number lower, boolean includeLower,
+                                                              Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException;
+
+    /**
+     * Returns the nodes with a string value in the given range, a {@code null} bound leaving the range
+     * open in that direction.
+     *
+     * @throws org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException
+     *          if no such index found.
+     */
+    PrimitiveLongIterator nodesGetFromIndexRangeSeekByString( IndexDescriptor index,
+                                                              String lower, boolean includeLower,
+                                                              String upper, boolean includeUpper )
+            throws IndexNotFoundKernelException;
+
+    /**
+     * Returns the nodes with a string value starting with the given prefix.
+     *
+     * @throws org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException
+     *          if no such index found.
+     */
+    PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( IndexDescriptor index, String prefix )
+            throws IndexNotFoundKernelException;
+
     PrimitiveLongIterator nodeGetRelationships( long nodeId, Direction direction, int... relTypes ) throws EntityNotFoundException;
 
     PrimitiveLongIterator nodeGetRelationships( long nodeId, Direction direction ) throws EntityNotFoundException;
@@ -76,6 +109,24 @@ interface DataRead
     int nodeGetDegree( long nodeId, Direction direction, int relType ) throws EntityNotFoundException;
     int nodeGetDegree( long nodeId, Direction direction ) throws EntityNotFoundException;
 
+    /**
+     * Returns the number of nodes with the given label, or of all nodes if the label is
+     * {@link org.neo4j.kernel.impl.nioneo.store.counts.CountsStore#ANY}. Only committed nodes are counted, changes
+     * made in the current transaction are not included.
+     *
+     * @throws org.neo4j.kernel.impl.nioneo.store.counts.StaleCountsException if the counts have gone out of date.
+     */
+    long countsForNode( int labelId );
+
+    /**
+     * Returns the number of relationships of the given type, connected in the given direction to nodes with the
+     * given label. Either may be {@link org.neo4j.kernel.impl.nioneo.store.counts.CountsStore#ANY}. Only committed
+     * relationships are counted, changes made in the current transaction are not included.
+     *
+     * @throws org.neo4j.kernel.impl.nioneo.store.counts.StaleCountsException if the counts have gone out of date.
+     */
+    long countsForRelationship( int labelId, int relTypeId, Direction direction );
+
     /**
      * Returns all labels set on node with id {@code nodeId}.
      * If the node has no labels an empty {@link Iterable} will be returned.
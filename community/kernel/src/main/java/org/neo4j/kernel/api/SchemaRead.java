@@ -55,6 +55,13 @@ interface SchemaRead
     /** Returns the failure description of a failed index. */
     String indexGetFailure( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
 
+    /**
+     * Returns the ratio of distinct values to entries of an index, from its latest sample. This is 1 for an index
+     * where every value is unique, and close to 0 for an index with few distinct values, such as one on a boolean
+     * property. Returns {@link Double#NaN} if the index hasn't been sampled yet.
+     */
+    double indexUniqueValuesSelectivity( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
+
     /**
      * Get all constraints applicable to label and propertyKey. There are only {@link
      * org.neo4j.kernel.api.constraints.UniquenessConstraint}
@@ -25,6 +25,7 @@ import java.util.Set;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.graphdb.Direction;
+import org.neo4j.helpers.Predicate;
 import org.neo4j.kernel.api.constraints.UniquenessConstraint;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.properties.DefinedProperty;
@@ -185,6 +186,11 @@ public interface TxState
 
     DiffSets<Long> nodesWithChangedProperty( int propertyKeyId, Object value );
 
+    /**
+     * @return nodes that got or lost a value accepted by {@code valueFilter} for the given property.
+     */
+    DiffSets<Long> nodesWithChangedProperty( int propertyKeyId, Predicate<Object> valueFilter );
+
     boolean relationshipIsAddedInThisTx( long relationshipId );
 
     boolean relationshipIsDeletedInThisTx( long relationshipId );
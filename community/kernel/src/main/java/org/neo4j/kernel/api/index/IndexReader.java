@@ -32,6 +32,30 @@ public interface IndexReader extends Resource
 {
     PrimitiveLongIterator lookup( Object value );
 
+    /**
+     * Finds nodes with a numeric value between {@code lower} and {@code upper}. A {@code null} bound means
+     * that the range is open in that direction. Since numbers may be indexed with reduced precision, the
+     * result may contain nodes with values just outside the range, which the caller is expected to filter out.
+     */
+    PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower, Number upper, boolean includeUpper );
+
+    /**
+     * Finds nodes with a string value between {@code lower} and {@code upper}. A {@code null} bound means
+     * that the range is open in that direction.
+     */
+    PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower, String upper, boolean includeUpper );
+
+    /**
+     * Finds nodes with a string value starting with {@code prefix}.
+     */
+    PrimitiveLongIterator rangeSeekByPrefix( String prefix );
+
+    /**
+     * Counts the entries of the index and their distinct values. This is expected to be cheaper than reading
+     * all entries, but may still take a while for large indexes.
+     */
+    IndexSample sampleIndex();
+
     IndexReader EMPTY = new IndexReader()
     {
         @Override
@@ -40,6 +64,32 @@ public interface IndexReader extends Resource
             return PrimitiveLongCollections.emptyIterator();
         }
 
+        @Override
+        public PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                        Number upper, boolean includeUpper )
+        {
+            return PrimitiveLongCollections.emptyIterator();
+        }
+
+        @Override
+        public PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower,
+                                                        String upper, boolean includeUpper )
+        {
+            return PrimitiveLongCollections.emptyIterator();
+        }
+
+        @Override
+        public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+        {
+            return PrimitiveLongCollections.emptyIterator();
+        }
+
+        @Override
+        public IndexSample sampleIndex()
+        {
+            return new IndexSample( 0, 0 );
+        }
+
         @Override
         public void close()
         {
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.index;
+
+/**
+ * The result of sampling an index: how many entries it holds and how many distinct values those entries have.
+ * Used by the query planner to tell how many nodes a lookup of a single value is likely to find.
+ */
+public class IndexSample
+{
+    private final long indexSize;
+    private final long uniqueValues;
+
+    public IndexSample( long indexSize, long uniqueValues )
+    {
+        this.indexSize = indexSize;
+        this.uniqueValues = uniqueValues;
+    }
+
+    public long indexSize()
+    {
+        return indexSize;
+    }
+
+    public long uniqueValues()
+    {
+        return uniqueValues;
+    }
+
+    /**
+     * The ratio of distinct values to entries, between 0 and 1. An index where every value is unique has a
+     * selectivity of 1, while an index on a boolean property has a selectivity close to 0. An empty index is
+     * considered perfectly selective.
+     */
+    public double uniqueValuesSelectivity()
+    {
+        return indexSize == 0 ? 1.0d : (double) uniqueValues / indexSize;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+        IndexSample that = (IndexSample) o;
+        return indexSize == that.indexSize && uniqueValues == that.uniqueValues;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * (int) (indexSize ^ (indexSize >>> 32)) + (int) (uniqueValues ^ (uniqueValues >>> 32));
+    }
+
+    @Override
+    public String toString()
+    {
+        return "IndexSample[indexSize=" + indexSize + ", uniqueValues=" + uniqueValues + "]";
+    }
+}
@@ -211,6 +211,34 @@ public class ConstraintEnforcingEntityOperations implements EntityOperations
         return entityReadOperations.nodesGetFromIndexLookup( state, index, value );
     }
 
+    @Override
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByNumber( KernelStatement state, IndexDescriptor index,
+                                                                     Number lower, boolean includeLower,
+                                                                     Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        return entityReadOperations.nodesGetFromIndexRangeSeekByNumber( state, index, lower, includeLower,
+                upper, includeUpper );
+    }
+
+    @Override
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByString( KernelStatement state, IndexDescriptor index,
+                                                                     String lower, boolean includeLower,
+                                                                     String upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        return entityReadOperations.nodesGetFromIndexRangeSeekByString( state, index, lower, includeLower,
+                upper, includeUpper );
+    }
+
+    @Override
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state, IndexDescriptor index,
+                                                                     String prefix )
+            throws IndexNotFoundKernelException
+    {
+        return entityReadOperations.nodesGetFromIndexRangeSeekByPrefix( state, index, prefix );
+    }
+
     @Override
     public long nodeGetUniqueFromIndexLookup(
             KernelStatement state,
@@ -377,6 +405,18 @@ public class ConstraintEnforcingEntityOperations implements EntityOperations
         return entityReadOperations.nodeGetDegree( statement, nodeId, direction );
     }
 
+    @Override
+    public long countsForNode( KernelStatement statement, int labelId )
+    {
+        return entityReadOperations.countsForNode( statement, labelId );
+    }
+
+    @Override
+    public long countsForRelationship( KernelStatement statement, int labelId, int relTypeId, Direction direction )
+    {
+        return entityReadOperations.countsForRelationship( statement, labelId, relTypeId, direction );
+    }
+
     @Override
     public PrimitiveIntIterator nodeGetRelationshipTypes( KernelStatement statement, long nodeId )
             throws EntityNotFoundException
@@ -166,6 +166,14 @@ public class LockingStatementOperations implements
         return schemaReadDelegate.indexGetState( state, descriptor );
     }
 
+    @Override
+    public double indexUniqueValuesSelectivity( KernelStatement state, IndexDescriptor descriptor )
+            throws IndexNotFoundKernelException
+    {
+        state.locks().acquireShared( ResourceTypes.SCHEMA, schemaResource() );
+        return schemaReadDelegate.indexUniqueValuesSelectivity( state, descriptor );
+    }
+
     @Override
     public Long indexGetOwningUniquenessConstraintId( KernelStatement state, IndexDescriptor index ) throws SchemaRuleNotFoundException
     {
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.neo4j.helpers.Predicate;
+
+/**
+ * Predicates on property values matching the range seeks of {@link org.neo4j.kernel.api.index.IndexReader},
+ * used for applying transaction state to, and filtering, the results of such seeks.
+ */
+public class PropertyValuePredicates
+{
+    private PropertyValuePredicates()
+    {
+    }
+
+    public static Predicate<Object> numberRange( final Number lower, final boolean includeLower,
+                                                 final Number upper, final boolean includeUpper )
+    {
+        return new Predicate<Object>()
+        {
+            @Override
+            public boolean accept( Object value )
+            {
+                if ( !(value instanceof Number) || isNaN( (Number) value ) ||
+                     (lower != null && isNaN( lower )) || (upper != null && isNaN( upper )) )
+                {
+                    return false;
+                }
+                Number number = (Number) value;
+                if ( lower != null )
+                {
+                    int comparison = compareNumbers( number, lower );
+                    if ( comparison < 0 || (comparison == 0 && !includeLower) )
+                    {
+                        return false;
+                    }
+                }
+                if ( upper != null )
+                {
+                    int comparison = compareNumbers( number, upper );
+                    if ( comparison > 0 || (comparison == 0 && !includeUpper) )
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    public static Predicate<Object> stringRange( final String lower, final boolean includeLower,
+                                                 final String upper, final boolean includeUpper )
+    {
+        return new Predicate<Object>()
+        {
+            @Override
+            public boolean accept( Object value )
+            {
+                if ( !isString( value ) )
+                {
+                    return false;
+                }
+                String string = value.toString();
+                if ( lower != null )
+                {
+                    int comparison = string.compareTo( lower );
+                    if ( comparison < 0 || (comparison == 0 && !includeLower) )
+                    {
+                        return false;
+                    }
+                }
+                if ( upper != null )
+                {
+                    int comparison = string.compareTo( upper );
+                    if ( comparison > 0 || (comparison == 0 && !includeUpper) )
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    public static Predicate<Object> stringPrefix( final String prefix )
+    {
+        return new Predicate<Object>()
+        {
+            @Override
+            public boolean accept( Object value )
+            {
+                return isString( value ) && value.toString().startsWith( prefix );
+            }
+        };
+    }
+
+    private static boolean isString( Object value )
+    {
+        return value instanceof String || value instanceof Character;
+    }
+
+    private static boolean isNaN( Number number )
+    {
+        return (number instanceof Double || number instanceof Float) && Double.isNaN( number.doubleValue() );
+    }
+
+    private static int compareNumbers( Number lhs, Number rhs )
+    {
+        if ( isIntegral( lhs ) && isIntegral( rhs ) )
+        {
+            long a = lhs.longValue();
+            long b = rhs.longValue();
+            return a < b ? -1 : (a == b ? 0 : 1);
+        }
+        double a = lhs.doubleValue();
+        double b = rhs.doubleValue();
+        return a < b ? -1 : (a == b ? 0 : 1);
+    }
+
+    private static boolean isIntegral( Number number )
+    {
+        return number instanceof Long || number instanceof Integer || number instanceof Short ||
+                number instanceof Byte;
+    }
+}
@@ -74,6 +74,9 @@ import static org.neo4j.helpers.collection.Iterables.option;
 import static org.neo4j.helpers.collection.IteratorUtil.resourceIterator;
 import static org.neo4j.helpers.collection.IteratorUtil.singleOrNull;
 import static org.neo4j.kernel.api.StatementConstants.NO_SUCH_NODE;
+import static org.neo4j.kernel.impl.api.PropertyValuePredicates.numberRange;
+import static org.neo4j.kernel.impl.api.PropertyValuePredicates.stringPrefix;
+import static org.neo4j.kernel.impl.api.PropertyValuePredicates.stringRange;
 
 public class StateHandlingStatementOperations implements
         KeyReadOperations,
@@ -518,6 +521,42 @@ public class StateHandlingStatementOperations implements
         return changeFilteredMatches;
     }
 
+    @Override
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByNumber( KernelStatement state, IndexDescriptor index,
+                                                                     Number lower, boolean includeLower,
+                                                                     Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        Predicate<Object> range = numberRange( lower, includeLower, upper, includeUpper );
+        PrimitiveLongIterator committed = storeLayer.nodesGetFromIndexRangeSeekByNumber( state, index,
+                lower, includeLower, upper, includeUpper );
+        // Numbers are indexed as doubles, so the index may include values just outside the range
+        PrimitiveLongIterator exactMatches = PrimitiveLongCollections.filter( committed,
+                propertyMatches( state, index.getPropertyKeyId(), range ) );
+        return filterIndexStateChanges( state, index, range, exactMatches );
+    }
+
+    @Override
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByString( KernelStatement state, IndexDescriptor index,
+                                                                     String lower, boolean includeLower,
+                                                                     String upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        PrimitiveLongIterator committed = storeLayer.nodesGetFromIndexRangeSeekByString( state, index,
+                lower, includeLower, upper, includeUpper );
+        return filterIndexStateChanges( state, index, stringRange( lower, includeLower, upper, includeUpper ),
+                committed );
+    }
+
+    @Override
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state, IndexDescriptor index,
+                                                                     String prefix )
+            throws IndexNotFoundKernelException
+    {
+        PrimitiveLongIterator committed = storeLayer.nodesGetFromIndexRangeSeekByPrefix( state, index, prefix );
+        return filterIndexStateChanges( state, index, stringPrefix( prefix ), committed );
+    }
+
     private PrimitiveLongIterator filterExactIndexMatches(
             KernelStatement state,
             IndexDescriptor index,
@@ -559,6 +598,42 @@ public class StateHandlingStatementOperations implements
         };
     }
 
+    private PrimitiveLongPredicate propertyMatches(
+            final KernelStatement state,
+            final int propertyKeyId,
+            final Predicate<Object> valueFilter )
+    {
+        return new PrimitiveLongPredicate()
+        {
+            @Override
+            public boolean accept( long nodeId )
+            {
+                try
+                {
+                    return valueFilter.accept( nodeGetProperty( state, nodeId, propertyKeyId ).value( null ) );
+                }
+                catch ( EntityNotFoundException e )
+                {   // Deleted in this transaction, it would have been filtered out by the transaction state anyway
+                    return false;
+                }
+            }
+        };
+    }
+
+    private PrimitiveLongIterator filterIndexStateChanges( KernelStatement state, IndexDescriptor index,
+            Predicate<Object> valueFilter, PrimitiveLongIterator nodeIds )
+    {
+        if ( state.hasTxStateWithChanges() )
+        {
+            DiffSets<Long> labelPropertyChanges = nodesWithLabelAndPropertyDiffSet( state, index, valueFilter );
+            DiffSets<Long> nodes = state.txState().addedAndRemovedNodes();
+
+            // Apply to actual index range seek
+            return nodes.augmentWithRemovals( labelPropertyChanges.augment( nodeIds ) );
+        }
+        return nodeIds;
+    }
+
     private PrimitiveLongIterator filterIndexStateChanges( KernelStatement state, IndexDescriptor index,
             Object value, PrimitiveLongIterator nodeIds )
     {
@@ -876,6 +951,63 @@ public class StateHandlingStatementOperations implements
         return diff;
     }
 
+    private DiffSets<Long> nodesWithLabelAndPropertyDiffSet( KernelStatement state, IndexDescriptor index,
+                                                             Predicate<Object> valueFilter )
+    {
+        TxState txState = state.txState();
+        int labelId = index.getLabelId();
+        int propertyKeyId = index.getPropertyKeyId();
+
+        // Start with nodes where the given property has changed into or out of the range
+        DiffSets<Long> diff = txState.nodesWithChangedProperty( propertyKeyId, valueFilter );
+
+        // Ensure remaining nodes have the correct label
+        HasLabelFilter hasLabel = new HasLabelFilter( state, labelId );
+        diff = diff.filter( hasLabel );
+
+        // Include newly labeled nodes that already had a matching property
+        HasPropertyValueFilter hasPropertyFilter = new HasPropertyValueFilter( state, propertyKeyId, valueFilter );
+        Iterator<Long> addedNodesWithLabel = txState.nodesWithLabelAdded( labelId ).iterator();
+        diff.addAll( filter( hasPropertyFilter, addedNodesWithLabel ) );
+
+        // Remove de-labeled nodes that had a matching value before
+        Set<Long> removedNodesWithLabel = txState.nodesWithLabelChanged( index.getLabelId() ).getRemoved();
+        diff.removeAll( filter( hasPropertyFilter, removedNodesWithLabel.iterator() ) );
+        return diff;
+    }
+
+    private class HasPropertyValueFilter implements Predicate<Long>
+    {
+        private final Predicate<Object> valueFilter;
+        private final int propertyKeyId;
+        private final KernelStatement state;
+
+        public HasPropertyValueFilter( KernelStatement state, int propertyKeyId, Predicate<Object> valueFilter )
+        {
+            this.state = state;
+            this.valueFilter = valueFilter;
+            this.propertyKeyId = propertyKeyId;
+        }
+
+        @Override
+        public boolean accept( Long nodeId )
+        {
+            try
+            {
+                if ( state.hasTxStateWithChanges() && state.txState().nodeIsDeletedInThisTx( nodeId ) )
+                {
+                    return false;
+                }
+                Property property = nodeGetProperty( state, nodeId, propertyKeyId );
+                return property.isDefined() && valueFilter.accept( property.value( null ) );
+            }
+            catch ( EntityNotFoundException e )
+            {
+                return false;
+            }
+        }
+    }
+
     private class HasPropertyFilter implements Predicate<Long>
     {
         private final Object value;
@@ -1025,6 +1157,18 @@ public class StateHandlingStatementOperations implements
         }
     }
 
+    @Override
+    public long countsForNode( KernelStatement statement, int labelId )
+    {
+        return storeLayer.countsForNode( labelId );
+    }
+
+    @Override
+    public long countsForRelationship( KernelStatement statement, int labelId, int relTypeId, Direction direction )
+    {
+        return storeLayer.countsForRelationship( labelId, relTypeId, direction );
+    }
+
     @Override
     public PrimitiveIntIterator nodeGetRelationshipTypes( KernelStatement statement, long nodeId )
             throws EntityNotFoundException
@@ -1096,6 +1240,13 @@ public class StateHandlingStatementOperations implements
         return storeLayer.indexGetFailure( descriptor );
     }
 
+    @Override
+    public double indexUniqueValuesSelectivity( KernelStatement state, IndexDescriptor descriptor )
+            throws IndexNotFoundKernelException
+    {
+        return storeLayer.indexUniqueValuesSelectivity( descriptor );
+    }
+
     @Override
     public int labelGetForName( Statement state, String labelName )
     {
@@ -20,12 +20,20 @@
 package org.neo4j.kernel.impl.api.index;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Queue;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.api.exceptions.index.IndexPopulationFailedKernelException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
@@ -66,17 +74,22 @@ public class IndexPopulationJob implements Runnable
     private final UpdateableSchemaState updateableSchemaState;
     private final StringLogger log;
     private final CountDownLatch doneSignal = new CountDownLatch( 1 );
+    // Ranges of node ids that a parallel scan has passed, from first (inclusive) to last (exclusive)
+    private final NavigableMap<Long, Long> scannedNodes = new TreeMap<>();
 
     private volatile StoreScan<IndexPopulationFailedKernelException> storeScan;
     private volatile boolean cancelled;
+    private volatile boolean failed;
     private final SchemaIndexProvider.Descriptor providerDescriptor;
+    private final long indexId;
+    private final IndexSamples samples;
 
     public IndexPopulationJob(IndexDescriptor descriptor, SchemaIndexProvider.Descriptor providerDescriptor,
                               String indexUserDescription,
                               FailedIndexProxyFactory failureDelegateFactory,
                               IndexPopulator populator, FlippableIndexProxy flipper,
                               IndexStoreView storeView, UpdateableSchemaState updateableSchemaState,
-                              Logging logging)
+                              Logging logging, long indexId, IndexSamples samples)
     {
         this.descriptor = descriptor;
         this.providerDescriptor = providerDescriptor;
@@ -87,6 +100,8 @@ public class IndexPopulationJob implements Runnable
         this.indexUserDescription = indexUserDescription;
         this.failureDelegate = failureDelegateFactory;
         this.log = logging.getMessagesLog( getClass() );
+        this.indexId = indexId;
+        this.samples = samples;
     }
 
     @Override
@@ -94,98 +109,207 @@ public class IndexPopulationJob implements Runnable
     {
         String oldThreadName = currentThread().getName();
         currentThread().setName( format( "Index populator on %s [runs on: %s]", indexUserDescription, oldThreadName ) );
-        boolean success = false;
-        Throwable failureCause = null;
         try
         {
-            try
+            if ( create() )
             {
-                log.info( format("Index population started: [%s]", indexUserDescription) );
-                log.flush();
-                populator.create();
-
-                indexAllNodes();
-                if ( cancelled )
+                try
                 {
-                    // We remain in POPULATING state
-                    return;
+                    indexAllNodes();
                 }
-
-                Callable<Void> duringFlip = new Callable<Void>()
+                catch ( Throwable t )
                 {
-                    @Override
-                    public Void call() throws Exception
-                    {
-                        populateFromQueueIfAvailable( Long.MAX_VALUE );
-                        populator.close( true );
-                        updateableSchemaState.clear();
-                        return null;
-                    }
-                };
-
-                flipper.flip( duringFlip, failureDelegate );
-                success = true;
-                log.info( format("Index population completed. Index is now online: [%s]", indexUserDescription) );
-                log.flush();
+                    fail( t );
+                }
+                complete();
             }
-            catch ( Throwable t )
+        }
+        finally
+        {
+            currentThread().setName( oldThreadName );
+        }
+    }
+
+    /**
+     * Creates the index, before any nodes are added to it.
+     *
+     * @return {@code true} if the index was created, otherwise this job has failed and is done.
+     */
+    boolean create()
+    {
+        try
+        {
+            log.info( format("Index population started: [%s]", indexUserDescription) );
+            log.flush();
+            populator.create();
+            return true;
+        }
+        catch ( Throwable t )
+        {
+            fail( t );
+            return false;
+        }
+    }
+
+    /**
+     * Adds a batch of nodes found by a store scan shared with other jobs, which does not visit nodes in id order.
+     * Updates from transactions that happen meanwhile are held back until the nodes they change have been
+     * scanned, and then applied ahead of the nodes of the next batch. This way a value that a transaction moves
+     * from one node to another is never seen on both nodes, which a unique index would take for a conflict.
+     * Nodes that have been changed since the scan started are populated from their updates alone, since their
+     * scanned values may be older than those updates.
+     *
+     * @param fromNodeId the first node id of the scanned batch, inclusive.
+     * @param toNodeId the last node id of the scanned batch, exclusive.
+     */
+    synchronized void add( long fromNodeId, long toNodeId, List<NodePropertyUpdate> updates )
+    {
+        if ( isDone() )
+        {
+            return;
+        }
+        try
+        {
+            markAsScanned( fromNodeId, toNodeId );
+            PrimitiveLongSet changedNodes = populateFromQueueForScannedNodes();
+            for ( NodePropertyUpdate update : updates )
             {
-                // If the cause of index population failure is a conflict in a (unique) index, the conflict is the
-                // failure
-                if ( t instanceof IndexPopulationFailedKernelException )
+                if ( !changedNodes.contains( update.getNodeId() ) )
                 {
-                    Throwable cause = t.getCause();
-                    if ( cause instanceof IndexEntryConflictException )
-                    {
-                        t = cause;
-                    }
+                    populator.add( update.getNodeId(), update.getValueAfter() );
                 }
+            }
+        }
+        catch ( IndexEntryConflictException | IOException conflict )
+        {
+            fail( new IndexPopulationFailedKernelException( descriptor, indexUserDescription, conflict ) );
+        }
+        catch ( Throwable t )
+        {
+            fail( t );
+        }
+    }
+
+    /**
+     * @return {@code true} if this job has been cancelled or has failed, and has no use for more nodes.
+     */
+    boolean isDone()
+    {
+        return cancelled || failed;
+    }
+
+    /**
+     * Completes the index after all nodes have been added, flipping it online, unless this job has been
+     * cancelled or has failed already.
+     */
+    void complete()
+    {
+        if ( failed )
+        {
+            return;
+        }
+        if ( cancelled )
+        {
+            // We remain in POPULATING state
+            done( null );
+            return;
+        }
+        try
+        {
+            try
+            {
+                populator.verifyDeferredConstraints( storeView );
+            }
+            catch ( Exception conflict )
+            {
+                throw new IndexPopulationFailedKernelException( descriptor, indexUserDescription, conflict );
+            }
 
-                // Index conflicts are expected (for unique indexes) so we don't need to log them.
-                if ( !(t instanceof IndexEntryConflictException) /*TODO: && this is a unique index...*/ )
+            Callable<Void> duringFlip = new Callable<Void>()
+            {
+                @Override
+                public Void call() throws Exception
                 {
-                    log.error( format("Failed to populate index: [%s]", indexUserDescription), t );
-                    log.flush();
+                    populateFromQueueIfAvailable( Long.MAX_VALUE );
+                    populator.close( true );
+                    updateableSchemaState.clear();
+                    return null;
                 }
+            };
 
-                // Set failure cause to be stored persistently
-                failureCause = t;
+            flipper.flip( duringFlip, failureDelegate );
+            log.info( format("Index population completed. Index is now online: [%s]", indexUserDescription) );
+            log.flush();
 
-                // The flipper will have already flipped to a failed index context here, but
-                // it will not include the cause of failure, so we do another flip to a failed
-                // context that does.
+            // Give the planner something better than a guess until the index is sampled again
+            samples.sample( indexId, flipper );
+            doneSignal.countDown();
+        }
+        catch ( Throwable t )
+        {
+            fail( t );
+        }
+    }
 
-                // The reason for having the flipper transition to the failed index context in the first
-                // place is that we would otherwise introduce a race condition where updates could come
-                // in to the old context, if something failed in the job we send to the flipper.
-                flipper.flipTo( new FailedIndexProxy( descriptor, providerDescriptor, indexUserDescription,
-                                                      populator, failure( t ) ) );
-            }
-            finally
+    void fail( Throwable t )
+    {
+        failed = true;
+        try
+        {
+            // If the cause of index population failure is a conflict in a (unique) index, the conflict is the
+            // failure
+            if ( t instanceof IndexPopulationFailedKernelException )
             {
-                try
+                Throwable cause = t.getCause();
+                if ( cause instanceof IndexEntryConflictException )
                 {
-                    if ( !success )
-                    {
-                        if ( failureCause != null )
-                        {
-                            populator.markAsFailed( failure( failureCause ).asString() );
-                        }
-
-                        populator.close( false );
-                    }
-                }
-                catch ( Throwable e )
-                {
-                    log.error( format("Unable to close failed populator for index: [%s]", indexUserDescription), e );
-                    log.flush();
+                    t = cause;
                 }
             }
+
+            // Index conflicts are expected (for unique indexes) so we don't need to log them.
+            if ( !(t instanceof IndexEntryConflictException) /*TODO: && this is a unique index...*/ )
+            {
+                log.error( format("Failed to populate index: [%s]", indexUserDescription), t );
+                log.flush();
+            }
+
+            // The flipper will have already flipped to a failed index context here, but
+            // it will not include the cause of failure, so we do another flip to a failed
+            // context that does.
+
+            // The reason for having the flipper transition to the failed index context in the first
+            // place is that we would otherwise introduce a race condition where updates could come
+            // in to the old context, if something failed in the job we send to the flipper.
+            flipper.flipTo( new FailedIndexProxy( descriptor, providerDescriptor, indexUserDescription,
+                                                  populator, failure( t ) ) );
+        }
+        finally
+        {
+            // Set failure cause to be stored persistently
+            done( t );
+        }
+    }
+
+    private void done( Throwable failureCause )
+    {
+        try
+        {
+            if ( failureCause != null )
+            {
+                populator.markAsFailed( failure( failureCause ).asString() );
+            }
+
+            populator.close( false );
+        }
+        catch ( Throwable e )
+        {
+            log.error( format("Unable to close failed populator for index: [%s]", indexUserDescription), e );
+            log.flush();
         }
         finally
         {
             doneSignal.countDown();
-            currentThread().setName( oldThreadName );
         }
     }
 
@@ -209,14 +333,9 @@ public class IndexPopulationJob implements Runnable
                 return false;
             }
         });
-        storeScan.run();
-        try
+        if ( !cancelled )
         {
-            populator.verifyDeferredConstraints( storeView );
-        }
-        catch ( Exception conflict )
-        {
-            throw new IndexPopulationFailedKernelException( descriptor, indexUserDescription, conflict );
+            storeScan.run();
         }
     }
 
@@ -238,13 +357,74 @@ public class IndexPopulationJob implements Runnable
         }
     }
 
+    private void markAsScanned( long fromNodeId, long toNodeId )
+    {
+        // Keep the ranges merged, so that there are few of them however many batches have been scanned
+        Map.Entry<Long, Long> before = scannedNodes.floorEntry( fromNodeId );
+        if ( before != null && before.getValue() >= fromNodeId )
+        {
+            fromNodeId = before.getKey();
+            toNodeId = Math.max( toNodeId, before.getValue() );
+        }
+        Long after = scannedNodes.get( toNodeId );
+        if ( after != null )
+        {
+            scannedNodes.remove( toNodeId );
+            toNodeId = after;
+        }
+        scannedNodes.put( fromNodeId, toNodeId );
+    }
+
+    private boolean isScanned( long nodeId )
+    {
+        Map.Entry<Long, Long> range = scannedNodes.floorEntry( nodeId );
+        return range != null && nodeId < range.getValue();
+    }
+
+    /**
+     * Applies, and removes from the queue, the updates of all nodes that the scan has passed.
+     *
+     * @return the ids of the nodes that had updates applied.
+     */
+    private PrimitiveLongSet populateFromQueueForScannedNodes() throws IndexEntryConflictException, IOException
+    {
+        PrimitiveLongSet changedNodes = Primitive.longSet();
+        if ( queue.isEmpty() )
+        {
+            return changedNodes;
+        }
+        List<NodePropertyUpdate> scannedUpdates = new ArrayList<>();
+        for ( Iterator<NodePropertyUpdate> updates = queue.iterator(); updates.hasNext(); )
+        {
+            NodePropertyUpdate update = updates.next();
+            if ( isScanned( update.getNodeId() ) )
+            {
+                scannedUpdates.add( update );
+                changedNodes.add( update.getNodeId() );
+                updates.remove();
+            }
+        }
+        if ( !scannedUpdates.isEmpty() )
+        {
+            try ( IndexUpdater updater = populator.newPopulatingUpdater( storeView ) )
+            {
+                for ( NodePropertyUpdate update : scannedUpdates )
+                {
+                    updater.process( update );
+                }
+            }
+        }
+        return changedNodes;
+    }
+
     public Future<Void> cancel()
     {
         // Stop the population
-        if ( storeScan != null )
+        cancelled = true;
+        StoreScan<IndexPopulationFailedKernelException> scan = storeScan;
+        if ( scan != null )
         {
-            cancelled = true;
-            storeScan.stop();
+            scan.stop();
         }
 
         return latchGuardedValue( NO_VALUE, doneSignal );
@@ -259,6 +439,11 @@ public class IndexPopulationJob implements Runnable
         queue.add( update );
     }
 
+    IndexDescriptor getDescriptor()
+    {
+        return descriptor;
+    }
+
     @Override
     public String toString()
     {
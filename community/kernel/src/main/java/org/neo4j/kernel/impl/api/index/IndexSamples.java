@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
+import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.kernel.api.index.InternalIndexState;
+import org.neo4j.kernel.impl.util.StringLogger;
+
+import static java.lang.String.format;
+
+/**
+ * Keeps the latest {@link IndexSample} of each online index. Indexes are sampled once their population completes,
+ * and then regularly by the {@link IndexingService} to follow changes in the data. Sampling happens in the
+ * background, so failing to sample an index is logged rather than thrown, and leaves the previous sample in place.
+ */
+public class IndexSamples
+{
+    private final ConcurrentMap<Long, IndexSample> samples = new ConcurrentHashMap<>();
+    private final StringLogger log;
+
+    public IndexSamples( StringLogger log )
+    {
+        this.log = log;
+    }
+
+    /**
+     * @return the latest sample of the given index, or {@code null} if it hasn't been sampled yet.
+     */
+    public IndexSample get( long indexId )
+    {
+        return samples.get( indexId );
+    }
+
+    public void sample( long indexId, IndexProxy index )
+    {
+        try
+        {
+            if ( index.getState() != InternalIndexState.ONLINE )
+            {
+                return;
+            }
+            try ( IndexReader reader = index.newReader() )
+            {
+                samples.put( indexId, reader.sampleIndex() );
+            }
+        }
+        catch ( IndexNotFoundKernelException e )
+        {
+            // The index was dropped while we were sampling it
+        }
+        catch ( RuntimeException e )
+        {
+            log.warn( format( "Unable to sample index %s", index.getDescriptor() ), e );
+        }
+    }
+
+    public void remove( long indexId )
+    {
+        samples.remove( indexId );
+    }
+}
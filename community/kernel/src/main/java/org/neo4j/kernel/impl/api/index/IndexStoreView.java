@@ -19,6 +19,8 @@
  */
 package org.neo4j.kernel.impl.api.index;
 
+import java.util.List;
+
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
@@ -46,5 +48,31 @@ public interface IndexStoreView extends PropertyAccessor
             Visitor<NodePropertyUpdate, FAILURE> propertyUpdateVisitor,
             Visitor<NodeLabelUpdate, FAILURE> labelUpdateVisitor );
 
+    /**
+     * Retrieve the values of the given property keys of all nodes in the database which has got one or more of
+     * the given labels. The node store is scanned by the given number of threads in parallel, handing over the
+     * updates of consecutive nodes in batches, so the visitor must be thread safe and cannot rely on the batches
+     * arriving in node id order.
+     *
+     * @return a {@link StoreScan} to start and to stop the scan.
+     */
+    <FAILURE extends Exception> StoreScan<FAILURE> visitNodesInParallel( int[] labelIds, int[] propertyKeyIds,
+            int threads, NodeBatchVisitor<FAILURE> propertyUpdatesVisitor );
+
     Iterable<NodePropertyUpdate> nodeAsUpdates( long nodeId );
+
+    /**
+     * Gets the nodes of a {@link #visitNodesInParallel(int[], int[], int, NodeBatchVisitor) parallel scan}, one
+     * batch of consecutive node ids at a time.
+     */
+    interface NodeBatchVisitor<FAILURE extends Exception>
+    {
+        /**
+         * @param fromNodeId the first node id of the batch, inclusive.
+         * @param toNodeId the last node id of the batch, exclusive.
+         * @param updates the property updates of the nodes in the batch, which may be none.
+         * @return {@code true} to stop the scan.
+         */
+        boolean visit( long fromNodeId, long toNodeId, List<NodePropertyUpdate> updates ) throws FAILURE;
+    }
 }
@@ -43,6 +43,7 @@ import org.neo4j.kernel.api.index.IndexConfiguration;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.index.IndexEntryConflictException;
 import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
@@ -57,6 +58,7 @@ import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 import org.neo4j.kernel.logging.Logging;
 
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 
 import static org.neo4j.helpers.Exceptions.launderedException;
@@ -92,6 +94,16 @@ public class IndexingService extends LifecycleAdapter
     private final UpdateableSchemaState updateableSchemaState;
     private final Set<Long> recoveredNodeIds = new HashSet<>();
     private final Monitor monitor;
+    private final IndexSamples samples;
+    private final long samplingInterval;
+    private final Runnable samplingJob = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            sampleIndexes();
+        }
+    };
 
     enum State
     {
@@ -133,7 +145,7 @@ public class IndexingService extends LifecycleAdapter
                             IndexStoreView storeView,
                             TokenNameLookup tokenNameLookup,
                             UpdateableSchemaState updateableSchemaState,
-                            Logging logging, Monitor monitor )
+                            Logging logging, Monitor monitor, long samplingInterval )
     {
         this.scheduler = scheduler;
         this.providerMap = providerMap;
@@ -143,6 +155,8 @@ public class IndexingService extends LifecycleAdapter
         this.logger = logging.getMessagesLog( getClass() );
         this.updateableSchemaState = updateableSchemaState;
         this.tokenNameLookup = tokenNameLookup;
+        this.samples = new IndexSamples( logger );
+        this.samplingInterval = samplingInterval;
 
         if ( providerMap == null || providerMap.getDefaultProvider() == null )
         {
@@ -239,7 +253,8 @@ public class IndexingService extends LifecycleAdapter
         // Drop placeholder proxies for indexes that need to be rebuilt
         dropRecoveringIndexes( indexMap, rebuildingDescriptors );
 
-        // Rebuild indexes by recreating and repopulating them
+        // Rebuild indexes by recreating and repopulating them, all from the same scan of the store
+        MultipleIndexPopulationJob populationJob = newPopulationJob();
         for ( Map.Entry<Long, Pair<IndexDescriptor, SchemaIndexProvider.Descriptor>> entry :
                 rebuildingDescriptors.entrySet() )
         {
@@ -254,18 +269,32 @@ public class IndexingService extends LifecycleAdapter
              * be in a state where they didn't finish populating, and despite the fact that we re-create them here,
              * they will get dropped as soon as recovery is completed by the constraint system.
              */
-            IndexProxy indexProxy =
-                createAndStartPopulatingIndexProxy( indexId, indexDescriptor, providerDescriptor, false );
+            IndexProxy indexProxy = createAndStartPopulatingIndexProxy( indexId, indexDescriptor,
+                    providerDescriptor, false, populationJob );
             indexMap.putIndexProxy( indexId, indexProxy );
         }
+        if ( !populationJob.isEmpty() )
+        {
+            scheduler.schedule( JobScheduler.Group.indexPopulation, populationJob );
+        }
 
         indexMapReference.setIndexMap( indexMap );
         state = State.RUNNING;
+
+        if ( samplingInterval > 0 )
+        {
+            scheduler.scheduleRecurring( JobScheduler.Group.indexSampling, samplingJob, samplingInterval,
+                    MILLISECONDS );
+        }
     }
 
     @Override
     public void stop()
     {
+        if ( state == State.RUNNING && samplingInterval > 0 )
+        {
+            scheduler.cancelRecurring( JobScheduler.Group.indexSampling, samplingJob );
+        }
         state = State.STOPPED;
         closeAllIndexes();
     }
@@ -280,6 +309,36 @@ public class IndexingService extends LifecycleAdapter
         return indexProxy;
     }
 
+    /**
+     * @return the latest sample of the given index, or {@code null} if it hasn't been sampled since it came online
+     * or since the database started.
+     */
+    public IndexSample indexSample( long indexId ) throws IndexNotFoundKernelException
+    {
+        getProxyForRule( indexId );
+        return samples.get( indexId );
+    }
+
+    /**
+     * Samples all online indexes. This reads through the values of each index, and is done regularly in the
+     * background.
+     */
+    public void sampleIndexes()
+    {
+        if ( state != State.RUNNING )
+        {
+            return;
+        }
+        indexMapReference.getIndexMapCopy().foreachIndexProxy( new BiConsumer<Long, IndexProxy>()
+        {
+            @Override
+            public void accept( Long indexId, IndexProxy indexProxy )
+            {
+                samples.sample( indexId, indexProxy );
+            }
+        } );
+    }
+
     /*
      * Creates an index.
      *
@@ -305,7 +364,10 @@ public class IndexingService extends LifecycleAdapter
         {
             try
             {
-                index = createAndStartPopulatingIndexProxy( ruleId, descriptor, providerDescriptor, constraint );
+                MultipleIndexPopulationJob populationJob = newPopulationJob();
+                index = createAndStartPopulatingIndexProxy( ruleId, descriptor, providerDescriptor, constraint,
+                        populationJob );
+                scheduler.schedule( JobScheduler.Group.indexPopulation, populationJob );
             }
             catch ( IOException e )
             {
@@ -452,6 +514,7 @@ public class IndexingService extends LifecycleAdapter
     {
         long indexId = rule.getId();
         IndexProxy index = indexMapReference.removeIndexProxy( indexId );
+        samples.remove( indexId );
         if ( state == State.RUNNING )
         {
             assert index != null : "Index " + rule + " doesn't exists";
@@ -470,7 +533,9 @@ public class IndexingService extends LifecycleAdapter
     private IndexProxy createAndStartPopulatingIndexProxy( final long ruleId,
                                                            final IndexDescriptor descriptor,
                                                            final SchemaIndexProvider.Descriptor providerDescriptor,
-                                                           final boolean constraint ) throws IOException
+                                                           final boolean constraint,
+                                                           MultipleIndexPopulationJob populationJob )
+            throws IOException
     {
         final FlippableIndexProxy flipper = new FlippableIndexProxy();
 
@@ -483,9 +548,9 @@ public class IndexingService extends LifecycleAdapter
             new FailedPopulatingIndexProxyFactory( descriptor, providerDescriptor, populator, indexUserDescription );
 
         PopulatingIndexProxy populatingIndex =
-            new PopulatingIndexProxy( scheduler, descriptor, providerDescriptor,
+            new PopulatingIndexProxy( populationJob, descriptor, providerDescriptor,
                     failureDelegateFactory, populator, flipper, storeView,
-                indexUserDescription, updateableSchemaState, logging );
+                indexUserDescription, updateableSchemaState, logging, ruleId, samples );
         flipper.flipTo( populatingIndex );
 
         // Prepare for flipping to online mode
@@ -519,6 +584,11 @@ public class IndexingService extends LifecycleAdapter
         return result;
     }
 
+    private MultipleIndexPopulationJob newPopulationJob()
+    {
+        return new MultipleIndexPopulationJob( storeView, Runtime.getRuntime().availableProcessors() );
+    }
+
     private IndexProxy createAndStartOnlineIndexProxy( long ruleId,
                                                        IndexDescriptor descriptor,
                                                        SchemaIndexProvider.Descriptor providerDescriptor,
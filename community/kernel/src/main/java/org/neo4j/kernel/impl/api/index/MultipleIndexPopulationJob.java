@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+
+import static java.lang.String.format;
+import static java.lang.Thread.currentThread;
+
+/**
+ * Populates a number of indexes from a single scan of the store, rather than having each {@link IndexPopulationJob}
+ * scan the whole store on its own. The scan is split over a number of threads, and each index gets the nodes
+ * it covers in batches.
+ */
+public class MultipleIndexPopulationJob implements Runnable
+{
+    private final IndexStoreView storeView;
+    private final int threads;
+    private final List<IndexPopulationJob> jobs = new ArrayList<>();
+
+    public MultipleIndexPopulationJob( IndexStoreView storeView, int threads )
+    {
+        this.storeView = storeView;
+        this.threads = threads;
+    }
+
+    /**
+     * Adds an index to populate. All indexes must be added before this job is run.
+     */
+    public void add( IndexPopulationJob job )
+    {
+        jobs.add( job );
+    }
+
+    public boolean isEmpty()
+    {
+        return jobs.isEmpty();
+    }
+
+    @Override
+    public void run()
+    {
+        String oldThreadName = currentThread().getName();
+        currentThread().setName( format( "Index populator on %d indexes [runs on: %s]", jobs.size(), oldThreadName ) );
+        try
+        {
+            List<IndexPopulationJob> created = new ArrayList<>( jobs.size() );
+            for ( IndexPopulationJob job : jobs )
+            {
+                if ( job.create() )
+                {
+                    created.add( job );
+                }
+            }
+            if ( created.isEmpty() )
+            {
+                return;
+            }
+
+            try
+            {
+                indexAllNodes( created );
+            }
+            catch ( Throwable t )
+            {
+                for ( IndexPopulationJob job : created )
+                {
+                    if ( !job.isDone() )
+                    {
+                        job.fail( t );
+                    }
+                }
+            }
+            for ( IndexPopulationJob job : created )
+            {
+                job.complete();
+            }
+        }
+        finally
+        {
+            currentThread().setName( oldThreadName );
+        }
+    }
+
+    private void indexAllNodes( final List<IndexPopulationJob> created )
+    {
+        Set<Integer> labelIds = new LinkedHashSet<>();
+        Set<Integer> propertyKeyIds = new LinkedHashSet<>();
+        for ( IndexPopulationJob job : created )
+        {
+            labelIds.add( job.getDescriptor().getLabelId() );
+            propertyKeyIds.add( job.getDescriptor().getPropertyKeyId() );
+        }
+
+        storeView.visitNodesInParallel( toArray( labelIds ), toArray( propertyKeyIds ), threads,
+                new IndexStoreView.NodeBatchVisitor<RuntimeException>()
+        {
+            @Override
+            public boolean visit( long fromNodeId, long toNodeId, List<NodePropertyUpdate> batch )
+            {
+                boolean allDone = true;
+                for ( IndexPopulationJob job : created )
+                {
+                    if ( job.isDone() )
+                    {
+                        continue;
+                    }
+                    allDone = false;
+
+                    IndexDescriptor descriptor = job.getDescriptor();
+                    List<NodePropertyUpdate> updates = new ArrayList<>();
+                    for ( NodePropertyUpdate update : batch )
+                    {
+                        if ( update.getPropertyKeyId() == descriptor.getPropertyKeyId() &&
+                             update.forLabel( descriptor.getLabelId() ) )
+                        {
+                            updates.add( update );
+                        }
+                    }
+                    // Also when there are no updates, since the job applies the updates of scanned nodes
+                    job.add( fromNodeId, toNodeId, updates );
+                }
+                // Stop scanning when all the indexes have been dropped or have failed
+                return allDone;
+            }
+        } ).run();
+    }
+
+    private static int[] toArray( Set<Integer> ids )
+    {
+        int[] result = new int[ids.size()];
+        int i = 0;
+        for ( int id : ids )
+        {
+            result[i++] = id;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + jobs;
+    }
+}
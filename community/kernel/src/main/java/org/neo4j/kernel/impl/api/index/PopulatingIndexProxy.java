@@ -37,41 +37,39 @@ import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
 import org.neo4j.kernel.api.index.SchemaIndexProvider;
 import org.neo4j.kernel.impl.api.UpdateableSchemaState;
-import org.neo4j.kernel.impl.util.JobScheduler;
 import org.neo4j.kernel.logging.Logging;
 
 import static org.neo4j.helpers.collection.IteratorUtil.emptyIterator;
-import static org.neo4j.kernel.impl.util.JobScheduler.Group.indexPopulation;
 
 
 public class PopulatingIndexProxy implements IndexProxy
 {
-    private final JobScheduler scheduler;
     private final IndexDescriptor descriptor;
     private final SchemaIndexProvider.Descriptor providerDescriptor;
     private final IndexPopulationJob job;
 
-    public PopulatingIndexProxy( JobScheduler scheduler,
+    public PopulatingIndexProxy( MultipleIndexPopulationJob populationJob,
                                  final IndexDescriptor descriptor,
                                  final SchemaIndexProvider.Descriptor providerDescriptor,
                                  final FailedIndexProxyFactory failureDelegateFactory,
                                  final IndexPopulator writer,
                                  FlippableIndexProxy flipper,
                                  IndexStoreView storeView, final String indexUserDescription,
-                                 UpdateableSchemaState updateableSchemaState, Logging logging )
+                                 UpdateableSchemaState updateableSchemaState, Logging logging,
+                                 long indexId, IndexSamples samples )
     {
-        this.scheduler  = scheduler;
         this.descriptor = descriptor;
         this.providerDescriptor = providerDescriptor;
         this.job  = new IndexPopulationJob( descriptor, providerDescriptor,
                 indexUserDescription, failureDelegateFactory, writer, flipper, storeView,
-                updateableSchemaState, logging );
+                updateableSchemaState, logging, indexId, samples );
+        populationJob.add( job );
     }
 
     @Override
     public void start()
     {
-        scheduler.schedule( indexPopulation, job );
+        // Population starts when the population job this index has been added to is run
     }
 
     @Override
@@ -69,6 +69,13 @@ public interface SchemaReadOperations
      */
     String indexGetFailure( Statement state, IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
 
+    /**
+     * Returns the ratio of distinct values to entries of an index, from its latest sample, or {@link Double#NaN}
+     * if the index hasn't been sampled yet.
+     */
+    double indexUniqueValuesSelectivity( KernelStatement state, IndexDescriptor descriptor )
+            throws IndexNotFoundKernelException;
+
     /**
      * Get all constraints applicable to label and propertyKey. There are only {@link UniquenessConstraint}
      * for the time being.
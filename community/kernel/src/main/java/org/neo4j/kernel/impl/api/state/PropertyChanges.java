@@ -19,8 +19,11 @@
  */
 package org.neo4j.kernel.impl.api.state;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+import org.neo4j.helpers.Predicate;
 import org.neo4j.kernel.impl.util.DiffSets;
 import org.neo4j.kernel.impl.util.VersionedHashMap;
 
@@ -48,6 +51,39 @@ public class PropertyChanges
         return DiffSets.emptyDiffSets();
     }
 
+    /**
+     * Merges the changes of all values of the given property that are accepted by {@code valueFilter}.
+     * An entity that moved between two accepted values ends up as added.
+     */
+    public DiffSets<Long> changesForProperty( int propertyKeyId, Predicate<Object> valueFilter )
+    {
+        DiffSets<Long> result = new DiffSets<>();
+        if(changes != null)
+        {
+            Map<Object, DiffSets<Long>> keyChanges = changes.get( propertyKeyId );
+            if(keyChanges != null)
+            {
+                List<DiffSets<Long>> matching = new ArrayList<>();
+                for ( Map.Entry<Object, DiffSets<Long>> valueChanges : keyChanges.entrySet() )
+                {
+                    if ( valueFilter.accept( valueChanges.getKey() ) )
+                    {
+                        matching.add( valueChanges.getValue() );
+                    }
+                }
+                for ( DiffSets<Long> valueChanges : matching )
+                {
+                    result.removeAll( valueChanges.getRemoved().iterator() );
+                }
+                for ( DiffSets<Long> valueChanges : matching )
+                {
+                    result.addAll( valueChanges.getAdded().iterator() );
+                }
+            }
+        }
+        return result;
+    }
+
     public void changeProperty( long entityId, int propertyKeyId, Object oldValue, Object newValue )
     {
         Map<Object, DiffSets<Long>> keyChanges = keyChanges( propertyKeyId );
@@ -719,6 +719,14 @@ public final class TxStateImpl implements TxState
                 DiffSets.<Long>emptyDiffSets();
     }
 
+    @Override
+    public DiffSets<Long> nodesWithChangedProperty( int propertyKeyId, Predicate<Object> valueFilter )
+    {
+        return propertyChangesForNodes != null ?
+                propertyChangesForNodes.changesForProperty( propertyKeyId, valueFilter ) :
+                DiffSets.<Long>emptyDiffSets();
+    }
+
     @Override
     public DiffSets<Long> addedAndRemovedNodes()
     {
@@ -28,6 +28,7 @@ import java.util.NoSuchElementException;
 import org.neo4j.collection.primitive.PrimitiveIntCollections;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.TransactionFailureException;
 import org.neo4j.helpers.Function;
 import org.neo4j.helpers.Predicate;
@@ -45,6 +46,7 @@ import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.exceptions.schema.TooManyLabelsException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.properties.DefinedProperty;
 import org.neo4j.kernel.impl.api.KernelStatement;
@@ -67,6 +69,7 @@ import org.neo4j.kernel.impl.nioneo.store.SchemaRule;
 import org.neo4j.kernel.impl.nioneo.store.SchemaStorage;
 import org.neo4j.kernel.impl.nioneo.store.UnderlyingStorageException;
 import org.neo4j.kernel.impl.nioneo.store.UniquenessConstraintRule;
+import org.neo4j.kernel.impl.nioneo.store.counts.CountsStore;
 import org.neo4j.kernel.impl.util.PrimitiveLongResourceIterator;
 
 import static org.neo4j.helpers.collection.Iterables.filter;
@@ -98,6 +101,7 @@ public class DiskLayer
 
     private final NeoStore neoStore;
     private final IndexingService indexService;
+    private final CountsStore counts;
     private final NodeStore nodeStore;
     private final RelationshipStore relationshipStore;
     private final PropertyStore propertyStore;
@@ -129,12 +133,13 @@ public class DiskLayer
      */
     public DiskLayer( PropertyKeyTokenHolder propertyKeyTokenHolder, LabelTokenHolder labelTokenHolder,
                       RelationshipTypeTokenHolder relationshipTokenHolder, SchemaStorage schemaStorage,
-                      final Provider<NeoStore> neoStoreProvider, IndexingService indexService )
+                      final Provider<NeoStore> neoStoreProvider, IndexingService indexService, CountsStore counts )
     {
         this.relationshipTokenHolder = relationshipTokenHolder;
         this.schemaStorage = schemaStorage;
 
         this.indexService = indexService;
+        this.counts = counts;
         this.propertyKeyTokenHolder = propertyKeyTokenHolder;
         this.labelTokenHolder = labelTokenHolder;
         this.neoStore = neoStoreProvider.instance();
@@ -350,6 +355,12 @@ public class DiskLayer
         return indexService.getProxyForRule( indexId( descriptor ) ).getPopulationFailure().asString();
     }
 
+    public double indexUniqueValuesSelectivity( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
+    {
+        IndexSample sample = indexService.indexSample( indexId( descriptor ) );
+        return sample == null ? Double.NaN : sample.uniqueValuesSelectivity();
+    }
+
     private long indexId( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
     {
         try
@@ -460,6 +471,29 @@ public class DiskLayer
         return state.getIndexReader( index ).lookup( value );
     }
 
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByNumber( KernelStatement state, long index,
+                                                                     Number lower, boolean includeLower,
+                                                                     Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        return state.getIndexReader( index ).rangeSeekByNumber( lower, includeLower, upper, includeUpper );
+    }
+
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByString( KernelStatement state, long index,
+                                                                     String lower, boolean includeLower,
+                                                                     String upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        return state.getIndexReader( index ).rangeSeekByString( lower, includeLower, upper, includeUpper );
+    }
+
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state, long index,
+                                                                     String prefix )
+            throws IndexNotFoundKernelException
+    {
+        return state.getIndexReader( index ).rangeSeekByPrefix( prefix );
+    }
+
     private Iterator<DefinedProperty> loadAllPropertiesOf( PrimitiveRecord primitiveRecord )
     {
         Collection<PropertyRecord> records = propertyStore.getPropertyRecordChain( primitiveRecord.getNextProp() );
@@ -514,4 +548,14 @@ public class DiskLayer
     {
         return nodeStore.getHighestPossibleIdInUse();
     }
+
+    public long countsForNode( int labelId )
+    {
+        return counts.nodeCount( labelId );
+    }
+
+    public long countsForRelationship( int labelId, int relTypeId, Direction direction )
+    {
+        return counts.relationshipCount( labelId, relTypeId, direction );
+    }
 }
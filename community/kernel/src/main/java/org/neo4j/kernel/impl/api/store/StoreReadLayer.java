@@ -115,6 +115,20 @@ public interface StoreReadLayer
     PrimitiveLongIterator nodesGetFromIndexLookup( KernelStatement state, IndexDescriptor index, Object value )
                                                             throws IndexNotFoundKernelException;
 
+    PrimitiveLongIterator nodesGetFromIndexRangeSeekByNumber( KernelStatement state, IndexDescriptor index,
+                                                              Number lower, boolean includeLower,
+                                                              Number upper, boolean includeUpper )
+                                                            throws IndexNotFoundKernelException;
+
+    PrimitiveLongIterator nodesGetFromIndexRangeSeekByString( KernelStatement state, IndexDescriptor index,
+                                                              String lower, boolean includeLower,
+                                                              String upper, boolean includeUpper )
+                                                            throws IndexNotFoundKernelException;
+
+    PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state, IndexDescriptor index,
+                                                              String prefix )
+                                                            throws IndexNotFoundKernelException;
+
     IndexDescriptor indexesGetForLabelAndPropertyKey( int labelId, int propertyKey )
                                                                     throws SchemaRuleNotFoundException;
 
@@ -123,6 +137,8 @@ public interface StoreReadLayer
 
     String indexGetFailure( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
 
+    double indexUniqueValuesSelectivity( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
+
     int labelGetForName( String labelName );
 
     String labelGetName( int labelId ) throws LabelNotFoundKernelException;
@@ -149,6 +165,10 @@ public interface StoreReadLayer
 
     long highestNodeIdInUse();
 
+    long countsForNode( int labelId );
+
+    long countsForRelationship( int labelId, int relTypeId, Direction direction );
+
     public interface RelationshipVisitor
     {
         void visit( long relId, long startNode, long endNode, int type );
@@ -0,0 +1,306 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.neo4j.kernel.impl.util.StringLogger;
+
+/**
+ * A cache that keeps most of its entities serialized outside of the Java heap, to keep large caches from
+ * giving the garbage collector lots of work.
+ *
+ * Entities are kept in two tiers. Entities handed out from the cache are the live ones, which transactions and
+ * lazy loading update in place, so those are kept on the heap, in a small LRU tier. Entities evicted from that
+ * tier are serialized into an {@link OffHeapSegment}, which is bounded by a number of bytes, and get deserialized
+ * back into the heap tier when asked for again. The serialized form of an entity is kept after that, so that
+ * it doesn't have to be serialized again the next time it's evicted, unless it changes.
+ *
+ * Entities are changed in place and the cache is told about it through {@link #updateSize(EntityWithSizeObject, int)},
+ * which makes any serialized form of that entity stale. If the changed entity isn't the one in the heap tier,
+ * i.e. it was evicted while being changed, the entity is dropped from the cache altogether.
+ *
+ * The cache is divided into stripes by entity id, each stripe guarded by its own lock.
+ */
+public class OffHeapCache<E extends EntityWithSizeObject> implements Cache<E>
+{
+    private final String name;
+    private final EntitySerializer<E> serializer;
+    private final StringLogger logger;
+    private final Stripe<E>[] stripes;
+    private final HitCounter counter = new HitCounter();
+
+    /**
+     * @param maxBytes number of bytes to use outside of the heap, in total for all stripes.
+     * @param heapEntries number of entities to keep on the heap, in total for all stripes.
+     * @param stripeCount number of stripes, which will be rounded up to a power of two.
+     */
+    @SuppressWarnings( "unchecked" )
+    public OffHeapCache( String name, long maxBytes, int heapEntries, int stripeCount,
+                         EntitySerializer<E> serializer, StringLogger logger )
+    {
+        this.name = name;
+        this.serializer = serializer;
+        this.logger = logger;
+        int stripes = stripeCount <= 1 ? 1 : Integer.highestOneBit( stripeCount - 1 ) << 1;
+        long blocksPerStripe = maxBytes / stripes / OffHeapSegment.BLOCK_SIZE;
+        this.stripes = new Stripe[stripes];
+        for ( int i = 0; i < stripes; i++ )
+        {
+            this.stripes[i] = new Stripe<>( serializer, Math.max( 1, heapEntries / stripes ),
+                    (int) Math.min( blocksPerStripe, Integer.MAX_VALUE / OffHeapSegment.BLOCK_SIZE ) );
+        }
+    }
+
+    private Stripe<E> stripe( long id )
+    {
+        int hash = (int) (id ^ (id >>> 32));
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        hash ^= (hash >>> 7) ^ (hash >>> 4);
+        return stripes[hash & (stripes.length - 1)];
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public E put( E value )
+    {
+        return stripe( value.getId() ).put( value );
+    }
+
+    @Override
+    public void putAll( Collection<E> values )
+    {
+        for ( E value : values )
+        {
+            put( value );
+        }
+    }
+
+    @Override
+    public E remove( long key )
+    {
+        return stripe( key ).remove( key );
+    }
+
+    @Override
+    public E get( long key )
+    {
+        return counter.count( stripe( key ).get( key ) );
+    }
+
+    @Override
+    public void clear()
+    {
+        for ( Stripe<E> stripe : stripes )
+        {
+            stripe.clear();
+        }
+    }
+
+    @Override
+    public long size()
+    {
+        long size = 0;
+        for ( Stripe<E> stripe : stripes )
+        {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    @Override
+    public long hitCount()
+    {
+        return counter.getHitsCount();
+    }
+
+    @Override
+    public long missCount()
+    {
+        return counter.getMissCount();
+    }
+
+    @Override
+    public void updateSize( E entity, int newSize )
+    {
+        stripe( entity.getId() ).changed( entity );
+    }
+
+    @Override
+    public void printStatistics()
+    {
+        long heapEntries = 0;
+        long offHeapEntries = 0;
+        long usedBytes = 0;
+        long capacity = 0;
+        for ( Stripe<E> stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                heapEntries += stripe.heap.size();
+                offHeapEntries += stripe.offHeap.size();
+                usedBytes += stripe.offHeap.usedBytes();
+                capacity += stripe.offHeap.capacity();
+            }
+        }
+        logger.debug( name + " heap entries: " + heapEntries + ", off-heap entries: " + offHeapEntries +
+                ", off-heap bytes used: " + usedBytes + "/" + capacity +
+                ", hits: " + hitCount() + ", misses: " + missCount() );
+    }
+
+    private static class Stripe<E extends EntityWithSizeObject>
+    {
+        private final EntitySerializer<E> serializer;
+        private final OffHeapSegment offHeap;
+        private final Map<Long, E> heap;
+        private final SerializationBuffer buffer = new SerializationBuffer();
+
+        Stripe( EntitySerializer<E> serializer, final int heapEntries, int offHeapBlocks )
+        {
+            this.serializer = serializer;
+            this.offHeap = new OffHeapSegment( offHeapBlocks );
+            this.heap = new LinkedHashMap<Long, E>( 16, 0.75f, true )
+            {
+                @Override
+                protected boolean removeEldestEntry( Map.Entry<Long, E> eldest )
+                {
+                    if ( size() > heapEntries )
+                    {
+                        moveOffHeap( eldest.getValue() );
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized E get( long id )
+        {
+            E entity = heap.get( id );
+            if ( entity == null )
+            {
+                byte[] data = offHeap.get( id );
+                if ( data != null )
+                {
+                    entity = deserialize( id, data );
+                    heap.put( id, entity );
+                }
+            }
+            return entity;
+        }
+
+        synchronized E put( E entity )
+        {
+            E existing = heap.get( entity.getId() );
+            if ( existing != null )
+            {
+                return existing;
+            }
+            // The given entity is newly loaded, so don't keep what might be an older serialized form of it
+            offHeap.remove( entity.getId() );
+            heap.put( entity.getId(), entity );
+            return entity;
+        }
+
+        synchronized E remove( long id )
+        {
+            offHeap.remove( id );
+            return heap.remove( id );
+        }
+
+        synchronized void changed( E entity )
+        {
+            long id = entity.getId();
+            offHeap.remove( id );
+            if ( heap.get( id ) != entity )
+            {
+                // The entity was moved off heap, and perhaps back again, while it was changed
+                heap.remove( id );
+            }
+        }
+
+        synchronized void clear()
+        {
+            heap.clear();
+            offHeap.clear();
+        }
+
+        synchronized long size()
+        {
+            long size = heap.size();
+            for ( E entity : heap.values() )
+            {
+                // Entities deserialized from off heap are kept there too, don't count them twice
+                size -= offHeap.contains( entity.getId() ) ? 1 : 0;
+            }
+            return size + offHeap.size();
+        }
+
+        private void moveOffHeap( E entity )
+        {
+            if ( offHeap.contains( entity.getId() ) )
+            {   // The serialized form is still up to date
+                return;
+            }
+            try
+            {
+                buffer.reset();
+                serializer.write( entity, new DataOutputStream( buffer ) );
+                offHeap.put( entity.getId(), buffer.bytes(), buffer.size() );
+            }
+            catch ( IOException e )
+            {
+                throw new IllegalStateException( "Writing to a byte array failed", e );
+            }
+        }
+
+        private E deserialize( long id, byte[] data )
+        {
+            try
+            {
+                return serializer.read( id, new DataInputStream( new ByteArrayInputStream( data ) ) );
+            }
+            catch ( IOException e )
+            {
+                throw new IllegalStateException( "Reading from a byte array failed", e );
+            }
+        }
+    }
+
+    private static class SerializationBuffer extends ByteArrayOutputStream
+    {
+        byte[] bytes()
+        {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import org.neo4j.graphdb.config.Setting;
+import org.neo4j.graphdb.factory.Description;
+
+import static org.neo4j.helpers.Settings.BYTES;
+import static org.neo4j.helpers.Settings.INTEGER;
+import static org.neo4j.helpers.Settings.NO_DEFAULT;
+import static org.neo4j.helpers.Settings.min;
+import static org.neo4j.helpers.Settings.setting;
+
+/**
+ * Settings for the off-heap cache.
+ */
+public class OffHeapCacheSettings
+{
+    @Description( "The amount of memory outside of the Java heap to use for caching nodes. Defaults to a quarter " +
+                  "of the max heap size. Note that the JVM limits direct memory with -XX:MaxDirectMemorySize, " +
+                  "which defaults to the max heap size." )
+    public static final Setting<Long> off_heap_node_cache_size =
+            setting( "off_heap_node_cache_size", BYTES, NO_DEFAULT );
+
+    @Description( "The amount of memory outside of the Java heap to use for caching relationships. Defaults to " +
+                  "a quarter of the max heap size. Note that the JVM limits direct memory with " +
+                  "-XX:MaxDirectMemorySize, which defaults to the max heap size." )
+    public static final Setting<Long> off_heap_relationship_cache_size =
+            setting( "off_heap_relationship_cache_size", BYTES, NO_DEFAULT );
+
+    @Description( "The number of recently used nodes and relationships, each, that the off-heap cache keeps " +
+                  "on the Java heap." )
+    @SuppressWarnings( "unchecked" )
+    public static final Setting<Integer> off_heap_cache_heap_entries =
+            setting( "off_heap_cache_heap_entries", INTEGER, "100000", min( 1 ) );
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+
+/**
+ * Variable sized entries, keyed by entity id, kept in a direct buffer outside of the Java heap. The buffer is
+ * divided into fixed size blocks and an entry takes as many blocks as it needs, chained together. When there
+ * aren't enough free blocks for a new entry, entries are evicted using the CLOCK algorithm.
+ *
+ * Not thread safe, access is guarded by the {@link OffHeapCache} stripe that the segment belongs to.
+ */
+class OffHeapSegment
+{
+    static final int BLOCK_SIZE = 64;
+    private static final int NO_BLOCK = -1;
+    private static final long NO_ENTRY = -1;
+
+    private final ByteBuffer memory;
+    // The next block of the same entry, or the next free block for blocks in the free list
+    private final int[] nextBlock;
+    // The id of the entry that starts at each block, which is what the clock hand looks for
+    private final long[] entryStartingAt;
+    private final PrimitiveLongObjectMap<Entry> entries = Primitive.longObjectMap();
+    private int freeListHead;
+    private int freeBlocks;
+    private int clockHand;
+    private long usedBytes;
+
+    OffHeapSegment( int blocks )
+    {
+        this.memory = ByteBuffer.allocateDirect( blocks * BLOCK_SIZE );
+        this.nextBlock = new int[blocks];
+        this.entryStartingAt = new long[blocks];
+        clear();
+    }
+
+    /**
+     * Puts the given bytes as the entry for the given id, evicting other entries if needed.
+     *
+     * @return whether or not the entry fitted in the segment at all.
+     */
+    boolean put( long id, byte[] data, int length )
+    {
+        remove( id );
+        int needed = Math.max( 1, (length + BLOCK_SIZE - 1) / BLOCK_SIZE );
+        if ( needed > nextBlock.length )
+        {
+            return false;
+        }
+        while ( freeBlocks < needed )
+        {
+            evictOne();
+        }
+
+        int first = NO_BLOCK;
+        int previous = NO_BLOCK;
+        for ( int written = 0; written < length || first == NO_BLOCK; )
+        {
+            int block = freeListHead;
+            freeListHead = nextBlock[block];
+            nextBlock[block] = NO_BLOCK;
+            freeBlocks--;
+            if ( previous == NO_BLOCK )
+            {
+                first = block;
+            }
+            else
+            {
+                nextBlock[previous] = block;
+            }
+
+            int chunk = Math.min( BLOCK_SIZE, length - written );
+            memory.position( block * BLOCK_SIZE );
+            memory.put( data, written, chunk );
+            written += chunk;
+            previous = block;
+        }
+
+        entryStartingAt[first] = id;
+        entries.put( id, new Entry( first, length ) );
+        usedBytes += length;
+        return true;
+    }
+
+    /**
+     * @return a copy of the entry for the given id, or {@code null} if there's no such entry.
+     */
+    byte[] get( long id )
+    {
+        Entry entry = entries.get( id );
+        if ( entry == null )
+        {
+            return null;
+        }
+        entry.referenced = true;
+
+        byte[] data = new byte[entry.length];
+        int read = 0;
+        for ( int block = entry.firstBlock; read < data.length; block = nextBlock[block] )
+        {
+            int chunk = Math.min( BLOCK_SIZE, data.length - read );
+            memory.position( block * BLOCK_SIZE );
+            memory.get( data, read, chunk );
+            read += chunk;
+        }
+        return data;
+    }
+
+    boolean contains( long id )
+    {
+        return entries.containsKey( id );
+    }
+
+    boolean remove( long id )
+    {
+        Entry entry = entries.remove( id );
+        if ( entry == null )
+        {
+            return false;
+        }
+        free( entry );
+        return true;
+    }
+
+    void clear()
+    {
+        entries.clear();
+        Arrays.fill( entryStartingAt, NO_ENTRY );
+        for ( int i = 0; i < nextBlock.length; i++ )
+        {
+            nextBlock[i] = i + 1 < nextBlock.length ? i + 1 : NO_BLOCK;
+        }
+        freeListHead = nextBlock.length > 0 ? 0 : NO_BLOCK;
+        freeBlocks = nextBlock.length;
+        clockHand = 0;
+        usedBytes = 0;
+    }
+
+    int size()
+    {
+        return entries.size();
+    }
+
+    long usedBytes()
+    {
+        return usedBytes;
+    }
+
+    long capacity()
+    {
+        return memory.capacity();
+    }
+
+    private void evictOne()
+    {
+        // There are entries here, since there weren't enough free blocks. Each entry passed gets its
+        // referenced flag cleared, so at most two rounds are needed before one gets evicted
+        while ( true )
+        {
+            long id = entryStartingAt[clockHand];
+            clockHand = (clockHand + 1) % entryStartingAt.length;
+            if ( id == NO_ENTRY )
+            {
+                continue;
+            }
+
+            Entry entry = entries.get( id );
+            if ( entry.referenced )
+            {
+                entry.referenced = false;
+            }
+            else
+            {
+                entries.remove( id );
+                free( entry );
+                return;
+            }
+        }
+    }
+
+    private void free( Entry entry )
+    {
+        entryStartingAt[entry.firstBlock] = NO_ENTRY;
+        int block = entry.firstBlock;
+        while ( block != NO_BLOCK )
+        {
+            int next = nextBlock[block];
+            nextBlock[block] = freeListHead;
+            freeListHead = block;
+            freeBlocks++;
+            block = next;
+        }
+        usedBytes -= entry.length;
+    }
+
+    private static class Entry
+    {
+        private final int firstBlock;
+        private final int length;
+        private boolean referenced;
+
+        Entry( int firstBlock, int length )
+        {
+            this.firstBlock = firstBlock;
+            this.length = length;
+        }
+    }
+}
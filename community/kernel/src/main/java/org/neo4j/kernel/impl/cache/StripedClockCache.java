@@ -0,0 +1,301 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded cache that evicts using the CLOCK algorithm and scales with the number of concurrent readers.
+ * <p>
+ * Lookups go straight to a {@link ConcurrentHashMap} and only set a reference bit on the entry they find, so
+ * {@link #get(long)} never takes a lock. Entries are partitioned by id into segments, typically one or more per
+ * core. Each segment has its own lock, its own ring of entries and its own clock hand, so writers and evictions
+ * in different segments don't contend. Every segment holds at most its share of the max size, which keeps the
+ * global size bounded without a shared counter; {@link #size()} sums the segments and is therefore approximate
+ * while writes are in flight.
+ */
+public class StripedClockCache<E extends EntityWithSizeObject> implements Cache<E>
+{
+    private final ConcurrentHashMap<Long,Slot<E>> cache;
+    private final Segment<E>[] segments;
+    private final int segmentMask;
+    private final String name;
+    private final int maxSize;
+    private final HitCounter counter = new HitCounter();
+
+    public StripedClockCache( String name, int maxSize )
+    {
+        this( name, maxSize, Runtime.getRuntime().availableProcessors() );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    public StripedClockCache( String name, int maxSize, int segmentCount )
+    {
+        if ( name == null )
+        {
+            throw new IllegalArgumentException( "name cannot be null" );
+        }
+        if ( maxSize <= 0 )
+        {
+            throw new IllegalArgumentException( maxSize + " is not > 0" );
+        }
+        if ( segmentCount <= 0 )
+        {
+            throw new IllegalArgumentException( segmentCount + " segments is not > 0" );
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        int segmentsPowerOfTwo = Math.min( Integer.highestOneBit( segmentCount * 2 - 1 ),
+                Integer.highestOneBit( maxSize ) );
+        this.segments = new Segment[segmentsPowerOfTwo];
+        this.segmentMask = segmentsPowerOfTwo - 1;
+        int segmentCapacity = maxSize / segmentsPowerOfTwo;
+        for ( int i = 0; i < segments.length; i++ )
+        {
+            segments[i] = new Segment<>( segmentCapacity );
+        }
+        this.cache = new ConcurrentHashMap<>( Math.min( maxSize, 1 << 16 ), 0.75f, segmentsPowerOfTwo );
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    public int maxSize()
+    {
+        return maxSize;
+    }
+
+    @Override
+    public E put( E value )
+    {
+        long id = value.getId();
+        Slot<E> slot = cache.get( id );
+        if ( slot != null )
+        {
+            slot.referenced = true;
+            return slot.value;
+        }
+
+        Segment<E> segment = segmentFor( id );
+        synchronized ( segment )
+        {
+            // All writes for ids in this segment happen under its lock, so this check is authoritative
+            slot = cache.get( id );
+            if ( slot != null )
+            {
+                slot.referenced = true;
+                return slot.value;
+            }
+            if ( segment.isFull() )
+            {
+                Slot<E> evicted = segment.evict();
+                cache.remove( evicted.value.getId() );
+            }
+            cache.put( id, segment.add( value ) );
+            return value;
+        }
+    }
+
+    @Override
+    public void putAll( Collection<E> values )
+    {
+        for ( E value : values )
+        {
+            put( value );
+        }
+    }
+
+    @Override
+    public E get( long key )
+    {
+        Slot<E> slot = cache.get( key );
+        if ( slot == null )
+        {
+            return counter.count( null );
+        }
+        slot.referenced = true;
+        return counter.count( slot.value );
+    }
+
+    @Override
+    public E remove( long key )
+    {
+        Segment<E> segment = segmentFor( key );
+        synchronized ( segment )
+        {
+            Slot<E> slot = cache.remove( key );
+            if ( slot == null )
+            {
+                return null;
+            }
+            segment.remove( slot );
+            return slot.value;
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        for ( Segment<E> segment : segments )
+        {
+            synchronized ( segment )
+            {
+                for ( int i = 0; i < segment.size; i++ )
+                {
+                    cache.remove( segment.ring[i].value.getId() );
+                }
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public long size()
+    {
+        long size = 0;
+        for ( Segment<E> segment : segments )
+        {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    @Override
+    public long hitCount()
+    {
+        return counter.getHitsCount();
+    }
+
+    @Override
+    public long missCount()
+    {
+        return counter.getMissCount();
+    }
+
+    @Override
+    public void updateSize( E entity, int newSize )
+    {
+        // Bounded by number of entries, not by their size
+    }
+
+    @Override
+    public void printStatistics()
+    {
+        // do nothing
+    }
+
+    private Segment<E> segmentFor( long id )
+    {
+        // Spread the bits so that ids allocated in sequence end up in different segments
+        long hash = id ^ (id >>> 32);
+        hash ^= (hash >>> 16) ^ (hash >>> 8);
+        return segments[(int) hash & segmentMask];
+    }
+
+    private static class Slot<E>
+    {
+        private final E value;
+        private volatile boolean referenced = true;
+        // Position in the ring of the owning segment, guarded by the segment lock
+        private int position;
+
+        Slot( E value, int position )
+        {
+            this.value = value;
+            this.position = position;
+        }
+    }
+
+    /**
+     * The entries of one segment, kept densely packed in a ring that the clock hand sweeps over. All access is
+     * guarded by the monitor of the segment, except {@link #size} which may be read without it.
+     */
+    private static class Segment<E>
+    {
+        private final Slot<E>[] ring;
+        private volatile int size;
+        private int hand;
+
+        @SuppressWarnings( "unchecked" )
+        Segment( int capacity )
+        {
+            this.ring = new Slot[capacity];
+        }
+
+        boolean isFull()
+        {
+            return size == ring.length;
+        }
+
+        Slot<E> add( E value )
+        {
+            Slot<E> slot = new Slot<>( value, size );
+            ring[size] = slot;
+            size++;
+            return slot;
+        }
+
+        Slot<E> evict()
+        {
+            while ( true )
+            {
+                if ( hand >= size )
+                {
+                    hand = 0;
+                }
+                Slot<E> candidate = ring[hand];
+                if ( candidate.referenced )
+                {
+                    candidate.referenced = false;
+                    hand++;
+                }
+                else
+                {
+                    remove( candidate );
+                    return candidate;
+                }
+            }
+        }
+
+        void remove( Slot<E> slot )
+        {
+            int last = size - 1;
+            Slot<E> moved = ring[last];
+            ring[slot.position] = moved;
+            moved.position = slot.position;
+            ring[last] = null;
+            size = last;
+        }
+
+        void clear()
+        {
+            for ( int i = 0; i < size; i++ )
+            {
+                ring[i] = null;
+            }
+            size = 0;
+            hand = 0;
+        }
+    }
+}
@@ -21,8 +21,10 @@ package org.neo4j.kernel.impl.core;
 
 import java.util.Iterator;
 
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.kernel.impl.util.RelIdArray;
+import org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper;
 
 public class DenseNodeImpl extends NodeImpl
 {
@@ -52,6 +54,39 @@ public class DenseNodeImpl extends NodeImpl
     @Override
     public Iterator<Integer> getRelationshipTypes( NodeManager nm )
     {
-        return hasMoreRelationshipsToLoad() ? nm.getRelationshipTypes( this ) : super.getRelationshipTypes( nm );
+        return relationshipsCached( DirectionWrapper.BOTH, NO_RELATIONSHIP_TYPES ) ?
+                super.getRelationshipTypes( nm ) : nm.getRelationshipTypes( this );
+    }
+
+    @Override
+    public PrimitiveLongIterator getRelationships( NodeManager nodeManager, Direction direction )
+    {
+        DirectionWrapper wrapped = RelIdArray.wrap( direction );
+        if ( relationshipsCached( wrapped, NO_RELATIONSHIP_TYPES ) )
+        {
+            return super.getRelationships( nodeManager, direction );
+        }
+        return nodeManager.getDenseNodeRelationships( this, wrapped, NO_RELATIONSHIP_TYPES );
+    }
+
+    /**
+     * Unless the requested relationships are already in the cache they are streamed from the store,
+     * group by group, instead of being loaded into this node. A dense node can have far more relationships
+     * than is sensible to keep in a cached node and a traversal typically only wants a few of its groups.
+     */
+    @Override
+    public PrimitiveLongIterator getRelationships( NodeManager nodeManager, Direction direction, int[] types )
+    {
+        DirectionWrapper wrapped = RelIdArray.wrap( direction );
+        if ( relationshipsCached( wrapped, types ) )
+        {
+            return super.getRelationships( nodeManager, direction, types );
+        }
+        return nodeManager.getDenseNodeRelationships( this, wrapped, types );
+    }
+
+    private boolean relationshipsCached( DirectionWrapper direction, int[] types )
+    {
+        return getRelChainPosition() != null && !hasMoreRelationshipsToLoad( direction, types );
     }
 }
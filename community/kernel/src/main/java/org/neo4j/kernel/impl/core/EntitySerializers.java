@@ -0,0 +1,598 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.core;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.neo4j.kernel.api.properties.DefinedProperty;
+import org.neo4j.kernel.api.properties.Property;
+import org.neo4j.kernel.impl.cache.EntitySerializer;
+import org.neo4j.kernel.impl.util.RelIdArray;
+import org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper;
+import org.neo4j.kernel.impl.util.RelIdArrayWithLoops;
+
+/**
+ * Serializers for {@link NodeImpl} and {@link RelationshipImpl}, for caches keeping them outside of the heap.
+ * Only state that is complete is serialized, i.e. the relationships of a node are left out unless all of them
+ * have been loaded. Whatever is left out is loaded again, as usual, from the deserialized entity.
+ */
+public class EntitySerializers
+{
+    private static final byte LABELS = 1;
+    private static final byte PROPERTIES = 2;
+    private static final byte RELATIONSHIPS = 4;
+
+    private static final DirectionWrapper[] DIRECTIONS =
+            {DirectionWrapper.OUTGOING, DirectionWrapper.INCOMING, DirectionWrapper.BOTH};
+
+    public static final EntitySerializer<NodeImpl> NODE = new EntitySerializer<NodeImpl>()
+    {
+        @Override
+        public void write( NodeImpl node, DataOutput out ) throws IOException
+        {
+            int[] labels = node.getLabelsIfLoaded();
+            boolean properties = node.hasLoadedProperties();
+            RelIdArray[] relationships = node.getRelationshipIdsIfAllLoaded();
+            out.writeByte( (labels != null ? LABELS : 0) | (properties ? PROPERTIES : 0) |
+                           (relationships != null ? RELATIONSHIPS : 0) );
+
+            if ( labels != null )
+            {
+                out.writeInt( labels.length );
+                for ( int label : labels )
+                {
+                    out.writeInt( label );
+                }
+            }
+            if ( properties )
+            {
+                writeProperties( node, out );
+            }
+            if ( relationships != null )
+            {
+                out.writeInt( relationships.length );
+                for ( RelIdArray ids : relationships )
+                {
+                    out.writeInt( ids.getType() );
+                    for ( DirectionWrapper direction : DIRECTIONS )
+                    {
+                        long[] idsInDirection = ids.getIds( direction );
+                        out.writeInt( idsInDirection.length );
+                        for ( long id : idsInDirection )
+                        {
+                            out.writeLong( id );
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public NodeImpl read( long id, DataInput in ) throws IOException
+        {
+            NodeImpl node = new NodeImpl( id );
+            byte parts = in.readByte();
+            if ( (parts & LABELS) != 0 )
+            {
+                int[] labels = new int[in.readInt()];
+                for ( int i = 0; i < labels.length; i++ )
+                {
+                    labels[i] = in.readInt();
+                }
+                node.commitLabels( labels );
+            }
+            if ( (parts & PROPERTIES) != 0 )
+            {
+                readProperties( node, in );
+            }
+            if ( (parts & RELATIONSHIPS) != 0 )
+            {
+                RelIdArray[] relationships = new RelIdArray[in.readInt()];
+                for ( int i = 0; i < relationships.length; i++ )
+                {
+                    relationships[i] = readRelIdArray( in );
+                }
+                node.setAllRelationshipsLoaded( relationships );
+            }
+            return node;
+        }
+
+        private RelIdArray readRelIdArray( DataInput in ) throws IOException
+        {
+            int type = in.readInt();
+            long[][] ids = new long[DIRECTIONS.length][];
+            for ( int i = 0; i < DIRECTIONS.length; i++ )
+            {
+                ids[i] = new long[in.readInt()];
+                for ( int j = 0; j < ids[i].length; j++ )
+                {
+                    ids[i][j] = in.readLong();
+                }
+            }
+
+            boolean hasLoops = ids[DirectionWrapper.BOTH.ordinal()].length > 0;
+            RelIdArray array = hasLoops ? new RelIdArrayWithLoops( type ) : new RelIdArray( type );
+            for ( int i = 0; i < DIRECTIONS.length; i++ )
+            {
+                for ( long relationshipId : ids[i] )
+                {
+                    array.add( relationshipId, DIRECTIONS[i] );
+                }
+            }
+            array.shrink();
+            return array;
+        }
+    };
+
+    public static final EntitySerializer<RelationshipImpl> RELATIONSHIP = new EntitySerializer<RelationshipImpl>()
+    {
+        @Override
+        public void write( RelationshipImpl relationship, DataOutput out ) throws IOException
+        {
+            out.writeLong( relationship.getStartNodeId() );
+            out.writeLong( relationship.getEndNodeId() );
+            out.writeInt( relationship.getTypeId() );
+            boolean properties = relationship.hasLoadedProperties();
+            out.writeBoolean( properties );
+            if ( properties )
+            {
+                writeProperties( relationship, out );
+            }
+        }
+
+        @Override
+        public RelationshipImpl read( long id, DataInput in ) throws IOException
+        {
+            RelationshipImpl relationship = new RelationshipImpl( id, in.readLong(), in.readLong(), in.readInt(), false );
+            if ( in.readBoolean() )
+            {
+                readProperties( relationship, in );
+            }
+            return relationship;
+        }
+    };
+
+    private EntitySerializers()
+    {
+    }
+
+    private static void writeProperties( ArrayBasedPrimitive entity, DataOutput out ) throws IOException
+    {
+        List<DefinedProperty> properties = new ArrayList<>();
+        for ( Iterator<DefinedProperty> iterator = entity.getCachedProperties(); iterator.hasNext(); )
+        {
+            properties.add( iterator.next() );
+        }
+        out.writeInt( properties.size() );
+        for ( DefinedProperty property : properties )
+        {
+            out.writeInt( property.propertyKeyId() );
+            PropertyValueType.write( property.value(), out );
+        }
+    }
+
+    private static void readProperties( ArrayBasedPrimitive entity, DataInput in ) throws IOException
+    {
+        List<DefinedProperty> properties = new ArrayList<>();
+        for ( int i = in.readInt(); i > 0; i-- )
+        {
+            int key = in.readInt();
+            properties.add( Property.property( key, PropertyValueType.read( in ) ) );
+        }
+        entity.setProperties( properties.iterator() );
+    }
+
+    /**
+     * The types of property values, each knowing how to write and read values of its type.
+     */
+    private enum PropertyValueType
+    {
+        BOOLEAN( Boolean.class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                out.writeBoolean( (Boolean) value );
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                return in.readBoolean();
+            }
+        },
+        BYTE( Byte.class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                out.writeByte( (Byte) value );
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                return in.readByte();
+            }
+        },
+        SHORT( Short.class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                out.writeShort( (Short) value );
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                return in.readShort();
+            }
+        },
+        CHAR( Character.class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                out.writeChar( (Character) value );
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                return in.readChar();
+            }
+        },
+        INT( Integer.class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                out.writeInt( (Integer) value );
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                return in.readInt();
+            }
+        },
+        LONG( Long.class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                out.writeLong( (Long) value );
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                return in.readLong();
+            }
+        },
+        FLOAT( Float.class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                out.writeFloat( (Float) value );
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                return in.readFloat();
+            }
+        },
+        DOUBLE( Double.class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                out.writeDouble( (Double) value );
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                return in.readDouble();
+            }
+        },
+        STRING( String.class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                writeString( (String) value, out );
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                return readString( in );
+            }
+        },
+        BOOLEAN_ARRAY( boolean[].class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                boolean[] array = (boolean[]) value;
+                out.writeInt( array.length );
+                for ( boolean item : array )
+                {
+                    out.writeBoolean( item );
+                }
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                boolean[] array = new boolean[in.readInt()];
+                for ( int i = 0; i < array.length; i++ )
+                {
+                    array[i] = in.readBoolean();
+                }
+                return array;
+            }
+        },
+        BYTE_ARRAY( byte[].class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                byte[] array = (byte[]) value;
+                out.writeInt( array.length );
+                out.write( array );
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                byte[] array = new byte[in.readInt()];
+                in.readFully( array );
+                return array;
+            }
+        },
+        SHORT_ARRAY( short[].class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                short[] array = (short[]) value;
+                out.writeInt( array.length );
+                for ( short item : array )
+                {
+                    out.writeShort( item );
+                }
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                short[] array = new short[in.readInt()];
+                for ( int i = 0; i < array.length; i++ )
+                {
+                    array[i] = in.readShort();
+                }
+                return array;
+            }
+        },
+        CHAR_ARRAY( char[].class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                char[] array = (char[]) value;
+                out.writeInt( array.length );
+                for ( char item : array )
+                {
+                    out.writeChar( item );
+                }
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                char[] array = new char[in.readInt()];
+                for ( int i = 0; i < array.length; i++ )
+                {
+                    array[i] = in.readChar();
+                }
+                return array;
+            }
+        },
+        INT_ARRAY( int[].class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                int[] array = (int[]) value;
+                out.writeInt( array.length );
+                for ( int item : array )
+                {
+                    out.writeInt( item );
+                }
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                int[] array = new int[in.readInt()];
+                for ( int i = 0; i < array.length; i++ )
+                {
+                    array[i] = in.readInt();
+                }
+                return array;
+            }
+        },
+        LONG_ARRAY( long[].class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                long[] array = (long[]) value;
+                out.writeInt( array.length );
+                for ( long item : array )
+                {
+                    out.writeLong( item );
+                }
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                long[] array = new long[in.readInt()];
+                for ( int i = 0; i < array.length; i++ )
+                {
+                    array[i] = in.readLong();
+                }
+                return array;
+            }
+        },
+        FLOAT_ARRAY( float[].class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                float[] array = (float[]) value;
+                out.writeInt( array.length );
+                for ( float item : array )
+                {
+                    out.writeFloat( item );
+                }
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                float[] array = new float[in.readInt()];
+                for ( int i = 0; i < array.length; i++ )
+                {
+                    array[i] = in.readFloat();
+                }
+                return array;
+            }
+        },
+        DOUBLE_ARRAY( double[].class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                double[] array = (double[]) value;
+                out.writeInt( array.length );
+                for ( double item : array )
+                {
+                    out.writeDouble( item );
+                }
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                double[] array = new double[in.readInt()];
+                for ( int i = 0; i < array.length; i++ )
+                {
+                    array[i] = in.readDouble();
+                }
+                return array;
+            }
+        },
+        STRING_ARRAY( String[].class )
+        {
+            @Override
+            void writeValue( Object value, DataOutput out ) throws IOException
+            {
+                String[] array = (String[]) value;
+                out.writeInt( array.length );
+                for ( String item : array )
+                {
+                    writeString( item, out );
+                }
+            }
+
+            @Override
+            Object readValue( DataInput in ) throws IOException
+            {
+                String[] array = new String[in.readInt()];
+                for ( int i = 0; i < array.length; i++ )
+                {
+                    array[i] = readString( in );
+                }
+                return array;
+            }
+        };
+
+        private static final PropertyValueType[] TYPES = values();
+
+        private final Class<?> valueClass;
+
+        private PropertyValueType( Class<?> valueClass )
+        {
+            this.valueClass = valueClass;
+        }
+
+        abstract void writeValue( Object value, DataOutput out ) throws IOException;
+
+        abstract Object readValue( DataInput in ) throws IOException;
+
+        static void write( Object value, DataOutput out ) throws IOException
+        {
+            for ( PropertyValueType type : TYPES )
+            {
+                if ( type.valueClass == value.getClass() )
+                {
+                    out.writeByte( type.ordinal() );
+                    type.writeValue( value, out );
+                    return;
+                }
+            }
+            throw new IllegalArgumentException( "Unsupported property value " + value + " of " + value.getClass() );
+        }
+
+        static Object read( DataInput in ) throws IOException
+        {
+            return TYPES[in.readByte()].readValue( in );
+        }
+
+        // DataOutput#writeUTF is limited to strings of 64k
+        private static void writeString( String value, DataOutput out ) throws IOException
+        {
+            out.writeInt( value.length() );
+            out.writeChars( value );
+        }
+
+        private static String readString( DataInput in ) throws IOException
+        {
+            char[] chars = new char[in.readInt()];
+            for ( int i = 0; i < chars.length; i++ )
+            {
+                chars[i] = in.readChar();
+            }
+            return new String( chars );
+        }
+    }
+}
@@ -600,6 +600,32 @@ public class NodeImpl extends ArrayBasedPrimitive
         return relationships;
     }
 
+    /**
+     * @return the relationships of this node if all of them have been loaded, otherwise {@code null}.
+     */
+    RelIdArray[] getRelationshipIdsIfAllLoaded()
+    {
+        // The position is set to EMPTY after the relationships, so read it first
+        return relChainPosition == RelationshipLoadingPosition.EMPTY ? relationships : null;
+    }
+
+    /**
+     * Sets all relationships of this node, for example when restoring it from a serialized form.
+     */
+    synchronized void setAllRelationshipsLoaded( RelIdArray[] relationships )
+    {
+        this.relationships = relationships;
+        this.relChainPosition = RelationshipLoadingPosition.EMPTY;
+    }
+
+    /**
+     * @return the labels of this node, or {@code null} if they haven't been loaded.
+     */
+    int[] getLabelsIfLoaded()
+    {
+        return labels;
+    }
+
     @Override
     public CowEntityElement getEntityElement( PrimitiveElement element, boolean create )
     {
@@ -26,6 +26,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
@@ -909,4 +910,10 @@ public class NodeManager implements Lifecycle, EntityFactory
     {
         return asList( persistenceManager.getRelationshipTypes( node.getId() ) ).iterator();
     }
+
+    public PrimitiveLongIterator getDenseNodeRelationships( DenseNodeImpl node, DirectionWrapper direction,
+            int[] types )
+    {
+        return persistenceManager.getDenseNodeRelationships( node.getId(), direction, types );
+    }
 }
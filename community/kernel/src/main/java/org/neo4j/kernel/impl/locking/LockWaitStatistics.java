@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects lock contention statistics per {@link Locks.ResourceType}, by listening to a {@link Locks.Monitor}.
+ * <p>
+ * For each resource type it counts waits, total wait time and deadlocks, keeps a histogram of wait times, and tracks
+ * the resources that were waited for most often. Tracking of individual resources is bounded: when
+ * {@link #MAX_TRACKED_RESOURCES} resources are tracked for a type, the least contended half is forgotten, so the
+ * hottest resources reported are approximate.
+ */
+public class LockWaitStatistics implements Locks.Monitor
+{
+    /** Bucket {@code i} counts waits of at least 2^i and less than 2^(i+1) microseconds; bucket 0 also the shorter. */
+    public static final int HISTOGRAM_BUCKETS = 32;
+    static final int MAX_TRACKED_RESOURCES = 1024;
+
+    private final ConcurrentMap<Locks.ResourceType,TypeStatistics> statistics = new ConcurrentHashMap<>();
+
+    @Override
+    public void lockWaited( Locks.ResourceType resourceType, long resourceId, long waitTimeNanos )
+    {
+        statisticsFor( resourceType ).waited( resourceId, waitTimeNanos );
+    }
+
+    @Override
+    public void deadlockDetected( Locks.ResourceType resourceType, long resourceId )
+    {
+        statisticsFor( resourceType ).deadlocks.incrementAndGet();
+    }
+
+    public Iterable<Locks.ResourceType> resourceTypes()
+    {
+        return statistics.keySet();
+    }
+
+    public long waits( Locks.ResourceType resourceType )
+    {
+        TypeStatistics typeStatistics = statistics.get( resourceType );
+        return typeStatistics == null ? 0 : typeStatistics.waits.get();
+    }
+
+    public long totalWaitTimeNanos( Locks.ResourceType resourceType )
+    {
+        TypeStatistics typeStatistics = statistics.get( resourceType );
+        return typeStatistics == null ? 0 : typeStatistics.waitTimeNanos.get();
+    }
+
+    public long deadlocks( Locks.ResourceType resourceType )
+    {
+        TypeStatistics typeStatistics = statistics.get( resourceType );
+        return typeStatistics == null ? 0 : typeStatistics.deadlocks.get();
+    }
+
+    public long totalDeadlocks()
+    {
+        long total = 0;
+        for ( TypeStatistics typeStatistics : statistics.values() )
+        {
+            total += typeStatistics.deadlocks.get();
+        }
+        return total;
+    }
+
+    /** @return wait counts per {@link #HISTOGRAM_BUCKETS bucket}. */
+    public long[] waitTimeHistogram( Locks.ResourceType resourceType )
+    {
+        long[] histogram = new long[HISTOGRAM_BUCKETS];
+        TypeStatistics typeStatistics = statistics.get( resourceType );
+        if ( typeStatistics != null )
+        {
+            for ( int i = 0; i < histogram.length; i++ )
+            {
+                histogram[i] = typeStatistics.histogram.get( i );
+            }
+        }
+        return histogram;
+    }
+
+    /** @return ids of the resources of the given type that were waited for most often, most contended first. */
+    public long[] mostContendedResources( Locks.ResourceType resourceType, int max )
+    {
+        TypeStatistics typeStatistics = statistics.get( resourceType );
+        if ( typeStatistics == null )
+        {
+            return new long[0];
+        }
+        List<ContendedResource> resources = typeStatistics.byContention();
+        long[] result = new long[Math.min( max, resources.size() )];
+        for ( int i = 0; i < result.length; i++ )
+        {
+            result[i] = resources.get( i ).resourceId;
+        }
+        return result;
+    }
+
+    private TypeStatistics statisticsFor( Locks.ResourceType resourceType )
+    {
+        TypeStatistics typeStatistics = statistics.get( resourceType );
+        if ( typeStatistics == null )
+        {
+            TypeStatistics created = new TypeStatistics();
+            typeStatistics = statistics.putIfAbsent( resourceType, created );
+            if ( typeStatistics == null )
+            {
+                typeStatistics = created;
+            }
+        }
+        return typeStatistics;
+    }
+
+    static int bucketFor( long waitTimeNanos )
+    {
+        long micros = waitTimeNanos / 1000;
+        int bucket = micros == 0 ? 0 : 63 - Long.numberOfLeadingZeros( micros );
+        return Math.min( bucket, HISTOGRAM_BUCKETS - 1 );
+    }
+
+    private static class TypeStatistics
+    {
+        private final AtomicLong waits = new AtomicLong();
+        private final AtomicLong waitTimeNanos = new AtomicLong();
+        private final AtomicLong deadlocks = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray( HISTOGRAM_BUCKETS );
+        private final ConcurrentMap<Long,AtomicLong> contention = new ConcurrentHashMap<>();
+
+        void waited( long resourceId, long nanos )
+        {
+            waits.incrementAndGet();
+            waitTimeNanos.addAndGet( nanos );
+            histogram.incrementAndGet( bucketFor( nanos ) );
+
+            AtomicLong count = contention.get( resourceId );
+            if ( count == null )
+            {
+                if ( contention.size() >= MAX_TRACKED_RESOURCES )
+                {
+                    forgetLeastContended();
+                }
+                AtomicLong created = new AtomicLong();
+                count = contention.putIfAbsent( resourceId, created );
+                if ( count == null )
+                {
+                    count = created;
+                }
+            }
+            count.incrementAndGet();
+        }
+
+        List<ContendedResource> byContention()
+        {
+            // Snapshot the counts, since they keep changing while we sort
+            List<ContendedResource> resources = new ArrayList<>( contention.size() );
+            for ( Map.Entry<Long,AtomicLong> entry : contention.entrySet() )
+            {
+                resources.add( new ContendedResource( entry.getKey(), entry.getValue().get() ) );
+            }
+            Collections.sort( resources );
+            return resources;
+        }
+
+        private synchronized void forgetLeastContended()
+        {
+            if ( contention.size() < MAX_TRACKED_RESOURCES )
+            {
+                return;
+            }
+            List<ContendedResource> resources = byContention();
+            for ( ContendedResource resource : resources.subList( resources.size() / 2, resources.size() ) )
+            {
+                contention.remove( resource.resourceId );
+            }
+        }
+    }
+
+    private static class ContendedResource implements Comparable<ContendedResource>
+    {
+        private final long resourceId;
+        private final long waits;
+
+        ContendedResource( long resourceId, long waits )
+        {
+            this.resourceId = resourceId;
+            this.waits = waits;
+        }
+
+        @Override
+        public int compareTo( ContendedResource other )
+        {
+            // Most contended first
+            return Long.compare( other.waits, waits );
+        }
+    }
+}
@@ -52,6 +52,38 @@ public interface Locks extends Lifecycle
         }
 
         public abstract Locks newInstance( ResourceType[] resourceTypes );
+
+        /**
+         * Like {@link #newInstance(ResourceType[])}, but for implementations that report lock waits and deadlocks
+         * to the given monitor. Implementations that can't report those simply ignore it.
+         */
+        public Locks newInstance( ResourceType[] resourceTypes, Monitor monitor )
+        {
+            return newInstance( resourceTypes );
+        }
+    }
+
+    /** Notified about contention, by implementations that support it. */
+    public interface Monitor
+    {
+        /** A client waited the given time before it could acquire a lock. */
+        void lockWaited( ResourceType resourceType, long resourceId, long waitTimeNanos );
+
+        /** A client was denied a lock, since waiting for it would have caused a deadlock. */
+        void deadlockDetected( ResourceType resourceType, long resourceId );
+
+        public class Adapter implements Monitor
+        {
+            @Override
+            public void lockWaited( ResourceType resourceType, long resourceId, long waitTimeNanos )
+            {   // Do nothing
+            }
+
+            @Override
+            public void deadlockDetected( ResourceType resourceType, long resourceId )
+            {   // Do nothing
+            }
+        }
     }
 
     /** For introspection and debugging. */
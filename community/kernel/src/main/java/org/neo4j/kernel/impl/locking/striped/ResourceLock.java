@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.impl.locking.Locks;
+
+/**
+ * The lock of a single resource. Guarded by the monitor of the {@link StripedLockManager.Stripe stripe} it
+ * belongs to, and removed from it as soon as no client holds it.
+ */
+class ResourceLock
+{
+    final StripedLockManager.Stripe stripe;
+    final Locks.ResourceType resourceType;
+    final long resourceId;
+    private final List<StripedLockClient> sharedHolders = new ArrayList<>( 2 );
+    private StripedLockClient exclusiveHolder;
+
+    ResourceLock( StripedLockManager.Stripe stripe, Locks.ResourceType resourceType, long resourceId )
+    {
+        this.stripe = stripe;
+        this.resourceType = resourceType;
+        this.resourceId = resourceId;
+    }
+
+    boolean tryShared( StripedLockClient client )
+    {
+        if ( exclusiveHolder != null && exclusiveHolder != client )
+        {
+            return false;
+        }
+        sharedHolders.add( client );
+        return true;
+    }
+
+    /**
+     * Succeeds if no one else holds this lock, which means that a client holding it shared can upgrade.
+     */
+    boolean tryExclusive( StripedLockClient client )
+    {
+        if ( exclusiveHolder != null ||
+             sharedHolders.size() > 1 || (sharedHolders.size() == 1 && sharedHolders.get( 0 ) != client) )
+        {
+            return false;
+        }
+        exclusiveHolder = client;
+        return true;
+    }
+
+    void releaseShared( StripedLockClient client )
+    {
+        sharedHolders.remove( client );
+    }
+
+    void releaseExclusive()
+    {
+        exclusiveHolder = null;
+    }
+
+    boolean isFree()
+    {
+        return exclusiveHolder == null && sharedHolders.isEmpty();
+    }
+
+    /**
+     * Must be called while holding the monitor of the stripe.
+     */
+    List<StripedLockClient> holders()
+    {
+        List<StripedLockClient> holders = new ArrayList<>( sharedHolders );
+        if ( exclusiveHolder != null && !holders.contains( exclusiveHolder ) )
+        {
+            holders.add( exclusiveHolder );
+        }
+        return holders;
+    }
+
+    String describe()
+    {
+        return exclusiveHolder != null ?
+               "ExclusiveLock[" + exclusiveHolder + (sharedHolders.isEmpty() ? "" : ", shared by itself") + "]" :
+               "SharedLock" + sharedHolders;
+    }
+}
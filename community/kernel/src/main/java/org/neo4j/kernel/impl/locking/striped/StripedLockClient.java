@@ -0,0 +1,416 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.impl.locking.AcquireLockTimeoutException;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.util.concurrent.WaitStrategy;
+
+/**
+ * A client of the {@link StripedLockManager}. It keeps count of the locks it holds itself, so that re-entrant
+ * acquisitions and releases never touch the shared stripes.
+ * <p>
+ * A client that has to wait for a lock publishes which lock it waits for, and then follows the holders of that lock,
+ * and the locks they wait for in turn. If that leads back to itself, waiting would deadlock and it gives up. The
+ * holders of each lock are read under the monitor of its own stripe only, so deadlock detection never stops other
+ * clients from making progress, but it also means that it works on a graph put together from snapshots taken at
+ * slightly different times.
+ */
+class StripedLockClient implements Locks.Client
+{
+    private final StripedLockManager manager;
+    /** Resource id to re-entrancy count, per resource type id. A lock is held by this client iff it is counted here. */
+    private final Map<Long, Integer>[] sharedLockCounts;
+    private final Map<Long, Integer>[] exclusiveLockCounts;
+    private volatile ResourceLock waitingFor;
+
+    @SuppressWarnings( "unchecked" )
+    StripedLockClient( StripedLockManager manager, int numberOfResourceTypes )
+    {
+        this.manager = manager;
+        this.sharedLockCounts = new Map[numberOfResourceTypes];
+        this.exclusiveLockCounts = new Map[numberOfResourceTypes];
+        for ( int i = 0; i < numberOfResourceTypes; i++ )
+        {
+            sharedLockCounts[i] = new HashMap<>();
+            exclusiveLockCounts[i] = new HashMap<>();
+        }
+    }
+
+    @Override
+    public void acquireShared( Locks.ResourceType resourceType, long... resourceIds )
+            throws AcquireLockTimeoutException
+    {
+        Map<Long, Integer> counts = sharedLockCounts[resourceType.typeId()];
+        for ( long resourceId : resourceIds )
+        {
+            if ( !reenter( counts, resourceId ) )
+            {
+                acquire( resourceType, resourceId, false );
+                counts.put( resourceId, 1 );
+            }
+        }
+    }
+
+    @Override
+    public void acquireExclusive( Locks.ResourceType resourceType, long... resourceIds )
+            throws AcquireLockTimeoutException
+    {
+        Map<Long, Integer> counts = exclusiveLockCounts[resourceType.typeId()];
+        for ( long resourceId : resourceIds )
+        {
+            if ( !reenter( counts, resourceId ) )
+            {
+                acquire( resourceType, resourceId, true );
+                counts.put( resourceId, 1 );
+            }
+        }
+    }
+
+    @Override
+    public boolean tryExclusiveLock( Locks.ResourceType resourceType, long... resourceIds )
+    {
+        Map<Long, Integer> counts = exclusiveLockCounts[resourceType.typeId()];
+        for ( int i = 0; i < resourceIds.length; i++ )
+        {
+            long resourceId = resourceIds[i];
+            if ( !reenter( counts, resourceId ) )
+            {
+                if ( !tryAcquire( resourceType, resourceId, true ) )
+                {
+                    releaseExclusive( resourceType, resourceIds, i );
+                    return false;
+                }
+                counts.put( resourceId, 1 );
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean trySharedLock( Locks.ResourceType resourceType, long... resourceIds )
+    {
+        Map<Long, Integer> counts = sharedLockCounts[resourceType.typeId()];
+        for ( int i = 0; i < resourceIds.length; i++ )
+        {
+            long resourceId = resourceIds[i];
+            if ( !reenter( counts, resourceId ) )
+            {
+                if ( !tryAcquire( resourceType, resourceId, false ) )
+                {
+                    releaseShared( resourceType, resourceIds, i );
+                    return false;
+                }
+                counts.put( resourceId, 1 );
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void releaseShared( Locks.ResourceType resourceType, long... resourceIds )
+    {
+        releaseShared( resourceType, resourceIds, resourceIds.length );
+    }
+
+    @Override
+    public void releaseExclusive( Locks.ResourceType resourceType, long... resourceIds )
+    {
+        releaseExclusive( resourceType, resourceIds, resourceIds.length );
+    }
+
+    @Override
+    public void releaseAllShared()
+    {
+        releaseAll( sharedLockCounts, false );
+    }
+
+    @Override
+    public void releaseAllExclusive()
+    {
+        releaseAll( exclusiveLockCounts, true );
+    }
+
+    @Override
+    public void releaseAll()
+    {
+        releaseAllExclusive();
+        releaseAllShared();
+    }
+
+    @Override
+    public void close()
+    {
+        releaseAll();
+        manager.release( this );
+    }
+
+    private void releaseShared( Locks.ResourceType resourceType, long[] resourceIds, int count )
+    {
+        Map<Long, Integer> counts = sharedLockCounts[resourceType.typeId()];
+        for ( int i = 0; i < count; i++ )
+        {
+            if ( leave( counts, resourceType, resourceIds[i], "shared" ) )
+            {
+                release( resourceType, resourceIds[i], false );
+            }
+        }
+    }
+
+    private void releaseExclusive( Locks.ResourceType resourceType, long[] resourceIds, int count )
+    {
+        Map<Long, Integer> counts = exclusiveLockCounts[resourceType.typeId()];
+        for ( int i = 0; i < count; i++ )
+        {
+            if ( leave( counts, resourceType, resourceIds[i], "exclusive" ) )
+            {
+                release( resourceType, resourceIds[i], true );
+            }
+        }
+    }
+
+    private static boolean reenter( Map<Long, Integer> counts, long resourceId )
+    {
+        Integer count = counts.get( resourceId );
+        if ( count == null )
+        {
+            return false;
+        }
+        counts.put( resourceId, count + 1 );
+        return true;
+    }
+
+    /**
+     * @return {@code true} if this was the last re-entrant hold of the lock, which should now be released.
+     */
+    private static boolean leave( Map<Long, Integer> counts, Locks.ResourceType resourceType, long resourceId,
+                                  String lockKind )
+    {
+        Integer count = counts.get( resourceId );
+        if ( count == null )
+        {
+            throw new IllegalStateException( "Cannot release " + lockKind + " lock on " + resourceType + "(" +
+                                             resourceId + "), since it is not held by this client." );
+        }
+        if ( count > 1 )
+        {
+            counts.put( resourceId, count - 1 );
+            return false;
+        }
+        counts.remove( resourceId );
+        return true;
+    }
+
+    private boolean tryAcquire( Locks.ResourceType resourceType, long resourceId, boolean exclusive )
+    {
+        StripedLockManager.Stripe stripe = manager.stripeFor( resourceType, resourceId );
+        synchronized ( stripe )
+        {
+            ResourceLock lock = stripe.getOrCreate( resourceType, resourceId );
+            if ( exclusive ? lock.tryExclusive( this ) : lock.tryShared( this ) )
+            {
+                return true;
+            }
+            stripe.removeIfFree( lock );
+            return false;
+        }
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private void acquire( Locks.ResourceType resourceType, long resourceId, boolean exclusive )
+    {
+        StripedLockManager.Stripe stripe = manager.stripeFor( resourceType, resourceId );
+        WaitStrategy<AcquireLockTimeoutException> waitStrategy = resourceType.waitStrategy();
+        long waitStartNanos = 0;
+        boolean acquired = false;
+        ResourceLock lock = null;
+        try
+        {
+            for ( long iteration = 0; ; iteration++ )
+            {
+                synchronized ( stripe )
+                {
+                    // Look the lock up again every time, it is removed from the stripe whenever it is free
+                    lock = stripe.getOrCreate( resourceType, resourceId );
+                    if ( exclusive ? lock.tryExclusive( this ) : lock.tryShared( this ) )
+                    {
+                        waitingFor = null;
+                        acquired = true;
+                        break;
+                    }
+                    waitingFor = lock;
+                }
+
+                if ( iteration == 0 )
+                {
+                    waitStartNanos = System.nanoTime();
+                }
+                if ( waitingWouldDeadlock( lock ) )
+                {
+                    manager.monitor().deadlockDetected( resourceType, resourceId );
+                    throw new DeadlockDetectedException( this + " can't acquire " +
+                            (exclusive ? "exclusive" : "shared") + " lock on " + resourceType + "(" + resourceId +
+                            "), because holders of that lock are waiting for " + this + ".\n" +
+                            " Holders of that lock: " + describeHolders( lock ) );
+                }
+                waitStrategy.apply( iteration );
+            }
+        }
+        finally
+        {
+            if ( !acquired )
+            {
+                waitingFor = null;
+                if ( lock != null )
+                {
+                    synchronized ( stripe )
+                    {
+                        stripe.removeIfFree( lock );
+                    }
+                }
+            }
+        }
+
+        if ( waitStartNanos != 0 )
+        {
+            manager.monitor().lockWaited( resourceType, resourceId, System.nanoTime() - waitStartNanos );
+        }
+    }
+
+    private void releaseAll( Map<Long, Integer>[] lockCounts, boolean exclusive )
+    {
+        for ( int typeId = 0; typeId < lockCounts.length; typeId++ )
+        {
+            Map<Long, Integer> counts = lockCounts[typeId];
+            if ( counts.isEmpty() )
+            {
+                continue;
+            }
+            Locks.ResourceType resourceType = manager.resourceType( typeId );
+            for ( Long resourceId : counts.keySet() )
+            {
+                release( resourceType, resourceId, exclusive );
+            }
+            counts.clear();
+        }
+    }
+
+    private void release( Locks.ResourceType resourceType, long resourceId, boolean exclusive )
+    {
+        StripedLockManager.Stripe stripe = manager.stripeFor( resourceType, resourceId );
+        synchronized ( stripe )
+        {
+            ResourceLock lock = stripe.get( resourceId );
+            if ( exclusive )
+            {
+                lock.releaseExclusive();
+            }
+            else
+            {
+                lock.releaseShared( this );
+            }
+            stripe.removeIfFree( lock );
+        }
+    }
+
+    /**
+     * Follows the holders of the given lock, the locks they wait for, and the holders of those, breadth first.
+     */
+    private boolean waitingWouldDeadlock( ResourceLock lock )
+    {
+        Set<StripedLockClient> visited = new HashSet<>();
+        Queue<StripedLockClient> toVisit = new ArrayDeque<>();
+        for ( StripedLockClient holder : holdersOf( lock ) )
+        {
+            // Upgrading a shared lock means waiting on a lock this client holds itself, which is not a deadlock
+            if ( holder != this && visited.add( holder ) )
+            {
+                toVisit.add( holder );
+            }
+        }
+
+        StripedLockClient client;
+        while ( (client = toVisit.poll()) != null )
+        {
+            ResourceLock waitedFor = client.waitingFor;
+            if ( waitedFor == null )
+            {
+                continue;
+            }
+            for ( StripedLockClient holder : holdersOf( waitedFor ) )
+            {
+                if ( holder == this )
+                {
+                    return true;
+                }
+                if ( visited.add( holder ) )
+                {
+                    toVisit.add( holder );
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<StripedLockClient> holdersOf( ResourceLock lock )
+    {
+        synchronized ( lock.stripe )
+        {
+            return lock.holders();
+        }
+    }
+
+    private static String describeHolders( ResourceLock lock )
+    {
+        StringBuilder description = new StringBuilder();
+        for ( Iterator<StripedLockClient> holders = holdersOf( lock ).iterator(); holders.hasNext(); )
+        {
+            StripedLockClient holder = holders.next();
+            ResourceLock waitedFor = holder.waitingFor;
+            description.append( holder );
+            if ( waitedFor != null )
+            {
+                description.append( " waiting for " ).append( waitedFor.resourceType )
+                           .append( "(" ).append( waitedFor.resourceId ).append( ")" );
+            }
+            if ( holders.hasNext() )
+            {
+                description.append( ", " );
+            }
+        }
+        return description.toString();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "StripedLockClient[" + System.identityHashCode( this ) + "]";
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+
+/**
+ * A {@link Locks} implementation for single instance databases, where the locks of each resource type are spread
+ * over a number of stripes, each guarded by its own monitor. Clients contending for resources in different stripes
+ * never synchronize on the same object, and there is no global structure shared by all lock operations.
+ * <p>
+ * Deadlocks are detected by the waiting clients themselves, see {@link StripedLockClient}. Clients are pooled and
+ * handed out again once closed.
+ */
+public class StripedLockManager extends LifecycleAdapter implements Locks
+{
+    private final Locks.Monitor monitor;
+    private final ResourceType[] resourceTypesById;
+    private final Stripe[][] stripesByType;
+    private final int stripeMask;
+    private final Queue<StripedLockClient> clientPool = new ConcurrentLinkedQueue<>();
+
+    public StripedLockManager( ResourceType... resourceTypes )
+    {
+        this( new Locks.Monitor.Adapter(), resourceTypes );
+    }
+
+    public StripedLockManager( Locks.Monitor monitor, ResourceType... resourceTypes )
+    {
+        this( monitor, defaultNumberOfStripes(), resourceTypes );
+    }
+
+    public StripedLockManager( Locks.Monitor monitor, int stripes, ResourceType... resourceTypes )
+    {
+        if ( Integer.bitCount( stripes ) != 1 )
+        {
+            throw new IllegalArgumentException( "Number of stripes must be a power of two, but was " + stripes );
+        }
+        this.monitor = monitor;
+        this.stripeMask = stripes - 1;
+
+        int maxTypeId = 0;
+        for ( ResourceType type : resourceTypes )
+        {
+            maxTypeId = Math.max( maxTypeId, type.typeId() );
+        }
+        this.resourceTypesById = new ResourceType[maxTypeId + 1];
+        this.stripesByType = new Stripe[maxTypeId + 1][];
+        for ( ResourceType type : resourceTypes )
+        {
+            resourceTypesById[type.typeId()] = type;
+            Stripe[] stripesForType = new Stripe[stripes];
+            for ( int i = 0; i < stripes; i++ )
+            {
+                stripesForType[i] = new Stripe();
+            }
+            stripesByType[type.typeId()] = stripesForType;
+        }
+    }
+
+    private static int defaultNumberOfStripes()
+    {
+        return Integer.highestOneBit( Runtime.getRuntime().availableProcessors() * 16 - 1 ) << 1;
+    }
+
+    @Override
+    public Client newClient()
+    {
+        StripedLockClient client = clientPool.poll();
+        return client != null ? client : new StripedLockClient( this, stripesByType.length );
+    }
+
+    void release( StripedLockClient client )
+    {
+        clientPool.offer( client );
+    }
+
+    Locks.Monitor monitor()
+    {
+        return monitor;
+    }
+
+    ResourceType resourceType( int typeId )
+    {
+        return resourceTypesById[typeId];
+    }
+
+    Stripe stripeFor( ResourceType resourceType, long resourceId )
+    {
+        Stripe[] stripes = resourceType.typeId() < stripesByType.length ? stripesByType[resourceType.typeId()] : null;
+        if ( stripes == null )
+        {
+            throw new IllegalArgumentException( "Unknown resource type " + resourceType );
+        }
+        // Spread the bits, so that sequential ids, like those of nodes created together, land in different stripes
+        int hash = (int) (resourceId ^ (resourceId >>> 32));
+        hash ^= (hash >>> 16);
+        return stripes[(hash ^ (hash >>> 8)) & stripeMask];
+    }
+
+    @Override
+    public void accept( Visitor visitor )
+    {
+        for ( Stripe[] stripes : stripesByType )
+        {
+            if ( stripes == null )
+            {
+                continue;
+            }
+            for ( Stripe stripe : stripes )
+            {
+                List<ResourceLock> locks;
+                List<String> descriptions;
+                synchronized ( stripe )
+                {
+                    locks = new ArrayList<>( stripe.locks.values() );
+                    descriptions = new ArrayList<>( locks.size() );
+                    for ( ResourceLock lock : locks )
+                    {
+                        descriptions.add( lock.describe() );
+                    }
+                }
+                // Visit outside of the monitor, the visitor may well be slow
+                for ( int i = 0; i < locks.size(); i++ )
+                {
+                    ResourceLock lock = locks.get( i );
+                    visitor.visit( lock.resourceType, lock.resourceId, descriptions.get( i ), -1 );
+                }
+            }
+        }
+    }
+
+    /**
+     * The locks of the resources hashing to one stripe. All access to a stripe and to the locks in it must be
+     * synchronized on the stripe.
+     */
+    static final class Stripe
+    {
+        private final Map<Long, ResourceLock> locks = new HashMap<>();
+
+        ResourceLock getOrCreate( ResourceType resourceType, long resourceId )
+        {
+            ResourceLock lock = locks.get( resourceId );
+            if ( lock == null )
+            {
+                lock = new ResourceLock( this, resourceType, resourceId );
+                locks.put( resourceId, lock );
+            }
+            return lock;
+        }
+
+        ResourceLock get( long resourceId )
+        {
+            return locks.get( resourceId );
+        }
+
+        void removeIfFree( ResourceLock lock )
+        {
+            if ( lock.isFree() )
+            {
+                locks.remove( lock.resourceId );
+            }
+        }
+    }
+}
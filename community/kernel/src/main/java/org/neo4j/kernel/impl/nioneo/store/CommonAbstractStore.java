@@ -32,6 +32,7 @@ import org.neo4j.kernel.IdType;
 import org.neo4j.kernel.InternalAbstractGraphDatabase;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.core.ReadOnlyDbException;
+import org.neo4j.kernel.impl.nioneo.store.windowpool.OptimisticReadWindowPool;
 import org.neo4j.kernel.impl.nioneo.store.windowpool.WindowPool;
 import org.neo4j.kernel.impl.nioneo.store.windowpool.WindowPoolFactory;
 import org.neo4j.kernel.impl.util.FileUtils.FileOperation;
@@ -59,6 +60,11 @@ public abstract class CommonAbstractStore implements IdSequence
         public static final Setting<Boolean> use_memory_mapped_buffers = GraphDatabaseSettings.use_memory_mapped_buffers;
     }
 
+    /**
+     * How many times to try reading a record optimistically before falling back to locking its window.
+     */
+    protected static final int OPTIMISTIC_READ_ATTEMPTS = 3;
+
     public static final String ALL_STORES_VERSION = "v0.A.3";
     public static final String UNKNOWN_VERSION = "Uknown";
 
@@ -73,13 +79,14 @@ public abstract class CommonAbstractStore implements IdSequence
     private IdGenerator idGenerator = null;
     private StoreChannel fileChannel = null;
     private WindowPool windowPool;
+    private OptimisticReadWindowPool optimisticReadWindowPool;
     private boolean storeOk = true;
     private Throwable causeOfStoreNotOk;
     private FileLock fileLock;
 
     private boolean readOnly = false;
     private boolean backupSlave = false;
-    private long highestUpdateRecordId = -1;
+    private volatile long highestUpdateRecordId = -1;
     private final StoreVersionMismatchHandler versionMismatchHandler;
 
     /**
@@ -212,6 +219,8 @@ public abstract class CommonAbstractStore implements IdSequence
 
         this.windowPool = windowPoolFactory.create( getStorageFileName(), getEffectiveRecordSize(),
                                                     getFileChannel(), configuration, stringLogger );
+        this.optimisticReadWindowPool = windowPool instanceof OptimisticReadWindowPool ?
+                (OptimisticReadWindowPool) windowPool : null;
     }
 
     protected abstract int getEffectiveRecordSize();
@@ -428,13 +437,57 @@ public abstract class CommonAbstractStore implements IdSequence
      */
     protected PersistenceWindow acquireWindow( long position, OperationType type )
     {
-        if ( !isInRecoveryMode() && (position > getHighId() || !storeOk) )
+        checkPosition( position );
+        return windowPool.acquire( position, type );
+    }
+
+    /**
+     * Acquires a {@link PersistenceWindow} for reading <CODE>position</CODE> without locking it,
+     * if the window pool supports that. Whatever is read from the window must be confirmed with
+     * {@link #validateOptimisticRead(PersistenceWindow)} before being used. The window should not be
+     * released.
+     *
+     * @param position The record position
+     * @return a persistence window encapsulating the record, or {@code null} if the record has to be
+     * read using {@link #acquireWindow(long, OperationType)}.
+     */
+    protected PersistenceWindow acquireOptimisticWindow( long position )
+    {
+        if ( optimisticReadWindowPool == null )
+        {
+            return null;
+        }
+        checkPosition( position );
+        return optimisticReadWindowPool.acquireOptimistic( position );
+    }
+
+    /**
+     * @param window a window acquired by {@link #acquireOptimisticWindow(long)}
+     * @return {@code true} if what was read from the window is consistent.
+     */
+    protected boolean validateOptimisticRead( PersistenceWindow window )
+    {
+        return optimisticReadWindowPool.validate( window );
+    }
+
+    /**
+     * @param position The record position
+     * @return {@code true} if a window can be acquired for {@code position}, {@code false} if
+     * {@link #acquireWindow(long, OperationType)} would throw {@link InvalidRecordException} for it.
+     */
+    protected boolean isAcquirablePosition( long position )
+    {
+        return isInRecoveryMode() || (position <= getHighId() && storeOk);
+    }
+
+    private void checkPosition( long position )
+    {
+        if ( !isAcquirablePosition( position ) )
         {
             throw new InvalidRecordException(
                     "Position[" + position + "] requested for high id[" + getHighId() + "], store is ok[" + storeOk +
                     "] recovery[" + isInRecoveryMode() + "]", causeOfStoreNotOk );
         }
-        return windowPool.acquire( position, type );
     }
 
     /**
@@ -548,6 +601,7 @@ public abstract class CommonAbstractStore implements IdSequence
         {
             windowPool.close();
             windowPool = null;
+            optimisticReadWindowPool = null;
         }
         if ( (isReadOnly() && !isBackupSlave()) || idGenerator == null || !storeOk )
         {
@@ -661,11 +715,17 @@ public abstract class CommonAbstractStore implements IdSequence
     {
         if ( isInRecoveryMode() )
         {
-            highestUpdateRecordId = Math.max( highestUpdateRecordId, id + 1 );
+            registerHighestUpdateRecordId( id );
         }
     }
 
-    protected void updateHighId()
+    // Synchronized since recovery may apply records to the same store from multiple threads
+    private synchronized void registerHighestUpdateRecordId( long id )
+    {
+        highestUpdateRecordId = Math.max( highestUpdateRecordId, id + 1 );
+    }
+
+    protected synchronized void updateHighId()
     {
         long highId = highestUpdateRecordId;
         highestUpdateRecordId = -1;
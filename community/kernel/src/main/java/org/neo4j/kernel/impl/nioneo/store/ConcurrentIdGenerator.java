@@ -0,0 +1,348 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.neo4j.kernel.impl.util.JobScheduler;
+
+import static org.neo4j.kernel.impl.nioneo.store.IdGeneratorImpl.INTEGER_MINUS_ONE;
+
+/**
+ * An {@link IdGenerator} that lets many threads allocate and free ids without contending on the monitor of the
+ * generator it wraps.
+ * <p>
+ * Every thread allocates from its own range of ids, grabbed from the wrapped generator with
+ * {@link IdGenerator#nextIdBatch(int)}, and only goes back to the wrapped generator when that range is exhausted.
+ * The range of a thread that has died is taken over by the next thread that needs a new range.
+ * Freed ids are collected in a set of striped buffers. A full buffer is handed to a
+ * {@link JobScheduler.Group#freedIdMerging background job}, which frees its ids in the wrapped generator,
+ * and so its id file, without holding up the thread that freed them.
+ * <p>
+ * Ids are handed out in a less compact order than by the wrapped generator and the high id moves ahead of the ids
+ * actually in use by up to one range per thread. Ranges that are still partially unused when the generator is
+ * closed are freed, so the ids are reused in the next session. {@link #setHighId(long)} discards all outstanding
+ * ranges, since they may no longer be valid.
+ */
+public class ConcurrentIdGenerator implements IdGenerator
+{
+    private final IdGenerator delegate;
+    private final int batchSize;
+    private final FreedIds[] freedIds;
+    private final int stripeMask;
+    private final JobScheduler scheduler;
+    private final Queue<long[]> freedIdsToMerge = new ConcurrentLinkedQueue<>();
+    private final Runnable merger = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            mergeFreedIds();
+        }
+    };
+    private final Queue<Allocation> allocations = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Allocation> allocation = new ThreadLocal<Allocation>()
+    {
+        @Override
+        protected Allocation initialValue()
+        {
+            Allocation allocation = new Allocation( Thread.currentThread() );
+            allocations.add( allocation );
+            return allocation;
+        }
+    };
+    private volatile int generation;
+
+    public ConcurrentIdGenerator( IdGenerator delegate, int batchSize, int stripes, JobScheduler scheduler )
+    {
+        if ( batchSize < 1 )
+        {
+            throw new IllegalArgumentException( "Illegal batchSize: " + batchSize );
+        }
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.scheduler = scheduler;
+        int stripesPowerOfTwo = Integer.highestOneBit( Math.max( stripes, 1 ) * 2 - 1 );
+        this.freedIds = new FreedIds[stripesPowerOfTwo];
+        for ( int i = 0; i < freedIds.length; i++ )
+        {
+            freedIds[i] = new FreedIds( batchSize );
+        }
+        this.stripeMask = stripesPowerOfTwo - 1;
+    }
+
+    @Override
+    public long nextId()
+    {
+        Allocation allocation = this.allocation.get();
+        long id = allocation.next( generation );
+        while ( id == -1 )
+        {
+            Allocation orphan = pollOrphan();
+            if ( orphan != null )
+            {
+                allocation.takeOver( orphan );
+            }
+            else
+            {
+                allocation.refill( nextIdBatch( batchSize ), generation );
+            }
+            id = allocation.next( generation );
+        }
+        return id;
+    }
+
+    /**
+     * @return the allocation of a thread that has died, now owned by the caller, or {@code null} if there is none.
+     */
+    private Allocation pollOrphan()
+    {
+        for ( Allocation candidate : allocations )
+        {
+            // Only one thread gets to remove, and so take over, each orphan
+            if ( candidate.isOrphan() && allocations.remove( candidate ) )
+            {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public IdRange nextIdBatch( int size )
+    {
+        return delegate.nextIdBatch( size );
+    }
+
+    @Override
+    public void setHighId( long id )
+    {
+        generation++;
+        delegate.setHighId( id );
+    }
+
+    @Override
+    public long getHighId()
+    {
+        return delegate.getHighId();
+    }
+
+    @Override
+    public void freeId( long id )
+    {
+        if ( id == INTEGER_MINUS_ONE )
+        {
+            return;
+        }
+        if ( id < 0 || id >= getHighId() )
+        {
+            throw new IllegalArgumentException( "Illegal id[" + id + "]" );
+        }
+        FreedIds stripe = freedIds[(int) Thread.currentThread().getId() & stripeMask];
+        long[] full;
+        synchronized ( stripe )
+        {
+            full = stripe.add( id );
+        }
+        if ( full != null )
+        {
+            freedIdsToMerge.add( full );
+            scheduler.schedule( JobScheduler.Group.freedIdMerging, merger );
+        }
+    }
+
+    private void mergeFreedIds()
+    {
+        // Take the monitor of the wrapped generator once for all the buffers, rather than once per id
+        synchronized ( delegate )
+        {
+            long[] ids;
+            while ( (ids = freedIdsToMerge.poll()) != null )
+            {
+                for ( long id : ids )
+                {
+                    delegate.freeId( id );
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        // Only called when no more ids are allocated, so what's left of the ranges can be freed
+        for ( Allocation allocation : allocations )
+        {
+            long id;
+            while ( (id = allocation.next( generation )) != -1 )
+            {
+                freeId( id );
+            }
+        }
+        allocations.clear();
+        for ( FreedIds stripe : freedIds )
+        {
+            long[] rest;
+            synchronized ( stripe )
+            {
+                rest = stripe.drain();
+            }
+            if ( rest != null )
+            {
+                freedIdsToMerge.add( rest );
+            }
+        }
+        synchronized ( delegate )
+        {
+            // Merged here rather than in the background, so that the ids make it to the id file. Merges
+            // running in the background meanwhile find nothing left to merge once they get the monitor.
+            mergeFreedIds();
+            delegate.close();
+        }
+    }
+
+    @Override
+    public long getNumberOfIdsInUse()
+    {
+        return delegate.getNumberOfIdsInUse();
+    }
+
+    @Override
+    public long getDefragCount()
+    {
+        return delegate.getDefragCount();
+    }
+
+    @Override
+    public void delete()
+    {
+        delegate.delete();
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[" + delegate + "]";
+    }
+
+    /**
+     * The ids of a range that are yet to be handed out by one thread. Guarded by its own monitor, which is
+     * uncontended except when the range is taken over from a dead thread or freed on close.
+     */
+    private static class Allocation
+    {
+        private final WeakReference<Thread> owner;
+        private long[] defrag = new long[0];
+        private int defragPosition;
+        private long next;
+        private long end;
+        private int generation;
+
+        Allocation( Thread owner )
+        {
+            this.owner = new WeakReference<>( owner );
+        }
+
+        boolean isOrphan()
+        {
+            Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+
+        synchronized long next( int currentGeneration )
+        {
+            if ( generation != currentGeneration )
+            {
+                return -1;
+            }
+            if ( defragPosition < defrag.length )
+            {
+                return defrag[defragPosition++];
+            }
+            if ( next == INTEGER_MINUS_ONE )
+            {
+                // Skip the integer -1 since it represents special values, like the end of a chain.
+                next++;
+            }
+            return next < end ? next++ : -1;
+        }
+
+        synchronized void refill( IdRange range, int currentGeneration )
+        {
+            this.defrag = range.getDefragIds();
+            this.defragPosition = 0;
+            this.next = range.getRangeStart();
+            this.end = range.getRangeStart() + range.getRangeLength();
+            this.generation = currentGeneration;
+        }
+
+        synchronized void takeOver( Allocation orphan )
+        {
+            synchronized ( orphan )
+            {
+                this.defrag = orphan.defrag;
+                this.defragPosition = orphan.defragPosition;
+                this.next = orphan.next;
+                this.end = orphan.end;
+                this.generation = orphan.generation;
+            }
+        }
+    }
+
+    /**
+     * A buffer of freed ids, guarded by its own monitor.
+     */
+    private static class FreedIds
+    {
+        private final long[] ids;
+        private int size;
+
+        FreedIds( int capacity )
+        {
+            this.ids = new long[capacity];
+        }
+
+        /**
+         * @return the ids of the buffer if it got full, for them to be merged, otherwise {@code null}.
+         */
+        long[] add( long id )
+        {
+            ids[size++] = id;
+            return size == ids.length ? drain() : null;
+        }
+
+        /**
+         * @return the ids in the buffer, which is emptied, or {@code null} if it was empty.
+         */
+        long[] drain()
+        {
+            if ( size == 0 )
+            {
+                return null;
+            }
+            long[] drained = Arrays.copyOf( ids, size );
+            size = 0;
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store;
+
+import java.io.File;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.neo4j.kernel.IdGeneratorFactory;
+import org.neo4j.kernel.IdType;
+import org.neo4j.kernel.impl.util.JobScheduler;
+
+/**
+ * Wraps the generators of another {@link IdGeneratorFactory} in {@link ConcurrentIdGenerator concurrent
+ * generators}, for the id types that see many allocations. Token and schema ids are allocated rarely and are
+ * left as they are, so that they stay compact.
+ */
+public class ConcurrentIdGeneratorFactory implements IdGeneratorFactory
+{
+    private static final Set<IdType> CONCURRENT_TYPES = EnumSet.of( IdType.NODE, IdType.RELATIONSHIP,
+            IdType.PROPERTY, IdType.STRING_BLOCK, IdType.ARRAY_BLOCK, IdType.NODE_LABELS, IdType.RELATIONSHIP_GROUP );
+
+    private final IdGeneratorFactory delegate;
+    private final int batchSize;
+    private final int stripes;
+    private final JobScheduler scheduler;
+    private final IdGenerator[] generators = new IdGenerator[IdType.values().length];
+
+    public ConcurrentIdGeneratorFactory( IdGeneratorFactory delegate, int batchSize, JobScheduler scheduler )
+    {
+        this( delegate, batchSize, Runtime.getRuntime().availableProcessors(), scheduler );
+    }
+
+    public ConcurrentIdGeneratorFactory( IdGeneratorFactory delegate, int batchSize, int stripes,
+                                         JobScheduler scheduler )
+    {
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.stripes = stripes;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public IdGenerator open( FileSystemAbstraction fs, File fileName, int grabSize, IdType idType, long highId )
+    {
+        IdGenerator generator = delegate.open( fs, fileName, grabSize, idType, highId );
+        if ( CONCURRENT_TYPES.contains( idType ) )
+        {
+            generator = new ConcurrentIdGenerator( generator, batchSize, stripes, scheduler );
+        }
+        generators[idType.ordinal()] = generator;
+        return generator;
+    }
+
+    @Override
+    public void create( FileSystemAbstraction fs, File fileName, long highId )
+    {
+        delegate.create( fs, fileName, highId );
+    }
+
+    @Override
+    public IdGenerator get( IdType idType )
+    {
+        return generators[idType.ordinal()];
+    }
+}
@@ -159,6 +159,21 @@ public abstract class LockableWindow implements PersistenceWindow
         return false;
     }
 
+    /**
+     * Closes this window, without writing it out, if no one has it marked or locked. The current
+     * thread gets no exemption for a lock it holds itself. Once closed the window can't be marked,
+     * so the caller is free to write it out without holding any monitor.
+     *
+     * @return {@code true} if this window was closed by this call.
+     */
+    synchronized boolean closeForEvictionIfFree()
+    {
+        if ( closed || !isFree( false ) )
+            return false;
+        closed = true;
+        return true;
+    }
+
     /**
      * Accepts and applies contents from a {@link PersistenceRow}.
      * @param dpw the {@link PersistenceRow} to accept changes from.
@@ -124,15 +124,7 @@ public class NodeStore extends AbstractRecordStore<NodeRecord> implements Store
     @Override
     public NodeRecord getRecord( long id )
     {
-        PersistenceWindow window = acquireWindow( id, OperationType.READ );
-        try
-        {
-            return getRecord( id, window, RecordLoad.NORMAL );
-        }
-        finally
-        {
-            releaseWindow( window );
-        }
+        return getRecord( id, RecordLoad.NORMAL );
     }
 
     @Override
@@ -202,6 +194,16 @@ public class NodeStore extends AbstractRecordStore<NodeRecord> implements Store
     }
 
     public NodeRecord loadLightNode( long id )
+    {
+        if ( !isAcquirablePosition( id ) )
+        {
+            // OK, id too high
+            return null;
+        }
+        return getRecord( id, RecordLoad.CHECK );
+    }
+
+    public boolean inUse( long id )
     {
         PersistenceWindow window;
         try
@@ -210,13 +212,13 @@ public class NodeStore extends AbstractRecordStore<NodeRecord> implements Store
         }
         catch ( InvalidRecordException e )
         {
-            // OK, id too high
-            return null;
+            return false;
         }
 
         try
         {
-            return getRecord( id, window, RecordLoad.CHECK );
+            Buffer buffer = window.getOffsettedBuffer( id );
+            return ((long) buffer.get() & 0x1) == Record.IN_USE.intValue();
         }
         finally
         {
@@ -224,22 +226,36 @@ public class NodeStore extends AbstractRecordStore<NodeRecord> implements Store
         }
     }
 
-    public boolean inUse( long id )
+    private NodeRecord getRecord( long id, RecordLoad load )
     {
-        PersistenceWindow window;
-        try
-        {
-            window = acquireWindow( id, OperationType.READ );
-        }
-        catch ( InvalidRecordException e )
+        for ( int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++ )
         {
-            return false;
+            PersistenceWindow window = acquireOptimisticWindow( id );
+            if ( window == null )
+            {
+                break;
+            }
+            try
+            {
+                NodeRecord record = getRecord( id, window, load );
+                if ( validateOptimisticRead( window ) )
+                {
+                    return record;
+                }
+            }
+            catch ( InvalidRecordException e )
+            {
+                if ( validateOptimisticRead( window ) )
+                {
+                    throw e;
+                }
+            }
         }
 
+        PersistenceWindow window = acquireWindow( id, OperationType.READ );
         try
         {
-            Buffer buffer = window.getOffsettedBuffer( id );
-            return ((long) buffer.get() & 0x1) == Record.IN_USE.intValue();
+            return getRecord( id, window, load );
         }
         finally
         {
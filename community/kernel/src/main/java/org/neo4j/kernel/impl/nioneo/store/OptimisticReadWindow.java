@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A read only view of a {@link PageCacheWindow}, acquired without locking the page. It has a buffer
+ * position of its own and remembers the sequence number of the page when it was acquired, so that
+ * the reader can tell whether or not the page changed while reading it.
+ */
+class OptimisticReadWindow implements PersistenceWindow
+{
+    private final PageCacheWindow page;
+    private final long stamp;
+    private final Buffer buffer;
+
+    OptimisticReadWindow( PageCacheWindow page, long stamp, ByteBuffer view )
+    {
+        this.page = page;
+        this.stamp = stamp;
+        this.buffer = new Buffer( this, view );
+    }
+
+    boolean validate()
+    {
+        return page.validate( stamp );
+    }
+
+    @Override
+    public Buffer getBuffer()
+    {
+        return buffer;
+    }
+
+    @Override
+    public Buffer getOffsettedBuffer( long id )
+    {
+        int offset = (int) (id - page.position()) * page.getRecordSize();
+        buffer.setOffset( offset );
+        return buffer;
+    }
+
+    @Override
+    public int getRecordSize()
+    {
+        return page.getRecordSize();
+    }
+
+    @Override
+    public long position()
+    {
+        return page.position();
+    }
+
+    @Override
+    public int size()
+    {
+        return page.size();
+    }
+
+    /**
+     * Does nothing, optimistic reads never dirty the page.
+     */
+    @Override
+    public void force()
+    {
+    }
+
+    @Override
+    public void close()
+    {
+        // nothing to close, the buffer belongs to the page
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OptimisticReadWindow[" + page + ", stamp:" + stamp + "]";
+    }
+}
@@ -0,0 +1,245 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed size page of a store file, living in one of the slots of a {@link SharedPageCache}.
+ * The byte buffer backing a page is owned by the cache and is handed over to another page
+ * once this page has been evicted.
+ * <p>
+ * Each page has a sequence number which is odd while the page is write locked and after it has been
+ * closed. Optimistic readers remember the sequence number when they start reading and check it again
+ * when done; if it changed the page was written to, or its buffer reused, in the meantime.
+ */
+class PageCacheWindow extends AbstractPersistenceWindow
+{
+    private final PageCacheWindowPool pool;
+    private final long pageId;
+    volatile boolean referenced = true;
+    private final AtomicLong sequence = new AtomicLong();
+    private boolean writeLocked;
+    private boolean evicting;
+
+    PageCacheWindow( PageCacheWindowPool pool, long pageId, int recordSize, int recordsPerPage,
+                     StoreChannel channel, ByteBuffer byteBuffer )
+    {
+        super( pageId * recordsPerPage, recordSize, recordsPerPage * recordSize, channel, byteBuffer );
+        this.pool = pool;
+        this.pageId = pageId;
+    }
+
+    long pageId()
+    {
+        return pageId;
+    }
+
+    @Override
+    synchronized void lock( OperationType operationType )
+    {
+        super.lock( operationType );
+        if ( operationType == OperationType.WRITE )
+        {
+            writeLocked = true;
+            sequence.incrementAndGet();
+        }
+    }
+
+    @Override
+    synchronized void unLock()
+    {
+        if ( writeLocked )
+        {
+            writeLocked = false;
+            if ( !closed )
+            {
+                sequence.incrementAndGet();
+            }
+        }
+        super.unLock();
+    }
+
+    /**
+     * @return a window for reading this page without locking it, or {@code null} if the page
+     * is write locked or closed.
+     */
+    OptimisticReadWindow optimisticRead()
+    {
+        long stamp = sequence.get();
+        if ( (stamp & 1) != 0 )
+        {
+            return null;
+        }
+        // A view of our own, so that the position of the buffer isn't shared with other readers
+        ByteBuffer view = getBuffer().getBuffer().duplicate();
+        view.clear();
+        return new OptimisticReadWindow( this, stamp, view );
+    }
+
+    boolean validate( long stamp )
+    {
+        // A CAS rather than a plain read, since none of the reads made since the stamp was
+        // taken may be reordered to after this check
+        return sequence.compareAndSet( stamp, stamp );
+    }
+
+    /**
+     * Reads the contents of this page from the file. Parts of the page that lie beyond the
+     * end of the file are zeroed, since the buffer may contain data from a previously evicted page.
+     */
+    void load()
+    {
+        ByteBuffer byteBuffer = getBuffer().getBuffer();
+        byteBuffer.clear();
+        long offset = position() * getRecordSize();
+        try
+        {
+            while ( byteBuffer.hasRemaining() )
+            {
+                if ( getFileChannel().read( byteBuffer, offset + byteBuffer.position() ) <= 0 )
+                {
+                    break;
+                }
+            }
+            while ( byteBuffer.hasRemaining() )
+            {
+                byteBuffer.put( (byte) 0 );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to load page[" + pageId + "] @[" + offset + "]", e );
+        }
+        byteBuffer.clear();
+    }
+
+    /**
+     * Starts evicting this page if no one is using it. From then on the page can't be used, but its
+     * contents stay as they are until {@link #finishEviction()} has written them out. That's left to
+     * the evicting thread, so that it can do the I/O after letting go of the monitor of the cache.
+     *
+     * @return {@code true} if this page is being evicted, otherwise {@code false}.
+     */
+    synchronized boolean startEviction()
+    {
+        if ( !closeForEvictionIfFree() )
+        {
+            return false;
+        }
+        evicting = true;
+        if ( (sequence.get() & 1) == 0 )
+        {
+            sequence.incrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * Writes out this page, if dirty, and releases it. Anyone waiting in {@link #awaitEviction()} may
+     * load the page again afterwards.
+     */
+    void finishEviction()
+    {
+        try
+        {
+            if ( !pool.isReadOnly() )
+            {
+                force();
+            }
+            close();
+        }
+        finally
+        {
+            synchronized ( this )
+            {
+                evicting = false;
+                notifyAll();
+            }
+            pool.evicted( this );
+        }
+    }
+
+    /**
+     * Waits for an eviction of this page to finish, so that the page isn't loaded from the file
+     * again before its contents have been written out.
+     */
+    synchronized void awaitEviction()
+    {
+        boolean interrupted = false;
+        while ( evicting )
+        {
+            try
+            {
+                wait();
+            }
+            catch ( InterruptedException e )
+            {
+                interrupted = true;
+            }
+        }
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes out this page, if dirty, while holding its lock so that no one writes to it meanwhile.
+     */
+    void flush()
+    {
+        if ( !pool.isReadOnly() && isDirty() && markAsInUse() )
+        {
+            lock( OperationType.READ );
+            try
+            {
+                force();
+            }
+            finally
+            {
+                unLock();
+            }
+        }
+    }
+
+    synchronized boolean isClosed()
+    {
+        return closed;
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if ( !closed && (sequence.get() & 1) == 0 )
+        {
+            sequence.incrementAndGet();
+        }
+        super.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PageCacheWindow[" + pool + ", page:" + pageId + "]";
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.kernel.impl.nioneo.store.windowpool.OptimisticReadWindowPool;
+import org.neo4j.kernel.impl.nioneo.store.windowpool.WindowPool;
+import org.neo4j.kernel.impl.util.StringLogger;
+
+import static java.lang.String.format;
+
+/**
+ * A {@link WindowPool} for a single store which keeps its records in fixed size pages
+ * of a {@link SharedPageCache}. Memory isn't assigned to this store up front, instead
+ * pages of all stores compete for the slots of the shared cache, so that hot stores
+ * get to keep more of their pages in memory than cold ones.
+ * <p>
+ * Pages already in memory can be read optimistically, without locking them.
+ */
+public class PageCacheWindowPool implements OptimisticReadWindowPool
+{
+    private final File storeName;
+    private final int recordSize;
+    private final int recordsPerPage;
+    private final StoreChannel fileChannel;
+    private final SharedPageCache pageCache;
+    private final boolean readOnly;
+    private final StringLogger log;
+    private final ConcurrentMap<Long, PageCacheWindow> pages = new ConcurrentHashMap<>();
+
+    // Just statistics, so it's OK to miss some updates
+    private int hit = 0;
+    private int miss = 0;
+    private int evictions = 0;
+
+    public PageCacheWindowPool( File storeName, int recordSize, StoreChannel fileChannel,
+                                SharedPageCache pageCache, boolean readOnly, StringLogger log )
+    {
+        if ( recordSize <= 0 || recordSize > pageCache.pageSize() )
+        {
+            throw new IllegalArgumentException( format( "record size [%d] of %s is not in the valid range [1-%d]",
+                    recordSize, storeName, pageCache.pageSize() ) );
+        }
+        this.storeName = storeName;
+        this.recordSize = recordSize;
+        this.recordsPerPage = pageCache.pageSize() / recordSize;
+        this.fileChannel = fileChannel;
+        this.pageCache = pageCache;
+        this.readOnly = readOnly;
+        this.log = log;
+    }
+
+    @Override
+    public PersistenceWindow acquire( long position, OperationType operationType )
+    {
+        long pageId = position / recordsPerPage;
+        while ( true )
+        {
+            PageCacheWindow page = pages.get( pageId );
+            if ( page != null )
+            {
+                if ( page.markAsInUse() )
+                {
+                    hit++;
+                    page.referenced = true;
+                    page.lock( operationType );
+                    return page;
+                }
+                // It got evicted right before we managed to mark it
+                page.awaitEviction();
+                pages.remove( pageId, page );
+                continue;
+            }
+
+            page = loadPage( pageId, operationType );
+            if ( page != null )
+            {
+                miss++;
+                return page;
+            }
+        }
+    }
+
+    @Override
+    public PersistenceWindow acquireOptimistic( long position )
+    {
+        PageCacheWindow page = pages.get( position / recordsPerPage );
+        if ( page == null )
+        {
+            return null;
+        }
+        PersistenceWindow window = page.optimisticRead();
+        if ( window != null )
+        {
+            hit++;
+            page.referenced = true;
+        }
+        return window;
+    }
+
+    @Override
+    public boolean validate( PersistenceWindow window )
+    {
+        return ((OptimisticReadWindow) window).validate();
+    }
+
+    /**
+     * Loads a page into a slot of the shared cache and publishes it, locked, for this pool.
+     *
+     * @return the loaded page, or {@code null} if some other thread loaded it before us.
+     */
+    private PageCacheWindow loadPage( long pageId, OperationType operationType )
+    {
+        int slot = pageCache.reserve();
+        boolean installed = false;
+        try
+        {
+            PageCacheWindow page = new PageCacheWindow( this, pageId, recordSize, recordsPerPage, fileChannel,
+                    pageCache.buffer( slot, recordsPerPage * recordSize ) );
+            page.markAsInUse();
+            page.lock( operationType );
+            page.load();
+            if ( pages.putIfAbsent( pageId, page ) != null )
+            {
+                page.unLock();
+                page.close();
+                return null;
+            }
+            pageCache.install( slot, page );
+            installed = true;
+            return page;
+        }
+        finally
+        {
+            if ( !installed )
+            {
+                pageCache.cancel( slot );
+            }
+        }
+    }
+
+    @Override
+    public void release( PersistenceWindow window )
+    {
+        ((LockableWindow) window).unLock();
+        pageCache.pageReleased();
+    }
+
+    boolean isReadOnly()
+    {
+        return readOnly;
+    }
+
+    void evicted( PageCacheWindow page )
+    {
+        evictions++;
+        pages.remove( page.pageId(), page );
+    }
+
+    @Override
+    public void flushAll()
+    {
+        if ( readOnly )
+        {
+            return;
+        }
+
+        for ( PageCacheWindow page : pages.values() )
+        {
+            page.flush();
+        }
+        try
+        {
+            fileChannel.force( false );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Failed to flush file channel " + storeName, e );
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        flushAll();
+        for ( PageCacheWindow page : pages.values() )
+        {
+            // Close under the page lock, since a background flush may be writing it out
+            if ( page.markAsInUse() )
+            {
+                page.lock( OperationType.READ );
+                try
+                {
+                    if ( !readOnly )
+                    {
+                        page.force();
+                    }
+                    page.close();
+                }
+                finally
+                {
+                    page.unLock();
+                }
+            }
+            else
+            {
+                page.awaitEviction();
+            }
+        }
+        pages.clear();
+        log.info( storeName + " hit=" + hit + " miss=" + miss + " evictions=" + evictions );
+    }
+
+    @Override
+    public WindowPoolStats getStats()
+    {
+        int residentPages = pages.size();
+        return new WindowPoolStats( storeName, pageCache.totalMemory(), (long) residentPages * pageCache.pageSize(),
+                residentPages, pageCache.pageSize(), hit, miss, 0, evictions, 0, 0, 0 );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PageCacheWindowPool[" + storeName.getName() + "]";
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.nioneo.store.windowpool.WindowPool;
+import org.neo4j.kernel.impl.nioneo.store.windowpool.WindowPoolFactory;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+
+import static java.lang.String.format;
+
+/**
+ * Creates {@link PageCacheWindowPool window pools} that all share one {@link SharedPageCache}, sized by
+ * {@link GraphDatabaseSettings#all_stores_total_mapped_memory_size} and
+ * {@link GraphDatabaseSettings#mapped_memory_page_size}, with pages held in direct buffers unless
+ * {@link GraphDatabaseSettings#page_cache_direct_buffers} says otherwise. While started, dirty pages are written out
+ * in the background every {@link GraphDatabaseSettings#page_cache_flush_interval}.
+ */
+public class PageCacheWindowPoolFactory extends LifecycleAdapter implements WindowPoolFactory
+{
+    private final SharedPageCache pageCache;
+    private final JobScheduler scheduler;
+    private final long flushInterval;
+    private final Runnable flusher = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            pageCache.flushDirtyPages();
+        }
+    };
+
+    public PageCacheWindowPoolFactory( Config config, JobScheduler scheduler )
+    {
+        this.pageCache = new SharedPageCache( config.get( GraphDatabaseSettings.all_stores_total_mapped_memory_size ),
+                pageSize( config ), config.get( GraphDatabaseSettings.page_cache_direct_buffers ) );
+        this.scheduler = scheduler;
+        this.flushInterval = config.get( GraphDatabaseSettings.page_cache_flush_interval );
+    }
+
+    private static int pageSize( Config config )
+    {
+        long pageSize = config.get( GraphDatabaseSettings.mapped_memory_page_size );
+        if ( pageSize > Integer.MAX_VALUE )
+        {
+            throw new IllegalArgumentException( format( "configured page size [%d bytes] is too large", pageSize ) );
+        }
+        return (int) pageSize;
+    }
+
+    @Override
+    public WindowPool create( File storageFileName, int recordSize, StoreChannel fileChannel,
+                              Config configuration, StringLogger log )
+    {
+        boolean readOnly = configuration.get( CommonAbstractStore.Configuration.read_only ) &&
+                !configuration.get( CommonAbstractStore.Configuration.backup_slave );
+        return new PageCacheWindowPool( storageFileName, recordSize, fileChannel, pageCache, readOnly, log );
+    }
+
+    public SharedPageCache getPageCache()
+    {
+        return pageCache;
+    }
+
+    @Override
+    public void start()
+    {
+        scheduler.scheduleRecurring( JobScheduler.Group.pageCacheFlushing, flusher, flushInterval,
+                flushInterval, TimeUnit.MILLISECONDS );
+    }
+
+    @Override
+    public void stop()
+    {
+        scheduler.cancelRecurring( JobScheduler.Group.pageCacheFlushing, flusher );
+    }
+}
@@ -82,15 +82,7 @@ public class RelationshipStore extends AbstractRecordStore<RelationshipRecord> i
     @Override
     public RelationshipRecord getRecord( long id )
     {
-        PersistenceWindow window = acquireWindow( id, OperationType.READ );
-        try
-        {
-            return getRecord( id, window, RecordLoad.NORMAL );
-        }
-        finally
-        {
-            releaseWindow( window );
-        }
+        return getRecord( id, RecordLoad.NORMAL );
     }
 
     @Override
@@ -130,24 +122,12 @@ public class RelationshipStore extends AbstractRecordStore<RelationshipRecord> i
 
     public RelationshipRecord getLightRel( long id )
     {
-        PersistenceWindow window;
-        try
-        {
-            window = acquireWindow( id, OperationType.READ );
-        }
-        catch ( InvalidRecordException e )
+        if ( !isAcquirablePosition( id ) )
         {
             // ok to high id
             return null;
         }
-        try
-        {
-            return getRecord( id, window, RecordLoad.CHECK );
-        }
-        finally
-        {
-            releaseWindow( window );
-        }
+        return getRecord( id, RecordLoad.CHECK );
     }
 
     @Override
@@ -243,6 +223,43 @@ public class RelationshipStore extends AbstractRecordStore<RelationshipRecord> i
         }
     }
 
+    private RelationshipRecord getRecord( long id, RecordLoad load )
+    {
+        for ( int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++ )
+        {
+            PersistenceWindow window = acquireOptimisticWindow( id );
+            if ( window == null )
+            {
+                break;
+            }
+            try
+            {
+                RelationshipRecord record = getRecord( id, window, load );
+                if ( validateOptimisticRead( window ) )
+                {
+                    return record;
+                }
+            }
+            catch ( InvalidRecordException e )
+            {
+                if ( validateOptimisticRead( window ) )
+                {
+                    throw e;
+                }
+            }
+        }
+
+        PersistenceWindow window = acquireWindow( id, OperationType.READ );
+        try
+        {
+            return getRecord( id, window, load );
+        }
+        finally
+        {
+            releaseWindow( window );
+        }
+    }
+
     private RelationshipRecord getRecord( long id, PersistenceWindow window,
         RecordLoad load )
     {
@@ -0,0 +1,275 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store;
+
+import java.nio.ByteBuffer;
+
+import static java.lang.String.format;
+
+/**
+ * A fixed number of equally sized page slots shared between all stores. Slots are handed out
+ * to {@link PageCacheWindowPool pools} as pages are loaded and, once all slots are taken,
+ * reclaimed using the CLOCK algorithm: the clock hand sweeps over the slots, clearing the
+ * reference bit of recently used pages and evicting the first unused page it finds that
+ * hasn't been referenced since the last sweep.
+ */
+public class SharedPageCache
+{
+    private static final long RELEASE_WAIT_MILLIS = 10;
+
+    private final int pageSize;
+    private final boolean direct;
+    private final PageCacheWindow[] slots;
+    private final ByteBuffer[] buffers;
+    private final int[] freeSlots;
+    private int freeSlotCount;
+    private int unusedSlots;
+    private int hand;
+    private volatile long evictions;
+    private volatile int waitingForRelease;
+
+    public SharedPageCache( long totalMemory, int pageSize, boolean direct )
+    {
+        long pageCount = totalMemory / pageSize;
+        if ( pageCount < 1 || pageCount > Integer.MAX_VALUE )
+        {
+            throw new IllegalArgumentException( format( "page size [%d bytes] and total memory [%d bytes]" +
+                    " implies an impossible number of pages [%d]", pageSize, totalMemory, pageCount ) );
+        }
+        this.pageSize = pageSize;
+        this.direct = direct;
+        this.slots = new PageCacheWindow[(int) pageCount];
+        this.buffers = new ByteBuffer[slots.length];
+        this.freeSlots = new int[slots.length];
+    }
+
+    public int pageSize()
+    {
+        return pageSize;
+    }
+
+    public int maxPages()
+    {
+        return slots.length;
+    }
+
+    public long totalMemory()
+    {
+        return (long) pageSize * slots.length;
+    }
+
+    public long evictions()
+    {
+        return evictions;
+    }
+
+    /**
+     * Reserves a slot for a page about to be loaded, evicting another page if there are no free slots.
+     * The reserved slot must later be handed to either {@link #install(int, PageCacheWindow)}
+     * or {@link #cancel(int)}. If every page is in use, this waits for one to be released.
+     * <p>
+     * The page to evict is chosen under the monitor of this cache, but written out after letting go
+     * of it, so that other reservations don't have to wait for that I/O.
+     *
+     * @return the reserved slot.
+     */
+    int reserve()
+    {
+        boolean interrupted = false;
+        try
+        {
+            while ( true )
+            {
+                int slot;
+                PageCacheWindow victim;
+                synchronized ( this )
+                {
+                    if ( freeSlotCount > 0 )
+                    {
+                        return freeSlots[--freeSlotCount];
+                    }
+                    if ( unusedSlots < slots.length )
+                    {
+                        return unusedSlots++;
+                    }
+                    slot = selectVictim();
+                    if ( slot == -1 )
+                    {
+                        interrupted |= awaitRelease();
+                        continue;
+                    }
+                    victim = slots[slot];
+                    slots[slot] = null;
+                }
+                if ( victim != null )
+                {
+                    finishEviction( slot, victim );
+                }
+                return slot;
+            }
+        }
+        finally
+        {
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Sweeps the clock hand over all slots twice, since the first sweep may only clear reference bits.
+     * The page in the returned slot is either closed along with its pool, in which case the slot is
+     * cleared, or is being evicted and has to be handed to {@link #finishEviction(int, PageCacheWindow)}.
+     *
+     * @return the slot of the chosen page, or {@code -1} if every page is in use.
+     */
+    private int selectVictim()
+    {
+        for ( int examined = 0; examined < slots.length * 2; examined++ )
+        {
+            int slot = hand;
+            hand = (hand + 1) % slots.length;
+            PageCacheWindow candidate = slots[slot];
+            if ( candidate != null )
+            {
+                if ( candidate.isClosed() )
+                {   // Its pool has been closed, so this slot is up for grabs
+                    slots[slot] = null;
+                    return slot;
+                }
+                if ( candidate.referenced )
+                {
+                    candidate.referenced = false;
+                }
+                else if ( candidate.startEviction() )
+                {
+                    evictions++;
+                    return slot;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes out the page being evicted from {@code slot}. If that fails the slot is given back, since
+     * whoever reserved it won't get to use it.
+     */
+    private void finishEviction( int slot, PageCacheWindow victim )
+    {
+        boolean evicted = false;
+        try
+        {
+            victim.finishEviction();
+            evicted = true;
+        }
+        finally
+        {
+            if ( !evicted )
+            {
+                cancel( slot );
+            }
+        }
+    }
+
+    /**
+     * Waits for a page to be released. The monitor of this cache is given up while waiting, so that
+     * others can release, install and cancel slots meanwhile. The wait is bounded, since a release
+     * racing with the start of the wait doesn't notify us.
+     *
+     * @return {@code true} if interrupted while waiting.
+     */
+    private boolean awaitRelease()
+    {
+        waitingForRelease++;
+        try
+        {
+            wait( RELEASE_WAIT_MILLIS );
+            return false;
+        }
+        catch ( InterruptedException e )
+        {
+            return true;
+        }
+        finally
+        {
+            waitingForRelease--;
+        }
+    }
+
+    /**
+     * Called when a page has been released, to wake up anyone waiting in {@link #reserve()}.
+     */
+    void pageReleased()
+    {
+        if ( waitingForRelease > 0 )
+        {
+            synchronized ( this )
+            {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return the buffer of the given reserved slot, cleared and limited to {@code size} bytes.
+     */
+    synchronized ByteBuffer buffer( int slot, int size )
+    {
+        if ( buffers[slot] == null )
+        {
+            buffers[slot] = direct ? ByteBuffer.allocateDirect( pageSize ) : ByteBuffer.allocate( pageSize );
+        }
+        ByteBuffer buffer = buffers[slot];
+        buffer.clear();
+        buffer.limit( size );
+        return buffer.slice();
+    }
+
+    synchronized void install( int slot, PageCacheWindow page )
+    {
+        slots[slot] = page;
+    }
+
+    synchronized void cancel( int slot )
+    {
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    /**
+     * Writes out all dirty pages, so that evictions seldom have to wait for a page to be written.
+     */
+    public void flushDirtyPages()
+    {
+        PageCacheWindow[] residentPages;
+        synchronized ( this )
+        {
+            residentPages = slots.clone();
+        }
+        for ( PageCacheWindow page : residentPages )
+        {
+            if ( page != null )
+            {
+                page.flush();
+            }
+        }
+    }
+}
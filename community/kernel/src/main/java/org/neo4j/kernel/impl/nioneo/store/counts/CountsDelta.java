@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store.counts;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neo4j.graphdb.Direction;
+
+import static org.neo4j.kernel.impl.nioneo.store.counts.CountsStore.ANY;
+
+/**
+ * The changes a single transaction makes to the counts in a {@link CountsStore}. Counts for {@link CountsStore#ANY}
+ * label and type are maintained by this class, so callers only describe the concrete labels and types involved.
+ */
+public class CountsDelta
+{
+    private final Map<CountsKey, Long> deltas = new HashMap<>();
+
+    /**
+     * Records that a node with the given labels was created ({@code delta} 1) or deleted ({@code delta} -1).
+     */
+    public void nodeWithLabels( long[] labelIds, long delta )
+    {
+        increment( CountsKey.node( ANY ), delta );
+        for ( long labelId : labelIds )
+        {
+            nodeWithLabel( (int) labelId, delta );
+        }
+    }
+
+    public void nodeWithLabel( int labelId, long delta )
+    {
+        increment( CountsKey.node( labelId ), delta );
+    }
+
+    /**
+     * Records that the given number of relationships of a type was created or deleted on one side of nodes with the
+     * given labels, {@link Direction#OUTGOING} being the start node side and {@link Direction#INCOMING} the end node.
+     */
+    public void relationshipsOfNodeWithLabels( long[] labelIds, int typeId, Direction direction, long delta )
+    {
+        relationshipsOfNodeWithLabel( ANY, typeId, direction, delta );
+        for ( long labelId : labelIds )
+        {
+            relationshipsOfNodeWithLabel( (int) labelId, typeId, direction, delta );
+        }
+    }
+
+    public void relationshipsOfNodeWithLabel( int labelId, int typeId, Direction direction, long delta )
+    {
+        increment( CountsKey.relationship( labelId, typeId, direction ), delta );
+        increment( CountsKey.relationship( labelId, ANY, direction ), delta );
+    }
+
+    public boolean isEmpty()
+    {
+        return deltas.isEmpty();
+    }
+
+    Iterable<Map.Entry<CountsKey, Long>> entries()
+    {
+        return deltas.entrySet();
+    }
+
+    private void increment( CountsKey key, long delta )
+    {
+        if ( delta == 0 )
+        {
+            return;
+        }
+        Long current = deltas.get( key );
+        long updated = current == null ? delta : current + delta;
+        if ( updated == 0 )
+        {
+            deltas.remove( key );
+        }
+        else
+        {
+            deltas.put( key, updated );
+        }
+    }
+}
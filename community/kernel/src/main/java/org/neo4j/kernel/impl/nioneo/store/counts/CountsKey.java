@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store.counts;
+
+import org.neo4j.graphdb.Direction;
+
+/**
+ * Identifies one count in the {@link CountsStore}: either the number of nodes with a label, or the number of
+ * relationships of a type on one side of nodes with a label.
+ */
+final class CountsKey
+{
+    static final byte NODE = 0;
+    static final byte OUTGOING = 1;
+    static final byte INCOMING = 2;
+
+    final byte kind;
+    final int labelId;
+    final int typeId;
+
+    CountsKey( byte kind, int labelId, int typeId )
+    {
+        this.kind = kind;
+        this.labelId = labelId;
+        this.typeId = typeId;
+    }
+
+    static CountsKey node( int labelId )
+    {
+        return new CountsKey( NODE, labelId, CountsStore.ANY );
+    }
+
+    static CountsKey relationship( int labelId, int typeId, Direction direction )
+    {
+        switch ( direction )
+        {
+        case OUTGOING:
+            return new CountsKey( OUTGOING, labelId, typeId );
+        case INCOMING:
+            return new CountsKey( INCOMING, labelId, typeId );
+        default:
+            throw new IllegalArgumentException( "Relationships are counted per direction, not for " + direction );
+        }
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+        CountsKey that = (CountsKey) o;
+        return kind == that.kind && labelId == that.labelId && typeId == that.typeId;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = kind;
+        result = 31 * result + labelId;
+        result = 31 * result + typeId;
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[kind=" + kind + ", label=" + labelId + ", type=" + typeId + "]";
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store.counts;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.kernel.impl.nioneo.store.FileSystemAbstraction;
+import org.neo4j.kernel.impl.nioneo.store.NeoStore;
+import org.neo4j.kernel.impl.nioneo.store.NodeRecord;
+import org.neo4j.kernel.impl.nioneo.store.NodeStore;
+import org.neo4j.kernel.impl.nioneo.store.StoreIdIterator;
+import org.neo4j.kernel.impl.nioneo.store.UnderlyingStorageException;
+
+import static org.neo4j.kernel.impl.nioneo.store.labels.NodeLabelsField.parseLabelsField;
+
+/**
+ * Exact counts of nodes per label, and of relationships per label, type and direction, as of the last transaction
+ * applied to it. The counts are kept in memory, updated with a {@link CountsDelta} for every committed transaction,
+ * and written to a small file together with the id of the last transaction they include.
+ * <p>
+ * Counts that can no longer be trusted, because the file was missing or out of date, or because transactions were
+ * recovered from the log, are marked as stale and rebuilt by {@link #rebuildIfNeeded(NeoStore) scanning the store}
+ * on startup. Counts that go stale while running are not served at all until then, rather than served out of date.
+ * A relationship is counted once on its start node side, as {@link Direction#OUTGOING}, and once on its end node
+ * side, as {@link Direction#INCOMING}.
+ */
+public class CountsStore
+{
+    public static final String FILE_NAME = NeoStore.DEFAULT_NAME + ".counts.db";
+
+    /** Label or relationship type id meaning "any label" or "any type". */
+    public static final int ANY = -1;
+
+    private static final long FORMAT_VERSION = 1;
+
+    private final ConcurrentMap<CountsKey, Long> counts = new ConcurrentHashMap<>();
+    private volatile long lastTxId;
+    private volatile boolean stale;
+
+    CountsStore( long lastTxId, boolean stale )
+    {
+        this.lastTxId = lastTxId;
+        this.stale = stale;
+    }
+
+    public static CountsStore empty()
+    {
+        return new CountsStore( -1, true );
+    }
+
+    /**
+     * Loads counts from the given file, or returns {@link #empty() stale counts} if the file is missing or cannot
+     * be read.
+     */
+    public static CountsStore load( FileSystemAbstraction fs, File file )
+    {
+        if ( !fs.fileExists( file ) )
+        {
+            return empty();
+        }
+        try ( DataInputStream in = new DataInputStream( new BufferedInputStream( fs.openAsInputStream( file ) ) ) )
+        {
+            if ( in.readLong() != FORMAT_VERSION )
+            {
+                return empty();
+            }
+            CountsStore store = new CountsStore( in.readLong(), false );
+            int entries = in.readInt();
+            for ( int i = 0; i < entries; i++ )
+            {
+                CountsKey key = new CountsKey( in.readByte(), in.readInt(), in.readInt() );
+                store.counts.put( key, in.readLong() );
+            }
+            return store;
+        }
+        catch ( IOException e )
+        {
+            // Ignore. The file is corrupt or truncated, so the counts will be rebuilt from the store.
+            return empty();
+        }
+    }
+
+    /**
+     * @throws StaleCountsException if the counts are stale.
+     */
+    public long nodeCount( int labelId )
+    {
+        return count( CountsKey.node( labelId ) );
+    }
+
+    /**
+     * @param labelId the label of the node on the given side of the relationships, or {@link #ANY}.
+     * @param typeId the relationship type, or {@link #ANY}.
+     * @param direction the side of the relationships the node is on, {@link Direction#BOTH} counting both.
+     * @throws StaleCountsException if the counts are stale.
+     */
+    public long relationshipCount( int labelId, int typeId, Direction direction )
+    {
+        if ( direction == Direction.BOTH )
+        {
+            return relationshipCount( labelId, typeId, Direction.OUTGOING ) +
+                   relationshipCount( labelId, typeId, Direction.INCOMING );
+        }
+        return count( CountsKey.relationship( labelId, typeId, direction ) );
+    }
+
+    public long lastTxId()
+    {
+        return lastTxId;
+    }
+
+    public boolean isStale()
+    {
+        return stale;
+    }
+
+    /**
+     * Applies the changes of a committed transaction. Counts are only updated transaction by transaction, in
+     * order, so a transaction that doesn't follow the last one applied makes the counts stale.
+     */
+    public synchronized void apply( CountsDelta delta, long txId )
+    {
+        if ( stale )
+        {
+            return;
+        }
+        if ( txId != lastTxId + 1 )
+        {
+            stale = true;
+            return;
+        }
+        for ( Map.Entry<CountsKey, Long> entry : delta.entries() )
+        {
+            Long current = counts.get( entry.getKey() );
+            long updated = (current == null ? 0 : current) + entry.getValue();
+            if ( updated == 0 )
+            {
+                counts.remove( entry.getKey() );
+            }
+            else
+            {
+                counts.put( entry.getKey(), updated );
+            }
+        }
+        lastTxId = txId;
+    }
+
+    public synchronized void invalidate()
+    {
+        stale = true;
+    }
+
+    /**
+     * Rebuilds the counts from the node and relationship stores, unless they are up to date with the last
+     * transaction committed to the store.
+     *
+     * @return {@code true} if the counts were rebuilt.
+     */
+    public synchronized boolean rebuildIfNeeded( NeoStore neoStore )
+    {
+        if ( !stale && lastTxId == neoStore.getLastCommittedTx() )
+        {
+            return false;
+        }
+
+        final CountsDelta scanned = new CountsDelta();
+        NodeStore nodeStore = neoStore.getNodeStore();
+        StoreIdIterator nodeIds = new StoreIdIterator( nodeStore );
+        while ( nodeIds.hasNext() )
+        {
+            NodeRecord node = nodeStore.forceGetRecord( nodeIds.next() );
+            if ( !node.inUse() )
+            {
+                continue;
+            }
+            final long[] labels = parseLabelsField( node ).get( nodeStore );
+            scanned.nodeWithLabels( labels, 1 );
+            NodeDegrees.visit( neoStore, node, new NodeDegrees.Visitor()
+            {
+                @Override
+                public void visitDegree( int typeId, Direction direction, long degree )
+                {
+                    scanned.relationshipsOfNodeWithLabels( labels, typeId, direction, degree );
+                }
+            } );
+        }
+
+        counts.clear();
+        for ( Map.Entry<CountsKey, Long> entry : scanned.entries() )
+        {
+            counts.put( entry.getKey(), entry.getValue() );
+        }
+        lastTxId = neoStore.getLastCommittedTx();
+        stale = false;
+        return true;
+    }
+
+    /**
+     * Writes the counts to the given file, replacing it. Stale counts are never written, and an existing file is
+     * deleted instead so that they will be rebuilt on the next startup.
+     */
+    public synchronized void write( FileSystemAbstraction fs, File file )
+    {
+        if ( stale )
+        {
+            fs.deleteFile( file );
+            return;
+        }
+        File tempFile = new File( file.getPath() + ".tmp" );
+        try
+        {
+            try ( DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream( fs.openAsOutputStream( tempFile, false ) ) ) )
+            {
+                out.writeLong( FORMAT_VERSION );
+                out.writeLong( lastTxId );
+                out.writeInt( counts.size() );
+                for ( Map.Entry<CountsKey, Long> entry : counts.entrySet() )
+                {
+                    CountsKey key = entry.getKey();
+                    out.writeByte( key.kind );
+                    out.writeInt( key.labelId );
+                    out.writeInt( key.typeId );
+                    out.writeLong( entry.getValue() );
+                }
+            }
+            fs.deleteFile( file );
+            if ( !fs.renameFile( tempFile, file ) )
+            {
+                throw new IOException( "Unable to rename " + tempFile + " to " + file );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to write counts to " + file, e );
+        }
+    }
+
+    private long count( CountsKey key )
+    {
+        if ( stale )
+        {
+            throw new StaleCountsException( lastTxId );
+        }
+        Long count = counts.get( key );
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store.counts;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.kernel.impl.nioneo.store.NeoStore;
+import org.neo4j.kernel.impl.nioneo.store.NodeRecord;
+import org.neo4j.kernel.impl.nioneo.store.Record;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipGroupStore;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipRecord;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipStore;
+
+import static org.neo4j.kernel.impl.nioneo.xa.RelationshipCounter.relCount;
+
+/**
+ * Reads the degrees of a node, per relationship type and direction, as they currently are in the store.
+ * Dense nodes keep the degree of each chain in the chain itself, so only their groups are read; the relationship
+ * chain of other nodes has to be traversed. Loops are visited in both directions.
+ */
+public class NodeDegrees
+{
+    public interface Visitor
+    {
+        void visitDegree( int typeId, Direction direction, long degree );
+    }
+
+    private NodeDegrees()
+    {
+    }
+
+    public static void visit( NeoStore neoStore, NodeRecord node, Visitor visitor )
+    {
+        if ( node.getNextRel() == Record.NO_NEXT_RELATIONSHIP.intValue() )
+        {
+            return;
+        }
+        if ( node.isDense() )
+        {
+            visitDense( neoStore.getRelationshipGroupStore(), neoStore.getRelationshipStore(), node, visitor );
+        }
+        else
+        {
+            visitSparse( neoStore.getRelationshipStore(), node, visitor );
+        }
+    }
+
+    private static void visitDense( RelationshipGroupStore groupStore, RelationshipStore relationshipStore,
+                                    NodeRecord node, Visitor visitor )
+    {
+        long groupId = node.getNextRel();
+        while ( groupId != Record.NO_NEXT_RELATIONSHIP.intValue() )
+        {
+            RelationshipGroupRecord group = groupStore.getRecord( groupId );
+            long loops = chainLength( relationshipStore, node.getId(), group.getFirstLoop() );
+            visitNonZero( visitor, group.getType(), Direction.OUTGOING,
+                    chainLength( relationshipStore, node.getId(), group.getFirstOut() ) + loops );
+            visitNonZero( visitor, group.getType(), Direction.INCOMING,
+                    chainLength( relationshipStore, node.getId(), group.getFirstIn() ) + loops );
+            groupId = group.getNext();
+        }
+    }
+
+    private static long chainLength( RelationshipStore relationshipStore, long nodeId, long firstRelId )
+    {
+        if ( firstRelId == Record.NO_NEXT_RELATIONSHIP.intValue() )
+        {
+            return 0;
+        }
+        return relCount( nodeId, relationshipStore.getRecord( firstRelId ) );
+    }
+
+    private static void visitSparse( RelationshipStore relationshipStore, NodeRecord node, Visitor visitor )
+    {
+        long nodeId = node.getId();
+        Map<Integer, long[]> degreesByType = new HashMap<>();
+        long relId = node.getNextRel();
+        while ( relId != Record.NO_NEXT_RELATIONSHIP.intValue() )
+        {
+            RelationshipRecord rel = relationshipStore.getRecord( relId );
+            long[] degrees = degreesByType.get( rel.getType() );
+            if ( degrees == null )
+            {
+                degreesByType.put( rel.getType(), degrees = new long[2] );
+            }
+            if ( rel.getFirstNode() == nodeId )
+            {
+                degrees[0]++;
+            }
+            if ( rel.getSecondNode() == nodeId )
+            {
+                degrees[1]++;
+            }
+            relId = rel.getFirstNode() == nodeId ? rel.getFirstNextRel() : rel.getSecondNextRel();
+        }
+
+        for ( Map.Entry<Integer, long[]> entry : degreesByType.entrySet() )
+        {
+            visitNonZero( visitor, entry.getKey(), Direction.OUTGOING, entry.getValue()[0] );
+            visitNonZero( visitor, entry.getKey(), Direction.INCOMING, entry.getValue()[1] );
+        }
+    }
+
+    private static void visitNonZero( Visitor visitor, int typeId, Direction direction, long degree )
+    {
+        if ( degree > 0 )
+        {
+            visitor.visitDegree( typeId, direction, degree );
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store.windowpool;
+
+import org.neo4j.kernel.impl.nioneo.store.PersistenceWindow;
+
+/**
+ * A {@link WindowPool} which can hand out windows for reading without locking them. Readers of such
+ * windows never block each other, nor do they block writers, but what they read may be changed
+ * concurrently, so each read must be confirmed using {@link #validate(PersistenceWindow)}
+ * before it is trusted. Reads that don't validate should be retried.
+ */
+public interface OptimisticReadWindowPool extends WindowPool
+{
+    /**
+     * Acquires a window for reading <CODE>position</CODE> without locking it. The returned window
+     * need not be released.
+     *
+     * @param position
+     *            The position the needs to be encapsulated by the window
+     * @return A window encapsulating the position, or {@code null} if no window can be read
+     *         optimistically right now, in which case {@link #acquire(long, org.neo4j.kernel.impl.nioneo.store.OperationType)}
+     *         should be used instead.
+     */
+    PersistenceWindow acquireOptimistic( long position );
+
+    /**
+     * @param window
+     *            A window acquired using {@link #acquireOptimistic(long)}
+     * @return {@code true} if nothing has been written to the window since it was acquired,
+     *         meaning that what was read from it is consistent.
+     */
+    boolean validate( PersistenceWindow window );
+}
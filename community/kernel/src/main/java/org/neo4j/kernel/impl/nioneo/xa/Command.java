@@ -603,6 +603,11 @@ public abstract class Command extends XaCommand
             store.updateRecord( record );
         }
 
+        public RelationshipRecord getRecord()
+        {
+            return record;
+        }
+
         @Override
         public void writeToFile( LogBuffer buffer ) throws IOException
         {
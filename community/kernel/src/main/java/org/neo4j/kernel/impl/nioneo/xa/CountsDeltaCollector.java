@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.xa;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.kernel.impl.nioneo.store.NeoStore;
+import org.neo4j.kernel.impl.nioneo.store.NodeRecord;
+import org.neo4j.kernel.impl.nioneo.store.NodeStore;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipRecord;
+import org.neo4j.kernel.impl.nioneo.store.counts.CountsDelta;
+import org.neo4j.kernel.impl.nioneo.store.counts.NodeDegrees;
+import org.neo4j.kernel.impl.nioneo.xa.Command.NodeCommand;
+import org.neo4j.kernel.impl.nioneo.xa.Command.RelationshipCommand;
+
+import static org.neo4j.kernel.impl.nioneo.store.labels.NodeLabelsField.parseLabelsField;
+
+/**
+ * Works out the {@link CountsDelta} of a transaction from its node and relationship commands. This must be done
+ * before the commands are executed, since the labels and relationships a node had before the transaction are read
+ * from the store where the commands don't carry them.
+ */
+class CountsDeltaCollector
+{
+    private final NeoStore neoStore;
+    private final NodeStore nodeStore;
+    private final Map<Long, NodeCommand> nodeCommands;
+    private final Map<Long, long[]> unchangedNodeLabels = new HashMap<>();
+    private final Map<Long, Map<Integer, long[]>> deletedDegrees = new HashMap<>();
+    private final CountsDelta delta = new CountsDelta();
+
+    CountsDeltaCollector( NeoStore neoStore, Map<Long, NodeCommand> nodeCommands )
+    {
+        this.neoStore = neoStore;
+        this.nodeStore = neoStore.getNodeStore();
+        this.nodeCommands = nodeCommands;
+    }
+
+    /**
+     * @param recovered whether the commands were read from a log, in which case deleted relationship records don't
+     * say what they connected, and created records aren't marked as such.
+     * @return the changes to the counts, or {@code null} if the labels of a changed node couldn't be determined.
+     */
+    CountsDelta collect( Collection<RelationshipCommand> relCommands, boolean recovered )
+    {
+        for ( RelationshipCommand command : relCommands )
+        {
+            if ( !collectRelationship( command.getRecord(), recovered ) )
+            {
+                return null;
+            }
+        }
+        for ( NodeCommand command : nodeCommands.values() )
+        {
+            if ( !collectNode( command ) )
+            {
+                return null;
+            }
+        }
+        return delta;
+    }
+
+    private boolean collectRelationship( RelationshipRecord record, boolean recovered )
+    {
+        if ( record.inUse() )
+        {
+            boolean created = recovered ? !neoStore.getRelationshipStore().forceGetRecord( record.getId() ).inUse()
+                                        : record.isCreated();
+            if ( !created )
+            {
+                return true;
+            }
+            long[] startLabels = labelsAfter( record.getFirstNode() );
+            long[] endLabels = labelsAfter( record.getSecondNode() );
+            if ( startLabels == null || endLabels == null )
+            {
+                return false;
+            }
+            delta.relationshipsOfNodeWithLabels( startLabels, record.getType(), Direction.OUTGOING, 1 );
+            delta.relationshipsOfNodeWithLabels( endLabels, record.getType(), Direction.INCOMING, 1 );
+            return true;
+        }
+
+        if ( record.isCreated() )
+        {   // Created and deleted in the same transaction
+            return true;
+        }
+        RelationshipRecord before = recovered ? neoStore.getRelationshipStore().forceGetRecord( record.getId() )
+                                              : record;
+        if ( recovered && !before.inUse() )
+        {
+            return true;
+        }
+        delta.relationshipsOfNodeWithLabels( labelsBefore( before.getFirstNode() ), before.getType(),
+                Direction.OUTGOING, -1 );
+        delta.relationshipsOfNodeWithLabels( labelsBefore( before.getSecondNode() ), before.getType(),
+                Direction.INCOMING, -1 );
+        deletedDegree( before.getFirstNode(), before.getType() )[0]++;
+        deletedDegree( before.getSecondNode(), before.getType() )[1]++;
+        return true;
+    }
+
+    private boolean collectNode( NodeCommand command )
+    {
+        NodeRecord before = command.getBefore();
+        NodeRecord after = command.getAfter();
+        long[] labelsBefore = before.inUse() ? labelsOf( before, before ) : null;
+        long[] labelsAfter = after.inUse() ? labelsOf( before, after ) : null;
+        if ( after.inUse() && labelsAfter == null )
+        {
+            return false;
+        }
+
+        if ( !before.inUse() || !after.inUse() )
+        {
+            if ( labelsBefore != null )
+            {
+                delta.nodeWithLabels( labelsBefore, -1 );
+            }
+            if ( labelsAfter != null )
+            {
+                delta.nodeWithLabels( labelsAfter, 1 );
+            }
+            return true;
+        }
+
+        final NeoStoreTransaction.LabelChangeSummary changes =
+                new NeoStoreTransaction.LabelChangeSummary( labelsBefore, labelsAfter );
+        for ( long label : changes.getRemovedLabels() )
+        {
+            delta.nodeWithLabel( (int) label, -1 );
+        }
+        for ( long label : changes.getAddedLabels() )
+        {
+            delta.nodeWithLabel( (int) label, 1 );
+        }
+        if ( changes.hasAddedLabels() || changes.hasRemovedLabels() )
+        {   // The relationships the node keeps through this transaction move from its old labels to its new ones
+            final Map<Integer, long[]> deleted = deletedDegrees.get( before.getId() );
+            NodeDegrees.visit( neoStore, before, new NodeDegrees.Visitor()
+            {
+                @Override
+                public void visitDegree( int typeId, Direction direction, long degree )
+                {
+                    long[] deletedOfType = deleted == null ? null : deleted.get( typeId );
+                    long kept = degree - (deletedOfType == null ? 0 :
+                            deletedOfType[direction == Direction.OUTGOING ? 0 : 1]);
+                    for ( long label : changes.getRemovedLabels() )
+                    {
+                        delta.relationshipsOfNodeWithLabel( (int) label, typeId, direction, -kept );
+                    }
+                    for ( long label : changes.getAddedLabels() )
+                    {
+                        delta.relationshipsOfNodeWithLabel( (int) label, typeId, direction, kept );
+                    }
+                }
+            } );
+        }
+        return true;
+    }
+
+    /**
+     * The labels of a node record from a command. Labels kept in dynamic records may not have been loaded into
+     * the record, in which case the labels before the transaction are read from the store, and the labels after
+     * it are only known if the label field didn't change.
+     */
+    private long[] labelsOf( NodeRecord before, NodeRecord record )
+    {
+        long[] labels = parseLabelsField( record ).getIfLoaded();
+        if ( labels != null )
+        {
+            return labels;
+        }
+        if ( record == before || (before.inUse() && before.getLabelField() == record.getLabelField()) )
+        {   // Read from a copy, since dynamic label records loaded into the before record would be deleted
+            // by the command as records the node no longer has
+            return parseLabelsField( before.clone() ).get( nodeStore );
+        }
+        return null;
+    }
+
+    private long[] labelsBefore( long nodeId )
+    {
+        NodeCommand command = nodeCommands.get( nodeId );
+        return command != null ? labelsOf( command.getBefore(), command.getBefore() ) : unchangedLabels( nodeId );
+    }
+
+    private long[] labelsAfter( long nodeId )
+    {
+        NodeCommand command = nodeCommands.get( nodeId );
+        return command != null ? labelsOf( command.getBefore(), command.getAfter() ) : unchangedLabels( nodeId );
+    }
+
+    private long[] unchangedLabels( long nodeId )
+    {
+        long[] labels = unchangedNodeLabels.get( nodeId );
+        if ( labels == null )
+        {
+            labels = parseLabelsField( nodeStore.getRecord( nodeId ) ).get( nodeStore );
+            unchangedNodeLabels.put( nodeId, labels );
+        }
+        return labels;
+    }
+
+    private long[] deletedDegree( long nodeId, int typeId )
+    {
+        Map<Integer, long[]> byType = deletedDegrees.get( nodeId );
+        if ( byType == null )
+        {
+            deletedDegrees.put( nodeId, byType = new HashMap<>() );
+        }
+        long[] degrees = byType.get( typeId );
+        if ( degrees == null )
+        {
+            byType.put( typeId, degrees = new long[2] );
+        }
+        return degrees;
+    }
+}
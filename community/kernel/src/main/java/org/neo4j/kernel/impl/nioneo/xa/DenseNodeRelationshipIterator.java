@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.xa;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections.PrimitiveLongBaseIterator;
+import org.neo4j.kernel.impl.nioneo.store.Record;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipGroupStore;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipRecord;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipStore;
+import org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper;
+
+/**
+ * Streams the relationship ids of a dense node straight from the store, one relationship group and
+ * one chain at a time. Only the groups matching the requested types are visited and only the chains
+ * matching the requested direction are followed, so asking for a single type on a node with millions
+ * of relationships of other types never touches those other chains. Nothing read here is put in any cache.
+ * <p>
+ * Records are read as they are found, without any lock, so a transaction may delete them meanwhile. A chain
+ * or group chain is followed up to the first record that is no longer in use, or no longer belongs to this node,
+ * and ends there.
+ */
+class DenseNodeRelationshipIterator extends PrimitiveLongBaseIterator
+{
+    private static final long CHAIN_BROKEN = -2;
+
+    private final long nodeId;
+    private final DirectionWrapper[] directions;
+    private final int[] types;
+    private final RelationshipGroupStore groupStore;
+    private final RelationshipStore relationshipStore;
+
+    private long nextGroup;
+    private RelationshipGroupRecord group;
+    private int directionIndex;
+    private long nextRel = Record.NO_NEXT_RELATIONSHIP.intValue();
+
+    DenseNodeRelationshipIterator( long nodeId, long firstGroup, DirectionWrapper direction, int[] types,
+            RelationshipGroupStore groupStore, RelationshipStore relationshipStore )
+    {
+        this.nodeId = nodeId;
+        this.directions = direction.allDirections();
+        this.types = types;
+        this.groupStore = groupStore;
+        this.relationshipStore = relationshipStore;
+        this.nextGroup = firstGroup;
+    }
+
+    @Override
+    protected boolean fetchNext()
+    {
+        while ( true )
+        {
+            if ( nextRel != Record.NO_NEXT_RELATIONSHIP.intValue() )
+            {
+                RelationshipRecord rel = relationshipStore.forceGetRecord( nextRel );
+                if ( !rel.inUse() )
+                {   // Deleted after this chain was entered, the rest of the chain can't be reached from here
+                    nextRel = Record.NO_NEXT_RELATIONSHIP.intValue();
+                    continue;
+                }
+                nextRel = nextInChain( rel );
+                if ( nextRel == CHAIN_BROKEN )
+                {   // Deleted and reused by another node
+                    nextRel = Record.NO_NEXT_RELATIONSHIP.intValue();
+                    continue;
+                }
+                return next( rel.getId() );
+            }
+            if ( !nextChain() )
+            {
+                return false;
+            }
+        }
+    }
+
+    private long nextInChain( RelationshipRecord rel )
+    {
+        if ( rel.getFirstNode() == nodeId )
+        {
+            return rel.getFirstNextRel();
+        }
+        if ( rel.getSecondNode() == nodeId )
+        {
+            return rel.getSecondNextRel();
+        }
+        return CHAIN_BROKEN;
+    }
+
+    /**
+     * Moves on to the next chain to follow, either the next direction in the current group or the first
+     * direction in the next group of a requested type.
+     */
+    private boolean nextChain()
+    {
+        while ( true )
+        {
+            if ( group != null && directionIndex < directions.length )
+            {
+                nextRel = directions[directionIndex++].getNextRel( group );
+                return true;
+            }
+            if ( !nextGroup() )
+            {
+                return false;
+            }
+        }
+    }
+
+    private boolean nextGroup()
+    {
+        while ( nextGroup != Record.NO_NEXT_RELATIONSHIP.intValue() )
+        {
+            RelationshipGroupRecord candidate = groupStore.forceGetRecord( nextGroup );
+            if ( !candidate.inUse() || candidate.getOwningNode() != nodeId )
+            {   // Deleted after this group chain was entered
+                break;
+            }
+            nextGroup = candidate.getNext();
+            if ( wanted( candidate.getType() ) )
+            {
+                group = candidate;
+                directionIndex = 0;
+                return true;
+            }
+        }
+        group = null;
+        return false;
+    }
+
+    private boolean wanted( int type )
+    {
+        if ( types.length == 0 )
+        {
+            return true;
+        }
+        for ( int candidate : types )
+        {
+            if ( candidate == type )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -27,6 +27,7 @@ import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
 import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.nioneo.store.NeoStore;
+import org.neo4j.kernel.impl.nioneo.store.counts.CountsStore;
 import org.neo4j.kernel.impl.transaction.xaframework.TransactionInterceptor;
 import org.neo4j.kernel.impl.transaction.xaframework.XaLogicalLog;
 
@@ -39,10 +40,10 @@ public class InterceptingWriteTransaction extends NeoStoreTransaction
                                   IndexingService indexingService, LabelScanStore labelScanStore,
                                   TransactionInterceptor interceptor, IntegrityValidator validator,
                                   KernelTransactionImplementation kernelTransaction, LockService locks,
-                                  NeoStoreTransactionContext context )
+                                  CountsStore counts, NeoStoreTransactionContext context )
     {
         super( lastCommittedTxWhenTransactionStarted, log, neoStore, cacheAccess, indexingService,
-                labelScanStore, validator, kernelTransaction, locks, context );
+                labelScanStore, validator, kernelTransaction, locks, counts, null, null, context );
         this.interceptor = interceptor;
     }
 
@@ -34,6 +34,7 @@ import org.neo4j.kernel.api.labelscan.LabelScanStore;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.index.IndexStore;
 import org.neo4j.kernel.impl.nioneo.store.NeoStore;
+import org.neo4j.kernel.impl.nioneo.store.counts.CountsStore;
 import org.neo4j.kernel.impl.transaction.xaframework.XaContainer;
 
 import static org.neo4j.helpers.SillyUtils.nonNull;
@@ -147,8 +148,9 @@ public class NeoStoreFileListing
 
     private boolean neoStoreFile( String name )
     {
+        // The counts are left out, a store without them rebuilds them on startup
         return (name.startsWith( NeoStore.DEFAULT_NAME ) || name.equals( IndexStore.INDEX_DB_FILE_NAME ))
-                && !name.endsWith( ".id" );
+                && !name.endsWith( ".id" ) && !name.startsWith( CountsStore.FILE_NAME );
     }
 
     private static class StoreSnapshot extends PrefetchingIterator<File> implements ResourceIterator<File>
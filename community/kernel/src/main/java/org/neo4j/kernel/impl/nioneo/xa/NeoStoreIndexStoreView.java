@@ -20,8 +20,11 @@
 package org.neo4j.kernel.impl.nioneo.xa;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.helpers.collection.Iterables;
@@ -48,12 +51,17 @@ import org.neo4j.kernel.impl.nioneo.store.PropertyStore;
 import org.neo4j.kernel.impl.nioneo.store.Record;
 import org.neo4j.kernel.impl.nioneo.store.StoreIdIterator;
 
+import static java.lang.String.format;
+import static java.lang.Thread.currentThread;
+
 import static org.neo4j.kernel.api.index.NodePropertyUpdate.EMPTY_LONG_ARRAY;
 import static org.neo4j.kernel.api.labelscan.NodeLabelUpdate.labelChanges;
 import static org.neo4j.kernel.impl.nioneo.store.labels.NodeLabelsField.parseLabelsField;
 
 public class NeoStoreIndexStoreView implements IndexStoreView
 {
+    static final int NODES_PER_BATCH = 10_000;
+
     private final PropertyStore propertyStore;
     private final NodeStore nodeStore;
     private final LockService locks;
@@ -118,23 +126,7 @@ public class NeoStoreIndexStoreView implements IndexStoreView
             {
                 long[] labels = parseLabelsField( node ).get( nodeStore );
                 Update update = new Update( node.getId(), labels );
-                if ( !containsAnyLabel( labelIds, labels ) )
-                {
-                    return update;
-                }
-                properties: for ( PropertyBlock property : properties( node ) )
-                {
-                    int propertyKeyId = property.getKeyIndexId();
-                    for ( int sought : propertyKeyIds )
-                    {
-                        if ( propertyKeyId == sought )
-                        {
-                            update.add( NodePropertyUpdate
-                                                .add( node.getId(), propertyKeyId, valueOf( property ), labels ) );
-                            continue properties;
-                        }
-                    }
-                }
+                readPropertyUpdates( node, labels, labelIds, propertyKeyIds, update.propertyUpdates );
                 return update;
             }
 
@@ -150,6 +142,14 @@ public class NeoStoreIndexStoreView implements IndexStoreView
         };
     }
 
+    @Override
+    public <FAILURE extends Exception> StoreScan<FAILURE> visitNodesInParallel(
+            int[] labelIds, int[] propertyKeyIds, int threads,
+            NodeBatchVisitor<FAILURE> propertyUpdatesVisitor )
+    {
+        return new ParallelNodeStoreScan<>( labelIds, propertyKeyIds, threads, propertyUpdatesVisitor );
+    }
+
     @Override
     public Iterable<NodePropertyUpdate> nodeAsUpdates( long nodeId )
     {
@@ -204,6 +204,27 @@ public class NeoStoreIndexStoreView implements IndexStoreView
         throw new PropertyNotFoundException( propertyKeyId, EntityType.NODE, nodeId );
     }
 
+    private void readPropertyUpdates( NodeRecord node, long[] labels, int[] labelIds, int[] propertyKeyIds,
+                                      Collection<NodePropertyUpdate> target )
+    {
+        if ( !containsAnyLabel( labelIds, labels ) )
+        {
+            return;
+        }
+        properties: for ( PropertyBlock property : properties( node ) )
+        {
+            int propertyKeyId = property.getKeyIndexId();
+            for ( int sought : propertyKeyIds )
+            {
+                if ( propertyKeyId == sought )
+                {
+                    target.add( NodePropertyUpdate.add( node.getId(), propertyKeyId, valueOf( property ), labels ) );
+                    continue properties;
+                }
+            }
+        }
+    }
+
     private Object valueOf( PropertyBlock property )
     {
         // Make sure the value is loaded, even if it's of a "heavy" kind.
@@ -343,4 +364,143 @@ public class NeoStoreIndexStoreView implements IndexStoreView
             continueScanning = false;
         }
     }
+
+    /**
+     * Scans the node store using a number of threads. The threads take turns claiming the next
+     * {@link #NODES_PER_BATCH} node ids, so each of them reads a consecutive part of the store at a time,
+     * and hand the property updates found in those nodes to the visitor as one batch. Batches without any
+     * updates are handed over as well, so that the visitor knows which nodes have been scanned.
+     *
+     * Nodes created after the scan has passed their ids are not visited, the same as with the sequential
+     * scan, whose users get those nodes through the updates of the transactions that create them.
+     */
+    private class ParallelNodeStoreScan<FAILURE extends Exception> implements StoreScan<FAILURE>
+    {
+        private final int[] labelIds;
+        private final int[] propertyKeyIds;
+        private final int threads;
+        private final NodeBatchVisitor<FAILURE> visitor;
+        private final AtomicLong nextBatch = new AtomicLong();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private volatile boolean continueScanning;
+
+        ParallelNodeStoreScan( int[] labelIds, int[] propertyKeyIds, int threads,
+                               NodeBatchVisitor<FAILURE> visitor )
+        {
+            this.labelIds = labelIds;
+            this.propertyKeyIds = propertyKeyIds;
+            this.threads = Math.max( 1, threads );
+            this.visitor = visitor;
+        }
+
+        @Override
+        public void run() throws FAILURE
+        {
+            nextBatch.set( nodeStore.getNumberOfReservedLowIds() );
+            continueScanning = true;
+
+            Runnable scanner = new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    scanBatches();
+                }
+            };
+            String name = currentThread().getName();
+            Thread[] helpers = new Thread[threads - 1];
+            for ( int i = 0; i < helpers.length; i++ )
+            {
+                helpers[i] = new Thread( scanner, format( "%s [store scan %d]", name, i + 1 ) );
+                helpers[i].setDaemon( true );
+                helpers[i].start();
+            }
+            scanner.run();
+            for ( Thread helper : helpers )
+            {
+                awaitTermination( helper );
+            }
+
+            Throwable cause = failure.get();
+            if ( cause instanceof RuntimeException )
+            {
+                throw (RuntimeException) cause;
+            }
+            if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            if ( cause != null )
+            {
+                @SuppressWarnings( "unchecked" )
+                FAILURE checked = (FAILURE) cause;
+                throw checked;
+            }
+        }
+
+        private void scanBatches()
+        {
+            try
+            {
+                while ( continueScanning )
+                {
+                    long from = nextBatch.getAndAdd( NODES_PER_BATCH );
+                    long to = Math.min( from + NODES_PER_BATCH, nodeStore.getHighId() );
+                    if ( from >= to )
+                    {
+                        return;
+                    }
+                    List<NodePropertyUpdate> batch = new ArrayList<>();
+                    for ( long id = from; id < to; id++ )
+                    {
+                        try ( Lock ignored = locks.acquireNodeLock( id, LockService.LockType.READ_LOCK ) )
+                        {
+                            NodeRecord node = nodeStore.forceGetRecord( id );
+                            if ( node.inUse() )
+                            {
+                                long[] labels = parseLabelsField( node ).get( nodeStore );
+                                readPropertyUpdates( node, labels, labelIds, propertyKeyIds, batch );
+                            }
+                        }
+                    }
+                    if ( visitor.visit( from, to, batch ) )
+                    {
+                        continueScanning = false;
+                    }
+                }
+            }
+            catch ( Throwable t )
+            {
+                failure.compareAndSet( null, t );
+                continueScanning = false;
+            }
+        }
+
+        private void awaitTermination( Thread helper )
+        {
+            boolean interrupted = false;
+            while ( helper.isAlive() )
+            {
+                try
+                {
+                    helper.join();
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                    continueScanning = false;
+                }
+            }
+            if ( interrupted )
+            {
+                currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void stop()
+        {
+            continueScanning = false;
+        }
+    }
 }
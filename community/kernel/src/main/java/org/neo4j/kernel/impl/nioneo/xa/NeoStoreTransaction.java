@@ -42,6 +42,7 @@ import org.neo4j.kernel.api.labelscan.NodeLabelUpdateNodeIdComparator;
 import org.neo4j.kernel.api.properties.DefinedProperty;
 import org.neo4j.kernel.api.properties.Property;
 import org.neo4j.kernel.impl.api.KernelTransactionImplementation;
+import org.neo4j.kernel.impl.api.index.IndexUpdates;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
 import org.neo4j.kernel.impl.core.DenseNodeChainPosition;
@@ -76,6 +77,8 @@ import org.neo4j.kernel.impl.nioneo.store.RelationshipTypeTokenStore;
 import org.neo4j.kernel.impl.nioneo.store.SchemaRule;
 import org.neo4j.kernel.impl.nioneo.store.SchemaStore;
 import org.neo4j.kernel.impl.nioneo.store.UnderlyingStorageException;
+import org.neo4j.kernel.impl.nioneo.store.counts.CountsDelta;
+import org.neo4j.kernel.impl.nioneo.store.counts.CountsStore;
 import org.neo4j.kernel.impl.nioneo.store.labels.NodeLabels;
 import org.neo4j.kernel.impl.nioneo.xa.Command.NodeCommand;
 import org.neo4j.kernel.impl.nioneo.xa.Command.PropertyCommand;
@@ -138,6 +141,9 @@ public class NeoStoreTransaction extends XaTransaction
     private final IntegrityValidator integrityValidator;
     private final KernelTransactionImplementation kernelTransaction;
     private final LockService locks;
+    private final CountsStore counts;
+    private final ParallelRecoveryApplier recoveryApplier;
+    private final ReceivedTransactionBatch receivedBatch;
 
     private final NeoStoreTransactionContext context;
 
@@ -151,13 +157,19 @@ public class NeoStoreTransaction extends XaTransaction
      *                                              this value to, 0 is a safe choice. That will ensure all
      *                                              constraints are checked.
      * @param kernelTransaction is the vanilla sauce to the WriteTransaction apple pie.
+     * @param counts is kept up to date with the nodes and relationships this transaction creates and deletes.
+     * @param recoveryApplier applies the record changes if this transaction is replayed during startup recovery,
+     *                        or {@code null} if they should be applied by this transaction itself.
+     * @param receivedBatch collects the index and label updates if this transaction is applied as part of a batch
+     *                      of transactions received from another instance, or {@code null}.
      * @param context
      */
     NeoStoreTransaction( long lastCommittedTxWhenTransactionStarted, XaLogicalLog log,
                          NeoStore neoStore, CacheAccessBackDoor cacheAccess,
                          IndexingService indexingService, LabelScanStore labelScanStore,
                          IntegrityValidator integrityValidator, KernelTransactionImplementation kernelTransaction,
-                         LockService locks, NeoStoreTransactionContext context )
+                         LockService locks, CountsStore counts, ParallelRecoveryApplier recoveryApplier,
+                         ReceivedTransactionBatch receivedBatch, NeoStoreTransactionContext context )
     {
         super( log, context.getTransactionState() );
         this.lastCommittedTxWhenTransactionStarted = lastCommittedTxWhenTransactionStarted;
@@ -168,6 +180,9 @@ public class NeoStoreTransaction extends XaTransaction
         this.integrityValidator = integrityValidator;
         this.kernelTransaction = kernelTransaction;
         this.locks = locks;
+        this.counts = counts;
+        this.recoveryApplier = recoveryApplier;
+        this.receivedBatch = receivedBatch;
         this.context = context;
     }
 
@@ -611,10 +626,15 @@ public class NeoStoreTransaction extends XaTransaction
         if ( isRecovered() )
         {
             boolean wasInRecovery = neoStore.isInRecoveryMode();
+            if ( wasInRecovery )
+            {   // Transactions recovered after a crash may already be partly applied to the store, so the counts
+                // can't be worked out from it. They are rebuilt once recovery completes instead.
+                counts.invalidate();
+            }
             neoStore.setRecoveredStatus( true );
             try
             {
-                applyCommit( true );
+                applyCommit( true, wasInRecovery ? recoveryApplier : null, wasInRecovery ? null : receivedBatch );
                 return;
             }
             finally
@@ -628,10 +648,17 @@ public class NeoStoreTransaction extends XaTransaction
                                         " not next transaction (" + neoStore.getLastCommittedTx() + ")" );
         }
 
-        applyCommit( false );
+        applyCommit( false, null, null );
     }
 
-    private void applyCommit( boolean isRecovered )
+    /**
+     * @param recoveryApplier if not {@code null} the record changes and label updates are handed to it instead of
+     * being applied right away, nor are the caches updated. Only for use when replaying the log at startup.
+     * @param receivedBatch if not {@code null} the index and label scan store updates are handed to it instead of
+     * being applied right away. Only for use when applying transactions received from another instance.
+     */
+    private void applyCommit( boolean isRecovered, ParallelRecoveryApplier recoveryApplier,
+                              ReceivedTransactionBatch receivedBatch )
     {
         try ( LockGroup lockGroup = new LockGroup() )
         {
@@ -680,26 +707,58 @@ public class NeoStoreTransaction extends XaTransaction
             // primitives
             java.util.Collections.sort( context.getRelCommands(), sorter );
             java.util.Collections.sort( context.getPropCommands(), sorter );
-            executeCreated( lockGroup, isRecovered, context.getPropCommands(), context.getRelCommands(),
-                    context.getNodeCommands().values(), context.getRelGroupCommands() );
-            executeModified( lockGroup, isRecovered, context.getPropCommands(), context.getRelCommands(),
-                    context.getNodeCommands().values(), context.getRelGroupCommands() );
-            executeDeleted( lockGroup, context.getPropCommands(), context.getRelCommands(),
-                    context.getNodeCommands().values(), context.getRelGroupCommands() );
+            CountsDelta countsDelta = collectCountsDelta( isRecovered, recoveryApplier != null );
+            if ( recoveryApplier != null )
+            {   // Nothing is reading the stores or has anything cached while recovering at startup, so neither
+                // locking nor cache invalidation is needed
+                recoveryApplier.apply( context.getNodeCommands().values(), context.getPropCommands(),
+                        context.getRelCommands(), context.getRelGroupCommands() );
+            }
+            else
+            {
+                executeCreated( lockGroup, isRecovered, context.getPropCommands(), context.getRelCommands(),
+                        context.getNodeCommands().values(), context.getRelGroupCommands() );
+                executeModified( lockGroup, isRecovered, context.getPropCommands(), context.getRelCommands(),
+                        context.getNodeCommands().values(), context.getRelGroupCommands() );
+                executeDeleted( lockGroup, context.getPropCommands(), context.getRelCommands(),
+                        context.getNodeCommands().values(), context.getRelGroupCommands() );
+            }
 
             // property change set for index updates
             Collection<NodeLabelUpdate> labelUpdates = gatherLabelUpdatesSortedByNodeId();
             if ( !labelUpdates.isEmpty() )
             {
-                updateLabelScanStore( labelUpdates );
-                cacheAccess.applyLabelUpdates( labelUpdates );
+                if ( recoveryApplier != null )
+                {
+                    recoveryApplier.labelUpdates( labelUpdates );
+                }
+                else
+                {
+                    if ( receivedBatch != null )
+                    {
+                        receivedBatch.labelUpdates( labelUpdates );
+                    }
+                    else
+                    {
+                        updateLabelScanStore( labelUpdates );
+                    }
+                    cacheAccess.applyLabelUpdates( labelUpdates );
+                }
             }
 
             if ( !context.getNodeCommands().isEmpty() || !context.getPropCommands().isEmpty() )
             {
-                indexes.updateIndexes( new LazyIndexUpdates(
+                IndexUpdates indexUpdates = new LazyIndexUpdates(
                         getNodeStore(), getPropertyStore(),
-                        groupedNodePropertyCommands( context.getPropCommands() ), new HashMap<>( context.getNodeCommands() ) ) );
+                        groupedNodePropertyCommands( context.getPropCommands() ), new HashMap<>( context.getNodeCommands() ) );
+                if ( receivedBatch != null )
+                {
+                    receivedBatch.indexUpdates( indexUpdates );
+                }
+                else
+                {
+                    indexes.updateIndexes( indexUpdates );
+                }
             }
 
             // schema rules. Execute these after generating the property updates so. If executed
@@ -740,13 +799,38 @@ public class NeoStoreTransaction extends XaTransaction
                 context.commitCows(); // updates the cached primitives
             }
             neoStore.setLastCommittedTx( getCommitTxId() );
-            if ( isRecovered )
+            if ( countsDelta != null )
             {
+                counts.apply( countsDelta, getCommitTxId() );
+            }
+            if ( isRecovered && recoveryApplier == null && receivedBatch == null )
+            {   // The recovery applier and the received batch do this once all the records have been written
                 neoStore.updateIdGenerators();
             }
         }
     }
 
+    private CountsDelta collectCountsDelta( boolean isRecovered, boolean appliedInParallel )
+    {
+        if ( counts.isStale() )
+        {
+            return null;
+        }
+        if ( appliedInParallel )
+        {   // The before images cannot be read from the store while other transactions are being applied to it,
+            // the counts will instead be rebuilt when recovery completes
+            counts.invalidate();
+            return null;
+        }
+        CountsDelta delta = new CountsDeltaCollector( neoStore, context.getNodeCommands() )
+                .collect( context.getRelCommands(), isRecovered );
+        if ( delta == null )
+        {
+            counts.invalidate();
+        }
+        return delta;
+    }
+
     private Collection<List<PropertyCommand>> groupedNodePropertyCommands( Iterable<PropertyCommand> propCommands )
     {
         // A bit too expensive data structure, but don't know off the top of my head how to make it better.
@@ -1755,6 +1839,24 @@ public class NeoStoreTransaction extends XaTransaction
         return types;
     }
 
+    /**
+     * Streams the committed relationships of the given dense node, of the given types and direction,
+     * straight from the store. Groups of other types are skipped without reading their chains.
+     */
+    public PrimitiveLongIterator getDenseNodeRelationships( long id, DirectionWrapper direction, int[] types )
+    {
+        RecordChange<Long, NodeRecord, Void> nodeChange = context.getNodeRecords().getIfLoaded( id );
+        if ( nodeChange != null && nodeChange.isCreated() )
+        {
+            return PrimitiveLongCollections.emptyIterator();
+        }
+
+        NodeRecord node = getNodeStore().getRecord( id );
+        assert node.isDense();
+        return new DenseNodeRelationshipIterator( id, node.getNextRel(), direction, types,
+                getRelationshipGroupStore(), getRelationshipStore() );
+    }
+
     public RelationshipLoadingPosition getRelationshipChainPosition( long id )
     {
         RecordChange<Long, NodeRecord, Void> nodeChange = context.getNodeRecords().getIfLoaded( id );
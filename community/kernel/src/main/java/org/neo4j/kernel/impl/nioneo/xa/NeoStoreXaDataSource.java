@@ -85,7 +85,9 @@ import org.neo4j.kernel.impl.nioneo.store.SchemaStorage;
 import org.neo4j.kernel.impl.nioneo.store.Store;
 import org.neo4j.kernel.impl.nioneo.store.StoreFactory;
 import org.neo4j.kernel.impl.nioneo.store.StoreId;
+import org.neo4j.kernel.impl.nioneo.store.UnderlyingStorageException;
 import org.neo4j.kernel.impl.nioneo.store.WindowPoolStats;
+import org.neo4j.kernel.impl.nioneo.store.counts.CountsStore;
 import org.neo4j.kernel.impl.persistence.IdGenerationFailedException;
 import org.neo4j.kernel.impl.persistence.PersistenceManager;
 import org.neo4j.kernel.impl.storemigration.StoreUpgrader;
@@ -93,6 +95,7 @@ import org.neo4j.kernel.impl.transaction.AbstractTransactionManager;
 import org.neo4j.kernel.impl.transaction.TransactionStateFactory;
 import org.neo4j.kernel.impl.transaction.xaframework.LogBackedXaDataSource;
 import org.neo4j.kernel.impl.transaction.xaframework.LogBufferFactory;
+import org.neo4j.kernel.impl.transaction.xaframework.LogEntry;
 import org.neo4j.kernel.impl.transaction.xaframework.TransactionInterceptor;
 import org.neo4j.kernel.impl.transaction.xaframework.XaCommand;
 import org.neo4j.kernel.impl.transaction.xaframework.XaCommandFactory;
@@ -132,6 +135,8 @@ public class NeoStoreXaDataSource extends LogBackedXaDataSource implements NeoSt
         public static final Setting<File> store_dir = InternalAbstractGraphDatabase.Configuration.store_dir;
         public static final Setting<File> neo_store = InternalAbstractGraphDatabase.Configuration.neo_store;
         public static final Setting<File> logical_log = InternalAbstractGraphDatabase.Configuration.logical_log;
+        public static final Setting<Integer> recovery_threads =
+                InternalAbstractGraphDatabase.Configuration.recovery_threads;
     }
     public static final byte BRANCH_ID[] = UTF8.encode( "414141" );
 
@@ -165,6 +170,7 @@ public class NeoStoreXaDataSource extends LogBackedXaDataSource implements NeoSt
     private KernelAPI kernel;
 
     private NeoStore neoStore;
+    private CountsStore countsStore;
     private IndexingService indexingService;
     private SchemaIndexProvider indexProvider;
     private XaContainer xaContainer;
@@ -182,6 +188,9 @@ public class NeoStoreXaDataSource extends LogBackedXaDataSource implements NeoSt
     private SchemaCache schemaCache;
 
     private LabelScanStore labelScanStore;
+    private volatile ParallelRecoveryApplier recoveryApplier;
+    private final Object receivedBatchLock = new Object();
+    private volatile ReceivedTransactionBatch receivedBatch;
     private final IndexingService.Monitor indexingServiceMonitor;
     private final FileSystemAbstraction fs;
     private final StoreUpgrader storeMigrationProcess;
@@ -350,6 +359,7 @@ public class NeoStoreXaDataSource extends LogBackedXaDataSource implements NeoSt
         storeMigrationProcess.migrateIfNeeded( store.getParentFile() );
 
         neoStore = storeFactory.newNeoStore( store );
+        countsStore = CountsStore.load( fs, countsFile() );
 
         neoStoreTransactionContextSupplier = new NeoStoreTransactionContextSupplier( neoStore );
 
@@ -377,7 +387,8 @@ public class NeoStoreXaDataSource extends LogBackedXaDataSource implements NeoSt
                             providerMap,
                             new NeoStoreIndexStoreView( locks, neoStore ),
                             tokenNameLookup, updateableSchemaState,
-                            logging, indexingServiceMonitor ) );
+                            logging, indexingServiceMonitor,
+                            config.get( GraphDatabaseSettings.index_sampling_interval ) ) );
 
             integrityValidator = new IntegrityValidator( neoStore, indexingService );
 
@@ -405,7 +416,8 @@ public class NeoStoreXaDataSource extends LogBackedXaDataSource implements NeoSt
                     indexingService, nodeManager, neoStoreProvider, persistenceCache, schemaCache, providerMap, fs, config, labelScanStore,
                     new CacheLayer(
                         new DiskLayer( propertyKeyTokens, labelTokens, relationshipTypeTokens,
-                            new SchemaStorage( neoStore.getSchemaStore() ), neoStoreProvider, indexingService ),
+                            new SchemaStorage( neoStore.getSchemaStore() ), neoStoreProvider, indexingService,
+                            countsStore ),
                         persistenceCache, indexingService, schemaCache, nodeManager ),
                     scheduler,
                     readOnly ));
@@ -421,19 +433,28 @@ public class NeoStoreXaDataSource extends LogBackedXaDataSource implements NeoSt
                 try
                 {
                     indexingService.initIndexes( loadIndexRules() );
+                    recoveryApplier = newRecoveryApplier();
                     xaContainer.openLogicalLog();
+                    completeParallelRecovery();
                 }
                 finally
                 {
+                    if ( recoveryApplier != null )
+                    {   // Recovery failed before completing
+                        recoveryApplier.shutdown();
+                        recoveryApplier = null;
+                    }
                     neoStore.setRecoveredStatus( false );
                 }
             }
             if ( !xaContainer.getResourceManager().hasRecoveredTransactions() )
             {
                 neoStore.makeStoreOk();
+                rebuildCountsIfNeeded();
             }
             else
             {
+                countsStore.invalidate();
                 msgLog.debug( "Waiting for TM to take care of recovered " +
                         "transactions." );
             }
@@ -472,6 +493,11 @@ public class NeoStoreXaDataSource extends LogBackedXaDataSource implements NeoSt
         return neoStore;
     }
 
+    public CountsStore getCountsStore()
+    {
+        return countsStore;
+    }
+
     public IndexingService getIndexService()
     {
         return indexingService;
@@ -516,6 +542,74 @@ public class NeoStoreXaDataSource extends LogBackedXaDataSource implements NeoSt
         neoStore.flushAll();
         indexingService.flushAll();
         labelScanStore.force();
+        countsStore.write( fs, countsFile() );
+    }
+
+    private File countsFile()
+    {
+        return new File( storeDir, CountsStore.FILE_NAME );
+    }
+
+    /**
+     * Applies the transactions and then does the index and label scan store updates of all of them at once,
+     * see {@link ReceivedTransactionBatch}.
+     */
+    @Override
+    public void applyCommittedTransactions( List<List<LogEntry>> transactions ) throws IOException
+    {
+        synchronized ( receivedBatchLock )
+        {
+            try ( ReceivedTransactionBatch batch = new ReceivedTransactionBatch( neoStore, indexingService,
+                    labelScanStore ) )
+            {
+                receivedBatch = batch;
+                try
+                {
+                    super.applyCommittedTransactions( transactions );
+                }
+                finally
+                {
+                    receivedBatch = null;
+                }
+            }
+        }
+    }
+
+    private ParallelRecoveryApplier newRecoveryApplier()
+    {
+        int threads = config.get( Configuration.recovery_threads );
+        return threads > 0 ? new ParallelRecoveryApplier( neoStore, labelScanStore, msgLog, threads ) : null;
+    }
+
+    /**
+     * Waits for transactions replayed from the log to have been written to the store, if they are applied in
+     * parallel. Anything reading from the store after recovery must call this first.
+     */
+    private void completeParallelRecovery() throws IOException
+    {
+        ParallelRecoveryApplier applier = recoveryApplier;
+        if ( applier != null )
+        {
+            recoveryApplier = null;
+            try
+            {
+                applier.awaitCompletion();
+            }
+            finally
+            {
+                applier.shutdown();
+            }
+        }
+    }
+
+    private void rebuildCountsIfNeeded()
+    {
+        if ( countsStore.isStale() || countsStore.lastTxId() != neoStore.getLastCommittedTx() )
+        {
+            msgLog.info( "Counts are missing or out of date, rebuilding them from the store..." );
+            countsStore.rebuildIfNeeded( neoStore );
+            msgLog.info( "Rebuild of counts complete." );
+        }
     }
 
     @Override
@@ -565,18 +659,28 @@ public class NeoStoreXaDataSource extends LogBackedXaDataSource implements NeoSt
             context.bind( state );
             return new NeoStoreTransaction( lastCommittedTxWhenTransactionStarted, getLogicalLog(),
                 neoStore, cacheAccess, indexingService, labelScanStore, integrityValidator,
-                (KernelTransactionImplementation)kernel.newTransaction(), locks, context );
+                (KernelTransactionImplementation)kernel.newTransaction(), locks, countsStore, recoveryApplier,
+                receivedBatch, context );
         }
 
         @Override
         public void recoveryComplete()
         {
+            try
+            {
+                completeParallelRecovery();
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( e );
+            }
             msgLog.debug( "Recovery complete, "
                     + "all transactions have been resolved" );
             msgLog.debug( "Rebuilding id generators as needed. "
                     + "This can take a while for large stores..." );
             forceEverything();
             neoStore.makeStoreOk();
+            rebuildCountsIfNeeded();
             neoStore.setVersion( xaContainer.getLogicalLog().getHighestLogVersion() );
             msgLog.debug( "Rebuild of id generators complete." );
         }
@@ -622,7 +726,7 @@ public class NeoStoreXaDataSource extends LogBackedXaDataSource implements NeoSt
             context.bind( state );
             return new InterceptingWriteTransaction( lastCommittedTxWhenTransactionStarted, getLogicalLog(),
                     neoStore, cacheAccess, indexingService, labelScanStore, first, integrityValidator,
-                    (KernelTransactionImplementation)kernel.newTransaction(), locks, context );
+                    (KernelTransactionImplementation)kernel.newTransaction(), locks, countsStore, context );
         }
     }
 
@@ -0,0 +1,315 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.xa;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.neo4j.kernel.api.labelscan.LabelScanStore;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdateNodeIdComparator;
+import org.neo4j.kernel.impl.nioneo.store.NeoStore;
+import org.neo4j.kernel.impl.nioneo.store.UnderlyingStorageException;
+import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.unsafe.batchinsert.LabelScanWriter;
+
+/**
+ * Applies the record changes of transactions replayed from the logical log at startup using multiple
+ * threads, instead of applying each transaction in full before moving on to the next.
+ * <p>
+ * Commands are handed to lanes, each lane being a thread applying its commands in the order they were
+ * handed to it. Node, property and relationship group commands each get a lane of their own, since node and
+ * property records own dynamic records which may move between records from one transaction to the next.
+ * Relationship records own nothing else, so relationship commands are spread over a number of lanes by
+ * record id range. Since a given record always ends up in the same lane it is always written in log order,
+ * and as each command carries the full after-image of its record, the stores end up as if all transactions
+ * had been applied one at a time.
+ * <p>
+ * Label scan store updates are collected and written in batches, sorted by node id. Index updates are already
+ * deferred until recovery has completed by the {@link org.neo4j.kernel.impl.api.index.IndexingService}.
+ * <p>
+ * Nothing may read from the stores until {@link #awaitCompletion()} has returned.
+ */
+class ParallelRecoveryApplier
+{
+    private static final int RELATIONSHIP_ID_RANGE = 1 << 12;
+    private static final int LANE_QUEUE_SIZE = 256;
+    private static final int LABEL_UPDATE_BATCH_SIZE = 10_000;
+    private static final int PROGRESS_INTERVAL = 100_000;
+
+    private final NeoStore neoStore;
+    private final LabelScanStore labelScanStore;
+    private final StringLogger logger;
+    private final Lane nodes;
+    private final Lane properties;
+    private final Lane relationshipGroups;
+    private final Lane[] relationships;
+    private final List<NodeLabelUpdate> labelUpdates = new ArrayList<>();
+    private final long startTime = System.currentTimeMillis();
+    private volatile Throwable failure;
+    private long transactions;
+    private long commands;
+
+    ParallelRecoveryApplier( NeoStore neoStore, LabelScanStore labelScanStore, StringLogger logger, int threads )
+    {
+        this.neoStore = neoStore;
+        this.labelScanStore = labelScanStore;
+        this.logger = logger;
+        this.nodes = new Lane( "nodes" );
+        this.properties = new Lane( "properties" );
+        this.relationshipGroups = new Lane( "relationship groups" );
+        this.relationships = new Lane[Math.max( 1, threads - 3 )];
+        for ( int i = 0; i < relationships.length; i++ )
+        {
+            relationships[i] = new Lane( "relationships " + i );
+        }
+        for ( Lane lane : lanes() )
+        {
+            lane.start();
+        }
+    }
+
+    /**
+     * Hands over the record changes of one recovered transaction. Returns as soon as the commands are
+     * queued, unless the lanes are full, in which case it waits for room.
+     */
+    void apply( Collection<Command.NodeCommand> nodeCommands, Collection<Command.PropertyCommand> propertyCommands,
+            Collection<Command.RelationshipCommand> relationshipCommands,
+            Collection<Command.RelationshipGroupCommand> relationshipGroupCommands )
+    {
+        checkFailure();
+        nodes.submit( nodeCommands );
+        properties.submit( propertyCommands );
+        relationshipGroups.submit( relationshipGroupCommands );
+        if ( relationships.length == 1 )
+        {
+            relationships[0].submit( relationshipCommands );
+        }
+        else if ( !relationshipCommands.isEmpty() )
+        {
+            List<List<Command>> perLane = new ArrayList<>( relationships.length );
+            for ( int i = 0; i < relationships.length; i++ )
+            {
+                perLane.add( new ArrayList<Command>() );
+            }
+            for ( Command command : relationshipCommands )
+            {
+                perLane.get( (int) ((command.getKey() / RELATIONSHIP_ID_RANGE) % relationships.length) ).add( command );
+            }
+            for ( int i = 0; i < relationships.length; i++ )
+            {
+                relationships[i].submit( perLane.get( i ) );
+            }
+        }
+
+        commands += nodeCommands.size() + propertyCommands.size() + relationshipCommands.size() +
+                relationshipGroupCommands.size();
+        if ( ++transactions % PROGRESS_INTERVAL == 0 )
+        {
+            logger.logMessage( "Recovery has replayed " + transactions + " transactions, " + commands +
+                    " record changes, in " + (System.currentTimeMillis() - startTime) + "ms", true );
+        }
+    }
+
+    void labelUpdates( Collection<NodeLabelUpdate> updates )
+    {
+        labelUpdates.addAll( updates );
+        if ( labelUpdates.size() >= LABEL_UPDATE_BATCH_SIZE )
+        {
+            flushLabelUpdates();
+        }
+    }
+
+    /**
+     * Waits for all handed over record changes to be written and writes the remaining label updates.
+     * Rethrows the first failure any lane ran into, if any.
+     */
+    void awaitCompletion() throws IOException
+    {
+        List<Lane> lanes = lanes();
+        CountDownLatch done = new CountDownLatch( lanes.size() );
+        for ( Lane lane : lanes )
+        {
+            lane.barrier( done );
+        }
+        try
+        {
+            done.await();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while waiting for recovery to complete", e );
+        }
+        if ( failure != null )
+        {
+            throw new IOException( "Failed to apply recovered transactions", failure );
+        }
+        flushLabelUpdates();
+        neoStore.updateIdGenerators();
+        if ( transactions > 0 )
+        {
+            logger.logMessage( "Recovery replayed " + transactions + " transactions, " + commands +
+                    " record changes, using " + lanes.size() + " threads in " +
+                    (System.currentTimeMillis() - startTime) + "ms", true );
+        }
+    }
+
+    void shutdown()
+    {
+        for ( Lane lane : lanes() )
+        {
+            lane.interrupt();
+        }
+    }
+
+    private List<Lane> lanes()
+    {
+        List<Lane> lanes = new ArrayList<>( 3 + relationships.length );
+        lanes.add( nodes );
+        lanes.add( properties );
+        lanes.add( relationshipGroups );
+        Collections.addAll( lanes, relationships );
+        return lanes;
+    }
+
+    private void flushLabelUpdates()
+    {
+        if ( labelUpdates.isEmpty() )
+        {
+            return;
+        }
+        // A stable sort, so that updates to the same node are still written in log order
+        Collections.sort( labelUpdates, new NodeLabelUpdateNodeIdComparator() );
+        try ( LabelScanWriter writer = labelScanStore.newWriter() )
+        {
+            for ( NodeLabelUpdate update : labelUpdates )
+            {
+                writer.write( update );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+        labelUpdates.clear();
+    }
+
+    private void checkFailure()
+    {
+        if ( failure != null )
+        {
+            throw new UnderlyingStorageException( "Failed to apply recovered transactions", failure );
+        }
+    }
+
+    private class Lane extends Thread
+    {
+        private final BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>( LANE_QUEUE_SIZE );
+
+        Lane( String name )
+        {
+            super( "Recovery of " + name );
+            setDaemon( true );
+        }
+
+        void submit( Collection<? extends Command> transactionCommands )
+        {
+            if ( !transactionCommands.isEmpty() )
+            {
+                // The command collections of a transaction are reused once it has been committed, so copy them
+                final List<Command> commands = new ArrayList<Command>( transactionCommands );
+                put( new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        if ( failure != null )
+                        {   // No point in applying anything else, recovery will fail anyway
+                            return;
+                        }
+                        for ( Command command : commands )
+                        {
+                            command.execute();
+                        }
+                    }
+                } );
+            }
+        }
+
+        void barrier( final CountDownLatch latch )
+        {
+            put( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    latch.countDown();
+                }
+            } );
+        }
+
+        private void put( Runnable task )
+        {
+            try
+            {
+                queue.put( task );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new UnderlyingStorageException( "Interrupted while handing over recovered commands", e );
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while ( true )
+                {
+                    Runnable task = queue.take();
+                    try
+                    {
+                        task.run();
+                    }
+                    catch ( Throwable e )
+                    {
+                        if ( failure == null )
+                        {
+                            failure = e;
+                        }
+                    }
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                // shut down
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.xa;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.neo4j.helpers.collection.Iterables;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.api.labelscan.LabelScanStore;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdateNodeIdComparator;
+import org.neo4j.kernel.impl.api.index.IndexUpdates;
+import org.neo4j.kernel.impl.api.index.IndexingService;
+import org.neo4j.kernel.impl.nioneo.store.NeoStore;
+import org.neo4j.kernel.impl.nioneo.store.UnderlyingStorageException;
+import org.neo4j.unsafe.batchinsert.LabelScanWriter;
+
+/**
+ * Collects the work that transactions received from another instance would otherwise do one transaction at a
+ * time, so that it can be done once for a whole batch of them when the batch is {@link #close() closed}:
+ * <ul>
+ * <li>Index updates are gathered as each transaction is committed, since they depend on what the store looks
+ * like at that point, but all of them go to the indexes through one set of updaters, refreshing each index
+ * once instead of once per transaction.</li>
+ * <li>Label scan store updates are written by one writer, sorted by node id.</li>
+ * <li>The id generators are brought up to date with the stores once.</li>
+ * </ul>
+ * Index and label scan store lookups will not see the changes of a batch until it has been closed.
+ */
+class ReceivedTransactionBatch implements AutoCloseable
+{
+    private final NeoStore neoStore;
+    private final IndexingService indexingService;
+    private final LabelScanStore labelScanStore;
+    private final List<NodePropertyUpdate> indexUpdates = new ArrayList<>();
+    private final Set<Long> changedNodeIds = new HashSet<>();
+    private final List<NodeLabelUpdate> labelUpdates = new ArrayList<>();
+
+    ReceivedTransactionBatch( NeoStore neoStore, IndexingService indexingService, LabelScanStore labelScanStore )
+    {
+        this.neoStore = neoStore;
+        this.indexingService = indexingService;
+        this.labelScanStore = labelScanStore;
+    }
+
+    void indexUpdates( IndexUpdates updates )
+    {
+        Iterables.addAll( indexUpdates, updates );
+        changedNodeIds.addAll( updates.changedNodeIds() );
+    }
+
+    void labelUpdates( Collection<NodeLabelUpdate> updates )
+    {
+        labelUpdates.addAll( updates );
+    }
+
+    @Override
+    public void close()
+    {
+        neoStore.updateIdGenerators();
+        if ( !labelUpdates.isEmpty() )
+        {
+            // A stable sort, so that updates to the same node are still written in the order they were committed
+            Collections.sort( labelUpdates, new NodeLabelUpdateNodeIdComparator() );
+            try ( LabelScanWriter writer = labelScanStore.newWriter() )
+            {
+                for ( NodeLabelUpdate update : labelUpdates )
+                {
+                    writer.write( update );
+                }
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( e );
+            }
+        }
+        if ( !indexUpdates.isEmpty() || !changedNodeIds.isEmpty() )
+        {
+            indexingService.updateIndexes( new IndexUpdates()
+            {
+                @Override
+                public Set<Long> changedNodeIds()
+                {
+                    return changedNodeIds;
+                }
+
+                @Override
+                public Iterator<NodePropertyUpdate> iterator()
+                {
+                    return indexUpdates.iterator();
+                }
+            } );
+        }
+    }
+}
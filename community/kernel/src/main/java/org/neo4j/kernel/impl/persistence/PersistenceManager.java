@@ -230,6 +230,11 @@ public class PersistenceManager
         return getResource().forReading().getRelationshipTypes( id );
     }
 
+    public PrimitiveLongIterator getDenseNodeRelationships( long nodeId, DirectionWrapper direction, int[] types )
+    {
+        return getResource().forReading().getDenseNodeRelationships( nodeId, direction, types );
+    }
+
     public KernelTransaction currentKernelTransactionForReading()
     {
         return getResource().forReading().kernelTransaction();
@@ -27,6 +27,7 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.kernel.DefaultFileSystemAbstraction;
+import org.neo4j.kernel.InternalAbstractGraphDatabase.Configuration;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.nioneo.store.FileSystemAbstraction;
 import org.neo4j.kernel.impl.nioneo.store.StoreChannel;
@@ -111,6 +112,12 @@ public class StoreRecoverer
         // used
         // as a component of the database, rather than something that is bolted
         // on outside it like this.
+        // Nothing else is using the store, so make use of all the processors for replaying the log.
+        if ( !params.containsKey( Configuration.recovery_threads.name() ) )
+        {
+            params.put( Configuration.recovery_threads.name(),
+                    String.valueOf( Runtime.getRuntime().availableProcessors() ) );
+        }
 
         GraphDatabaseService db =
                 new GraphDatabaseFactory().newEmbeddedDatabaseBuilder( dataDir.getCanonicalPath() )
@@ -40,6 +40,12 @@ import org.neo4j.kernel.impl.storemigration.legacystore.LegacyNodeStoreReader;
 
 import static org.neo4j.helpers.collection.IteratorUtil.first;
 
+/**
+ * Writes completed relationship chains to the new stores. Several writers can take chains from the same queue,
+ * since every chain belongs to a different node. A relationship record is shared by the chains of both of its
+ * nodes though, so each half of it is written while holding the lock for that record in {@code recordLocks}.
+ * A chain with an {@link RelChainBuilder#nodeId() id} of -1 tells a writer that there are no more chains.
+ */
 public class RelationshipWriter extends Thread
 {
     private final ArrayBlockingQueue<RelChainBuilder> chainsToWrite;
@@ -49,11 +55,13 @@ public class RelationshipWriter extends Thread
     private final RelationshipGroupStore relGroupStore;
     private final LegacyNodeStoreReader nodeReader;
     private final AtomicReference<Throwable> caughtException;
+    private final Object[] recordLocks;
 
     public RelationshipWriter( ArrayBlockingQueue<RelChainBuilder> chainsToWrite, int denseNodeThreshold, NodeStore
             nodeStore, RelationshipStore relationshipStore, RelationshipGroupStore relGroupStore,
-            LegacyNodeStoreReader nodeReader, AtomicReference<Throwable> caughtException )
+            LegacyNodeStoreReader nodeReader, AtomicReference<Throwable> caughtException, Object[] recordLocks )
     {
+        super( "Store migration relationship writer" );
         this.chainsToWrite = chainsToWrite;
         this.denseNodeThreshold = denseNodeThreshold;
         this.nodeStore = nodeStore;
@@ -61,6 +69,20 @@ public class RelationshipWriter extends Thread
         this.relGroupStore = relGroupStore;
         this.nodeReader = nodeReader;
         this.caughtException = caughtException;
+        this.recordLocks = recordLocks;
+    }
+
+    /**
+     * @return locks to share between all writers writing to the same relationship store.
+     */
+    public static Object[] newRecordLocks( int count )
+    {
+        Object[] locks = new Object[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            locks[i] = new Object();
+        }
+        return locks;
     }
 
     @Override
@@ -88,9 +110,9 @@ public class RelationshipWriter extends Thread
                 }
             }
         }
-        catch ( InterruptedException | IOException e )
+        catch ( InterruptedException | IOException | RuntimeException e )
         {
-            caughtException.set( e );
+            caughtException.compareAndSet( null, e );
         }
     }
 
@@ -113,8 +135,7 @@ public class RelationshipWriter extends Thread
                 {
                     setDegree( relationships.nodeId(), record, relationships.size() );
                 }
-                applyChangesToRecord( relationships.nodeId(), record, relationshipStore );
-                relationshipStore.forceUpdateRecord( record );
+                writeRelationship( relationships.nodeId(), record, relationshipStore );
                 i++;
                 return false;
             }
@@ -221,6 +242,14 @@ public class RelationshipWriter extends Thread
                     record.setSecondNextRel( Record.NO_NEXT_RELATIONSHIP.intValue() );
                 }
             }
+            writeRelationship( nodeId, record, relationshipStore );
+        }
+    }
+
+    private void writeRelationship( long nodeId, RelationshipRecord record, RelationshipStore relationshipStore )
+    {
+        synchronized ( recordLocks[(int) (record.getId() % recordLocks.length)] )
+        {
             applyChangesToRecord( nodeId, record, relationshipStore );
             relationshipStore.forceUpdateRecord( record );
         }
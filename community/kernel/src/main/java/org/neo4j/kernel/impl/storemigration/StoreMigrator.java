@@ -63,6 +63,9 @@ public class StoreMigrator extends StoreMigrationParticipant.Adapter
     // the upgrade process. Please utilize that when writing upgrade code to ensure the code is fast enough to
     // complete upgrades in a reasonable time period.
 
+    // Relationship records are written by several threads, each half of a record while holding one of these
+    private static final int RECORD_LOCK_STRIPES = 1024;
+
     private final MigrationProgressMonitor progressMonitor;
     private final UpgradableDatabase upgradableDatabase;
     private final IdGeneratorFactory idGeneratorFactory;
@@ -151,6 +154,7 @@ public class StoreMigrator extends StoreMigrationParticipant.Adapter
         private final LegacyStore legacyStore;
         private final IndividualNeoStores stores;
         private final long totalEntities;
+        private final int writerCount;
         private int percentComplete;
 
         public Migration( LegacyStore legacyStore, IndividualNeoStores stores )
@@ -158,6 +162,8 @@ public class StoreMigrator extends StoreMigrationParticipant.Adapter
             this.legacyStore = legacyStore;
             this.stores = stores;
             totalEntities = legacyStore.getRelStoreReader().getMaxId();
+            // One thread reads the legacy relationship store, the rest write the chains it completes
+            writerCount = Math.max( 1, Runtime.getRuntime().availableProcessors() - 1 );
         }
 
         private void migrateNodesAndRelationships() throws IOException
@@ -170,13 +176,20 @@ public class StoreMigrator extends StoreMigrationParticipant.Adapter
             nodeStore.setHighId( nodeReader.getMaxId() );
             relationshipStore.setHighId( relReader.getMaxId() );
 
-            final ArrayBlockingQueue<RelChainBuilder> chainsToWrite = new ArrayBlockingQueue<>( 1024 );
+            final ArrayBlockingQueue<RelChainBuilder> chainsToWrite = new ArrayBlockingQueue<>( 1024 * writerCount );
             final AtomicReference<Throwable> writerException = new AtomicReference<>();
+            final AtomicLong relationshipCount = new AtomicLong();
+            long startTime = System.currentTimeMillis();
 
-            Thread writerThread = new RelationshipWriter( chainsToWrite,
-                    relationshipGroupStore.getDenseNodeThreshold(), nodeStore,
-                    relationshipStore, relationshipGroupStore, nodeReader, writerException );
-            writerThread.start();
+            Object[] recordLocks = RelationshipWriter.newRecordLocks( RECORD_LOCK_STRIPES );
+            Thread[] writerThreads = new Thread[writerCount];
+            for ( int i = 0; i < writerThreads.length; i++ )
+            {
+                writerThreads[i] = new RelationshipWriter( chainsToWrite,
+                        relationshipGroupStore.getDenseNodeThreshold(), nodeStore,
+                        relationshipStore, relationshipGroupStore, nodeReader, writerException, recordLocks );
+                writerThreads[i].start();
+            }
 
             try
             {
@@ -215,6 +228,10 @@ public class StoreMigrator extends StoreMigrationParticipant.Adapter
                             reportProgress( rel.id() );
                             if ( rel.inUse() )
                             {
+                                if ( !isMultiPass )
+                                {
+                                    relationshipCount.incrementAndGet();
+                                }
                                 if(appendToRelChain( rel.getFirstNode(), rel.getFirstPrevRel(),
                                         rel.getFirstNextRel(), rel ))
                                 {
@@ -280,16 +297,26 @@ public class StoreMigrator extends StoreMigrationParticipant.Adapter
 
                 try
                 {
-                    chainsToWrite.put( new RelChainBuilder( -1 ) );
-                    writerThread.join();
+                    for ( Thread ignored : writerThreads )
+                    {
+                        chainsToWrite.put( new RelChainBuilder( -1 ) );
+                    }
+                    for ( Thread writerThread : writerThreads )
+                    {
+                        writerThread.join();
+                    }
                     assertNoWriterException( writerException );
                 }
                 catch ( InterruptedException e )
                 {
                     throw new RuntimeException( "Interrupted.", e);
                 }
+                progressMonitor.migrated( "relationships", relationshipCount.get(),
+                        System.currentTimeMillis() - startTime );
 
                 // Migrate nodes with no relationships
+                startTime = System.currentTimeMillis();
+                final AtomicLong nodeCount = new AtomicLong();
                 nodeReader.accept(new LegacyNodeStoreReader.Visitor()
                 {
                     @Override
@@ -298,12 +325,19 @@ public class StoreMigrator extends StoreMigrationParticipant.Adapter
                         if(record.inUse() && record.getNextRel() == Record.NO_NEXT_RELATIONSHIP.intValue())
                         {
                             nodeStore.forceUpdateRecord( record );
+                            nodeCount.incrementAndGet();
                         }
                     }
                 });
+                progressMonitor.migrated( "nodes without relationships", nodeCount.get(),
+                        System.currentTimeMillis() - startTime );
             }
             finally
             {
+                for ( Thread writerThread : writerThreads )
+                {   // Only still running if reading failed
+                    writerThread.interrupt();
+                }
                 nodeReader.close();
                 relReader.close();
             }
@@ -120,13 +120,15 @@ public class LegacyNodeStoreReader implements Closeable
         fileChannel.close();
     }
 
+    /**
+     * Reads a single record. Can be called by multiple threads at the same time.
+     */
     public NodeRecord readNodeStore( long id ) throws IOException
     {
         ByteBuffer buffer = allocateDirect( RECORD_SIZE );
         NodeRecord nodeRecord;
 
-        fileChannel.position( id * RECORD_SIZE );
-        fileChannel.read( buffer );
+        fileChannel.read( buffer, id * RECORD_SIZE );
         buffer.flip();
 
         long inUseByte = buffer.get();
@@ -23,5 +23,14 @@ public interface MigrationProgressMonitor
 {
     void started();
     void percentComplete(int percent);
+
+    /**
+     * Called when a phase of the migration has completed, to report its throughput.
+     *
+     * @param what the kind of records migrated in this phase.
+     * @param count number of records migrated.
+     * @param millis time the phase took.
+     */
+    void migrated( String what, long count, long millis );
     void finished();
 }
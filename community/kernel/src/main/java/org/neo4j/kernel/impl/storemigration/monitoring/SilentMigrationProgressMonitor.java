@@ -29,6 +29,10 @@ public class SilentMigrationProgressMonitor implements MigrationProgressMonitor
     {
     }
 
+    public void migrated( String what, long count, long millis )
+    {
+    }
+
     public void finished()
     {
     }
@@ -55,6 +55,16 @@ public class VisibleMigrationProgressMonitor implements MigrationProgressMonitor
         }
     }
 
+    @Override
+    public void migrated( String what, long count, long millis )
+    {
+        String message = format( "Migrated %d %s in %d ms (%d per second)", count, what, millis,
+                millis == 0 ? count : count * 1000 / millis );
+        out.println();
+        out.println( message );
+        logger.logMessage( message, true );
+    }
+
     @Override
     public void finished()
     {
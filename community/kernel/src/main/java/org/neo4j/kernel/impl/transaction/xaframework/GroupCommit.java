@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.xaframework;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets concurrent committers share forces of the logical log. Committers write their commit entries
+ * without forcing, register them with {@link #appended(long)} and then wait in {@link #awaitForced(long, Force)}.
+ * The first waiter becomes the leader: it waits for up to the max batch delay, or until the max batch size
+ * is reached, for more commits to be appended and then forces the log once for all of them. Commits appended
+ * while a force is in progress are covered by the next leader.
+ */
+public class GroupCommit
+{
+    public interface Force
+    {
+        /**
+         * Forces everything written to the log so far.
+         */
+        void force() throws IOException;
+    }
+
+    public interface Monitor
+    {
+        void forced( int batchSize );
+    }
+
+    private final long maxDelayNanos;
+    private final int maxBatchSize;
+    private final Monitor monitor;
+
+    private long lastAppendedTx = -1;
+    private long lastForcedTx = -1;
+    private int pendingCommits;
+    private boolean forcing;
+
+    private long forceCount;
+    private long forcedCommitCount;
+
+    public GroupCommit( long maxDelay, TimeUnit unit, int maxBatchSize, Monitor monitor )
+    {
+        this.maxDelayNanos = unit.toNanos( maxDelay );
+        this.maxBatchSize = maxBatchSize;
+        this.monitor = monitor;
+    }
+
+    /**
+     * Registers the commit entry of {@code txId} as written out to the log, but not yet forced.
+     */
+    public synchronized void appended( long txId )
+    {
+        lastAppendedTx = Math.max( lastAppendedTx, txId );
+        pendingCommits++;
+        if ( pendingCommits >= maxBatchSize )
+        {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Registers that everything appended so far has been forced, by someone other than a leader.
+     */
+    public synchronized void forcedAll()
+    {
+        lastForcedTx = lastAppendedTx;
+        pendingCommits = 0;
+        notifyAll();
+    }
+
+    /**
+     * Waits until the commit entry of {@code txId} has been forced, forcing it using {@code force}
+     * if no one else is about to.
+     */
+    public void awaitForced( long txId, Force force ) throws IOException
+    {
+        long forcingUpTo;
+        int batchSize;
+        synchronized ( this )
+        {
+            while ( true )
+            {
+                if ( lastForcedTx >= txId )
+                {
+                    return;
+                }
+                if ( !forcing )
+                {
+                    forcing = true;
+                    break;
+                }
+                waitUninterruptibly( 0 );
+            }
+
+            long deadline = System.nanoTime() + maxDelayNanos;
+            long remaining = maxDelayNanos;
+            while ( pendingCommits < maxBatchSize && remaining > 0 )
+            {
+                waitUninterruptibly( remaining );
+                remaining = deadline - System.nanoTime();
+            }
+            forcingUpTo = lastAppendedTx;
+            batchSize = pendingCommits;
+            pendingCommits = 0;
+        }
+
+        boolean success = false;
+        try
+        {
+            force.force();
+            success = true;
+        }
+        finally
+        {
+            synchronized ( this )
+            {
+                forcing = false;
+                if ( success )
+                {
+                    lastForcedTx = Math.max( lastForcedTx, forcingUpTo );
+                    forceCount++;
+                    forcedCommitCount += batchSize;
+                }
+                else
+                {   // Leave them for the next leader
+                    pendingCommits += batchSize;
+                }
+                notifyAll();
+            }
+        }
+        if ( success )
+        {
+            monitor.forced( batchSize );
+        }
+    }
+
+    private void waitUninterruptibly( long nanos )
+    {
+        try
+        {
+            if ( nanos == 0 )
+            {
+                wait();
+            }
+            else
+            {
+                TimeUnit.NANOSECONDS.timedWait( this, nanos );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.interrupted();
+        }
+    }
+
+    public synchronized long getForceCount()
+    {
+        return forceCount;
+    }
+
+    /**
+     * @return the average number of commits covered by each force.
+     */
+    public synchronized double getAverageBatchSize()
+    {
+        return forceCount == 0 ? 0 : (double) forcedCommitCount / forceCount;
+    }
+}
@@ -28,6 +28,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -42,6 +43,7 @@ import org.neo4j.kernel.impl.nioneo.store.StoreChannel;
 import org.neo4j.kernel.impl.nioneo.xa.Command;
 import org.neo4j.kernel.impl.transaction.xaframework.LogEntry.Start;
 import org.neo4j.kernel.impl.util.BufferedFileChannel;
+import org.neo4j.kernel.impl.util.MappedFileChannel;
 import org.neo4j.kernel.monitoring.ByteCounterMonitor;
 
 public class LogExtractor
@@ -67,6 +69,9 @@ public class LogExtractor
     private final LogPositionCache cache;
     private final LogLoader logLoader;
     private final XaCommandFactory commandFactory;
+    private long nextTxId = -1;
+    private TxPosition nextTxPosition;
+    private byte[] copyBuffer;
 
     public static class LogPositionCache
     {
@@ -107,6 +112,16 @@ public class LogExtractor
         }
 
         public synchronized TxPosition cacheStartPosition( long txId, LogEntry.Start startEntry, long logVersion )
+        {
+            return cacheStartPosition( txId, startEntry, logVersion, -1 );
+        }
+
+        /**
+         * @param endPosition the position right after the commit entry of the transaction, if all its entries
+         * were written one after another from its start entry, otherwise -1.
+         */
+        public synchronized TxPosition cacheStartPosition( long txId, LogEntry.Start startEntry, long logVersion,
+                long endPosition )
         {
             if ( startEntry.getStartPosition() == -1 )
             {
@@ -114,7 +129,7 @@ public class LogExtractor
             }
 
             TxPosition result = new TxPosition( logVersion, startEntry.getMasterId(), startEntry.getIdentifier(),
-                    startEntry.getStartPosition(), startEntry.getChecksum() );
+                    startEntry.getStartPosition(), startEntry.getChecksum(), endPosition );
             putStartPosition( txId, result );
             return result;
         }
@@ -258,10 +273,26 @@ public class LogExtractor
     private long collectNextFromCurrentSource( LogBuffer target ) throws IOException
     {
         LogEntry entry = null;
-        while ( collector.hasInFutureQueue() || // if something in queue then don't read next entry
-                (entry = LogIoUtils.readEntry( localBuffer, source, commandFactory )) != null )
+        while ( true )
         {
-            LogEntry foundEntry = collector.collect( entry, target );
+            LogEntry foundEntry;
+            if ( collector.hasInFutureQueue() )
+            {   // if something in queue then don't read next entry
+                foundEntry = collector.collect( entry, target );
+            }
+            else if ( atStartOfContiguousTransaction() )
+            {
+                foundEntry = copyContiguousTransaction( target );
+            }
+            else if ( (entry = LogIoUtils.readEntry( localBuffer, source, commandFactory )) != null )
+            {
+                foundEntry = collector.collect( entry, target );
+            }
+            else
+            {
+                return -1;
+            }
+
             if ( foundEntry != null )
             {   // It just wrote the transaction, w/o the done record though. Add it
                 previousCommitEntry = lastCommitEntry;
@@ -270,7 +301,72 @@ public class LogExtractor
                 return lastCommitEntry.getTxId();
             }
         }
-        return -1;
+    }
+
+    /**
+     * @return whether or not the next transaction to extract starts right where the source is positioned, and
+     * has all its entries next to each other from there, as noted by the log when it committed it.
+     */
+    private boolean atStartOfContiguousTransaction() throws IOException
+    {
+        if ( !(source instanceof StoreChannel) )
+        {
+            return false;
+        }
+        long txId = collector.getNextExpectedTxId();
+        if ( txId != nextTxId )
+        {   // Only look it up once, not for every entry read
+            nextTxId = txId;
+            nextTxPosition = cache.positionOf( txId );
+        }
+        return nextTxPosition != null && nextTxPosition.isContiguous() && nextTxPosition.version == version &&
+               nextTxPosition.position == ((StoreChannel) source).position();
+    }
+
+    /**
+     * Copies the bytes of the commands of the next transaction as they are, instead of reading and writing each
+     * command. Only the start and commit entries are read, to keep track of what has been extracted.
+     */
+    private LogEntry copyContiguousTransaction( LogBuffer target ) throws IOException
+    {
+        TxPosition position = nextTxPosition;
+        LogEntry entry = LogIoUtils.readEntry( localBuffer, source, commandFactory );
+        if ( !(entry instanceof LogEntry.Start) || entry.getIdentifier() != position.identifier )
+        {
+            throw new IllegalStateException( "Expected start entry of tx " + nextTxId + " at " + position +
+                    ", but found " + entry );
+        }
+        LogEntry.Start startEntry = (LogEntry.Start) entry;
+        LogIoUtils.writeLogEntry( startEntry, target );
+
+        long commandsEnd = position.endPosition - LogIoUtils.COMMIT_ENTRY_SIZE;
+        StoreChannel channel = (StoreChannel) source;
+        if ( copyBuffer == null )
+        {
+            copyBuffer = new byte[8 * 1024];
+        }
+        for ( long remaining = commandsEnd - channel.position(); remaining > 0; )
+        {
+            int chunk = (int) Math.min( remaining, copyBuffer.length );
+            if ( channel.read( ByteBuffer.wrap( copyBuffer, 0, chunk ) ) != chunk )
+            {
+                throw new IllegalStateException( "Log ended before the end of tx " + nextTxId + " at " +
+                        position );
+            }
+            target.put( chunk == copyBuffer.length ? copyBuffer : Arrays.copyOf( copyBuffer, chunk ) );
+            remaining -= chunk;
+        }
+
+        entry = LogIoUtils.readEntry( localBuffer, source, commandFactory );
+        if ( !(entry instanceof LogEntry.Commit) || entry.getIdentifier() != position.identifier ||
+             ((LogEntry.Commit) entry).getTxId() != nextTxId )
+        {
+            throw new IllegalStateException( "Expected commit entry of tx " + nextTxId + " at " + position +
+                    ", but found " + entry );
+        }
+        LogIoUtils.writeLogEntry( entry, target );
+        collector.collected( startEntry, (LogEntry.Commit) entry );
+        return entry;
     }
 
     public void close()
@@ -364,6 +460,13 @@ public class LogExtractor
         boolean hasInFutureQueue();
 
         int getIdentifier();
+
+        long getNextExpectedTxId();
+
+        /**
+         * Notes that a transaction was extracted without having its entries go through {@link #collect}.
+         */
+        void collected( LogEntry.Start startEntry, LogEntry.Commit commitEntry );
     }
 
     private static class KnownTxIdCollector implements LogEntryCollector
@@ -393,6 +496,20 @@ public class LogExtractor
             return futureQueue.containsKey( nextExpectedTxId );
         }
 
+        @Override
+        public long getNextExpectedTxId()
+        {
+            return nextExpectedTxId;
+        }
+
+        @Override
+        public void collected( LogEntry.Start startEntry, LogEntry.Commit commitEntry )
+        {
+            identifier = commitEntry.getIdentifier();
+            lastStartEntry = startEntry;
+            nextExpectedTxId = commitEntry.getTxId() + 1;
+        }
+
         @Override
         public LogEntry.Start getLastStartEntry()
         {
@@ -496,14 +613,31 @@ public class LogExtractor
         final int identifier;
         final long position;
         final long checksum;
+        final long endPosition;
 
         public TxPosition( long version, int masterId, int identifier, long position, long checksum )
+        {
+            this( version, masterId, identifier, position, checksum, -1 );
+        }
+
+        public TxPosition( long version, int masterId, int identifier, long position, long checksum,
+                long endPosition )
         {
             this.version = version;
             this.masterId = masterId;
             this.identifier = identifier;
             this.position = position;
             this.checksum = checksum;
+            this.endPosition = endPosition;
+        }
+
+        /**
+         * @return whether or not the entries of this transaction, from its start entry up to and including its
+         * commit entry, are all next to each other in the log, so that they can be copied as they are.
+         */
+        public boolean isContiguous()
+        {
+            return endPosition != -1;
         }
 
         public boolean earlierThan( TxPosition other )
@@ -516,7 +650,7 @@ public class LogExtractor
         @Override
         public String toString()
         {
-            return "TxPosition[version:" + version + ", pos:" + position + "]";
+            return "TxPosition[version:" + version + ", pos:" + position + ", end:" + endPosition + "]";
         }
     }
     
@@ -552,14 +686,19 @@ public class LogExtractor
                     throws IOException
             {
                 File name = getFileName( version );
-                if ( !fileSystem.fileExists( name ) )
+                StoreChannel channel;
+                if ( fileSystem.fileExists( name ) )
+                {   // Rotated logs don't change
+                    channel = MappedFileChannel.openReadOnly( fileSystem, name, monitor );
+                }
+                else
                 {
                     name = activeLogFiles.get( version );
                     if ( name == null ) throw new NoSuchLogVersionException( version );
+                    channel = new BufferedFileChannel( fileSystem.open( name, "r" ), monitor );
                 }
-                StoreChannel channel = fileSystem.open( name, "r" );
                 channel.position( position );
-                return new BufferedFileChannel( channel, monitor );
+                return channel;
             }
             
             private long maxKey( Map<Long, File> activeLogFiles )
@@ -33,6 +33,8 @@ public class LogIoUtils
 {
     private static final short CURRENT_FORMAT_VERSION = ( LogEntry.CURRENT_VERSION ) & 0xFF;
     static final int LOG_HEADER_SIZE = 16;
+    // [TX_1P_COMMIT or TX_2P_COMMIT][identifier][txId][timeWritten]
+    static final int COMMIT_ENTRY_SIZE = 1 + 4 + 8 + 8;
     
     public static long[] readLogHeader( FileSystemAbstraction fileSystem, File file ) throws IOException
     {
@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.transaction.xaframework;
 import java.io.File;
 import java.io.IOException;
 import java.nio.channels.ReadableByteChannel;
+import java.util.Collections;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import javax.transaction.xa.XAException;
@@ -213,6 +215,18 @@ public class NoOpLogicalLog extends XaLogicalLog
 
     }
 
+    @Override
+    public List<LogEntry> readTransaction( ReadableByteChannel byteChannel ) throws IOException
+    {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public synchronized void applyTransactions( List<List<LogEntry>> transactions ) throws IOException
+    {
+
+    }
+
     @Override
     public synchronized long rotate() throws IOException
     {
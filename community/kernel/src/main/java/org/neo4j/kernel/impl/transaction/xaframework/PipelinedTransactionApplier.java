@@ -0,0 +1,278 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.xaframework;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.neo4j.helpers.Pair;
+
+import static org.neo4j.helpers.Exceptions.launderedException;
+
+/**
+ * Applies committed transactions received from another instance in batches, using
+ * {@link XaDataSource#applyCommittedTransactions(List)}, which does the work that can be shared between
+ * transactions once per batch. While one batch is being applied the next one is read, by another thread, so that
+ * receiving and deserializing transactions overlaps with applying them.
+ * <p>
+ * Transactions are applied in the order they are given. A batch has at most {@code batchSize} transactions, all
+ * for the same data source. If all transactions fit in one batch no other thread is involved.
+ */
+public class PipelinedTransactionApplier
+{
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    /** Bounds the memory held by a batch of large transactions */
+    private static final int MAX_ENTRIES_PER_BATCH = 50_000;
+
+    private final int batchSize;
+
+    public PipelinedTransactionApplier()
+    {
+        this( DEFAULT_BATCH_SIZE );
+    }
+
+    public PipelinedTransactionApplier( int batchSize )
+    {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Reads and applies all the given transactions, returning once they have been applied. Each channel is closed
+     * once it has been read. If a transaction cannot be read or applied the transactions before it will still have
+     * been applied.
+     */
+    public void apply( Iterator<Pair<XaDataSource, ReadableByteChannel>> transactions ) throws IOException
+    {
+        BatchReader batchReader = new BatchReader( transactions );
+        Batch batch = batchReader.next();
+        if ( batch == null )
+        {
+            return;
+        }
+        if ( !batchReader.hasNext() )
+        {
+            batch.apply();
+            return;
+        }
+
+        ReaderThread reader = new ReaderThread( batchReader );
+        reader.start();
+        try
+        {
+            do
+            {
+                batch.apply();
+                batch = reader.take();
+            }
+            while ( batch != null );
+        }
+        finally
+        {
+            reader.halt();
+        }
+    }
+
+    private static class Batch
+    {
+        private final XaDataSource dataSource;
+        private final List<List<LogEntry>> transactions = new ArrayList<>();
+        private int entries;
+
+        Batch( XaDataSource dataSource )
+        {
+            this.dataSource = dataSource;
+        }
+
+        void add( List<LogEntry> transaction )
+        {
+            transactions.add( transaction );
+            entries += transaction.size();
+        }
+
+        void apply() throws IOException
+        {
+            dataSource.applyCommittedTransactions( transactions );
+        }
+    }
+
+    private class BatchReader
+    {
+        private final Iterator<Pair<XaDataSource, ReadableByteChannel>> transactions;
+        private XaDataSource pendingDataSource;
+        private List<LogEntry> pendingTransaction;
+
+        BatchReader( Iterator<Pair<XaDataSource, ReadableByteChannel>> transactions )
+        {
+            this.transactions = transactions;
+        }
+
+        boolean hasNext()
+        {
+            return pendingTransaction != null || transactions.hasNext();
+        }
+
+        /**
+         * @return the next batch, or {@code null} if there are no more transactions.
+         */
+        Batch next() throws IOException
+        {
+            Batch batch = null;
+            while ( pendingTransaction != null || transactions.hasNext() )
+            {
+                if ( pendingTransaction == null )
+                {
+                    Pair<XaDataSource, ReadableByteChannel> transaction = transactions.next();
+                    pendingDataSource = transaction.first();
+                    try
+                    {
+                        pendingTransaction = pendingDataSource.readCommittedTransaction( transaction.other() );
+                    }
+                    finally
+                    {
+                        transaction.other().close();
+                    }
+                }
+                if ( batch == null )
+                {
+                    batch = new Batch( pendingDataSource );
+                }
+                else if ( batch.dataSource != pendingDataSource )
+                {
+                    break;
+                }
+                batch.add( pendingTransaction );
+                pendingTransaction = null;
+                if ( batch.transactions.size() >= batchSize || batch.entries >= MAX_ENTRIES_PER_BATCH )
+                {
+                    break;
+                }
+            }
+            return batch;
+        }
+    }
+
+    private static class ReaderThread extends Thread
+    {
+        private static final Batch END = new Batch( null );
+
+        private final BatchReader batchReader;
+        private final BlockingQueue<Batch> batches = new ArrayBlockingQueue<>( 1 );
+        private volatile boolean halted;
+        private volatile Throwable failure;
+
+        ReaderThread( BatchReader batchReader )
+        {
+            super( "Transaction batch reader" );
+            this.batchReader = batchReader;
+            setDaemon( true );
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                for ( Batch batch; !halted && (batch = batchReader.next()) != null; )
+                {
+                    batches.put( batch );
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                // halted
+            }
+            catch ( Throwable e )
+            {
+                failure = e;
+            }
+            finally
+            {
+                if ( !halted )
+                {
+                    try
+                    {
+                        batches.put( END );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        // halted
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the next batch, or {@code null} if all batches have been read.
+         */
+        Batch take() throws IOException
+        {
+            Batch batch;
+            try
+            {
+                batch = batches.take();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new IOException( "Interrupted while waiting for transactions to be read", e );
+            }
+            if ( batch == END )
+            {
+                if ( failure != null )
+                {
+                    throw launderedException( IOException.class, "Failed to read transactions", failure );
+                }
+                return null;
+            }
+            return batch;
+        }
+
+        /**
+         * Stops reading, if not done already, and waits for this thread to exit, so that the transactions
+         * are not read from after this method returns.
+         */
+        void halt()
+        {
+            halted = true;
+            interrupt();
+            boolean interrupted = false;
+            while ( isAlive() )
+            {
+                try
+                {
+                    join();
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+            }
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.transaction.xaframework;
 import java.io.File;
 import java.io.IOException;
 import java.nio.channels.ReadableByteChannel;
+import java.util.List;
 
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
@@ -246,6 +247,26 @@ public abstract class XaDataSource implements Lifecycle
         getXaContainer().getResourceManager().applyCommittedTransaction( transaction, txId );
     }
 
+    /**
+     * Reads a committed transaction received from another instance, to be applied with
+     * {@link #applyCommittedTransactions(List)}. May be called from any thread, also while transactions are
+     * being applied.
+     */
+    public List<LogEntry> readCommittedTransaction( ReadableByteChannel transaction ) throws IOException
+    {
+        return getXaContainer().getLogicalLog().readTransaction( transaction );
+    }
+
+    /**
+     * Applies a batch of committed transactions read by {@link #readCommittedTransaction(ReadableByteChannel)},
+     * in order, with the same outcome as applying them one by one with
+     * {@link #applyCommittedTransaction(long, ReadableByteChannel)}. Transactions already applied are skipped.
+     */
+    public void applyCommittedTransactions( List<List<LogEntry>> transactions ) throws IOException
+    {
+        getXaContainer().getResourceManager().applyCommittedTransactions( transactions );
+    }
+
     public long applyPreparedTransaction( ReadableByteChannel transaction ) throws IOException
     {
         return getXaContainer().getResourceManager().applyPreparedTransaction( transaction );
@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.transaction.xaframework;
 
 import java.io.File;
+import java.util.concurrent.TimeUnit;
 
 import org.neo4j.kernel.TransactionInterceptorProviders;
 import org.neo4j.kernel.configuration.Config;
@@ -30,6 +31,9 @@ import org.neo4j.kernel.impl.transaction.TransactionStateFactory;
 import org.neo4j.kernel.logging.Logging;
 import org.neo4j.kernel.monitoring.Monitors;
 
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.logical_log_group_commit;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.logical_log_group_commit_max_batch_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.logical_log_group_commit_max_delay;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.logical_log_rotation_threshold;
 
 /**
@@ -96,6 +100,15 @@ public class XaFactory
                     monitors, logging, pruneStrategy, stateFactory, kernelHealth, rotateAtSize, injectedTxValidator );
         }
 
+        // Transactions waiting for a group force get their ids from the resource manager, which only knows
+        // about the ids of this instance, so group commit is left out when another instance hands out ids
+        if ( !readOnly && config.get( logical_log_group_commit ) && txIdGenerator == TxIdGenerator.DEFAULT )
+        {
+            log.setGroupCommit( new GroupCommit( config.get( logical_log_group_commit_max_delay ),
+                    TimeUnit.MILLISECONDS, config.get( logical_log_group_commit_max_batch_size ),
+                    monitors.newMonitor( GroupCommit.Monitor.class, XaLogicalLog.class, logicalLog.getName() ) ) );
+        }
+
         // TODO These setters should be removed somehow
         rm.setLogicalLog( log );
         tf.setLogicalLog( log );
@@ -22,9 +22,10 @@ package org.neo4j.kernel.impl.transaction.xaframework;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -48,6 +49,7 @@ import org.neo4j.kernel.impl.transaction.xaframework.LogExtractor.TxPosition;
 import org.neo4j.kernel.impl.util.ArrayMap;
 import org.neo4j.kernel.impl.util.BufferedFileChannel;
 import org.neo4j.kernel.impl.util.FileUtils;
+import org.neo4j.kernel.impl.util.MappedFileChannel;
 import org.neo4j.kernel.impl.util.StringLogger;
 import org.neo4j.kernel.logging.Logging;
 import org.neo4j.kernel.monitoring.ByteCounterMonitor;
@@ -111,12 +113,45 @@ public class XaLogicalLog implements LogLoader
     private final LogPositionCache positionCache = new LogPositionCache();
     private final FileSystemAbstraction fileSystem;
 
+    // The transaction whose entries have so far been written one after another, with nothing else in between,
+    // and where its last entry ended. Its entries can then be extracted as one range of bytes, see LogExtractor.
+    private int contiguousIdentifier = -1;
+    private long contiguousLogVersion = -1;
+    private long contiguousEnd = -1;
+
     private final LogPruneStrategy pruneStrategy;
     private final XaLogicalLogFiles logFiles;
     private final PartialTransactionCopier partialTransactionCopier;
     private final InjectedTransactionValidator injectedTxValidator;
 
     private final TransactionStateFactory stateFactory;
+    private volatile GroupCommit groupCommit;
+    private final GroupCommit.Force logForce = new GroupCommit.Force()
+    {
+        @Override
+        public void force() throws IOException
+        {
+            StoreChannel channel;
+            synchronized ( XaLogicalLog.this )
+            {
+                channel = writeBuffer.getFileChannel();
+            }
+            try
+            {
+                channel.force( false );
+            }
+            catch ( ClosedChannelException e )
+            {
+                // The log was rotated or closed meanwhile, which forced it anyway
+            }
+            catch ( IOException e )
+            {
+                // Before the other committers get to know, so that none of them applies its transaction
+                kernelHealth.panic( e );
+                throw e;
+            }
+        }
+    };
 
     // Monitors for counting bytes read/written in various parts
     // We need separate monitors to differentiate between network/disk I/O
@@ -312,6 +347,9 @@ public class XaLogicalLog implements LogLoader
             LogIoUtils.writeStart( writeBuffer, identifier, start.getXid(),
                     start.getMasterId(), start.getLocalId(),
                     start.getTimeWritten(), start.getLastCommittedTxWhenTransactionStarted() );
+            contiguousIdentifier = identifier;
+            contiguousLogVersion = logVersion;
+            contiguousEnd = writeBuffer.getFileChannelPosition();
         }
         catch ( IOException e )
         {
@@ -339,7 +377,9 @@ public class XaLogicalLog implements LogLoader
         assert startEntry != null;
         try
         {
+            boolean contiguous = isContiguous( identifier );
             LogIoUtils.writePrepare( writeBuffer, identifier, System.currentTimeMillis() );
+            wrote( identifier, contiguous );
             /*
              * Make content visible to all readers of the file channel, so that prepared transactions
              * can be extracted. Not really necessary, since getLogicalLogOrMyselfCommitted() looks for
@@ -404,9 +444,11 @@ public class XaLogicalLog implements LogLoader
         assert txId != -1;
         try
         {
-            positionCache.cacheStartPosition( txId, startEntry, logVersion );
+            boolean contiguous = isContiguous( identifier );
             LogIoUtils.writeCommit( false, writeBuffer, identifier, txId, System.currentTimeMillis() );
-            forceMode.force( writeBuffer );
+            positionCache.cacheStartPosition( txId, startEntry, logVersion,
+                    contiguous ? writeBuffer.getFileChannelPosition() : -1 );
+            writeOutCommit( txId, forceMode );
         }
         catch ( IOException e )
         {
@@ -425,9 +467,11 @@ public class XaLogicalLog implements LogLoader
         assert txId != -1;
         try
         {
-            positionCache.cacheStartPosition( txId, startEntry, logVersion );
+            boolean contiguous = isContiguous( identifier );
             LogIoUtils.writeCommit( true, writeBuffer, identifier, txId, System.currentTimeMillis() );
-            forceMode.force( writeBuffer );
+            positionCache.cacheStartPosition( txId, startEntry, logVersion,
+                    contiguous ? writeBuffer.getFileChannelPosition() : -1 );
+            writeOutCommit( txId, forceMode );
         }
         catch ( IOException e )
         {
@@ -435,13 +479,100 @@ public class XaLogicalLog implements LogLoader
         }
     }
 
+    private void writeOutCommit( long txId, ForceMode forceMode ) throws IOException
+    {
+        if ( groupCommit != null && forceMode == ForceMode.forced )
+        {
+            // Forced later, together with other commits, in awaitCommitForced()
+            writeBuffer.writeOut();
+            groupCommit.appended( txId );
+        }
+        else
+        {
+            forceMode.force( writeBuffer );
+        }
+    }
+
+    /**
+     * Waits for the commit entry of {@code txId}, written by {@link #commitOnePhase(int, long, ForceMode)} or
+     * {@link #commitTwoPhase(int, long, ForceMode)} with {@link ForceMode#forced}, to be forced to disk.
+     * Without group commit the entry was forced already when it was written. This method must not be called
+     * while holding the monitor of this log, or other committers won't be able to join the force.
+     * <p>
+     * A failed force panics the kernel, so that no further transactions commit. From then on every waiter
+     * fails, even if a later force covered its entry, since the entries before it may not have made it to disk.
+     * The transaction must not be applied, and so become visible, before this method has returned.
+     */
+    public void awaitCommitForced( long txId ) throws XAException
+    {
+        GroupCommit groupCommit = this.groupCommit;
+        if ( groupCommit == null )
+        {
+            return;
+        }
+        try
+        {
+            groupCommit.awaitForced( txId, logForce );
+        }
+        catch ( IOException e )
+        {
+            throw Exceptions.withCause( new XAException( "Logical log unable to force commit of tx " + txId ), e );
+        }
+        kernelHealth.assertHealthy( XAException.class );
+    }
+
+    /**
+     * Lets concurrently committing transactions share forces of this log, see {@link GroupCommit}.
+     */
+    public synchronized void setGroupCommit( GroupCommit groupCommit )
+    {
+        this.groupCommit = groupCommit;
+    }
+
+    public GroupCommit getGroupCommit()
+    {
+        return groupCommit;
+    }
+
+    private void forcedAll()
+    {
+        if ( groupCommit != null )
+        {
+            groupCommit.forcedAll();
+        }
+    }
+
     // [COMMAND][identifier][COMMAND_DATA]
     public synchronized void writeCommand( XaCommand command, int identifier )
             throws IOException
     {
         checkLogRotation();
         assert xidIdentMap.get( identifier ) != null;
+        boolean contiguous = isContiguous( identifier );
         LogIoUtils.writeCommand( writeBuffer, identifier, command );
+        wrote( identifier, contiguous );
+    }
+
+    /**
+     * @return whether or not nothing but entries of the transaction with {@code identifier} have been written since
+     * its start entry. Any other write, also of the log header after a rotation, moves the position.
+     */
+    private boolean isContiguous( int identifier ) throws IOException
+    {
+        return identifier == contiguousIdentifier && logVersion == contiguousLogVersion &&
+               writeBuffer.getFileChannelPosition() == contiguousEnd;
+    }
+
+    private void wrote( int identifier, boolean contiguous ) throws IOException
+    {
+        if ( contiguous )
+        {
+            contiguousEnd = writeBuffer.getFileChannelPosition();
+        }
+        else if ( identifier == contiguousIdentifier )
+        {
+            contiguousIdentifier = -1;
+        }
     }
 
     private void applyEntry( LogEntry entry ) throws IOException
@@ -704,6 +835,7 @@ public class XaLogicalLog implements LogLoader
         if ( writeBuffer != null )
         {
             writeBuffer.force();
+            forcedAll();
         }
         fileChannel.close();
         fileChannel = null;
@@ -722,6 +854,7 @@ public class XaLogicalLog implements LogLoader
             msgLog.info( "Close invoked with " + xidIdentMap.size() +
                     " running transaction(s). " );
             writeBuffer.force();
+            forcedAll();
             fileChannel.close();
             msgLog.info( "Dirty log: " + fileName + "." + currentLog +
                     " now closed. Recovery will be started automatically next " +
@@ -917,9 +1050,9 @@ public class XaLogicalLog implements LogLoader
         {
             throw new NoSuchLogVersionException( version );
         }
-        StoreChannel channel = fileSystem.open( name, "r" );
+        StoreChannel channel = MappedFileChannel.openReadOnly( fileSystem, name, bufferMonitor );
         channel.position( position );
-        return new BufferedFileChannel( channel, bufferMonitor );
+        return channel;
     }
 
     private void extractPreparedTransactionFromLog( int identifier,
@@ -1156,11 +1289,12 @@ public class XaLogicalLog implements LogLoader
         LogEntry.Commit commitEntry;
 
         private final List<LogEntry> logEntries;
+        private int nextEntry;
 
         protected LogDeserializer( ReadableByteChannel byteChannel, ByteCounterMonitor monitor )
         {
             this.byteChannel = new MonitoredReadableByteChannel( byteChannel, monitor );
-            this.logEntries = new LinkedList<LogEntry>();
+            this.logEntries = new ArrayList<>();
         }
 
         public boolean readAndWriteAndApplyEntry( int newXidIdentifier )
@@ -1184,6 +1318,12 @@ public class XaLogicalLog implements LogLoader
                     throw launderedException( IOException.class, "Failure applying transaction", e );
                 }
             }
+            add( entry, newXidIdentifier );
+            return true;
+        }
+
+        void add( LogEntry entry, int newXidIdentifier )
+        {
             entry.setIdentifier( newXidIdentifier );
             logEntries.add( entry );
             if ( entry instanceof LogEntry.Commit )
@@ -1195,7 +1335,6 @@ public class XaLogicalLog implements LogLoader
             {
                 startEntry = (LogEntry.Start) entry;
             }
-            return true;
         }
 
         protected void intercept( List<LogEntry> logEntries )
@@ -1205,8 +1344,26 @@ public class XaLogicalLog implements LogLoader
 
         protected void apply() throws IOException
         {
-            for ( LogEntry entry : logEntries )
+            writeUntilCommitted();
+            if ( commitEntry != null )
             {
+                /*
+                 * Just writeOut(), don't force or performance will be impacted severely.
+                 */
+                writeBuffer.writeOut();
+            }
+            commit();
+        }
+
+        /**
+         * Writes the entries up to and including the commit entry, applying all of them except the commit entry.
+         * The log must be written out before the commit entry is applied, by {@link #commit()}.
+         */
+        void writeUntilCommitted() throws IOException
+        {
+            for ( ; nextEntry < logEntries.size(); nextEntry++ )
+            {
+                LogEntry entry = logEntries.get( nextEntry );
                 /*
                  * You are wondering what is going on here. Let me take you on a journey
                  * A transaction, call it A starts, prepares locally, goes to the master and commits there
@@ -1234,16 +1391,31 @@ public class XaLogicalLog implements LogLoader
                     LogIoUtils.writeLogEntry( entry, writeBuffer );
                     if ( entry instanceof LogEntry.Commit )
                     {
-                        /*
-                         * Just writeOut(), don't force or performance will be impacted severely.
-                         */
-                        writeBuffer.writeOut();
+                        nextEntry++;
+                        return;
                     }
                     applyEntry( entry );
                 }
             }
         }
 
+        /**
+         * Applies the commit entry and then writes and applies the entries following it.
+         */
+        void commit() throws IOException
+        {
+            if ( commitEntry != null )
+            {
+                applyEntry( commitEntry );
+            }
+            for ( ; nextEntry < logEntries.size(); nextEntry++ )
+            {
+                LogEntry entry = logEntries.get( nextEntry );
+                LogIoUtils.writeLogEntry( entry, writeBuffer );
+                applyEntry( entry );
+            }
+        }
+
         protected Start getStartEntry()
         {
             return startEntry;
@@ -1388,6 +1560,92 @@ public class XaLogicalLog implements LogLoader
         checkLogRotation();
     }
 
+    /**
+     * Reads the entries of a committed transaction received from another instance, to be applied by
+     * {@link #applyTransactions(List)}. Nothing is read from or written to this log, so unlike applying, reading
+     * may happen in any thread, concurrently with transactions being applied.
+     */
+    public List<LogEntry> readTransaction( ReadableByteChannel byteChannel ) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( sharedBuffer.capacity() );
+        ReadableByteChannel source = new MonitoredReadableByteChannel( byteChannel, logDeserializerMonitor );
+        List<LogEntry> entries = new ArrayList<>();
+        for ( LogEntry entry; (entry = LogIoUtils.readEntry( buffer, source, cf )) != null; )
+        {
+            entries.add( entry );
+        }
+        return entries;
+    }
+
+    /**
+     * Applies committed transactions read by {@link #readTransaction(ReadableByteChannel)}, in order, the same
+     * way as {@link #applyTransaction(ReadableByteChannel)} applies them one by one. The difference is that the
+     * entries of all transactions, up to and including their commit entries, are written before any of them is
+     * committed, so that the log is written out once for the whole batch instead of once per transaction.
+     */
+    public synchronized void applyTransactions( List<List<LogEntry>> transactions ) throws IOException
+    {
+        kernelHealth.assertHealthy( IOException.class );
+        for ( List<LogEntry> entries : transactions )
+        {
+            if ( !(entries.get( 0 ) instanceof LogEntry.Start) )
+            {
+                throw new IOException( "Unable to find start entry in " + entries );
+            }
+            if ( committedTxId( entries ) == -1 )
+            {
+                throw new IOException( "Unable to find commit entry in " + entries );
+            }
+        }
+
+        scanIsComplete = false;
+        List<LogDeserializer> logAppliers = new ArrayList<>( transactions.size() );
+        try
+        {
+            for ( List<LogEntry> entries : transactions )
+            {
+                LogDeserializer logApplier = getLogDeserializer( null );
+                int xidIdent = getNextIdentifier();
+                for ( LogEntry entry : entries )
+                {
+                    logApplier.add( entry, xidIdent );
+                }
+                logApplier.intercept( entries );
+                logApplier.writeUntilCommitted();
+                logAppliers.add( logApplier );
+            }
+            writeBuffer.writeOut();
+            for ( LogDeserializer logApplier : logAppliers )
+            {
+                logApplier.commit();
+                positionCache.cacheStartPosition( logApplier.getCommitEntry().getTxId(), logApplier.getStartEntry(),
+                        logVersion );
+            }
+        }
+        catch ( Throwable e )
+        {
+            kernelHealth.panic( e );
+            throw launderedException( IOException.class, "Failure applying transactions", e );
+        }
+        scanIsComplete = true;
+        checkLogRotation();
+    }
+
+    /**
+     * @return the id of the transaction committed by the given entries, or {@code -1} if they have no commit entry.
+     */
+    public static long committedTxId( List<LogEntry> entries )
+    {
+        for ( LogEntry entry : entries )
+        {
+            if ( entry instanceof LogEntry.Commit )
+            {
+                return ((LogEntry.Commit) entry).getTxId();
+            }
+        }
+        return -1;
+    }
+
     /**
      * Rotates this logical log. The pending transactions are moved over to a
      * new log buffer and the internal structures updated to reflect the new
@@ -1421,6 +1679,13 @@ public class XaLogicalLog implements LogLoader
      */
     public synchronized long rotate() throws IOException
     {
+        if ( groupCommit != null )
+        {
+            // Applied transactions may not have had their commits forced yet,
+            // and that must happen before the store is flushed
+            writeBuffer.force();
+            forcedAll();
+        }
         xaTf.flushAll();
         File newLogFile = logFiles.getLog2FileName();
         File currentLogFile = logFiles.getLog1FileName();
@@ -1445,6 +1710,7 @@ public class XaLogicalLog implements LogLoader
                 currentVersion + " to " + newLogFile + " from position " +
                 endPosition, true );
         writeBuffer.force();
+        forcedAll();
         StoreChannel newLog = fileSystem.open( newLogFile, "rw" );
         long lastTx = xaTf.getLastCommittedTx();
         LogIoUtils.writeLogHeader( sharedBuffer, currentVersion+1, lastTx );
@@ -21,10 +21,12 @@ package org.neo4j.kernel.impl.transaction.xaframework;
 
 import java.io.IOException;
 import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -75,6 +77,7 @@ public class XaResourceManager
     private StringLogger msgLog;
     private final AbstractTransactionManager transactionManager;
     private final RecoveryVerifier recoveryVerifier;
+    private final Deque<Long> unappliedCommits = new ArrayDeque<>();
 
     public XaResourceManager( XaDataSource dataSource, XaTransactionFactory tf,
                               TxIdGenerator txIdGenerator, AbstractTransactionManager transactionManager,
@@ -510,6 +513,7 @@ public class XaResourceManager
             prepareKernelTx( xaTransaction );
         }
 
+        boolean awaitsGroupForce = false;
         synchronized ( this )
         {
             if(isReadOnly)
@@ -520,7 +524,39 @@ public class XaResourceManager
             }
             else
             {
-                commitWriteTx( xid, onePhase, xaTransaction, txStatus, txIdGenerator );
+                commitWriteTx( xid, onePhase, xaTransaction, txStatus );
+                // With group commit the commit entry isn't forced yet, and the transaction mustn't be applied,
+                // and so become visible to readers, until it is
+                awaitsGroupForce = !xaTransaction.isRecovered() && getForceMode() == ForceMode.forced &&
+                        log.getGroupCommit() != null;
+                if ( !awaitsGroupForce )
+                {
+                    applyWriteTx( xid, onePhase, xaTransaction );
+                }
+            }
+        }
+
+        if ( awaitsGroupForce )
+        {
+            // Outside of the synchronized block, so that other transactions can commit meanwhile
+            // and have their commits forced together with this one
+            try
+            {
+                log.awaitCommitForced( xaTransaction.getCommitTxId() );
+            }
+            catch ( XAException e )
+            {
+                // The kernel has panicked, so nothing applies after this transaction anyway
+                synchronized ( this )
+                {
+                    unappliedCommits.remove( xaTransaction.getCommitTxId() );
+                    notifyAll();
+                }
+                throw e;
+            }
+            synchronized ( this )
+            {
+                applyWriteTx( xid, onePhase, xaTransaction );
             }
         }
 
@@ -565,8 +601,12 @@ public class XaResourceManager
         }
     }
 
+    /**
+     * Writes the commit entry of a write transaction to the log. The transaction is applied separately,
+     * by {@link #applyWriteTx(Xid, boolean, XaTransaction)}.
+     */
     private void commitWriteTx( Xid xid, boolean onePhase, XaTransaction xaTransaction,
-                                TransactionStatus txStatus, TxIdGenerator txIdGenerator ) throws XAException
+                                TransactionStatus txStatus ) throws XAException
     {
         checkStartWritten( txStatus, xaTransaction );
 
@@ -577,9 +617,7 @@ public class XaResourceManager
             {
                 xaTransaction.prepare();
 
-                long txId = txIdGenerator.generate( dataSource,
-                        xaTransaction.getIdentifier() );
-                xaTransaction.setCommitTxId( txId );
+                xaTransaction.setCommitTxId( generateTxId( xaTransaction ) );
                 // The call to getForceMode() is critical for correctness.
                 // See TxManager.getTransaction() for details.
                 log.commitOnePhase( xaTransaction.getIdentifier(),
@@ -595,9 +633,7 @@ public class XaResourceManager
 
         if ( !onePhase && !xaTransaction.isRecovered() )
         {
-            long txId = txIdGenerator.generate( dataSource,
-                    xaTransaction.getIdentifier() );
-            xaTransaction.setCommitTxId( txId );
+            xaTransaction.setCommitTxId( generateTxId( xaTransaction ) );
             // The call to getForceMode() is critical for correctness.
             // See TxManager.getTransaction() for details.
             log.commitTwoPhase( xaTransaction.getIdentifier(),
@@ -605,6 +641,10 @@ public class XaResourceManager
         }
 
         txStatus.markCommitStarted();
+        if ( !xaTransaction.isRecovered() )
+        {
+            unappliedCommits.addLast( xaTransaction.getCommitTxId() );
+        }
 
         if ( xaTransaction.isRecovered() && xaTransaction.getCommitTxId() == -1 )
         {
@@ -618,28 +658,79 @@ public class XaResourceManager
                 dataSource.setRecovered( previousRecoveredValue );
             }
         }
+    }
 
-        xaTransaction.commit();
-
+    /**
+     * Applies a write transaction whose commit entry has been written, and forced if it's going to be.
+     * Transactions are applied in the order of their transaction ids, which isn't necessarily the order
+     * in which their group forces let them through.
+     */
+    private void applyWriteTx( Xid xid, boolean onePhase, XaTransaction xaTransaction ) throws XAException
+    {
+        long txId = xaTransaction.getCommitTxId();
         if ( !xaTransaction.isRecovered() )
         {
-            log.done( xaTransaction.getIdentifier() );
+            awaitTurnToApply( txId );
         }
-        else if ( !log.scanIsComplete() || recoveredTxCount.get() > 0 )
+        try
         {
-            int identifier = xaTransaction.getIdentifier();
-            Start startEntry = log.getStartEntry( identifier );
-            recoveredTransactions.put( identifier, new TransactionInfo( identifier, onePhase,
-                    xaTransaction.getCommitTxId(), startEntry.getMasterId(), startEntry.getChecksum() ) );
-        }
+            xaTransaction.commit();
 
-        xidMap.remove( xid );
+            if ( !xaTransaction.isRecovered() )
+            {
+                log.done( xaTransaction.getIdentifier() );
+            }
+            else if ( !log.scanIsComplete() || recoveredTxCount.get() > 0 )
+            {
+                int identifier = xaTransaction.getIdentifier();
+                Start startEntry = log.getStartEntry( identifier );
+                recoveredTransactions.put( identifier, new TransactionInfo( identifier, onePhase,
+                        xaTransaction.getCommitTxId(), startEntry.getMasterId(), startEntry.getChecksum() ) );
+            }
 
-        if ( xaTransaction.isRecovered() )
+            xidMap.remove( xid );
+
+            if ( xaTransaction.isRecovered() )
+            {
+                oneMoreTransactionRecovered();
+            }
+            transactionMonitor.transactionCommitted( xid, xaTransaction.isRecovered() );
+        }
+        finally
         {
-            oneMoreTransactionRecovered();
+            if ( !xaTransaction.isRecovered() )
+            {
+                unappliedCommits.remove( txId );
+                notifyAll();
+            }
+        }
+    }
+
+    private void awaitTurnToApply( long txId )
+    {
+        boolean interrupted = false;
+        while ( unappliedCommits.peekFirst() != txId )
+        {
+            try
+            {
+                wait();
+            }
+            catch ( InterruptedException e )
+            {
+                interrupted = true;
+            }
+        }
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
         }
-        transactionMonitor.transactionCommitted( xid, xaTransaction.isRecovered() );
+    }
+
+    private long generateTxId( XaTransaction xaTransaction ) throws XAException
+    {
+        long txId = txIdGenerator.generate( dataSource, xaTransaction.getIdentifier() );
+        // Transactions waiting for a group force aren't applied yet, so the data source doesn't count them
+        return unappliedCommits.isEmpty() ? txId : Math.max( txId, unappliedCommits.peekLast() + 1 );
     }
 
     private ForceMode getForceMode()
@@ -805,6 +896,7 @@ public class XaResourceManager
                     if ( !recoveredTx.isOnePhase() )
                     {
                         log.commitTwoPhase( recoveredTx.getIdentifier(), recoveredTx.getTxId(), ForceMode.forced );
+                        log.awaitCommitForced( recoveredTx.getTxId() );
                     }
                     log.doneInternal( recoveredTx.getIdentifier() );
                 }
@@ -862,6 +954,39 @@ public class XaResourceManager
         }
     }
 
+    /**
+     * Applies the transactions that haven't been applied yet, see {@link XaLogicalLog#applyTransactions(List)}.
+     */
+    public synchronized void applyCommittedTransactions( List<List<LogEntry>> transactions ) throws IOException
+    {
+        long lastCommittedTxId = dataSource.getLastCommittedTxId();
+        List<List<LogEntry>> toApply = new ArrayList<>( transactions.size() );
+        IOException gap = null;
+        for ( List<LogEntry> transaction : transactions )
+        {
+            long txId = XaLogicalLog.committedTxId( transaction );
+            if ( lastCommittedTxId + 1 == txId )
+            {
+                toApply.add( transaction );
+                lastCommittedTxId = txId;
+            }
+            else if ( lastCommittedTxId + 1 < txId )
+            {
+                gap = new IOException( "Tried to apply transaction with txId=" + txId +
+                        " but last committed txId=" + lastCommittedTxId );
+                break;
+            }
+        }
+        if ( !toApply.isEmpty() )
+        {
+            log.applyTransactions( toApply );
+        }
+        if ( gap != null )
+        {
+            throw gap;
+        }
+    }
+
     public synchronized long applyPreparedTransaction(
             ReadableByteChannel transaction ) throws IOException
     {
@@ -46,6 +46,22 @@ public interface JobScheduler extends Lifecycle
          * Gathers approximated data about the underlying data store.
          */
         heuristics,
+
+        /**
+         * Writes out dirty pages of the shared page cache.
+         */
+        pageCacheFlushing,
+
+        /**
+         * Samples schema indexes, for the query planner to know how selective they are.
+         */
+        indexSampling,
+
+        /**
+         * Hands ids freed by committed transactions back to the id generators, see
+         * {@link org.neo4j.kernel.impl.nioneo.store.ConcurrentIdGenerator}.
+         */
+        freedIdMerging,
     }
 
     void schedule( Group group, Runnable job );
@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+
+import org.neo4j.kernel.impl.nioneo.store.AbstractStoreChannel;
+import org.neo4j.kernel.impl.nioneo.store.FileSystemAbstraction;
+import org.neo4j.kernel.impl.nioneo.store.StoreChannel;
+import org.neo4j.kernel.impl.nioneo.store.StoreFileChannel;
+import org.neo4j.kernel.monitoring.ByteCounterMonitor;
+
+/**
+ * A read-only channel over a file mapped into memory, where reading is a plain memory copy instead of a system
+ * call per buffer full. Content appended to the file after it was opened isn't visible, so this is meant for files
+ * that don't change, like rotated logical logs.
+ * <p>
+ * The mapping is released when the channel is closed, rather than whenever the buffer gets garbage collected,
+ * since a file can't be deleted while it's mapped on some platforms. The channel can't be read once closed.
+ */
+public class MappedFileChannel extends AbstractStoreChannel
+{
+    private final MappedByteBuffer mapped;
+    private final ByteCounterMonitor monitor;
+    private boolean open = true;
+
+    private MappedFileChannel( MappedByteBuffer mapped, ByteCounterMonitor monitor )
+    {
+        this.mapped = mapped;
+        this.monitor = monitor;
+    }
+
+    /**
+     * Opens {@code file} for reading, mapped into memory if the file system supports it and the file is small
+     * enough to be mapped in one go. Otherwise reads are buffered by a {@link BufferedFileChannel}.
+     */
+    public static StoreChannel openReadOnly( FileSystemAbstraction fileSystem, File file, ByteCounterMonitor monitor )
+            throws IOException
+    {
+        StoreChannel channel = fileSystem.open( file, "r" );
+        if ( !(channel instanceof StoreFileChannel) || channel.size() > Integer.MAX_VALUE )
+        {
+            return new BufferedFileChannel( channel, monitor );
+        }
+        MappedByteBuffer mapped;
+        try
+        {
+            mapped = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+        }
+        catch ( IOException e )
+        {   // Not all file systems can map their files, read them the ordinary way then
+            return new BufferedFileChannel( channel, monitor );
+        }
+        // The mapping stays valid after the channel has been closed
+        channel.close();
+        return new MappedFileChannel( mapped, monitor );
+    }
+
+    @Override
+    public int read( ByteBuffer dst ) throws IOException
+    {
+        assertOpen();
+        if ( !mapped.hasRemaining() )
+        {
+            return -1;
+        }
+        int count = Math.min( dst.remaining(), mapped.remaining() );
+        ByteBuffer source = mapped.duplicate();
+        source.limit( source.position() + count );
+        dst.put( source );
+        mapped.position( mapped.position() + count );
+        monitor.bytesRead( count );
+        return count;
+    }
+
+    @Override
+    public long position() throws IOException
+    {
+        return mapped.position();
+    }
+
+    @Override
+    public MappedFileChannel position( long newPosition ) throws IOException
+    {
+        mapped.position( (int) Math.min( newPosition, mapped.limit() ) );
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException
+    {
+        return mapped.limit();
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if ( open )
+        {
+            open = false;
+            unmap( mapped );
+        }
+    }
+
+    private void assertOpen() throws ClosedChannelException
+    {
+        if ( !open )
+        {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * Releases the mapping through the cleaner of the buffer. That's not public API, so it's looked up
+     * reflectively; on a JVM without it the mapping is released when the buffer is garbage collected.
+     */
+    private static void unmap( MappedByteBuffer buffer )
+    {
+        try
+        {
+            Method cleanerMethod = buffer.getClass().getMethod( "cleaner" );
+            cleanerMethod.setAccessible( true );
+            Object cleaner = cleanerMethod.invoke( buffer );
+            if ( cleaner != null )
+            {
+                cleaner.getClass().getMethod( "clean" ).invoke( cleaner );
+            }
+        }
+        catch ( Exception e )
+        {   // Leave it to the garbage collector
+        }
+    }
+}
@@ -56,7 +56,7 @@ public class Neo4jJobScheduler extends LifecycleAdapter implements JobScheduler
     public void start()
     {
         this.executor = newCachedThreadPool(new DaemonThreadFactory("Neo4j " + id));
-        this.scheduledExecutor = new ScheduledThreadPoolExecutor( 2 );
+        this.scheduledExecutor = new ScheduledThreadPoolExecutor( 2, new DaemonThreadFactory( "Neo4j " + id ) );
 
         //scheduledExecutor.setContinueExistingPeriodicTasksAfterShutdownPolicy( false );
         //scheduledExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy( false );
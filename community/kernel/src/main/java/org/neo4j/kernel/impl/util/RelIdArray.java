@@ -135,19 +135,10 @@ public class RelIdArray implements SizeOfObject
     public void add( long id, DirectionWrapper direction )
     {
         IdBlock block = direction.getBlock( this );
-        if ( block == null || !block.accepts( id ) )
+        if ( block == null )
         {
-            IdBlock newBlock = null;
-            if ( block == null && LowIdBlock.idIsLow( id ) )
-            {
-                newBlock = new LowIdBlock();
-            }
-            else
-            {
-                newBlock = block != null ? block.upgradeToHighIdBlock() : new HighIdBlock();
-            }
-            direction.setBlock( this, newBlock );
-            block = newBlock;
+            block = new IdBlock();
+            direction.setBlock( this, block );
         }
         block.add( id );
     }
@@ -220,15 +211,9 @@ public class RelIdArray implements SizeOfObject
         {   // We've got no ids for that direction, just pop it right in (a copy of it)
             direction.setBlock( this, fromBlock.copyAndShrink() );
         }
-        else if ( toBlock.accepts( fromBlock ) )
-        {   // We've got some existing ids and the new ids are compatible, so add them
-            toBlock.addAll( fromBlock );
-        }
         else
-        {   // We've got some existing ids, but ids aren't compatible. Upgrade and add them to the upgraded block
-            toBlock = toBlock.upgradeToHighIdBlock();
+        {
             toBlock.addAll( fromBlock );
-            direction.setBlock( this, toBlock );
         }
     }
 
@@ -242,6 +227,26 @@ public class RelIdArray implements SizeOfObject
         return direction.iterator( this );
     }
 
+    /**
+     * @return the ids added with exactly the given direction, i.e. {@link DirectionWrapper#BOTH} means the loops.
+     * Unlike {@link #iterator(DirectionWrapper)}, which for example includes loops when iterating outgoing ids.
+     */
+    public long[] getIds( DirectionWrapper direction )
+    {
+        IdBlock block = direction.getBlock( this );
+        if ( block == null )
+        {
+            return new long[0];
+        }
+        IteratorState state = new IteratorState( block );
+        long[] ids = new long[state.length];
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            ids[i] = state.next();
+        }
+        return ids;
+    }
+
     protected RelIdArray newSimilarInstance()
     {
         return new RelIdArray( type );
@@ -403,288 +408,147 @@ public class RelIdArray implements SizeOfObject
         }
     }
 
-    public static abstract class IdBlock implements SizeOfObject
+    /**
+     * Relationship ids of one type and direction, packed into a single byte[]. Each id is stored as the
+     * difference to the id before it, zig-zag encoded as a variable-length integer, seven bits per byte.
+     * Ids added from the same relationship chain tend to be close to each other, so most ids need one or
+     * two bytes instead of the four or five of an int[]/byte[] pair. The price is that ids can only be read
+     * in order, which is all iteration needs.
+     *
+     * Appends only ever write past the end of what has already been written, so an iterator which has
+     * read up to a certain point never sees those bytes change.
+     */
+    public static final class IdBlock implements SizeOfObject
     {
-        abstract void shrink();
-
-        void add( long id )
-        {
-            int length = ensureSpace( 1 );
-            set( id, length );
-            setLength( length+1 );
-        }
-
-        void addAll( IdBlock block )
-        {
-            int otherBlockLength = block.length();
-            int length = ensureSpace( otherBlockLength+1 );
-            append( block, length+1, otherBlockLength );
-            setLength( otherBlockLength+length );
-        }
-
-        /**
-         * Returns the number of ids in the array, not the array size.
-         */
-        int ensureSpace( int delta )
-        {
-            int length = length();
-            int newLength = length+delta;
-            int capacity = capacity();
-            if ( newLength >= capacity )
-            {   // We're out of space, try doubling the size
-                int calculatedLength = capacity*2;
-                if ( newLength > calculatedLength )
-                {   // Doubling the size wasn't enough, go with double what was required
-                    calculatedLength = newLength*2;
-                }
-                extendArrayTo( length, calculatedLength );
-            }
-            return length;
-        }
-
-        protected abstract boolean accepts( long id );
-
-        protected abstract boolean accepts( IdBlock block );
-
-        protected abstract IdBlock copyAndShrink();
-
-        abstract IdBlock upgradeToHighIdBlock();
-
-        protected abstract void extendArrayTo( int numberOfItemsToCopy, int newLength );
-
-        protected abstract void setLength( int length );
-
-        protected abstract int length();
-
-        protected abstract int capacity();
+        private static final int INITIAL_CAPACITY = 8;
+        private static final int MAX_BYTES_PER_ID = 10;
 
-        protected abstract void append( IdBlock source, int targetStartIndex, int itemsToCopy );
-
-        protected abstract long get( int index );
-
-        protected abstract void set( long id, int index );
-    }
-
-    private static class LowIdBlock extends IdBlock
-    {
-        // First element is the actual length w/o the slack
-        private int[] ids = new int[3];
+        private byte[] bytes;
+        private int byteLength;
+        private int length;
+        private long lastId;
 
-        @Override
-        public int sizeOfObjectInBytesIncludingOverhead()
+        IdBlock()
         {
-            return withObjectOverhead( withReference( withArrayOverhead( 4*ids.length ) ) );
+            this( INITIAL_CAPACITY );
         }
 
-        public static boolean idIsLow( long id )
+        private IdBlock( int capacity )
         {
-            return (id & 0xFF00000000L) == 0;
+            this.bytes = new byte[capacity];
         }
 
         @Override
-        protected boolean accepts( long id )
+        public int sizeOfObjectInBytesIncludingOverhead()
         {
-            return idIsLow( id );
+            return withObjectOverhead(
+                    withReference( withArrayOverhead( bytes.length ) ) + 8/*byteLength+length*/ + 8/*lastId*/ );
         }
 
-        @Override
-        protected boolean accepts( IdBlock block )
+        void add( long id )
         {
-            return block instanceof LowIdBlock;
+            ensureCapacity( MAX_BYTES_PER_ID );
+            byteLength = write( bytes, byteLength, id - lastId );
+            lastId = id;
+            length++;
         }
 
-        @Override
-        protected void append( IdBlock source, int targetStartIndex, int itemsToCopy )
+        void addAll( IdBlock block )
         {
-            if ( source instanceof LowIdBlock )
-            {
-                arraycopy( ((LowIdBlock)source).ids, 1, ids, targetStartIndex, itemsToCopy );
+            if ( length == 0 )
+            {   // The encoded form of the other block is exactly what we'd end up with, just copy it
+                ensureCapacity( block.byteLength );
+                arraycopy( block.bytes, 0, bytes, 0, block.byteLength );
+                byteLength = block.byteLength;
+                lastId = block.lastId;
+                length = block.length;
+                return;
             }
-            else
+
+            for ( IteratorState source = new IteratorState( block ); source.hasNext(); )
             {
-                throw new IllegalArgumentException( source.toString() );
+                long id = source.next();
+                ensureCapacity( MAX_BYTES_PER_ID );
+                byteLength = write( bytes, byteLength, id - lastId );
+                lastId = id;
+                length++;
             }
         }
 
-        @Override
-        IdBlock upgradeToHighIdBlock()
-        {
-            return new HighIdBlock( this );
+        /**
+         * Removes the given ids, keeping the order of the remaining ones.
+         */
+        void removeAll( Collection<Long> excluded )
+        {
+            byte[] target = new byte[bytes.length];
+            int targetOffset = 0;
+            int kept = 0;
+            long previousKept = 0;
+            for ( IteratorState source = new IteratorState( this ); source.hasNext(); )
+            {
+                long id = source.next();
+                if ( !excluded.contains( id ) )
+                {   // A delta between two kept ids never needs more bytes than the deltas it replaces
+                    targetOffset = write( target, targetOffset, id - previousKept );
+                    previousKept = id;
+                    kept++;
+                }
+            }
+            bytes = target;
+            byteLength = targetOffset;
+            lastId = previousKept;
+            length = kept;
         }
 
-        @Override
         void shrink()
         {
-            if ( capacity() > length() )
+            if ( bytes.length > byteLength )
             {
-                ids = Arrays.copyOf( ids, length()+1 );
+                bytes = Arrays.copyOf( bytes, byteLength );
             }
         }
 
-        @Override
-        protected IdBlock copyAndShrink()
+        IdBlock copyAndShrink()
         {
-            LowIdBlock copy = new LowIdBlock();
-            copy.ids = Arrays.copyOf( ids, length()+1 );
+            IdBlock copy = new IdBlock( byteLength );
+            arraycopy( bytes, 0, copy.bytes, 0, byteLength );
+            copy.byteLength = byteLength;
+            copy.length = length;
+            copy.lastId = lastId;
             return copy;
         }
 
-        @Override
-        protected void extendArrayTo( int numberOfItemsToCopy, int newLength )
-        {
-            int[] newIds = new int[newLength+1];
-            arraycopy( ids, 0, newIds, 0, numberOfItemsToCopy+1 );
-            ids = newIds;
-        }
-
-        @Override
-        protected int length()
-        {
-            return ids[0];
-        }
-
-        @Override
-        protected int capacity()
-        {
-            return ids.length-1;
-        }
-
-        @Override
-        protected void setLength( int length )
+        int length()
         {
-            ids[0] = length;
-        }
-
-        @Override
-        protected long get( int index )
-        {
-            assert index >= 0 && index < length();
-            return ids[index+1]&0xFFFFFFFFL;
-        }
-
-        @Override
-        protected void set( long id, int index )
-        {
-            ids[index+1] = (int) id; // guarded from outside that this is indeed an int
-        }
-    }
-
-    private static class HighIdBlock extends IdBlock
-    {
-        // First element is the actual length w/o the slack
-        private int[] ids;
-        private byte[] highBits;
-
-        public HighIdBlock()
-        {
-            ids = new int[3];
-            highBits = new byte[3];
-        }
-
-        private HighIdBlock( LowIdBlock lowIdBlock )
-        {
-            ids = Arrays.copyOf( lowIdBlock.ids, lowIdBlock.ids.length );
-            highBits = new byte[ids.length];
-        }
-
-        @Override
-        public int sizeOfObjectInBytesIncludingOverhead()
-        {
-            return withObjectOverhead(
-                    withReference( withArrayOverhead( 4*ids.length ) ) +
-                            withReference( withArrayOverhead( ids.length ) ) );
-        }
-
-        @Override
-        protected boolean accepts( long id )
-        {
-            return true;
+            return length;
         }
 
-        @Override
-        protected boolean accepts( IdBlock block )
+        private void ensureCapacity( int additionalBytes )
         {
-            return true;
+            int required = byteLength + additionalBytes;
+            if ( required > bytes.length )
+            {   // Grow by half of the current size at least, so that a long series of appends
+                // only reallocates a logarithmic number of times
+                int newCapacity = Math.max( bytes.length + (bytes.length >> 1), required );
+                bytes = Arrays.copyOf( bytes, newCapacity );
+            }
         }
 
-        @Override
-        protected void append( IdBlock source, int targetStartIndex, int itemsToCopy )
+        private static int write( byte[] target, int offset, long delta )
         {
-            if ( source instanceof LowIdBlock )
-            {
-                arraycopy( ((LowIdBlock)source).ids, 1, ids, targetStartIndex, itemsToCopy );
-            }
-            else
+            long zigZag = (delta << 1) ^ (delta >> 63);
+            while ( (zigZag & ~0x7FL) != 0 )
             {
-                arraycopy( ((HighIdBlock)source).ids, 1, ids, targetStartIndex, itemsToCopy );
-                arraycopy( ((HighIdBlock)source).highBits, 1, highBits, targetStartIndex, itemsToCopy );
+                target[offset++] = (byte) ((zigZag & 0x7F) | 0x80);
+                zigZag >>>= 7;
             }
+            target[offset++] = (byte) zigZag;
+            return offset;
         }
 
-        @Override
-        IdBlock upgradeToHighIdBlock()
-        {
-            return this;
-        }
-
-        @Override
-        void shrink()
+        private static long decodeZigZag( long zigZag )
         {
-            int itemsToCopy = length()+1;
-            ids = Arrays.copyOf( ids, itemsToCopy );
-            highBits = Arrays.copyOf( highBits, itemsToCopy );
-        }
-
-        @Override
-        protected IdBlock copyAndShrink()
-        {
-            HighIdBlock copy = new HighIdBlock();
-            int itemsToCopy = length()+1;
-            copy.ids = Arrays.copyOf( ids, itemsToCopy );
-            copy.highBits = Arrays.copyOf( highBits, itemsToCopy );
-            return copy;
-        }
-
-        @Override
-        protected void extendArrayTo( int numberOfItemsToCopy, int newLength )
-        {
-            int[] newIds = new int[newLength+1];
-            byte[] newHighBits = new byte[newLength+1];
-            arraycopy( ids, 0, newIds, 0, numberOfItemsToCopy+1 );
-            arraycopy( highBits, 0, newHighBits, 0, numberOfItemsToCopy+1 );
-            ids = newIds;
-            highBits = newHighBits;
-        }
-
-        @Override
-        protected int length()
-        {
-            return ids[0];
-        }
-
-        @Override
-        protected int capacity()
-        {
-            return ids.length-1;
-        }
-
-        @Override
-        protected void setLength( int length )
-        {
-            ids[0] = length;
-        }
-
-        @Override
-        protected long get( int index )
-        {
-            return ((long)highBits[index+1] << 32) | ids[index+1]&0xFFFFFFFFL;
-        }
-
-        @Override
-        protected void set( long id, int index )
-        {
-            ids[index+1] = (int)id;
-            highBits[index+1] = (byte) ((id&0xFF00000000L) >>> 32);
+            return (zigZag >>> 1) ^ -(zigZag & 1);
         }
     }
 
@@ -693,11 +557,12 @@ public class RelIdArray implements SizeOfObject
         private IdBlock block;
         private int relativePosition;
         private int length;
+        private int byteOffset;
+        private long previousId;
 
-        public IteratorState( IdBlock block, int relativePosition )
+        public IteratorState( IdBlock block )
         {
             this.block = block;
-            this.relativePosition = relativePosition;
             this.length = block.length();
         }
 
@@ -711,12 +576,37 @@ public class RelIdArray implements SizeOfObject
          */
         long next()
         {
-            return block.get( relativePosition++ );
+            byte[] bytes = block.bytes;
+            long zigZag = 0;
+            int shift = 0;
+            byte b;
+            do
+            {
+                b = bytes[byteOffset++];
+                zigZag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            }
+            while ( b < 0 );
+            relativePosition++;
+            return previousId += IdBlock.decodeZigZag( zigZag );
         }
 
         public void update( IdBlock block )
         {
-            this.block = block;
+            if ( block != this.block )
+            {   // Another block, which starts with the same ids as the previous one. Our byte offset
+                // is only valid for the block it was read from, so skip forward to where we were.
+                int position = relativePosition;
+                this.block = block;
+                this.relativePosition = 0;
+                this.byteOffset = 0;
+                this.previousId = 0;
+                this.length = block.length();
+                while ( relativePosition < position && hasNext() )
+                {
+                    next();
+                }
+            }
             this.length = block.length();
         }
     }
@@ -751,7 +641,7 @@ public class RelIdArray implements SizeOfObject
 
             if ( block != null )
             {
-                currentState = new IteratorState( block, 0 );
+                currentState = new IteratorState( block );
                 states[directionPosition] = currentState;
             }
         }
@@ -824,7 +714,7 @@ public class RelIdArray implements SizeOfObject
                 IdBlock block = currentDirection.getBlock( ids );
                 if ( block != null )
                 {
-                    currentState = new IteratorState( block, 0 );
+                    currentState = new IteratorState( block );
                     states[directionPosition] = currentState;
                     return true;
                 }
@@ -902,30 +792,12 @@ public class RelIdArray implements SizeOfObject
 
     private static void evictExcluded( RelIdArray ids, Collection<Long> excluded )
     {
-        for ( RelIdIteratorImpl iterator = (RelIdIteratorImpl) DirectionWrapper.BOTH.iterator( ids );
-              iterator.hasNext(); )
+        for ( DirectionWrapper direction : DirectionWrapper.values() )
         {
-            long value = iterator.next();
-            if ( excluded.contains( value ) )
+            IdBlock block = direction.getBlock( ids );
+            if ( block != null )
             {
-                boolean swapSuccessful = false;
-                IteratorState state = iterator.currentState;
-                IdBlock block = state.block;
-                for ( int j = block.length() - 1; j >= state.relativePosition; j--)
-                {
-                    long backValue = block.get( j );
-                    block.setLength( block.length()-1 );
-                    if ( !excluded.contains( backValue) )
-                    {
-                        block.set( backValue, state.relativePosition-1 );
-                        swapSuccessful = true;
-                        break;
-                    }
-                }
-                if ( !swapSuccessful ) // all elements from pos in remove
-                {
-                    block.setLength( block.length()-1 );
-                }
+                block.removeAll( excluded );
             }
         }
     }
@@ -19,6 +19,8 @@
  */
 package org.neo4j.kernel.impl.util.concurrent;
 
+import java.util.concurrent.locks.LockSupport;
+
 import org.neo4j.kernel.impl.locking.AcquireLockTimeoutException;
 
 public enum LockWaitStrategies implements WaitStrategy<AcquireLockTimeoutException>
@@ -46,8 +48,9 @@ public enum LockWaitStrategies implements WaitStrategy<AcquireLockTimeoutExcepti
     },
     INCREMENTAL_BACKOFF
     {
-        private final int spinIterations = 1000;
-        private final long multiplyUntilIteration = spinIterations + 2;
+        private final int spinIterations = 100;
+        // Parking for 2^20 ns, about a millisecond, at the most
+        private final int maxParkShift = 20;
 
         @Override
         public void apply( long iteration ) throws AcquireLockTimeoutException
@@ -58,21 +61,13 @@ public enum LockWaitStrategies implements WaitStrategy<AcquireLockTimeoutExcepti
                 return;
             }
 
-            try
-            {
-                if(iteration < multiplyUntilIteration )
-                {
-                    Thread.sleep( 0, 1 << (iteration - spinIterations) );
-                }
-                else
-                {
-                    Thread.sleep( 0, 500 );
-                }
-            }
-            catch(InterruptedException e)
+            // Park rather than spin, so that waiting threads leave the CPU to the ones doing actual work. Lock
+            // holders don't wake waiters up when they release, so the park time doubles for every iteration until
+            // it hits the max, to keep latency low for short waits without polling needlessly often on long ones.
+            LockSupport.parkNanos( 1L << Math.min( iteration - spinIterations, maxParkShift ) );
+            if(Thread.interrupted())
             {
-                Thread.interrupted();
-                throw new AcquireLockTimeoutException( e , "Interrupted while waiting.");
+                throw new AcquireLockTimeoutException( new InterruptedException(), "Interrupted while waiting." );
             }
         }
     };
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.info;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Lock contention statistics for one resource type.
+ */
+public final class LockWaitInfo
+{
+    private final String resourceType;
+    private final long waits;
+    private final long totalWaitTimeMillis;
+    private final long deadlocks;
+    private final long[] waitTimeHistogram;
+    private final String[] mostContendedResources;
+
+    @ConstructorProperties( { "resourceType", "waits", "totalWaitTimeMillis", "deadlocks", "waitTimeHistogram",
+            "mostContendedResources" } )
+    public LockWaitInfo( String resourceType, long waits, long totalWaitTimeMillis, long deadlocks,
+                         long[] waitTimeHistogram, String[] mostContendedResources )
+    {
+        this.resourceType = resourceType;
+        this.waits = waits;
+        this.totalWaitTimeMillis = totalWaitTimeMillis;
+        this.deadlocks = deadlocks;
+        this.waitTimeHistogram = waitTimeHistogram;
+        this.mostContendedResources = mostContendedResources;
+    }
+
+    public String getResourceType()
+    {
+        return resourceType;
+    }
+
+    public long getWaits()
+    {
+        return waits;
+    }
+
+    public long getTotalWaitTimeMillis()
+    {
+        return totalWaitTimeMillis;
+    }
+
+    public long getDeadlocks()
+    {
+        return deadlocks;
+    }
+
+    /**
+     * @return number of waits per duration, where element {@code i} counts waits of at least 2^i and less than
+     * 2^(i+1) microseconds.
+     */
+    public long[] getWaitTimeHistogram()
+    {
+        return waitTimeHistogram;
+    }
+
+    /**
+     * @return ids of the resources that were waited for most often, most contended first.
+     */
+    public String[] getMostContendedResources()
+    {
+        return mostContendedResources;
+    }
+
+    @Override
+    public String toString()
+    {
+        return resourceType + ": " + waits + " waits (" + totalWaitTimeMillis + " ms), " + deadlocks + " deadlocks";
+    }
+}
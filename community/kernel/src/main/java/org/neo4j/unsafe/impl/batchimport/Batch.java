@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.kernel.impl.nioneo.store.DynamicRecord;
+import org.neo4j.kernel.impl.nioneo.store.PrimitiveRecord;
+import org.neo4j.kernel.impl.nioneo.store.PropertyRecord;
+import org.neo4j.unsafe.impl.batchimport.input.InputEntity;
+
+/**
+ * A batch of input entities going through an import stage, together with the records they become.
+ */
+class Batch<INPUT extends InputEntity, RECORD extends PrimitiveRecord>
+{
+    final List<INPUT> input;
+    final List<RECORD> records;
+    final List<PropertyRecord> propertyRecords = new ArrayList<>();
+    final List<DynamicRecord> labelRecords = new ArrayList<>();
+
+    Batch( List<INPUT> input )
+    {
+        this.input = input;
+        this.records = new ArrayList<>( input.size() );
+    }
+
+    /**
+     * Reads the input into batches of the given size.
+     */
+    static <INPUT extends InputEntity, RECORD extends PrimitiveRecord> Iterator<Batch<INPUT, RECORD>> batchesOf(
+            final Iterator<INPUT> input, final int batchSize )
+    {
+        return new PrefetchingIterator<Batch<INPUT, RECORD>>()
+        {
+            @Override
+            protected Batch<INPUT, RECORD> fetchNextOrNull()
+            {
+                if ( !input.hasNext() )
+                {
+                    return null;
+                }
+                List<INPUT> entities = new ArrayList<>( batchSize );
+                while ( entities.size() < batchSize && input.hasNext() )
+                {
+                    entities.add( input.next() );
+                }
+                return new Batch<>( entities );
+            }
+        };
+    }
+}
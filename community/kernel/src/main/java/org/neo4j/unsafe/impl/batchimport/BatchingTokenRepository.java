@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.kernel.impl.nioneo.store.DynamicRecord;
+import org.neo4j.kernel.impl.nioneo.store.LabelTokenRecord;
+import org.neo4j.kernel.impl.nioneo.store.LabelTokenStore;
+import org.neo4j.kernel.impl.nioneo.store.PropertyKeyTokenRecord;
+import org.neo4j.kernel.impl.nioneo.store.PropertyKeyTokenStore;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipTypeTokenRecord;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipTypeTokenStore;
+import org.neo4j.kernel.impl.nioneo.store.TokenRecord;
+import org.neo4j.kernel.impl.nioneo.store.TokenStore;
+
+import static org.neo4j.helpers.collection.IteratorUtil.first;
+import static org.neo4j.kernel.impl.nioneo.store.PropertyStore.encodeString;
+
+/**
+ * Gives out token ids by name, creating tokens in the store the first time their names are seen. Can be used
+ * by many threads at once.
+ */
+public abstract class BatchingTokenRepository<RECORD extends TokenRecord>
+{
+    private final ConcurrentMap<String, Integer> tokens = new ConcurrentHashMap<>();
+    private final TokenStore<RECORD> store;
+
+    protected BatchingTokenRepository( TokenStore<RECORD> store )
+    {
+        this.store = store;
+    }
+
+    public int getOrCreateId( String name )
+    {
+        Integer id = tokens.get( name );
+        if ( id == null )
+        {
+            synchronized ( this )
+            {
+                id = tokens.get( name );
+                if ( id == null )
+                {
+                    id = create( name );
+                    tokens.put( name, id );
+                }
+            }
+        }
+        return id;
+    }
+
+    private int create( String name )
+    {
+        int id = (int) store.nextId();
+        RECORD record = newRecord( id );
+        record.setInUse( true );
+        record.setCreated();
+        Collection<DynamicRecord> nameRecords = store.allocateNameRecords( encodeString( name ) );
+        record.setNameId( (int) first( nameRecords ).getId() );
+        record.addNameRecords( nameRecords );
+        store.updateRecord( record );
+        return id;
+    }
+
+    protected abstract RECORD newRecord( int id );
+
+    public static class BatchingLabelTokenRepository extends BatchingTokenRepository<LabelTokenRecord>
+    {
+        public BatchingLabelTokenRepository( LabelTokenStore store )
+        {
+            super( store );
+        }
+
+        @Override
+        protected LabelTokenRecord newRecord( int id )
+        {
+            return new LabelTokenRecord( id );
+        }
+    }
+
+    public static class BatchingPropertyKeyTokenRepository extends BatchingTokenRepository<PropertyKeyTokenRecord>
+    {
+        public BatchingPropertyKeyTokenRepository( PropertyKeyTokenStore store )
+        {
+            super( store );
+        }
+
+        @Override
+        protected PropertyKeyTokenRecord newRecord( int id )
+        {
+            return new PropertyKeyTokenRecord( id );
+        }
+    }
+
+    public static class BatchingRelationshipTypeTokenRepository
+            extends BatchingTokenRepository<RelationshipTypeTokenRecord>
+    {
+        public BatchingRelationshipTypeTokenRepository( RelationshipTypeTokenStore store )
+        {
+            super( store );
+        }
+
+        @Override
+        protected RelationshipTypeTokenRecord newRecord( int id )
+        {
+            return new RelationshipTypeTokenRecord( id );
+        }
+    }
+}
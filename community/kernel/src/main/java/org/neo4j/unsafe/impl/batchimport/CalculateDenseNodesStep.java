@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import org.neo4j.kernel.impl.nioneo.store.RelationshipRecord;
+import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache;
+import org.neo4j.unsafe.impl.batchimport.input.InputRelationship;
+import org.neo4j.unsafe.impl.batchimport.staging.Step;
+
+/**
+ * Counts the degree of every node, so that it's known up front which nodes will be dense. A loop counts once.
+ */
+class CalculateDenseNodesStep extends Step<Batch<InputRelationship, RelationshipRecord>>
+{
+    private final NodeRelationshipCache cache;
+
+    CalculateDenseNodesStep( NodeRelationshipCache cache )
+    {
+        super( "CALCULATE", 1 );
+        this.cache = cache;
+    }
+
+    @Override
+    protected void process( Batch<InputRelationship, RelationshipRecord> batch )
+    {
+        for ( InputRelationship relationship : batch.input )
+        {
+            cache.incrementDegree( validNodeId( relationship.startNode(), relationship ) );
+            if ( !relationship.isLoop() )
+            {
+                cache.incrementDegree( validNodeId( relationship.endNode(), relationship ) );
+            }
+        }
+    }
+
+    private long validNodeId( long nodeId, InputRelationship relationship )
+    {
+        if ( nodeId < 0 || nodeId >= cache.highNodeId() )
+        {
+            throw new IllegalArgumentException( relationship + " refers to node " + nodeId +
+                    ", which is not among the imported nodes" );
+        }
+        return nodeId;
+    }
+}
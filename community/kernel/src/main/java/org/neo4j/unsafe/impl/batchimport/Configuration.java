@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import static java.lang.Math.max;
+
+/**
+ * Settings for how the {@link ParallelBatchImporter} divides its work.
+ */
+public class Configuration
+{
+    public static final Configuration DEFAULT =
+            new Configuration( 10_000, 20, max( 1, Runtime.getRuntime().availableProcessors() - 1 ) );
+
+    private final int batchSize;
+    private final int workAhead;
+    private final int processors;
+
+    /**
+     * @param batchSize number of nodes or relationships that go through the import stages together.
+     * @param workAhead number of batches at most that can be waiting to be processed by each step.
+     * @param processors number of threads each of the steps that can run in parallel gets.
+     */
+    public Configuration( int batchSize, int workAhead, int processors )
+    {
+        this.batchSize = batchSize;
+        this.workAhead = workAhead;
+        this.processors = processors;
+    }
+
+    public int batchSize()
+    {
+        return batchSize;
+    }
+
+    public int workAhead()
+    {
+        return workAhead;
+    }
+
+    public int processors()
+    {
+        return processors;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[batchSize:" + batchSize + ", workAhead:" + workAhead +
+               ", processors:" + processors + "]";
+    }
+}
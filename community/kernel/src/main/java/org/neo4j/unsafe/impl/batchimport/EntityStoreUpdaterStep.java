@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import org.neo4j.kernel.impl.nioneo.store.PrimitiveRecord;
+import org.neo4j.kernel.impl.nioneo.store.PropertyRecord;
+import org.neo4j.kernel.impl.nioneo.store.PropertyStore;
+import org.neo4j.kernel.impl.nioneo.store.RecordStore;
+import org.neo4j.unsafe.impl.batchimport.input.InputEntity;
+import org.neo4j.unsafe.impl.batchimport.staging.Step;
+
+/**
+ * Writes the records of a batch, and their property records, to the store. Runs in a single thread
+ * so that the store files are written from one place only.
+ */
+class EntityStoreUpdaterStep<INPUT extends InputEntity, RECORD extends PrimitiveRecord>
+        extends Step<Batch<INPUT, RECORD>>
+{
+    private final RecordStore<RECORD> entityStore;
+    private final PropertyStore propertyStore;
+
+    EntityStoreUpdaterStep( RecordStore<RECORD> entityStore, PropertyStore propertyStore )
+    {
+        super( "WRITE", 1 );
+        this.entityStore = entityStore;
+        this.propertyStore = propertyStore;
+    }
+
+    @Override
+    protected void process( Batch<INPUT, RECORD> batch )
+    {
+        for ( RECORD record : batch.records )
+        {
+            entityStore.updateRecord( record );
+        }
+        for ( PropertyRecord propertyRecord : batch.propertyRecords )
+        {
+            propertyStore.updateRecord( propertyRecord );
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.kernel.impl.nioneo.store.AbstractBaseRecord;
+
+/**
+ * A range of ids of records already in the store, going through an import stage together with those records.
+ */
+class IdBatch<RECORD extends AbstractBaseRecord>
+{
+    final long from;
+    final long to;
+    final List<RECORD> records;
+
+    /**
+     * @param from first id of the range, inclusive.
+     * @param to last id of the range, exclusive.
+     */
+    IdBatch( long from, long to )
+    {
+        this.from = from;
+        this.to = to;
+        this.records = new ArrayList<>( (int) (to - from) );
+    }
+
+    static <RECORD extends AbstractBaseRecord> Iterator<IdBatch<RECORD>> ascending( final long highId,
+            final int batchSize )
+    {
+        return new PrefetchingIterator<IdBatch<RECORD>>()
+        {
+            private long next;
+
+            @Override
+            protected IdBatch<RECORD> fetchNextOrNull()
+            {
+                if ( next >= highId )
+                {
+                    return null;
+                }
+                long from = next;
+                next = Math.min( highId, from + batchSize );
+                return new IdBatch<>( from, next );
+            }
+        };
+    }
+
+    /**
+     * Batches starting from the highest ids, for going through records in descending id order.
+     */
+    static <RECORD extends AbstractBaseRecord> Iterator<IdBatch<RECORD>> descending( final long highId,
+            final int batchSize )
+    {
+        return new PrefetchingIterator<IdBatch<RECORD>>()
+        {
+            private long next = highId;
+
+            @Override
+            protected IdBatch<RECORD> fetchNextOrNull()
+            {
+                if ( next <= 0 )
+                {
+                    return null;
+                }
+                long to = next;
+                next = Math.max( 0, to - batchSize );
+                return new IdBatch<>( next, to );
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import java.util.Arrays;
+
+import org.neo4j.kernel.impl.nioneo.store.NodeRecord;
+import org.neo4j.kernel.impl.nioneo.store.NodeStore;
+import org.neo4j.kernel.impl.nioneo.store.Record;
+import org.neo4j.unsafe.impl.batchimport.BatchingTokenRepository.BatchingLabelTokenRepository;
+import org.neo4j.unsafe.impl.batchimport.input.InputNode;
+import org.neo4j.unsafe.impl.batchimport.staging.Step;
+
+import static org.neo4j.kernel.impl.nioneo.store.labels.NodeLabelsField.parseLabelsField;
+
+/**
+ * Creates the node records of a batch, with their labels. Labels that don't fit inlined in the node record
+ * get dynamic records allocated for them.
+ */
+class NodeEncoderStep extends Step<Batch<InputNode, NodeRecord>>
+{
+    private final NodeStore nodeStore;
+    private final BatchingLabelTokenRepository labels;
+
+    NodeEncoderStep( int threads, NodeStore nodeStore, BatchingLabelTokenRepository labels )
+    {
+        super( "NODES", threads );
+        this.nodeStore = nodeStore;
+        this.labels = labels;
+    }
+
+    @Override
+    protected void process( Batch<InputNode, NodeRecord> batch )
+    {
+        for ( InputNode input : batch.input )
+        {
+            if ( input.id() < 0 )
+            {
+                throw new IllegalArgumentException( "Invalid node id " + input.id() + " for " + input );
+            }
+            NodeRecord node = new NodeRecord( input.id(), false,
+                    Record.NO_NEXT_RELATIONSHIP.intValue(), Record.NO_NEXT_PROPERTY.intValue() );
+            node.setInUse( true );
+            long[] labelIds = labelIds( input.labels() );
+            if ( labelIds.length > 0 )
+            {
+                batch.labelRecords.addAll( parseLabelsField( node ).put( labelIds, nodeStore ) );
+            }
+            batch.records.add( node );
+        }
+    }
+
+    private long[] labelIds( String[] names )
+    {
+        long[] ids = new long[names.length];
+        for ( int i = 0; i < names.length; i++ )
+        {
+            ids[i] = labels.getOrCreateId( names[i] );
+        }
+
+        // The label field is expected to be sorted and without duplicates
+        Arrays.sort( ids );
+        int unique = 0;
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            if ( unique == 0 || ids[unique - 1] != ids[i] )
+            {
+                ids[unique++] = ids[i];
+            }
+        }
+        return unique == ids.length ? ids : Arrays.copyOf( ids, unique );
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import org.neo4j.kernel.impl.nioneo.store.NodeRecord;
+import org.neo4j.kernel.impl.nioneo.store.NodeStore;
+import org.neo4j.kernel.impl.nioneo.store.Record;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipGroupStore;
+import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache;
+import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache.Group;
+import org.neo4j.unsafe.impl.batchimport.staging.Step;
+
+import static org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper.BOTH;
+import static org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper.INCOMING;
+import static org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper.OUTGOING;
+
+/**
+ * Points every node to its first relationship, now that all relationships are linked. Dense nodes instead get
+ * their relationship group records created here, one per relationship type, and point to the first group.
+ */
+class NodeFirstRelationshipStep extends Step<IdBatch<NodeRecord>>
+{
+    private final NodeStore nodeStore;
+    private final RelationshipGroupStore groupStore;
+    private final NodeRelationshipCache cache;
+
+    NodeFirstRelationshipStep( NodeStore nodeStore, RelationshipGroupStore groupStore, NodeRelationshipCache cache )
+    {
+        super( "FIRST RELATIONSHIP", 1 );
+        this.nodeStore = nodeStore;
+        this.groupStore = groupStore;
+        this.cache = cache;
+    }
+
+    @Override
+    protected void process( IdBatch<NodeRecord> batch )
+    {
+        for ( long nodeId = batch.from; nodeId < batch.to; nodeId++ )
+        {
+            if ( cache.degree( nodeId ) == 0 )
+            {
+                continue;
+            }
+
+            NodeRecord node = nodeStore.forceGetRecord( nodeId );
+            if ( !node.inUse() )
+            {
+                throw new IllegalArgumentException( "Node " + nodeId + " has relationships, " +
+                        "but is not among the imported nodes" );
+            }
+            if ( cache.isDense( nodeId ) )
+            {
+                node.setDense( true );
+                node.setNextRel( createGroups( nodeId ) );
+            }
+            else
+            {
+                node.setNextRel( cache.firstRelationship( nodeId ) );
+            }
+            nodeStore.updateRecord( node );
+        }
+    }
+
+    private long createGroups( long nodeId )
+    {
+        // Groups are kept sorted by type in the chain, the same way the kernel keeps them
+        RelationshipGroupRecord previous = null;
+        long first = Record.NO_NEXT_RELATIONSHIP.intValue();
+        for ( Group group : cache.groups( nodeId ) )
+        {
+            RelationshipGroupRecord record = new RelationshipGroupRecord( groupStore.nextId(), group.type() );
+            record.setInUse( true );
+            record.setOwningNode( nodeId );
+            record.setFirstOut( group.first( OUTGOING ) );
+            record.setFirstIn( group.first( INCOMING ) );
+            record.setFirstLoop( group.first( BOTH ) );
+            if ( previous == null )
+            {
+                first = record.getId();
+            }
+            else
+            {
+                previous.setNext( record.getId() );
+                groupStore.updateRecord( previous );
+            }
+            previous = record;
+        }
+        if ( previous != null )
+        {
+            groupStore.updateRecord( previous );
+        }
+        return first;
+    }
+}
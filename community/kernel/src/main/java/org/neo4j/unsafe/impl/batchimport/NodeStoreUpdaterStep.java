@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import org.neo4j.kernel.impl.nioneo.store.NodeRecord;
+import org.neo4j.kernel.impl.nioneo.store.NodeStore;
+import org.neo4j.kernel.impl.nioneo.store.PropertyStore;
+import org.neo4j.unsafe.impl.batchimport.input.InputNode;
+
+/**
+ * Writes node records along with their dynamic label records. Node ids come from the input rather than
+ * the id generator, so the high id of the node store is raised to cover each batch before it's written.
+ */
+class NodeStoreUpdaterStep extends EntityStoreUpdaterStep<InputNode, NodeRecord>
+{
+    private final NodeStore nodeStore;
+
+    NodeStoreUpdaterStep( NodeStore nodeStore, PropertyStore propertyStore )
+    {
+        super( nodeStore, propertyStore );
+        this.nodeStore = nodeStore;
+    }
+
+    @Override
+    protected void process( Batch<InputNode, NodeRecord> batch )
+    {
+        long highId = nodeStore.getHighId();
+        for ( NodeRecord node : batch.records )
+        {
+            highId = Math.max( highId, node.getId() + 1 );
+        }
+        nodeStore.setHighId( highId );
+
+        super.process( batch );
+        nodeStore.updateDynamicLabelRecords( batch.labelRecords );
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.helpers.Settings;
+import org.neo4j.kernel.DefaultIdGeneratorFactory;
+import org.neo4j.kernel.InternalAbstractGraphDatabase;
+import org.neo4j.kernel.StoreLocker;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.nioneo.store.DefaultWindowPoolFactory;
+import org.neo4j.kernel.impl.nioneo.store.FileSystemAbstraction;
+import org.neo4j.kernel.impl.nioneo.store.NeoStore;
+import org.neo4j.kernel.impl.nioneo.store.NodeRecord;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipRecord;
+import org.neo4j.kernel.impl.nioneo.store.StoreFactory;
+import org.neo4j.kernel.impl.nioneo.store.counts.CountsStore;
+import org.neo4j.kernel.impl.util.FileUtils;
+import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.unsafe.impl.batchimport.BatchingTokenRepository.BatchingLabelTokenRepository;
+import org.neo4j.unsafe.impl.batchimport.BatchingTokenRepository.BatchingPropertyKeyTokenRepository;
+import org.neo4j.unsafe.impl.batchimport.BatchingTokenRepository.BatchingRelationshipTypeTokenRepository;
+import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache;
+import org.neo4j.unsafe.impl.batchimport.input.InputNode;
+import org.neo4j.unsafe.impl.batchimport.input.InputRelationship;
+import org.neo4j.unsafe.impl.batchimport.staging.Stage;
+
+import static java.lang.System.currentTimeMillis;
+
+/**
+ * {@link BatchImporter} that writes a new store directly, without transactions, in a series of stages.
+ * The stages run one after the other, and each stage is a pipeline of steps that batches of records
+ * go through, where the steps that can do so run in several threads.
+ *
+ * <ol>
+ * <li>Nodes are created with their labels and properties. Node ids are taken from the input.</li>
+ * <li>The degree of every node is counted, to know which nodes will be dense.</li>
+ * <li>Relationships are created with their properties, and put first in the chains of their nodes.</li>
+ * <li>Nodes are pointed to their first relationship, and dense nodes get their relationship groups.</li>
+ * <li>Relationships are gone through backwards to set their previous pointers.</li>
+ * </ol>
+ *
+ * Schema indexes, the label scan store and the counts store are all built the first time the database starts.
+ */
+public class ParallelBatchImporter implements BatchImporter
+{
+    private final File storeDir;
+    private final FileSystemAbstraction fileSystem;
+    private final Configuration config;
+    private final Config dbConfig;
+    private final StringLogger logger;
+
+    public ParallelBatchImporter( String storeDir, FileSystemAbstraction fileSystem, Configuration config,
+                                  Map<String, String> dbConfig )
+    {
+        this.storeDir = new File( FileUtils.fixSeparatorsInPath( storeDir ) );
+        this.fileSystem = fileSystem;
+        this.config = config;
+        this.dbConfig = new Config( params( storeDir, dbConfig ), GraphDatabaseSettings.class );
+        this.logger = StringLogger.loggerDirectory( fileSystem, this.storeDir );
+    }
+
+    private static Map<String, String> params( String storeDir, Map<String, String> dbConfig )
+    {
+        Map<String, String> params = new HashMap<>();
+        params.put( "neostore.nodestore.db.mapped_memory", "20M" );
+        params.put( "neostore.propertystore.db.mapped_memory", "90M" );
+        params.put( "neostore.propertystore.db.index.mapped_memory", "1M" );
+        params.put( "neostore.propertystore.db.index.keys.mapped_memory", "1M" );
+        params.put( "neostore.propertystore.db.strings.mapped_memory", "130M" );
+        params.put( "neostore.propertystore.db.arrays.mapped_memory", "130M" );
+        params.put( "neostore.relationshipstore.db.mapped_memory", "50M" );
+        params.put( GraphDatabaseSettings.use_memory_mapped_buffers.name(), Settings.FALSE );
+        params.put( InternalAbstractGraphDatabase.Configuration.store_dir.name(), storeDir );
+        params.putAll( dbConfig );
+        return params;
+    }
+
+    @Override
+    public void doImport( Iterable<InputNode> nodes, Iterable<InputRelationship> relationships ) throws IOException
+    {
+        fileSystem.mkdirs( storeDir );
+        File storeFile = new File( storeDir, NeoStore.DEFAULT_NAME );
+        if ( fileSystem.fileExists( storeFile ) )
+        {
+            throw new IllegalStateException( "Can only import into a new store, but " + storeDir +
+                    " already contains one" );
+        }
+
+        StoreLocker storeLocker = new StoreLocker( fileSystem );
+        storeLocker.checkLock( storeDir );
+        long startTime = currentTimeMillis();
+        logger.info( "Starting import into " + storeDir + " with " + config );
+        try
+        {
+            StoreFactory storeFactory = new StoreFactory( StoreFactory.configForNeoStore( dbConfig, storeFile ),
+                    new DefaultIdGeneratorFactory(), new DefaultWindowPoolFactory(), fileSystem, logger, null );
+            NeoStore neoStore = storeFactory.createNeoStore( storeFile );
+            try
+            {
+                importInto( neoStore, nodes, relationships );
+            }
+            finally
+            {
+                neoStore.close();
+            }
+            // Counts aren't kept during the import, so have them rebuilt when the database starts
+            fileSystem.deleteFile( new File( storeDir, CountsStore.FILE_NAME ) );
+            logger.info( "Import completed in " + (currentTimeMillis() - startTime) + "ms" );
+        }
+        finally
+        {
+            storeLocker.release();
+            logger.close();
+        }
+    }
+
+    private void importInto( NeoStore neoStore, Iterable<InputNode> nodes, Iterable<InputRelationship> relationships )
+    {
+        BatchingPropertyKeyTokenRepository propertyKeys =
+                new BatchingPropertyKeyTokenRepository( neoStore.getPropertyStore().getPropertyKeyTokenStore() );
+        BatchingLabelTokenRepository labels = new BatchingLabelTokenRepository( neoStore.getLabelTokenStore() );
+        BatchingRelationshipTypeTokenRepository types =
+                new BatchingRelationshipTypeTokenRepository( neoStore.getRelationshipTypeStore() );
+        int processors = config.processors();
+
+        execute( new Stage<>( "Nodes", Batch.<InputNode, NodeRecord>batchesOf(
+                nodes.iterator(), config.batchSize() ), config.workAhead() )
+                .add( new NodeEncoderStep( processors, neoStore.getNodeStore(), labels ) )
+                .add( new PropertyEncoderStep<InputNode, NodeRecord>(
+                        processors, neoStore.getPropertyStore(), propertyKeys ) )
+                .add( new NodeStoreUpdaterStep( neoStore.getNodeStore(), neoStore.getPropertyStore() ) ) );
+
+        NodeRelationshipCache cache = new NodeRelationshipCache(
+                neoStore.getNodeStore().getHighId(), neoStore.getDenseNodeThreshold() );
+        execute( new Stage<>( "Calculate dense nodes", Batch.<InputRelationship, RelationshipRecord>batchesOf(
+                relationships.iterator(), config.batchSize() ), config.workAhead() )
+                .add( new CalculateDenseNodesStep( cache ) ) );
+
+        execute( new Stage<>( "Relationships", Batch.<InputRelationship, RelationshipRecord>batchesOf(
+                relationships.iterator(), config.batchSize() ), config.workAhead() )
+                .add( new RelationshipLinkStep( neoStore.getRelationshipStore(), types, cache ) )
+                .add( new PropertyEncoderStep<InputRelationship, RelationshipRecord>(
+                        processors, neoStore.getPropertyStore(), propertyKeys ) )
+                .add( new EntityStoreUpdaterStep<InputRelationship, RelationshipRecord>(
+                        neoStore.getRelationshipStore(), neoStore.getPropertyStore() ) ) );
+
+        // Must run before the link back stage, which changes what the cache says is first in each chain
+        execute( new Stage<>( "Node first relationship", IdBatch.<NodeRecord>ascending(
+                neoStore.getNodeStore().getHighId(), config.batchSize() ), config.workAhead() )
+                .add( new NodeFirstRelationshipStep( neoStore.getNodeStore(),
+                        neoStore.getRelationshipGroupStore(), cache ) ) );
+
+        execute( new Stage<>( "Relationship back link", IdBatch.<RelationshipRecord>descending(
+                neoStore.getRelationshipStore().getHighId(), config.batchSize() ), config.workAhead() )
+                .add( new ReadRelationshipRecordsStep( neoStore.getRelationshipStore() ) )
+                .add( new RelationshipLinkbackStep( cache ) )
+                .add( new UpdateRelationshipRecordsStep( neoStore.getRelationshipStore() ) ) );
+    }
+
+    private void execute( Stage<?> stage )
+    {
+        long startTime = currentTimeMillis();
+        stage.execute();
+        logger.info( "Import stage " + stage + " completed in " + (currentTimeMillis() - startTime) + "ms" );
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import java.util.List;
+
+import org.neo4j.kernel.impl.nioneo.store.PrimitiveRecord;
+import org.neo4j.kernel.impl.nioneo.store.PropertyBlock;
+import org.neo4j.kernel.impl.nioneo.store.PropertyRecord;
+import org.neo4j.kernel.impl.nioneo.store.PropertyStore;
+import org.neo4j.kernel.impl.nioneo.store.PropertyType;
+import org.neo4j.kernel.impl.nioneo.store.Record;
+import org.neo4j.unsafe.impl.batchimport.BatchingTokenRepository.BatchingPropertyKeyTokenRepository;
+import org.neo4j.unsafe.impl.batchimport.input.InputEntity;
+import org.neo4j.unsafe.impl.batchimport.staging.Step;
+
+/**
+ * Encodes the properties of each entity in a batch into a chain of property records, pointed to by the
+ * record of that entity. Ids are allocated for the property records and any dynamic records for long values,
+ * but writing them is left to a later step. Can run in parallel since it only needs the record ids to be unique.
+ */
+class PropertyEncoderStep<INPUT extends InputEntity, RECORD extends PrimitiveRecord>
+        extends Step<Batch<INPUT, RECORD>>
+{
+    private final PropertyStore propertyStore;
+    private final BatchingPropertyKeyTokenRepository propertyKeys;
+
+    PropertyEncoderStep( int threads, PropertyStore propertyStore, BatchingPropertyKeyTokenRepository propertyKeys )
+    {
+        super( "PROPERTIES", threads );
+        this.propertyStore = propertyStore;
+        this.propertyKeys = propertyKeys;
+    }
+
+    @Override
+    protected void process( Batch<INPUT, RECORD> batch )
+    {
+        for ( int i = 0; i < batch.input.size(); i++ )
+        {
+            INPUT entity = batch.input.get( i );
+            RECORD record = batch.records.get( i );
+            record.setNextProp( encode( entity, record, batch.propertyRecords ) );
+        }
+    }
+
+    private long encode( INPUT entity, RECORD owner, List<PropertyRecord> target )
+    {
+        if ( entity.propertyCount() == 0 )
+        {
+            return Record.NO_NEXT_PROPERTY.intValue();
+        }
+
+        PropertyRecord current = newPropertyRecord( owner );
+        long first = current.getId();
+        for ( int i = 0; i < entity.propertyCount(); i++ )
+        {
+            PropertyBlock block = new PropertyBlock();
+            propertyStore.encodeValue( block, propertyKeys.getOrCreateId( entity.propertyKey( i ) ),
+                    entity.propertyValue( i ) );
+            if ( current.size() + block.getSize() > PropertyType.getPayloadSize() )
+            {
+                target.add( current );
+                PropertyRecord previous = current;
+                current = newPropertyRecord( owner );
+                previous.setNextProp( current.getId() );
+                current.setPrevProp( previous.getId() );
+            }
+            current.addPropertyBlock( block );
+        }
+        target.add( current );
+        return first;
+    }
+
+    private PropertyRecord newPropertyRecord( RECORD owner )
+    {
+        PropertyRecord record = new PropertyRecord( propertyStore.nextId(), owner );
+        record.setInUse( true );
+        return record;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import org.neo4j.kernel.impl.nioneo.store.RelationshipRecord;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipStore;
+import org.neo4j.unsafe.impl.batchimport.BatchingTokenRepository.BatchingRelationshipTypeTokenRepository;
+import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache;
+import org.neo4j.unsafe.impl.batchimport.input.InputRelationship;
+import org.neo4j.unsafe.impl.batchimport.staging.Step;
+
+import static org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper.BOTH;
+import static org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper.INCOMING;
+import static org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper.OUTGOING;
+
+/**
+ * Creates the relationship records and links each one in front of the chains it's part of, i.e. sets its
+ * next pointers. Relationship ids are handed out in input order, so every chain ends up in descending id order,
+ * which is what {@link RelationshipLinkbackStep} later relies on when setting the previous pointers.
+ * Runs in a single thread since the order matters.
+ */
+class RelationshipLinkStep extends Step<Batch<InputRelationship, RelationshipRecord>>
+{
+    private final RelationshipStore relationshipStore;
+    private final BatchingRelationshipTypeTokenRepository types;
+    private final NodeRelationshipCache cache;
+
+    RelationshipLinkStep( RelationshipStore relationshipStore, BatchingRelationshipTypeTokenRepository types,
+                          NodeRelationshipCache cache )
+    {
+        super( "LINK", 1 );
+        this.relationshipStore = relationshipStore;
+        this.types = types;
+        this.cache = cache;
+    }
+
+    @Override
+    protected void process( Batch<InputRelationship, RelationshipRecord> batch )
+    {
+        for ( InputRelationship input : batch.input )
+        {
+            long id = relationshipStore.nextId();
+            int type = types.getOrCreateId( input.type() );
+            RelationshipRecord record = new RelationshipRecord( id, input.startNode(), input.endNode(), type );
+            record.setInUse( true );
+            if ( input.isLoop() )
+            {
+                long next = cache.putFirst( input.startNode(), type, BOTH, id );
+                record.setFirstNextRel( next );
+                record.setSecondNextRel( next );
+            }
+            else
+            {
+                record.setFirstNextRel( cache.putFirst( input.startNode(), type, OUTGOING, id ) );
+                record.setSecondNextRel( cache.putFirst( input.endNode(), type, INCOMING, id ) );
+            }
+            batch.records.add( record );
+        }
+    }
+}
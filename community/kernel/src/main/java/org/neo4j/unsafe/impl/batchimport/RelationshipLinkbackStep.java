@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import org.neo4j.kernel.impl.nioneo.store.Record;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipRecord;
+import org.neo4j.unsafe.impl.batchimport.cache.NodeRelationshipCache;
+import org.neo4j.unsafe.impl.batchimport.staging.Step;
+
+import static org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper.BOTH;
+import static org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper.INCOMING;
+import static org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper.OUTGOING;
+
+/**
+ * Sets the previous pointers of relationships, going through them in descending id order, i.e. from the start
+ * of every chain towards its end. The first relationship in a chain gets the length of the chain instead,
+ * the way the kernel keeps it. Runs in a single thread since the order matters.
+ */
+class RelationshipLinkbackStep extends Step<IdBatch<RelationshipRecord>>
+{
+    private static final long NO_PREV = Record.NO_PREV_RELATIONSHIP.intValue();
+
+    private final NodeRelationshipCache cache;
+
+    RelationshipLinkbackStep( NodeRelationshipCache cache )
+    {
+        super( "LINK BACK", 1 );
+        this.cache = cache;
+    }
+
+    @Override
+    protected void process( IdBatch<RelationshipRecord> batch )
+    {
+        for ( RelationshipRecord record : batch.records )
+        {
+            long id = record.getId();
+            int type = record.getType();
+            if ( record.getFirstNode() == record.getSecondNode() )
+            {
+                long node = record.getFirstNode();
+                long prev = cache.putPrevious( node, type, BOTH, id );
+                boolean first = prev == NO_PREV;
+                long value = first ? cache.chainLength( node, type, BOTH ) : prev;
+                record.setFirstPrevRel( value );
+                record.setSecondPrevRel( value );
+                record.setFirstInFirstChain( first );
+                record.setFirstInSecondChain( first );
+            }
+            else
+            {
+                long startNode = record.getFirstNode();
+                long prev = cache.putPrevious( startNode, type, OUTGOING, id );
+                record.setFirstInFirstChain( prev == NO_PREV );
+                record.setFirstPrevRel( prev == NO_PREV ? cache.chainLength( startNode, type, OUTGOING ) : prev );
+
+                long endNode = record.getSecondNode();
+                prev = cache.putPrevious( endNode, type, INCOMING, id );
+                record.setFirstInSecondChain( prev == NO_PREV );
+                record.setSecondPrevRel( prev == NO_PREV ? cache.chainLength( endNode, type, INCOMING ) : prev );
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import org.neo4j.kernel.impl.nioneo.store.RelationshipRecord;
+import org.neo4j.kernel.impl.nioneo.store.RelationshipStore;
+import org.neo4j.unsafe.impl.batchimport.staging.Step;
+
+/**
+ * Writes back relationship records that have been updated by an earlier step.
+ */
+class UpdateRelationshipRecordsStep extends Step<IdBatch<RelationshipRecord>>
+{
+    private final RelationshipStore relationshipStore;
+
+    UpdateRelationshipRecordsStep( RelationshipStore relationshipStore )
+    {
+        super( "WRITE", 1 );
+        this.relationshipStore = relationshipStore;
+    }
+
+    @Override
+    protected void process( IdBatch<RelationshipRecord> batch )
+    {
+        for ( RelationshipRecord record : batch.records )
+        {
+            relationshipStore.updateRecord( record );
+        }
+    }
+}
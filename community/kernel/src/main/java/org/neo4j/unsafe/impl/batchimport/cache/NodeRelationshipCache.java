@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeMap;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+import org.neo4j.kernel.impl.nioneo.store.Record;
+import org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper;
+
+/**
+ * Keeps what the batch importer needs to know about the relationships of each node while linking relationships
+ * together: how many relationships a node has and which relationship is currently at the head of its chain.
+ * Nodes with more relationships than the dense node threshold have one chain per relationship type and
+ * direction, kept in a {@link Group} each.
+ *
+ * Relationships are linked in two passes. Going forwards, each new relationship is put first in the chains of its
+ * nodes, pointing to the relationship that was first before it. Going backwards, each relationship is pointed to
+ * by the one that was put in front of it. The chain heads kept here are updated by both passes, so what the
+ * first relationship of a node is must be read between the two.
+ *
+ * Not thread safe, each pass is expected to be done by a single thread.
+ */
+public class NodeRelationshipCache
+{
+    private static final long EMPTY = Record.NO_NEXT_RELATIONSHIP.intValue();
+
+    private final LongArray degrees;
+    private final LongArray heads;
+    private final PrimitiveLongObjectMap<TreeMap<Integer, Group>> denseNodes = Primitive.longObjectMap();
+    private final int denseNodeThreshold;
+    private final long highNodeId;
+
+    public NodeRelationshipCache( long highNodeId, int denseNodeThreshold )
+    {
+        this.highNodeId = highNodeId;
+        this.denseNodeThreshold = denseNodeThreshold;
+        this.degrees = new LongArray( highNodeId, 0 );
+        this.heads = new LongArray( highNodeId, EMPTY );
+    }
+
+    public long highNodeId()
+    {
+        return highNodeId;
+    }
+
+    /**
+     * Counts one more relationship for the given node. All relationships must be counted before any is linked.
+     */
+    public void incrementDegree( long nodeId )
+    {
+        degrees.set( nodeId, degrees.get( nodeId ) + 1 );
+    }
+
+    public long degree( long nodeId )
+    {
+        return degrees.get( nodeId );
+    }
+
+    public boolean isDense( long nodeId )
+    {
+        return degrees.get( nodeId ) > denseNodeThreshold;
+    }
+
+    /**
+     * Puts the given relationship first in the chain of the given node.
+     *
+     * @return the relationship that was first in the chain before, i.e. the next relationship of the given one.
+     */
+    public long putFirst( long nodeId, int type, DirectionWrapper direction, long relationshipId )
+    {
+        if ( isDense( nodeId ) )
+        {
+            Group group = group( nodeId, type );
+            group.count[direction.ordinal()]++;
+            return group.getAndSet( direction, relationshipId );
+        }
+        return heads.getAndSet( nodeId, relationshipId );
+    }
+
+    /**
+     * Visits the given relationship on the way back through the chain of the given node, where it must be visited
+     * in the reverse order of {@link #putFirst(long, int, DirectionWrapper, long) forwards}.
+     *
+     * @return the relationship before the given one in the chain, or {@link Record#NO_PREV_RELATIONSHIP} if the
+     * given relationship is the first one.
+     */
+    public long putPrevious( long nodeId, int type, DirectionWrapper direction, long relationshipId )
+    {
+        long previous;
+        if ( isDense( nodeId ) )
+        {
+            previous = group( nodeId, type ).getAndSet( direction, relationshipId );
+        }
+        else
+        {
+            previous = heads.getAndSet( nodeId, relationshipId );
+        }
+        return previous == relationshipId ? Record.NO_PREV_RELATIONSHIP.intValue() : previous;
+    }
+
+    /**
+     * @return the number of relationships in the chain of the given node that relationships of the given type and
+     * direction are in.
+     */
+    public long chainLength( long nodeId, int type, DirectionWrapper direction )
+    {
+        return isDense( nodeId ) ? group( nodeId, type ).count[direction.ordinal()] : degrees.get( nodeId );
+    }
+
+    /**
+     * @return the first relationship of a node that is not dense, or {@link Record#NO_NEXT_RELATIONSHIP}.
+     */
+    public long firstRelationship( long nodeId )
+    {
+        return heads.get( nodeId );
+    }
+
+    /**
+     * @return the relationship groups of a dense node, ordered by type.
+     */
+    public Collection<Group> groups( long nodeId )
+    {
+        return denseNodes.get( nodeId ).values();
+    }
+
+    private Group group( long nodeId, int type )
+    {
+        TreeMap<Integer, Group> groups = denseNodes.get( nodeId );
+        if ( groups == null )
+        {
+            denseNodes.put( nodeId, groups = new TreeMap<>() );
+        }
+        Group group = groups.get( type );
+        if ( group == null )
+        {
+            groups.put( type, group = new Group( type ) );
+        }
+        return group;
+    }
+
+    /**
+     * The chains of relationships of one type that a dense node has, one for each direction.
+     */
+    public static class Group
+    {
+        private final int type;
+        private final long[] first = {EMPTY, EMPTY, EMPTY};
+        private final long[] count = new long[3];
+
+        Group( int type )
+        {
+            this.type = type;
+        }
+
+        public int type()
+        {
+            return type;
+        }
+
+        public long first( DirectionWrapper direction )
+        {
+            return first[direction.ordinal()];
+        }
+
+        long getAndSet( DirectionWrapper direction, long relationshipId )
+        {
+            long previous = first[direction.ordinal()];
+            first[direction.ordinal()] = relationshipId;
+            return previous;
+        }
+    }
+
+    /**
+     * A long array addressed by node id, split up in chunks to not need one huge allocation.
+     */
+    private static class LongArray
+    {
+        private static final int CHUNK_BITS = 20;
+        private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+        private final long[][] chunks;
+
+        LongArray( long length, long defaultValue )
+        {
+            int chunkCount = (int) ((length + CHUNK_MASK) >>> CHUNK_BITS);
+            chunks = new long[chunkCount][];
+            for ( int i = 0; i < chunkCount; i++ )
+            {
+                long[] chunk = new long[1 << CHUNK_BITS];
+                if ( defaultValue != 0 )
+                {
+                    Arrays.fill( chunk, defaultValue );
+                }
+                chunks[i] = chunk;
+            }
+        }
+
+        long get( long index )
+        {
+            return chunks[(int) (index >>> CHUNK_BITS)][(int) (index & CHUNK_MASK)];
+        }
+
+        void set( long index, long value )
+        {
+            chunks[(int) (index >>> CHUNK_BITS)][(int) (index & CHUNK_MASK)] = value;
+        }
+
+        long getAndSet( long index, long value )
+        {
+            long[] chunk = chunks[(int) (index >>> CHUNK_BITS)];
+            int offset = (int) (index & CHUNK_MASK);
+            long previous = chunk[offset];
+            chunk[offset] = value;
+            return previous;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport.input;
+
+import static java.lang.String.format;
+
+/**
+ * Common parts of the nodes and relationships given to a batch importer: their properties, as alternating keys
+ * and values.
+ */
+public abstract class InputEntity
+{
+    private static final Object[] NO_PROPERTIES = new Object[0];
+
+    private final Object[] properties;
+
+    protected InputEntity( Object[] properties )
+    {
+        if ( properties == null )
+        {
+            properties = NO_PROPERTIES;
+        }
+        if ( properties.length % 2 != 0 )
+        {
+            throw new IllegalArgumentException( format( "Properties must be given as key/value pairs, got %d items",
+                    properties.length ) );
+        }
+        this.properties = properties;
+    }
+
+    public int propertyCount()
+    {
+        return properties.length / 2;
+    }
+
+    public String propertyKey( int i )
+    {
+        return (String) properties[i * 2];
+    }
+
+    public Object propertyValue( int i )
+    {
+        return properties[i * 2 + 1];
+    }
+}
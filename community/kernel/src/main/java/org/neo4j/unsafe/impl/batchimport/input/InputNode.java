@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport.input;
+
+import java.util.Arrays;
+
+/**
+ * A node to import. The id given is the id the node will have in the store, and what relationships refer
+ * to it by.
+ */
+public class InputNode extends InputEntity
+{
+    private static final String[] NO_LABELS = new String[0];
+
+    private final long id;
+    private final String[] labels;
+
+    public InputNode( long id, Object[] properties, String... labels )
+    {
+        super( properties );
+        this.id = id;
+        this.labels = labels == null ? NO_LABELS : labels;
+    }
+
+    public long id()
+    {
+        return id;
+    }
+
+    public String[] labels()
+    {
+        return labels;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[id:" + id + ", labels:" + Arrays.toString( labels ) + "]";
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport.input;
+
+/**
+ * A relationship to import, between two nodes referred to by their ids. Relationships get their ids from the
+ * importer, in the order they are given.
+ */
+public class InputRelationship extends InputEntity
+{
+    private final long startNode;
+    private final long endNode;
+    private final String type;
+
+    public InputRelationship( long startNode, long endNode, String type, Object[] properties )
+    {
+        super( properties );
+        this.startNode = startNode;
+        this.endNode = endNode;
+        this.type = type;
+    }
+
+    public long startNode()
+    {
+        return startNode;
+    }
+
+    public long endNode()
+    {
+        return endNode;
+    }
+
+    public String type()
+    {
+        return type;
+    }
+
+    public boolean isLoop()
+    {
+        return startNode == endNode;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[(" + startNode + ")-[:" + type + "]->(" + endNode + ")]";
+    }
+}
@@ -0,0 +1,258 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport.staging;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.neo4j.helpers.Exceptions.launderedException;
+
+/**
+ * A pipeline of {@link Step steps} that batches go through, one step after the other. Every step runs in
+ * threads of its own, and steps are connected by bounded queues of batches, so that all steps of the stage work
+ * at the same time, on different batches, without any step getting too far ahead of the next.
+ *
+ * The stage ends when all batches from the input have gone through the last step. If any step fails the stage
+ * is aborted and the failure thrown from {@link #execute()}.
+ *
+ * @param <BATCH> the type of batches going through this stage.
+ */
+public class Stage<BATCH>
+{
+    private static final Object END_OF_BATCHES = new Object();
+
+    private final String name;
+    private final Iterator<BATCH> input;
+    private final int workAhead;
+    private final List<Step<BATCH>> steps = new ArrayList<>();
+
+    /**
+     * @param input the batches to send through the steps, read by a thread of its own.
+     * @param workAhead how many batches at most that can be waiting for each step.
+     */
+    public Stage( String name, Iterator<BATCH> input, int workAhead )
+    {
+        this.name = name;
+        this.input = input;
+        this.workAhead = workAhead;
+    }
+
+    public Stage<BATCH> add( Step<BATCH> step )
+    {
+        steps.add( step );
+        return this;
+    }
+
+    public String name()
+    {
+        return name;
+    }
+
+    /**
+     * Sends all batches through all steps, returning when the last batch has passed the last step.
+     */
+    public void execute()
+    {
+        if ( steps.isEmpty() )
+        {
+            throw new IllegalStateException( "Stage " + name + " has no steps" );
+        }
+
+        List<BlockingQueue<Object>> queues = new ArrayList<>( steps.size() );
+        for ( int i = 0; i < steps.size(); i++ )
+        {
+            queues.add( new ArrayBlockingQueue<>( workAhead ) );
+        }
+
+        Execution execution = new Execution();
+        execution.add( name + " input", new InputFeeder( queues.get( 0 ), steps.get( 0 ).threads(), execution ) );
+        for ( int i = 0; i < steps.size(); i++ )
+        {
+            Step<BATCH> step = steps.get( i );
+            boolean last = i == steps.size() - 1;
+            StepDriver driver = new StepDriver( step, queues.get( i ),
+                    last ? null : queues.get( i + 1 ), last ? 0 : steps.get( i + 1 ).threads(), execution );
+            for ( int thread = 0; thread < step.threads(); thread++ )
+            {
+                execution.add( name + " " + step.name() + "-" + thread, driver );
+            }
+        }
+        execution.run();
+    }
+
+    @Override
+    public String toString()
+    {
+        return name + steps;
+    }
+
+    private class InputFeeder implements Runnable
+    {
+        private final BlockingQueue<Object> out;
+        private final int consumers;
+        private final Execution execution;
+
+        InputFeeder( BlockingQueue<Object> out, int consumers, Execution execution )
+        {
+            this.out = out;
+            this.consumers = consumers;
+            this.execution = execution;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while ( input.hasNext() )
+                {
+                    out.put( input.next() );
+                }
+                for ( int i = 0; i < consumers; i++ )
+                {
+                    out.put( END_OF_BATCHES );
+                }
+            }
+            catch ( Throwable t )
+            {
+                execution.fail( t );
+            }
+        }
+    }
+
+    private class StepDriver implements Runnable
+    {
+        private final Step<BATCH> step;
+        private final BlockingQueue<Object> in;
+        private final BlockingQueue<Object> out;
+        private final int consumers;
+        private final Execution execution;
+        private final AtomicInteger running;
+
+        StepDriver( Step<BATCH> step, BlockingQueue<Object> in, BlockingQueue<Object> out, int consumers,
+                    Execution execution )
+        {
+            this.step = step;
+            this.in = in;
+            this.out = out;
+            this.consumers = consumers;
+            this.execution = execution;
+            this.running = new AtomicInteger( step.threads() );
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                for ( Object batch = in.take(); batch != END_OF_BATCHES; batch = in.take() )
+                {
+                    @SuppressWarnings( "unchecked" )
+                    BATCH typed = (BATCH) batch;
+                    step.process( typed );
+                    if ( out != null )
+                    {
+                        out.put( batch );
+                    }
+                }
+
+                // The last thread of this step to finish tells the next step that there are no more batches
+                if ( running.decrementAndGet() == 0 )
+                {
+                    step.done();
+                    for ( int i = 0; i < consumers; i++ )
+                    {
+                        out.put( END_OF_BATCHES );
+                    }
+                }
+            }
+            catch ( Throwable t )
+            {
+                execution.fail( t );
+            }
+        }
+    }
+
+    private static class Execution
+    {
+        private final List<Thread> threads = new ArrayList<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        void add( String name, Runnable runnable )
+        {
+            Thread thread = new Thread( runnable, name );
+            thread.setDaemon( true );
+            threads.add( thread );
+        }
+
+        void fail( Throwable cause )
+        {
+            if ( failure.compareAndSet( null, cause ) )
+            {
+                for ( Thread thread : threads )
+                {
+                    if ( thread != Thread.currentThread() )
+                    {
+                        thread.interrupt();
+                    }
+                }
+            }
+        }
+
+        void run()
+        {
+            for ( Thread thread : threads )
+            {
+                thread.start();
+            }
+            boolean interrupted = false;
+            for ( Thread thread : threads )
+            {
+                while ( thread.isAlive() )
+                {
+                    try
+                    {
+                        thread.join();
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        interrupted = true;
+                        fail( e );
+                    }
+                }
+            }
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            Throwable cause = failure.get();
+            if ( cause != null )
+            {
+                throw launderedException( cause );
+            }
+        }
+    }
+}
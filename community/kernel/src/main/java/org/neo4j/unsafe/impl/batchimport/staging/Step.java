@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport.staging;
+
+/**
+ * One step of a {@link Stage}, doing its part of the work on each batch going through the stage. A step can be
+ * run by several threads, in which case {@link #process(Object)} must be thread safe and batches may leave the
+ * step in a different order than they came in.
+ *
+ * @param <BATCH> the type of batches going through the stage.
+ */
+public abstract class Step<BATCH>
+{
+    private final String name;
+    private final int threads;
+
+    protected Step( String name, int threads )
+    {
+        if ( threads < 1 )
+        {
+            throw new IllegalArgumentException( "A step needs at least one thread, " + name + " got " + threads );
+        }
+        this.name = name;
+        this.threads = threads;
+    }
+
+    public String name()
+    {
+        return name;
+    }
+
+    public int threads()
+    {
+        return threads;
+    }
+
+    /**
+     * Processes a batch, which is passed on to the next step when this method returns.
+     */
+    protected abstract void process( BATCH batch ) throws Exception;
+
+    /**
+     * Called once all batches have been processed by this step.
+     */
+    protected void done() throws Exception
+    {
+    }
+
+    @Override
+    public String toString()
+    {
+        return name + "[threads:" + threads + "]";
+    }
+}
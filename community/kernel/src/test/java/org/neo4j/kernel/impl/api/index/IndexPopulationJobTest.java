@@ -20,8 +20,10 @@
 package org.neo4j.kernel.impl.api.index;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -31,6 +33,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import org.neo4j.graphdb.DynamicLabel;
 import org.neo4j.graphdb.Label;
@@ -64,15 +68,21 @@ import org.neo4j.test.OtherThreadExecutor.WorkerCommand;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.RETURNS_MOCKS;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -81,6 +91,7 @@ import static org.mockito.Mockito.when;
 import static org.neo4j.helpers.collection.IteratorUtil.asSet;
 import static org.neo4j.helpers.collection.MapUtil.genericMap;
 import static org.neo4j.helpers.collection.MapUtil.map;
+import static org.neo4j.kernel.api.index.NodePropertyUpdate.add;
 import static org.neo4j.kernel.api.index.NodePropertyUpdate.change;
 import static org.neo4j.kernel.api.index.NodePropertyUpdate.remove;
 import static org.neo4j.kernel.impl.api.index.TestSchemaIndexProviderDescriptor.PROVIDER_DESCRIPTOR;
@@ -110,6 +121,90 @@ public class IndexPopulationJobTest
         verifyNoMoreInteractions( populator );
     }
 
+    @Test
+    public void shouldPopulateSeveralIndexesFromOneStoreScan() throws Exception
+    {
+        // GIVEN
+        long first = createNode( map( name, "Taylor", age, 42 ), FIRST );
+        long second = createNode( map( name, "Karl" ), SECOND );
+        IndexPopulator namePopulator = mock( IndexPopulator.class );
+        IndexPopulator agePopulator = mock( IndexPopulator.class );
+        IndexStoreView storeView = spy( indexStoreView );
+        MultipleIndexPopulationJob job = new MultipleIndexPopulationJob( storeView, 2 );
+        job.add( newIndexPopulationJob( SECOND, name, namePopulator, new FlippableIndexProxy(), storeView,
+                StringLogger.DEV_NULL ) );
+        job.add( newIndexPopulationJob( FIRST, age, agePopulator, new FlippableIndexProxy(), storeView,
+                StringLogger.DEV_NULL ) );
+
+        // WHEN
+        job.run();
+
+        // THEN
+        verify( storeView ).visitNodesInParallel( any( int[].class ), any( int[].class ), eq( 2 ),
+                Matchers.<IndexStoreView.NodeBatchVisitor<RuntimeException>>any() );
+        verify( storeView, never() ).visitNodesWithPropertyAndLabel( any( IndexDescriptor.class ),
+                Matchers.<Visitor<NodePropertyUpdate, RuntimeException>>any() );
+        verify( namePopulator ).add( second, "Karl" );
+        verify( namePopulator ).close( true );
+        verify( agePopulator ).add( first, 42 );
+        verify( agePopulator ).close( true );
+    }
+
+    @Test
+    public void shouldNotSeeAValueOnTwoNodesWhenItIsMovedBetweenThemDuringAParallelScan() throws Exception
+    {
+        // GIVEN
+        final long nodeA = 1, nodeB = 20_001;
+        final long[] labels = {labelId};
+        UniqueValuesWriter writer = new UniqueValuesWriter();
+        IndexStoreView storeView = mock( IndexStoreView.class );
+        final IndexPopulationJob indexJob = newIndexPopulationJob( FIRST, name, writer, new FlippableIndexProxy(),
+                storeView, StringLogger.DEV_NULL );
+        final int propertyKeyId = indexJob.getDescriptor().getPropertyKeyId();
+        when( storeView.visitNodesInParallel( any( int[].class ), any( int[].class ), anyInt(),
+                Matchers.<IndexStoreView.NodeBatchVisitor<RuntimeException>>any() ) ).thenAnswer(
+                new Answer<StoreScan<RuntimeException>>()
+        {
+            @Override
+            public StoreScan<RuntimeException> answer( InvocationOnMock invocation ) throws Throwable
+            {
+                @SuppressWarnings( "unchecked" )
+                final IndexStoreView.NodeBatchVisitor<RuntimeException> visitor =
+                        (IndexStoreView.NodeBatchVisitor<RuntimeException>) invocation.getArguments()[3];
+                return new StoreScan<RuntimeException>()
+                {
+                    @Override
+                    public void run()
+                    {
+                        // One scanner has read "Taylor" on A, when a transaction moves it from A to B
+                        List<NodePropertyUpdate> batchOfA = asList( add( nodeA, propertyKeyId, "Taylor", labels ) );
+                        indexJob.update( remove( nodeA, propertyKeyId, "Taylor", labels ) );
+                        indexJob.update( add( nodeB, propertyKeyId, "Taylor", labels ) );
+
+                        // and another scanner, reading B after the transaction, hands its batch over first
+                        visitor.visit( 20_000, 30_000, asList( add( nodeB, propertyKeyId, "Taylor", labels ) ) );
+                        visitor.visit( 0, 10_000, batchOfA );
+                        visitor.visit( 10_000, 20_000, Collections.<NodePropertyUpdate>emptyList() );
+                    }
+
+                    @Override
+                    public void stop()
+                    {
+                    }
+                };
+            }
+        } );
+        MultipleIndexPopulationJob job = new MultipleIndexPopulationJob( storeView, 2 );
+        job.add( indexJob );
+
+        // WHEN
+        job.run();
+
+        // THEN
+        assertEquals( map( "Taylor", nodeB ), writer.nodesByValue );
+        assertTrue( "Index should have been populated", writer.completed );
+    }
+
     @Test
     public void shouldFlushSchemaStateAfterPopulation() throws Exception
     {
@@ -446,6 +541,68 @@ public class IndexPopulationJobTest
         }
     }
 
+    private static class UniqueValuesWriter extends IndexPopulator.Adapter
+    {
+        private final Map<Object, Long> nodesByValue = new HashMap<>();
+        private boolean completed;
+
+        @Override
+        public void add( long nodeId, Object propertyValue ) throws IndexEntryConflictException
+        {
+            Long existing = nodesByValue.get( propertyValue );
+            if ( existing != null && existing != nodeId )
+            {
+                throw new PreexistingIndexEntryConflictException( propertyValue, existing, nodeId );
+            }
+            nodesByValue.put( propertyValue, nodeId );
+        }
+
+        @Override
+        public IndexUpdater newPopulatingUpdater( PropertyAccessor propertyAccessor )
+        {
+            return new IndexUpdater()
+            {
+                @Override
+                public void process( NodePropertyUpdate update ) throws IOException, IndexEntryConflictException
+                {
+                    switch ( update.getUpdateMode() )
+                    {
+                        case CHANGED:
+                        case REMOVED:
+                            Long existing = nodesByValue.get( update.getValueBefore() );
+                            if ( existing != null && existing == update.getNodeId() )
+                            {
+                                nodesByValue.remove( update.getValueBefore() );
+                            }
+                    }
+                    switch ( update.getUpdateMode() )
+                    {
+                        case ADDED:
+                        case CHANGED:
+                            add( update.getNodeId(), update.getValueAfter() );
+                    }
+                }
+
+                @Override
+                public void close()
+                {
+                }
+
+                @Override
+                public void remove( Iterable<Long> nodeIds )
+                {
+                    throw new UnsupportedOperationException( "not expected" );
+                }
+            };
+        }
+
+        @Override
+        public void close( boolean populationCompletedSuccessfully )
+        {
+            completed |= populationCompletedSuccessfully;
+        }
+    }
+
     private class NodeDeletingWriter extends IndexPopulator.Adapter
     {
         private final Map<Long, Object> added = new HashMap<>();
@@ -592,7 +749,7 @@ public class IndexPopulationJobTest
                 format( ":%s(%s)", label.name(), propertyKey ),
                 failureDelegateFactory,
                 populator, flipper, storeView,
-                stateHolder, new SingleLoggingService( logger ) );
+                stateHolder, new SingleLoggingService( logger ), 0, mock( IndexSamples.class ) );
     }
 
     private long createNode( Map<String, Object> properties, Label... labels )
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 import org.junit.Before;
@@ -35,12 +36,12 @@ import org.mockito.stubbing.Answer;
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.helpers.collection.ArrayIterator;
 import org.neo4j.helpers.collection.IteratorUtil;
-import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.api.TokenNameLookup;
 import org.neo4j.kernel.api.index.IndexAccessor;
 import org.neo4j.kernel.api.index.IndexConfiguration;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
@@ -64,6 +65,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.inOrder;
@@ -71,7 +73,6 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
-import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import static org.neo4j.helpers.collection.IteratorUtil.asCollection;
@@ -163,6 +164,7 @@ public class IndexingServiceTest
     {
         // given
         when( populator.newPopulatingUpdater( storeView ) ).thenReturn( updater );
+        when( accessor.newReader() ).thenReturn( IndexReader.EMPTY );
 
         CountDownLatch latch = new CountDownLatch( 1 );
         doAnswer( afterAwaiting( latch ) ).when( populator ).add( anyLong(), any() );
@@ -193,13 +195,10 @@ public class IndexingServiceTest
         InOrder order = inOrder( populator, accessor, updater);
         order.verify( populator ).create();
         order.verify( populator ).add( 1, "value1" );
-
-        // this is invoked from indexAllNodes(),
-        // empty because the id we added (2) is bigger than the one we indexed (1)
-        order.verify( populator ).newPopulatingUpdater( storeView );
-        order.verify( updater ).close();
         order.verify( populator ).verifyDeferredConstraints( storeView );
 
+        // updates that happen during population are applied once the store has been scanned
+
         order.verify( populator ).newPopulatingUpdater( storeView );
         order.verify( updater ).process( add( 2, "value2" ) );
         order.verify( updater ).close();
@@ -207,7 +206,10 @@ public class IndexingServiceTest
         order.verify( populator ).close( true );
         verifyNoMoreInteractions(updater);
         verifyNoMoreInteractions( populator );
-        verifyZeroInteractions( accessor );
+
+        // the index is sampled once it's online
+        verify( accessor, timeout( 1000 ) ).newReader();
+        verifyNoMoreInteractions( accessor );
     }
 
     @Test
@@ -281,7 +283,7 @@ public class IndexingServiceTest
                 mock( IndexStoreView.class ),
                 mockLookup,
                 mock( UpdateableSchemaState.class ),
-                mockLogging( logger ), IndexingService.NO_MONITOR );
+                mockLogging( logger ), IndexingService.NO_MONITOR, 0 );
 
         IndexRule onlineIndex     = indexRule( 1, 1, 1, PROVIDER_DESCRIPTOR );
         IndexRule populatingIndex = indexRule( 2, 1, 2, PROVIDER_DESCRIPTOR );
@@ -322,7 +324,7 @@ public class IndexingServiceTest
                 mock( IndexStoreView.class ),
                 mockLookup,
                 mock( UpdateableSchemaState.class ),
-                mockLogging( logger ), IndexingService.NO_MONITOR );
+                mockLogging( logger ), IndexingService.NO_MONITOR, 0 );
 
         IndexRule onlineIndex     = indexRule( 1, 1, 1, PROVIDER_DESCRIPTOR );
         IndexRule populatingIndex = indexRule( 2, 1, 2, PROVIDER_DESCRIPTOR );
@@ -506,7 +508,8 @@ public class IndexingServiceTest
 
         return life.add( new IndexingService(
                 life.add( new Neo4jJobScheduler( logger ) ), new DefaultSchemaIndexProviderMap( indexProvider ),
-                storeView, mock( TokenNameLookup.class ), schemaState, mockLogging( logger ), IndexingService.NO_MONITOR ) );
+                storeView, mock( TokenNameLookup.class ), schemaState, mockLogging( logger ), IndexingService.NO_MONITOR,
+                0 ) );
     }
 
     private DataUpdates withData( NodePropertyUpdate... updates )
@@ -525,23 +528,25 @@ public class IndexingServiceTest
 
         void getsProcessedByStoreScanFrom( IndexStoreView mock )
         {
-            when( mock.visitNodesWithPropertyAndLabel( any( IndexDescriptor.class ), visitor( any( Visitor.class ) ) ) )
-                    .thenAnswer( this );
+            when( mock.visitNodesInParallel( any( int[].class ), any( int[].class ), anyInt(),
+                    visitor( any( IndexStoreView.NodeBatchVisitor.class ) ) ) ).thenAnswer( this );
         }
 
         @Override
         public StoreScan<RuntimeException> answer( InvocationOnMock invocation ) throws Throwable
         {
-            final Visitor<NodePropertyUpdate, RuntimeException> visitor = visitor( invocation.getArguments()[1] );
+            final IndexStoreView.NodeBatchVisitor<RuntimeException> visitor = visitor( invocation.getArguments()[3] );
             return new StoreScan<RuntimeException>()
             {
                 @Override
                 public void run()
                 {
+                    long highestNodeId = -1;
                     for ( NodePropertyUpdate update : updates )
                     {
-                        visitor.visit( update );
+                        highestNodeId = Math.max( highestNodeId, update.getNodeId() );
                     }
+                    visitor.visit( 0, highestNodeId + 1, asList( updates ) );
                 }
 
                 @Override
@@ -553,9 +558,9 @@ public class IndexingServiceTest
         }
 
         @SuppressWarnings({ "unchecked", "rawtypes" })
-        private static Visitor<NodePropertyUpdate, RuntimeException> visitor( Object v )
+        private static IndexStoreView.NodeBatchVisitor<RuntimeException> visitor( Object v )
         {
-            return (Visitor) v;
+            return (IndexStoreView.NodeBatchVisitor) v;
         }
 
         @Override
@@ -28,6 +28,8 @@ import java.util.Set;
 
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.helpers.Predicate;
+import org.neo4j.kernel.api.index.IndexSample;
 
 import static org.neo4j.collection.primitive.PrimitiveLongCollections.toPrimitiveIterator;
 
@@ -54,6 +56,35 @@ class HashBasedIndex extends InMemoryIndexImplementation
         return nodes == null ? PrimitiveLongCollections.emptyIterator() : toPrimitiveIterator( nodes.iterator() );
     }
 
+    @Override
+    PrimitiveLongIterator doRangeSeek( Predicate<Object> encodedValueFilter )
+    {
+        Set<Long> nodes = new HashSet<>();
+        for ( Map.Entry<Object, Set<Long>> entry : data.entrySet() )
+        {
+            if ( encodedValueFilter.accept( entry.getKey() ) )
+            {
+                nodes.addAll( entry.getValue() );
+            }
+        }
+        return toPrimitiveIterator( nodes.iterator() );
+    }
+
+    @Override
+    public IndexSample sampleIndex()
+    {
+        long indexSize = 0, uniqueValues = 0;
+        for ( Set<Long> nodes : data.values() )
+        {
+            if ( !nodes.isEmpty() )
+            {
+                indexSize += nodes.size();
+                uniqueValues++;
+            }
+        }
+        return new IndexSample( indexSize, uniqueValues );
+    }
+
     @Override
     void doAdd( Object propertyValue, long nodeId, boolean applyIdempotently )
     {
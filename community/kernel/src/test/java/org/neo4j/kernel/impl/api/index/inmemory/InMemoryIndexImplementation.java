@@ -22,10 +22,15 @@ package org.neo4j.kernel.impl.api.index.inmemory;
 import java.util.Set;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.helpers.Predicate;
 import org.neo4j.kernel.api.direct.BoundedIterable;
 import org.neo4j.kernel.api.index.ArrayEncoder;
 import org.neo4j.kernel.api.index.IndexReader;
 
+import static org.neo4j.kernel.impl.api.PropertyValuePredicates.numberRange;
+import static org.neo4j.kernel.impl.api.PropertyValuePredicates.stringPrefix;
+import static org.neo4j.kernel.impl.api.PropertyValuePredicates.stringRange;
+
 abstract class InMemoryIndexImplementation implements IndexReader, BoundedIterable<Long>
 {
     abstract void clear();
@@ -36,6 +41,26 @@ abstract class InMemoryIndexImplementation implements IndexReader, BoundedIterab
         return doLookup( encode( value ) );
     }
 
+    @Override
+    public final PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                          Number upper, boolean includeUpper )
+    {
+        return doRangeSeek( numberRange( lower, includeLower, upper, includeUpper ) );
+    }
+
+    @Override
+    public final PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower,
+                                                          String upper, boolean includeUpper )
+    {
+        return doRangeSeek( stringRange( lower, includeLower, upper, includeUpper ) );
+    }
+
+    @Override
+    public final PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+    {
+        return doRangeSeek( stringPrefix( prefix ) );
+    }
+
     final void add( long nodeId, Object propertyValue, boolean applyIdempotently )
     {
         doAdd( encode( propertyValue ), nodeId, applyIdempotently );
@@ -48,6 +73,8 @@ abstract class InMemoryIndexImplementation implements IndexReader, BoundedIterab
 
     abstract PrimitiveLongIterator doLookup( Object propertyValue );
 
+    abstract PrimitiveLongIterator doRangeSeek( Predicate<Object> encodedValueFilter );
+
     abstract void doAdd( Object propertyValue, long nodeId, boolean applyIdempotently );
 
     abstract void doRemove( Object propertyValue, long nodeId );
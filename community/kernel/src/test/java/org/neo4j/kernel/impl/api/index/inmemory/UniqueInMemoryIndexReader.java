@@ -19,14 +19,22 @@
  */
 package org.neo4j.kernel.impl.api.index.inmemory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.helpers.Predicate;
 import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
 
 import static org.neo4j.collection.primitive.PrimitiveLongCollections.singleton;
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.toPrimitiveIterator;
+import static org.neo4j.kernel.impl.api.PropertyValuePredicates.numberRange;
+import static org.neo4j.kernel.impl.api.PropertyValuePredicates.stringPrefix;
+import static org.neo4j.kernel.impl.api.PropertyValuePredicates.stringRange;
 
 class UniqueInMemoryIndexReader implements IndexReader
 {
@@ -44,6 +52,45 @@ class UniqueInMemoryIndexReader implements IndexReader
         return result != null ? singleton( result ) : PrimitiveLongCollections.emptyIterator();
     }
 
+    @Override
+    public PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                    Number upper, boolean includeUpper )
+    {
+        return rangeSeek( numberRange( lower, includeLower, upper, includeUpper ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower,
+                                                    String upper, boolean includeUpper )
+    {
+        return rangeSeek( stringRange( lower, includeLower, upper, includeUpper ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+    {
+        return rangeSeek( stringPrefix( prefix ) );
+    }
+
+    private PrimitiveLongIterator rangeSeek( Predicate<Object> valueFilter )
+    {
+        List<Long> result = new ArrayList<>();
+        for ( Map.Entry<Object, Long> entry : indexData.entrySet() )
+        {
+            if ( valueFilter.accept( entry.getKey() ) )
+            {
+                result.add( entry.getValue() );
+            }
+        }
+        return toPrimitiveIterator( result.iterator() );
+    }
+
+    @Override
+    public IndexSample sampleIndex()
+    {
+        return new IndexSample( indexData.size(), indexData.size() );
+    }
+
     @Override
     public void close()
     {
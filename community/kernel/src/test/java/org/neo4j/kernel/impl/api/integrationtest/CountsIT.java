@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.integrationtest;
+
+import org.junit.Test;
+
+import org.neo4j.kernel.api.DataWriteOperations;
+import org.neo4j.kernel.api.ReadOperations;
+import org.neo4j.kernel.impl.nioneo.store.counts.StaleCountsException;
+import org.neo4j.kernel.impl.nioneo.xa.NeoStoreXaDataSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.neo4j.graphdb.Direction.BOTH;
+import static org.neo4j.graphdb.Direction.INCOMING;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+import static org.neo4j.kernel.impl.nioneo.store.counts.CountsStore.ANY;
+
+public class CountsIT extends KernelIntegrationTest
+{
+    @Test
+    public void shouldCountCommittedNodesAndRelationshipsPerLabelAndType() throws Exception
+    {
+        // given
+        int person, city, livesIn;
+        {
+            DataWriteOperations statement = dataWriteOperationsInNewTransaction();
+            person = statement.labelGetOrCreateForName( "Person" );
+            city = statement.labelGetOrCreateForName( "City" );
+            livesIn = statement.relationshipTypeGetOrCreateForName( "LIVES_IN" );
+            long malmo = statement.nodeCreate();
+            statement.nodeAddLabel( malmo, city );
+            for ( int i = 0; i < 3; i++ )
+            {
+                long someone = statement.nodeCreate();
+                statement.nodeAddLabel( someone, person );
+                statement.relationshipCreate( livesIn, someone, malmo );
+            }
+            commit();
+        }
+
+        // when
+        ReadOperations statement = readOperationsInNewTransaction();
+
+        // then
+        assertEquals( 4, statement.countsForNode( ANY ) );
+        assertEquals( 3, statement.countsForNode( person ) );
+        assertEquals( 1, statement.countsForNode( city ) );
+        assertEquals( 3, statement.countsForRelationship( person, livesIn, OUTGOING ) );
+        assertEquals( 0, statement.countsForRelationship( person, livesIn, INCOMING ) );
+        assertEquals( 3, statement.countsForRelationship( city, ANY, BOTH ) );
+        assertEquals( 3, statement.countsForRelationship( ANY, ANY, OUTGOING ) );
+    }
+
+    @Test
+    public void shouldNotIncludeChangesOfTheCurrentTransaction() throws Exception
+    {
+        // given
+        int person;
+        {
+            DataWriteOperations statement = dataWriteOperationsInNewTransaction();
+            person = statement.labelGetOrCreateForName( "Person" );
+            statement.nodeAddLabel( statement.nodeCreate(), person );
+            commit();
+        }
+
+        // when
+        DataWriteOperations statement = dataWriteOperationsInNewTransaction();
+        statement.nodeAddLabel( statement.nodeCreate(), person );
+
+        // then
+        assertEquals( 1, statement.countsForNode( person ) );
+        rollback();
+    }
+
+    @Test
+    public void shouldKeepCountsAcrossRestarts() throws Exception
+    {
+        // given
+        int person;
+        {
+            DataWriteOperations statement = dataWriteOperationsInNewTransaction();
+            person = statement.labelGetOrCreateForName( "Person" );
+            long first = statement.nodeCreate();
+            statement.nodeAddLabel( first, person );
+            statement.relationshipCreate( statement.relationshipTypeGetOrCreateForName( "KNOWS" ), first,
+                    statement.nodeCreate() );
+            commit();
+        }
+
+        // when
+        restartDb();
+
+        // then
+        ReadOperations statement = readOperationsInNewTransaction();
+        assertEquals( 2, statement.countsForNode( ANY ) );
+        assertEquals( 1, statement.countsForNode( person ) );
+        assertEquals( 1, statement.countsForRelationship( person, ANY, OUTGOING ) );
+    }
+
+    @Test
+    public void shouldRefuseToServeStaleCountsUntilRebuiltOnRestart() throws Exception
+    {
+        // given
+        int person;
+        {
+            DataWriteOperations statement = dataWriteOperationsInNewTransaction();
+            person = statement.labelGetOrCreateForName( "Person" );
+            statement.nodeAddLabel( statement.nodeCreate(), person );
+            commit();
+        }
+        db.getDependencyResolver().resolveDependency( NeoStoreXaDataSource.class ).getCountsStore().invalidate();
+
+        // when
+        {
+            ReadOperations statement = readOperationsInNewTransaction();
+            try
+            {
+                statement.countsForNode( person );
+                fail( "Should not serve stale counts" );
+            }
+            catch ( StaleCountsException e )
+            {   // then
+            }
+            rollback();
+        }
+        restartDb();
+
+        // then
+        ReadOperations statement = readOperationsInNewTransaction();
+        assertEquals( 1, statement.countsForNode( person ) );
+    }
+}
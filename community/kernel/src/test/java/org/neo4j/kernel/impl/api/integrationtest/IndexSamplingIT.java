@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.integrationtest;
+
+import org.junit.Test;
+
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.api.DataWriteOperations;
+import org.neo4j.kernel.api.ReadOperations;
+import org.neo4j.kernel.api.SchemaWriteOperations;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.impl.api.index.IndexingService;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import static org.junit.Assert.assertEquals;
+import static org.neo4j.kernel.api.properties.Property.booleanProperty;
+
+public class IndexSamplingIT extends KernelIntegrationTest
+{
+    @Test
+    public void shouldSampleIndexWhenPopulationCompletes() throws Exception
+    {
+        // given
+        createPeople( 95, true );
+        createPeople( 5, false );
+
+        // when
+        IndexDescriptor index = createIndexAndAwaitOnline();
+
+        // then
+        assertEquals( 2.0 / 100, awaitSelectivity( index ), 0.0001 );
+    }
+
+    @Test
+    public void shouldFollowChangesWhenIndexesAreSampledAgain() throws Exception
+    {
+        // given
+        createPeople( 10, true );
+        IndexDescriptor index = createIndexAndAwaitOnline();
+        awaitSelectivity( index );
+        createPeople( 30, false );
+
+        // when
+        db.getDependencyResolver().resolveDependency( IndexingService.class ).sampleIndexes();
+
+        // then
+        assertEquals( 2.0 / 40, awaitSelectivity( index ), 0.0001 );
+    }
+
+    private void createPeople( int count, boolean active ) throws Exception
+    {
+        DataWriteOperations statement = dataWriteOperationsInNewTransaction();
+        int person = statement.labelGetOrCreateForName( "Person" );
+        int activeKey = statement.propertyKeyGetOrCreateForName( "active" );
+        for ( int i = 0; i < count; i++ )
+        {
+            long node = statement.nodeCreate();
+            statement.nodeAddLabel( node, person );
+            statement.nodeSetProperty( node, booleanProperty( activeKey, active ) );
+        }
+        commit();
+    }
+
+    private IndexDescriptor createIndexAndAwaitOnline() throws Exception
+    {
+        IndexDescriptor index;
+        {
+            SchemaWriteOperations statement = schemaWriteOperationsInNewTransaction();
+            index = statement.indexCreate( statement.labelGetForName( "Person" ),
+                    statement.propertyKeyGetForName( "active" ) );
+            commit();
+        }
+        try ( Transaction tx = db.beginTx() )
+        {
+            db.schema().awaitIndexesOnline( 10, SECONDS );
+            tx.success();
+        }
+        return index;
+    }
+
+    /**
+     * The index is sampled by the population job right after it comes online, so the sample may lag a bit behind.
+     */
+    private double awaitSelectivity( IndexDescriptor index ) throws Exception
+    {
+        long end = System.currentTimeMillis() + SECONDS.toMillis( 10 );
+        while ( true )
+        {
+            ReadOperations statement = readOperationsInNewTransaction();
+            double selectivity = statement.indexUniqueValuesSelectivity( index );
+            commit();
+            if ( !Double.isNaN( selectivity ) || System.currentTimeMillis() > end )
+            {
+                return selectivity;
+            }
+            Thread.sleep( 10 );
+        }
+    }
+}
@@ -59,6 +59,7 @@ import static org.neo4j.helpers.collection.IteratorUtil.asSet;
 import static org.neo4j.helpers.collection.IteratorUtil.iterator;
 import static org.neo4j.helpers.collection.IteratorUtil.resourceIterator;
 import static org.neo4j.kernel.api.StatementConstants.NO_SUCH_NODE;
+import static org.neo4j.kernel.api.properties.Property.intProperty;
 import static org.neo4j.kernel.api.properties.Property.noNodeProperty;
 import static org.neo4j.kernel.api.properties.Property.stringProperty;
 
@@ -312,6 +313,68 @@ public class IndexQueryTransactionStateTest
         assertNoSuchNode( result );
     }
 
+    @Test
+    public void shouldIncludeCreatedNodesWithPropertyInRangeInRangeSeek() throws Exception
+    {
+        // Given
+        when( store.nodesGetFromIndexRangeSeekByString( state, indexDescriptor, "A", true, "N", false ) )
+                .then( answerAsPrimitiveLongIteratorFrom( asList( 2l, 3l ) ) );
+        when( store.nodeGetProperty( anyLong(), eq( propertyKeyId ) ) ).thenReturn(
+                noNodeProperty( 1, propertyKeyId ) );
+        when( store.nodeGetAllProperties( anyLong() ) ).thenReturn( IteratorUtil
+                .<DefinedProperty>emptyIterator() );
+        when( store.nodeHasLabel( 1l, labelId ) ).thenReturn( false );
+
+        state.txState().nodeDoReplaceProperty( 1l, noNodeProperty( 1l, propertyKeyId ),
+                                                   stringProperty( propertyKeyId, value ) );
+        txContext.nodeAddLabel( state, 1l, labelId );
+
+        // When
+        PrimitiveLongIterator result = txContext.nodesGetFromIndexRangeSeekByString( state, indexDescriptor,
+                "A", true, "N", false );
+
+        // Then
+        assertThat( asSet( result ), equalTo( asSet( 1l, 2l, 3l ) ) );
+    }
+
+    @Test
+    public void shouldExcludeNodesWithPropertyChangedOutOfRangeFromRangeSeek() throws Exception
+    {
+        // Given
+        when( store.nodesGetFromIndexRangeSeekByPrefix( state, indexDescriptor, "My" ) )
+                .then( answerAsPrimitiveLongIteratorFrom( asList( 1l, 2l, 3l ) ) );
+        when( store.nodeHasLabel( 1l, labelId ) ).thenReturn( true );
+        DefinedProperty stringProperty = stringProperty( propertyKeyId, value );
+        when( store.nodeGetProperty( 1l, propertyKeyId ) ).thenReturn( stringProperty );
+        when( store.nodeGetAllProperties( 1l ) ).thenReturn( iterator( stringProperty ) );
+
+        state.txState().nodeDoReplaceProperty( 1l, stringProperty,
+                                                   stringProperty( propertyKeyId, "Your Value" ) );
+
+        // When
+        PrimitiveLongIterator result = txContext.nodesGetFromIndexRangeSeekByPrefix( state, indexDescriptor, "My" );
+
+        // Then
+        assertThat( asSet( result ), equalTo( asSet( 2l, 3l ) ) );
+    }
+
+    @Test
+    public void shouldExcludeNumbersJustOutsideRangeFromRangeSeek() throws Exception
+    {
+        // Given
+        when( store.nodesGetFromIndexRangeSeekByNumber( state, indexDescriptor, 10, true, 20, false ) )
+                .then( answerAsPrimitiveLongIteratorFrom( asList( 1l, 2l ) ) );
+        when( store.nodeGetProperty( 1l, propertyKeyId ) ).thenReturn( intProperty( propertyKeyId, 10 ) );
+        when( store.nodeGetProperty( 2l, propertyKeyId ) ).thenReturn( intProperty( propertyKeyId, 20 ) );
+
+        // When
+        PrimitiveLongIterator result = txContext.nodesGetFromIndexRangeSeekByNumber( state, indexDescriptor,
+                10, true, 20, false );
+
+        // Then
+        assertThat( asSet( result ), equalTo( asSet( 1l ) ) );
+    }
+
     // exists
     int labelId = 2;
     int propertyKeyId = 3;
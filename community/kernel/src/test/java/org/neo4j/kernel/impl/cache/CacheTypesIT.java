@@ -75,6 +75,22 @@ public class CacheTypesIT extends AbstractNeo4jTestCase
         db.shutdown();
     }
     
+    @Test
+    public void testOffHeapCache()
+    {
+        GraphDatabaseAPI db = newDb( OffHeapCacheProvider.NAME );
+        assertEquals( OffHeapCacheProvider.NAME, nodeManager( db ).getCacheType().getName() );
+        db.shutdown();
+    }
+
+    @Test
+    public void testClockCache()
+    {
+        GraphDatabaseAPI db = newDb( ClockCacheProvider.NAME );
+        assertEquals( ClockCacheProvider.NAME, nodeManager( db ).getCacheType().getName() );
+        db.shutdown();
+    }
+
     @Test
     public void testInvalidCache()
     {
@@ -0,0 +1,324 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.test.ImpermanentDatabaseRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import static org.neo4j.helpers.collection.IteratorUtil.count;
+
+public class OffHeapCacheTest
+{
+    @Test
+    public void shouldHonorPutSemantics() throws Exception
+    {
+        // GIVEN
+        OffHeapCache<Entity> cache = newCache( 10, 1024 );
+        Entity version1 = new Entity( 10, "first" );
+        assertSame( version1, cache.put( version1 ) );
+
+        // WHEN
+        Entity version2 = new Entity( 10, "second" );
+
+        // THEN
+        assertSame( version1, cache.put( version2 ) );
+        assertSame( version1, cache.get( 10 ) );
+    }
+
+    @Test
+    public void shouldMoveEntitiesOffHeapAndBack() throws Exception
+    {
+        // GIVEN
+        OffHeapCache<Entity> cache = newCache( 1, 1024 );
+        Entity first = new Entity( 1, "first" );
+        cache.put( first );
+
+        // WHEN
+        cache.put( new Entity( 2, "second" ) );
+
+        // THEN
+        Entity restored = cache.get( 1 );
+        assertNotSame( first, restored );
+        assertEquals( "first", restored.value );
+        assertEquals( "second", cache.get( 2 ).value );
+        assertEquals( 2, cache.size() );
+    }
+
+    @Test
+    public void shouldDropEntityChangedAfterBeingMovedOffHeap() throws Exception
+    {
+        // GIVEN
+        OffHeapCache<Entity> cache = newCache( 1, 1024 );
+        Entity first = new Entity( 1, "first" );
+        cache.put( first );
+        cache.put( new Entity( 2, "second" ) );
+
+        // WHEN someone holding on to the evicted entity changes it
+        first.value = "changed";
+        cache.updateSize( first, 0 );
+
+        // THEN the serialized form must not be used
+        assertNull( cache.get( 1 ) );
+    }
+
+    @Test
+    public void shouldSerializeEntityAgainIfChangedWhileOnHeap() throws Exception
+    {
+        // GIVEN
+        OffHeapCache<Entity> cache = newCache( 1, 1024 );
+        cache.put( new Entity( 1, "first" ) );
+        cache.put( new Entity( 2, "second" ) );
+        Entity restored = cache.get( 1 );
+
+        // WHEN
+        restored.value = "changed";
+        cache.updateSize( restored, 0 );
+        cache.get( 2 );
+
+        // THEN
+        assertEquals( "changed", cache.get( 1 ).value );
+    }
+
+    @Test
+    public void shouldEvictEntitiesWhenOutOfOffHeapMemory() throws Exception
+    {
+        // GIVEN a cache with room for about ten entities outside of the heap
+        OffHeapCache<Entity> cache = newCache( 1, OffHeapSegment.BLOCK_SIZE * 10 );
+
+        // WHEN
+        for ( int i = 0; i < 100; i++ )
+        {
+            cache.put( new Entity( i, "entity " + i ) );
+        }
+
+        // THEN
+        assertTrue( cache.size() <= 11 );
+        assertEquals( "entity 99", cache.get( 99 ).value );
+        assertEquals( "entity 98", cache.get( 98 ).value );
+        assertNull( cache.get( 0 ) );
+    }
+
+    @Test
+    public void shouldNotKeepEntitiesTooBigForTheOffHeapMemory() throws Exception
+    {
+        // GIVEN
+        OffHeapCache<Entity> cache = newCache( 1, OffHeapSegment.BLOCK_SIZE );
+        StringBuilder big = new StringBuilder();
+        while ( big.length() < OffHeapSegment.BLOCK_SIZE )
+        {
+            big.append( "big" );
+        }
+        cache.put( new Entity( 1, big.toString() ) );
+
+        // WHEN
+        cache.put( new Entity( 2, "small" ) );
+
+        // THEN
+        assertNull( cache.get( 1 ) );
+        assertNotNull( cache.get( 2 ) );
+    }
+
+    public final @Rule ImpermanentDatabaseRule dbRule = new ImpermanentDatabaseRule()
+    {
+        @Override
+        protected void configure( GraphDatabaseBuilder builder )
+        {
+            builder.setConfig( GraphDatabaseSettings.cache_type, OffHeapCacheProvider.NAME );
+            builder.setConfig( OffHeapCacheSettings.off_heap_cache_heap_entries, "1" );
+            builder.setConfig( OffHeapCacheSettings.off_heap_node_cache_size, "1M" );
+            builder.setConfig( OffHeapCacheSettings.off_heap_relationship_cache_size, "1M" );
+        }
+    };
+
+    @Test
+    public void shouldReadAndUpdateGraphThroughOffHeapCache() throws Exception
+    {
+        // GIVEN
+        GraphDatabaseService db = dbRule.getGraphDatabaseService();
+        int nodeCount = 100;
+        long[] nodes = new long[nodeCount];
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node previous = null;
+            for ( int i = 0; i < nodeCount; i++ )
+            {
+                Node node = db.createNode( DynamicLabel.label( "Label" + (i % 3) ) );
+                node.setProperty( "name", "node " + i );
+                node.setProperty( "values", new long[] {i, i * 2L} );
+                node.setProperty( "flags", new String[] {"a", "b" + i} );
+                if ( previous != null )
+                {
+                    Relationship relationship = previous.createRelationshipTo( node, TYPE );
+                    relationship.setProperty( "weight", i * 0.5d );
+                }
+                if ( i % 10 == 0 )
+                {
+                    node.createRelationshipTo( node, TYPE );
+                }
+                nodes[i] = node.getId();
+                previous = node;
+            }
+            tx.success();
+        }
+
+        // WHEN reading everything a couple of times, moving it off heap and back
+        for ( int round = 0; round < 3; round++ )
+        {
+            try ( Transaction tx = db.beginTx() )
+            {
+                for ( int i = 0; i < nodeCount; i++ )
+                {
+                    assertNode( db.getNodeById( nodes[i] ), i, "node " + i );
+                }
+                tx.success();
+            }
+        }
+
+        // and changing some of it
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( int i = 0; i < nodeCount; i += 2 )
+            {
+                Node node = db.getNodeById( nodes[i] );
+                node.setProperty( "name", "changed " + i );
+                node.addLabel( DynamicLabel.label( "Changed" ) );
+            }
+            tx.success();
+        }
+
+        // THEN
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( int i = 0; i < nodeCount; i++ )
+            {
+                Node node = db.getNodeById( nodes[i] );
+                assertNode( node, i, i % 2 == 0 ? "changed " + i : "node " + i );
+                assertEquals( i % 2 == 0, node.hasLabel( DynamicLabel.label( "Changed" ) ) );
+            }
+            tx.success();
+        }
+    }
+
+    private void assertNode( Node node, int i, String name )
+    {
+        assertEquals( name, node.getProperty( "name" ) );
+        assertArrayEquals( new long[] {i, i * 2L}, (long[]) node.getProperty( "values" ) );
+        assertArrayEquals( new String[] {"a", "b" + i}, (String[]) node.getProperty( "flags" ) );
+        assertTrue( node.hasLabel( DynamicLabel.label( "Label" + (i % 3) ) ) );
+
+        int loops = i % 10 == 0 ? 1 : 0;
+        int neighbours = (i > 0 ? 1 : 0) + (i < 99 ? 1 : 0);
+        assertEquals( neighbours + loops, count( node.getRelationships() ) );
+        for ( Relationship relationship : node.getRelationships() )
+        {
+            if ( relationship.getStartNode().equals( relationship.getEndNode() ) )
+            {
+                assertFalse( relationship.hasProperty( "weight" ) );
+            }
+            else
+            {
+                int endIndex = Integer.parseInt( ((String) relationship.getEndNode().getProperty( "name" ))
+                        .replaceAll( "[^0-9]", "" ) );
+                assertEquals( endIndex * 0.5d, relationship.getProperty( "weight" ) );
+            }
+        }
+    }
+
+    private static final DynamicRelationshipType TYPE = DynamicRelationshipType.withName( "NEXT" );
+
+    private OffHeapCache<Entity> newCache( int heapEntries, long offHeapBytes )
+    {
+        return new OffHeapCache<>( "test", offHeapBytes, heapEntries, 1, new EntitySerializer<Entity>()
+        {
+            @Override
+            public void write( Entity entity, DataOutput out ) throws IOException
+            {
+                out.writeUTF( entity.value );
+            }
+
+            @Override
+            public Entity read( long id, DataInput in ) throws IOException
+            {
+                return new Entity( id, in.readUTF() );
+            }
+        }, StringLogger.DEV_NULL );
+    }
+
+    private static class Entity implements EntityWithSizeObject
+    {
+        private final long id;
+        private String value;
+        private int registeredSize;
+
+        Entity( long id, String value )
+        {
+            this.id = id;
+            this.value = value;
+        }
+
+        @Override
+        public int sizeOfObjectInBytesIncludingOverhead()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getId()
+        {
+            return id;
+        }
+
+        @Override
+        public void setRegisteredSize( int size )
+        {
+            registeredSize = size;
+        }
+
+        @Override
+        public int getRegisteredSize()
+        {
+            return registeredSize;
+        }
+    }
+}
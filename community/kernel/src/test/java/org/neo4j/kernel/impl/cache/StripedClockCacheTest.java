@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Test;
+
+import org.neo4j.kernel.impl.cache.TestCacheTypes.Entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StripedClockCacheTest
+{
+    @Test
+    public void shouldEvictUnreferencedEntriesFirst() throws Exception
+    {
+        // GIVEN
+        StripedClockCache<Entity> cache = new StripedClockCache<>( "test", 3, 1 );
+        Entity one = new Entity( 1 ), two = new Entity( 2 ), three = new Entity( 3 );
+        cache.put( one );
+        cache.put( two );
+        cache.put( three );
+        cache.put( new Entity( 4 ) ); // first sweep clears all reference bits and evicts 1
+
+        // WHEN
+        cache.get( 2 );
+        cache.put( new Entity( 5 ) );
+
+        // THEN
+        assertNull( cache.get( 1 ) );
+        assertSame( two, cache.get( 2 ) );
+        assertNull( cache.get( 3 ) );
+        assertNotNull( cache.get( 4 ) );
+        assertNotNull( cache.get( 5 ) );
+        assertEquals( 3, cache.size() );
+    }
+
+    @Test
+    public void shouldNeverHoldMoreThanMaxSize() throws Exception
+    {
+        // GIVEN
+        StripedClockCache<Entity> cache = new StripedClockCache<>( "test", 100, 8 );
+
+        // WHEN
+        for ( int i = 0; i < 10_000; i++ )
+        {
+            cache.put( new Entity( i ) );
+        }
+
+        // THEN
+        assertTrue( cache.size() <= 100 );
+        assertTrue( cache.size() > 0 );
+    }
+
+    @Test
+    public void shouldRemoveAndClear() throws Exception
+    {
+        // GIVEN
+        StripedClockCache<Entity> cache = new StripedClockCache<>( "test", 16, 4 );
+        for ( int i = 0; i < 10; i++ )
+        {
+            cache.put( new Entity( i ) );
+        }
+        int cached = (int) cache.size();
+
+        // WHEN
+        Entity removed = cache.remove( firstCachedId( cache ) );
+
+        // THEN
+        assertNotNull( removed );
+        assertNull( cache.get( removed.getId() ) );
+        assertNull( cache.remove( removed.getId() ) );
+        assertEquals( cached - 1, cache.size() );
+
+        // WHEN
+        cache.clear();
+
+        // THEN
+        assertEquals( 0, cache.size() );
+        for ( int i = 0; i < 10; i++ )
+        {
+            assertNull( cache.get( i ) );
+        }
+    }
+
+    @Test
+    public void shouldCountHitsAndMisses() throws Exception
+    {
+        // GIVEN
+        StripedClockCache<Entity> cache = new StripedClockCache<>( "test", 10 );
+        cache.put( new Entity( 1 ) );
+
+        // WHEN
+        cache.get( 1 );
+        cache.get( 1 );
+        cache.get( 2 );
+
+        // THEN
+        assertEquals( 2, cache.hitCount() );
+        assertEquals( 1, cache.missCount() );
+    }
+
+    @Test
+    public void shouldStayConsistentUnderConcurrentAccess() throws Exception
+    {
+        // GIVEN
+        final StripedClockCache<Entity> cache = new StripedClockCache<>( "test", 1_000, 4 );
+        ExecutorService executor = Executors.newFixedThreadPool( 8 );
+
+        // WHEN
+        try
+        {
+            Future<?>[] futures = new Future[8];
+            for ( int t = 0; t < futures.length; t++ )
+            {
+                futures[t] = executor.submit( new Callable<Void>()
+                {
+                    @Override
+                    public Void call()
+                    {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for ( int i = 0; i < 100_000; i++ )
+                        {
+                            long id = random.nextInt( 5_000 );
+                            switch ( random.nextInt( 10 ) )
+                            {
+                            case 0:
+                                cache.remove( id );
+                                break;
+                            case 1: case 2: case 3:
+                                Entity entity = new Entity( id );
+                                Entity cached = cache.put( entity );
+                                assertEquals( id, cached.getId() );
+                                break;
+                            default:
+                                Entity found = cache.get( id );
+                                if ( found != null )
+                                {
+                                    assertEquals( id, found.getId() );
+                                }
+                            }
+                        }
+                        return null;
+                    }
+                } );
+            }
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // THEN
+        long size = cache.size();
+        assertTrue( size <= 1_000 );
+        int found = 0;
+        for ( int id = 0; id < 5_000; id++ )
+        {
+            if ( cache.get( id ) != null )
+            {
+                found++;
+            }
+        }
+        assertEquals( size, found );
+    }
+
+    private long firstCachedId( StripedClockCache<Entity> cache )
+    {
+        for ( long id = 0; ; id++ )
+        {
+            if ( cache.get( id ) != null )
+            {
+                return id;
+            }
+        }
+    }
+}
@@ -42,6 +42,12 @@ public class TestCacheTypes
         assertCacheHonorsPutsSemantics( new StrongReferenceCache<>( "test" ) );
     }
 
+    @Test
+    public void clockCacheShouldHonorPutSemantics() throws Exception
+    {
+        assertCacheHonorsPutsSemantics( new StripedClockCache<>( "test", 10 ) );
+    }
+
     private void assertCacheHonorsPutsSemantics( Cache<EntityWithSizeObject> cache )
     {
         Entity version1 = new Entity( 10 );
@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.core;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.impl.MyRelTypes;
+import org.neo4j.test.ImpermanentDatabaseRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+
+public class TestDenseNodeRelationshipStreaming
+{
+    @Rule
+    public final ImpermanentDatabaseRule dbRule = new ImpermanentDatabaseRule()
+    {
+        @Override
+        protected void configure( GraphDatabaseBuilder builder )
+        {
+            builder.setConfig( GraphDatabaseSettings.dense_node_threshold, "5" );
+        }
+    };
+
+    @Test
+    public void shouldStreamRelationshipsOfTypeAndDirectionWithoutCachingThem() throws Exception
+    {
+        // GIVEN
+        GraphDatabaseService db = dbRule.getGraphDatabaseService();
+        Set<Relationship> outgoingTest = new HashSet<>(), incomingTest = new HashSet<>(), test2 = new HashSet<>();
+        Node node;
+        Relationship loop;
+        try ( Transaction tx = db.beginTx() )
+        {
+            node = db.createNode();
+            for ( int i = 0; i < 20; i++ )
+            {
+                outgoingTest.add( node.createRelationshipTo( db.createNode(), MyRelTypes.TEST ) );
+                incomingTest.add( db.createNode().createRelationshipTo( node, MyRelTypes.TEST ) );
+                test2.add( node.createRelationshipTo( db.createNode(), MyRelTypes.TEST2 ) );
+            }
+            loop = node.createRelationshipTo( node, MyRelTypes.TEST );
+            tx.success();
+        }
+        nodeManager().clearCache();
+
+        // WHEN/THEN
+        try ( Transaction tx = db.beginTx() )
+        {
+            assertEquals( union( outgoingTest, loop ),
+                    asSet( node.getRelationships( Direction.OUTGOING, MyRelTypes.TEST ) ) );
+            assertEquals( union( incomingTest, loop ),
+                    asSet( node.getRelationships( Direction.INCOMING, MyRelTypes.TEST ) ) );
+            assertEquals( test2, asSet( node.getRelationships( MyRelTypes.TEST2 ) ) );
+            assertEquals( 61, asSet( node.getRelationships() ).size() );
+
+            NodeImpl cached = nodeManager().getNodeIfCached( node.getId() );
+            assertTrue( cached instanceof DenseNodeImpl );
+            assertNull( "Relationships should not have been loaded into the cache", cached.getRelChainPosition() );
+            tx.success();
+        }
+    }
+
+    @Test
+    public void shouldNotSeeRelationshipsDeletedInCommittedTransactions() throws Exception
+    {
+        // GIVEN
+        GraphDatabaseService db = dbRule.getGraphDatabaseService();
+        Set<Relationship> kept = new HashSet<>();
+        Node node;
+        try ( Transaction tx = db.beginTx() )
+        {
+            node = db.createNode();
+            for ( int i = 0; i < 10; i++ )
+            {
+                Relationship relationship = node.createRelationshipTo( db.createNode(), MyRelTypes.TEST );
+                if ( i % 2 == 0 )
+                {
+                    kept.add( relationship );
+                }
+            }
+            tx.success();
+        }
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( Relationship relationship : node.getRelationships() )
+            {
+                if ( !kept.contains( relationship ) )
+                {
+                    relationship.delete();
+                }
+            }
+            tx.success();
+        }
+        nodeManager().clearCache();
+
+        // WHEN/THEN
+        try ( Transaction tx = db.beginTx() )
+        {
+            assertEquals( kept, asSet( node.getRelationships( Direction.OUTGOING, MyRelTypes.TEST ) ) );
+            assertEquals( 5, node.getDegree( MyRelTypes.TEST, Direction.OUTGOING ) );
+            assertEquals( asSet( MyRelTypes.TEST.name() ), names( node.getRelationshipTypes() ) );
+            tx.success();
+        }
+    }
+
+    private NodeManager nodeManager()
+    {
+        return dbRule.getGraphDatabaseAPI().getDependencyResolver().resolveDependency( NodeManager.class );
+    }
+
+    private static Set<Relationship> union( Set<Relationship> relationships, Relationship extra )
+    {
+        Set<Relationship> result = new HashSet<>( relationships );
+        result.add( extra );
+        return result;
+    }
+
+    private static Set<String> names( Iterable<RelationshipType> types )
+    {
+        Set<String> names = new HashSet<>();
+        for ( RelationshipType type : types )
+        {
+            names.add( type.name() );
+        }
+        return names;
+    }
+}
@@ -177,6 +177,72 @@ public class TestRelIdArray
         arrayTo.add( 2, DirectionWrapper.INCOMING );
     }
 
+    @Test
+    public void shouldKeepOrderOfIdsRegardlessOfDistanceBetweenThem() throws Exception
+    {
+        // GIVEN
+        long[] ids = { 5, 4, 0x7FFFFFFFFL, 0, 1000, 999, 0x100000000L, 3 };
+        RelIdArray array = new RelIdArray( 0 );
+        for ( long id : ids )
+        {
+            array.add( id, OUTGOING );
+        }
+
+        // THEN
+        assertEquals( asList( ids ), asList( array ) );
+        assertTrue( Arrays.equals( ids, array.getIds( OUTGOING ) ) );
+    }
+
+    @Test
+    public void shouldRemoveIdsAndKeepOrderOfTheRest() throws Exception
+    {
+        // GIVEN
+        RelIdArray source = new RelIdArray( 0 );
+        for ( long id = 100; id > 0; id-- )
+        {
+            source.add( id, INCOMING );
+        }
+        Set<Long> remove = new HashSet<>();
+        List<Long> expected = new ArrayList<>();
+        for ( long id = 100; id > 0; id-- )
+        {
+            if ( id % 3 == 0 )
+            {
+                remove.add( id );
+            }
+            else
+            {
+                expected.add( id );
+            }
+        }
+
+        // WHEN
+        RelIdArray result = RelIdArray.from( source, null, remove );
+
+        // THEN
+        assertEquals( expected, asList( result ) );
+        assertEquals( 100, source.length( INCOMING ) );
+    }
+
+    @Test
+    public void shouldUseFarLessMemoryThanIntsForIdsCloseToEachOther() throws Exception
+    {
+        // GIVEN
+        int count = 10_000;
+        RelIdArray array = new RelIdArray( 0 );
+        for ( int i = 0; i < count; i++ )
+        {
+            array.add( 1_000_000_000L - i*3, OUTGOING );
+        }
+
+        // WHEN
+        array.shrink();
+
+        // THEN each id should need a single byte, instead of the four an int would need
+        assertTrue( array.sizeOfObjectInBytesIncludingOverhead() < count * 2 );
+        assertEquals( count, array.length( OUTGOING ) );
+    }
+
     private Set<Long> deplete( RelIdIterator iterator )
     {
         HashSet<Long> set = new HashSet<>();
@@ -187,6 +253,16 @@ public class TestRelIdArray
         return set;
     }
     
+    private List<Long> asList( long... ids )
+    {
+        List<Long> result = new ArrayList<>();
+        for ( long id : ids )
+        {
+            result.add( id );
+        }
+        return result;
+    }
+
     private List<Long> asList( RelIdArray ids )
     {
         List<Long> result = new ArrayList<>();
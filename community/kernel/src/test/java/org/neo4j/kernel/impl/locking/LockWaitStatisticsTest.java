@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+
+public class LockWaitStatisticsTest
+{
+    private final LockWaitStatistics statistics = new LockWaitStatistics();
+
+    @Test
+    public void shouldCountWaitsAndDeadlocksPerResourceType() throws Exception
+    {
+        // WHEN
+        statistics.lockWaited( ResourceTypes.NODE, 1, 1_000 );
+        statistics.lockWaited( ResourceTypes.NODE, 2, 2_000 );
+        statistics.lockWaited( ResourceTypes.RELATIONSHIP, 1, 5_000 );
+        statistics.deadlockDetected( ResourceTypes.NODE, 1 );
+
+        // THEN
+        assertEquals( asSet( ResourceTypes.NODE, ResourceTypes.RELATIONSHIP ), asSet( statistics.resourceTypes() ) );
+        assertEquals( 2, statistics.waits( ResourceTypes.NODE ) );
+        assertEquals( 3_000, statistics.totalWaitTimeNanos( ResourceTypes.NODE ) );
+        assertEquals( 1, statistics.deadlocks( ResourceTypes.NODE ) );
+        assertEquals( 1, statistics.waits( ResourceTypes.RELATIONSHIP ) );
+        assertEquals( 0, statistics.deadlocks( ResourceTypes.RELATIONSHIP ) );
+        assertEquals( 0, statistics.waits( ResourceTypes.SCHEMA ) );
+        assertEquals( 1, statistics.totalDeadlocks() );
+    }
+
+    @Test
+    public void shouldBucketWaitTimesByPowersOfTwoMicroseconds() throws Exception
+    {
+        // WHEN
+        statistics.lockWaited( ResourceTypes.NODE, 1, 500 );
+        statistics.lockWaited( ResourceTypes.NODE, 1, TimeUnit.MICROSECONDS.toNanos( 3 ) );
+        statistics.lockWaited( ResourceTypes.NODE, 1, TimeUnit.MICROSECONDS.toNanos( 1024 ) );
+        statistics.lockWaited( ResourceTypes.NODE, 1, TimeUnit.DAYS.toNanos( 1 ) );
+
+        // THEN
+        long[] expected = new long[LockWaitStatistics.HISTOGRAM_BUCKETS];
+        expected[0] = 1;
+        expected[1] = 1;
+        expected[10] = 1;
+        expected[LockWaitStatistics.HISTOGRAM_BUCKETS - 1] = 1;
+        assertArrayEquals( expected, statistics.waitTimeHistogram( ResourceTypes.NODE ) );
+    }
+
+    @Test
+    public void shouldReportMostContendedResourcesFirst() throws Exception
+    {
+        // WHEN
+        for ( int i = 0; i < 3; i++ )
+        {
+            statistics.lockWaited( ResourceTypes.NODE, 7, 1 );
+        }
+        statistics.lockWaited( ResourceTypes.NODE, 3, 1 );
+        statistics.lockWaited( ResourceTypes.NODE, 5, 1 );
+        statistics.lockWaited( ResourceTypes.NODE, 5, 1 );
+
+        // THEN
+        assertArrayEquals( new long[]{7, 5}, statistics.mostContendedResources( ResourceTypes.NODE, 2 ) );
+        assertArrayEquals( new long[]{7, 5, 3}, statistics.mostContendedResources( ResourceTypes.NODE, 10 ) );
+    }
+
+    @Test
+    public void shouldBoundNumberOfTrackedResources() throws Exception
+    {
+        // GIVEN
+        statistics.lockWaited( ResourceTypes.NODE, -1, 1 );
+        statistics.lockWaited( ResourceTypes.NODE, -1, 1 );
+
+        // WHEN
+        for ( int i = 0; i < LockWaitStatistics.MAX_TRACKED_RESOURCES * 4; i++ )
+        {
+            statistics.lockWaited( ResourceTypes.NODE, i, 1 );
+        }
+
+        // THEN
+        long[] tracked = statistics.mostContendedResources( ResourceTypes.NODE, Integer.MAX_VALUE );
+        assertTrue( tracked.length <= LockWaitStatistics.MAX_TRACKED_RESOURCES );
+        assertEquals( -1, tracked[0] );
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.impl.locking.LockWaitStatistics;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+
+import static java.util.Arrays.asList;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import static org.neo4j.kernel.impl.locking.ResourceTypes.NODE;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.RELATIONSHIP;
+
+public class StripedLockManagerTest
+{
+    private final LockWaitStatistics statistics = new LockWaitStatistics();
+    private final StripedLockManager locks = new StripedLockManager( statistics, 4, ResourceTypes.values() );
+    private final ExecutorService executor = Executors.newFixedThreadPool( 2 );
+
+    @After
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldReportLockWaits() throws Exception
+    {
+        // GIVEN
+        Locks.Client holder = locks.newClient();
+        holder.acquireExclusive( NODE, 42 );
+        Future<Boolean> waiter = executor.submit( acquireExclusive( locks.newClient(), 42 ) );
+        Thread.sleep( 50 );
+
+        // WHEN
+        holder.releaseExclusive( NODE, 42 );
+        waiter.get( 10, TimeUnit.SECONDS );
+
+        // THEN
+        assertEquals( 1, statistics.waits( NODE ) );
+        assertTrue( statistics.totalWaitTimeNanos( NODE ) > 0 );
+        assertArrayEquals( new long[]{42}, statistics.mostContendedResources( NODE, 10 ) );
+        assertEquals( 0, statistics.totalDeadlocks() );
+    }
+
+    @Test
+    public void shouldReportDeadlocks() throws Exception
+    {
+        // GIVEN
+        Locks.Client first = locks.newClient();
+        Locks.Client second = locks.newClient();
+        first.acquireExclusive( NODE, 1 );
+        second.acquireExclusive( NODE, 2 );
+
+        // WHEN
+        Future<Boolean> firstResult = executor.submit( acquireExclusive( first, 2 ) );
+        Future<Boolean> secondResult = executor.submit( acquireExclusive( second, 1 ) );
+        boolean firstDeadlocked = !firstResult.get( 10, TimeUnit.SECONDS );
+        boolean secondDeadlocked = !secondResult.get( 10, TimeUnit.SECONDS );
+
+        // THEN
+        assertTrue( firstDeadlocked || secondDeadlocked );
+        assertEquals( (firstDeadlocked ? 1 : 0) + (secondDeadlocked ? 1 : 0), statistics.deadlocks( NODE ) );
+    }
+
+    @Test
+    public void shouldKeepLocksOfDifferentResourceTypesApart() throws Exception
+    {
+        // GIVEN
+        Locks.Client first = locks.newClient();
+        Locks.Client second = locks.newClient();
+        first.acquireExclusive( NODE, 7 );
+
+        // WHEN
+        boolean acquired = second.tryExclusiveLock( RELATIONSHIP, 7 );
+
+        // THEN
+        assertTrue( acquired );
+    }
+
+    @Test
+    public void shouldOnlyVisitLocksThatAreHeld() throws Exception
+    {
+        // GIVEN
+        Locks.Client client = locks.newClient();
+        client.acquireShared( NODE, 1, 2, 3 );
+        client.acquireExclusive( RELATIONSHIP, 4 );
+        client.releaseShared( NODE, 2 );
+
+        // WHEN
+        final List<Long> visited = new ArrayList<>();
+        locks.accept( new Locks.Visitor()
+        {
+            @Override
+            public void visit( Locks.ResourceType resourceType, long resourceId, String description,
+                               long estimatedWaitTime )
+            {
+                visited.add( resourceType == NODE ? resourceId : -resourceId );
+            }
+        } );
+
+        // THEN
+        assertEquals( 3, visited.size() );
+        assertTrue( visited.containsAll( asList( 1l, 3l, -4l ) ) );
+    }
+
+    @Test
+    public void shouldReuseClosedClients() throws Exception
+    {
+        // GIVEN
+        Locks.Client client = locks.newClient();
+        client.acquireExclusive( NODE, 1 );
+
+        // WHEN
+        client.close();
+        Locks.Client reused = locks.newClient();
+
+        // THEN
+        assertSame( client, reused );
+        assertTrue( locks.newClient().tryExclusiveLock( NODE, 1 ) );
+    }
+
+    /** @return a task that returns false if acquiring the lock would deadlock, in which case it releases all locks */
+    private Callable<Boolean> acquireExclusive( final Locks.Client client, final long resourceId )
+    {
+        return new Callable<Boolean>()
+        {
+            @Override
+            public Boolean call() throws Exception
+            {
+                try
+                {
+                    client.acquireExclusive( NODE, resourceId );
+                    client.releaseAll();
+                    return true;
+                }
+                catch ( DeadlockDetectedException e )
+                {
+                    client.releaseAll();
+                    return false;
+                }
+            }
+        };
+    }
+}
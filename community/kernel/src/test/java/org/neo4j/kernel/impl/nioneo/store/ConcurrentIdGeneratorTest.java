@@ -0,0 +1,318 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.test.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentIdGeneratorTest
+{
+    @Rule public EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    private final File file = new File( "ids.id" );
+    private final OnDemandJobScheduler scheduler = new OnDemandJobScheduler();
+    private IdGeneratorImpl delegate;
+
+    @Test
+    public void shouldHandOutUniqueIdsToConcurrentThreads() throws Exception
+    {
+        // GIVEN
+        final IdGenerator generator = newGenerator( 100 );
+        ExecutorService executor = Executors.newFixedThreadPool( 8 );
+
+        // WHEN
+        Set<Long> ids = new HashSet<>();
+        try
+        {
+            Future<?>[] futures = new Future[8];
+            for ( int t = 0; t < futures.length; t++ )
+            {
+                futures[t] = executor.submit( new Callable<long[]>()
+                {
+                    @Override
+                    public long[] call()
+                    {
+                        long[] ids = new long[10_000];
+                        for ( int i = 0; i < ids.length; i++ )
+                        {
+                            ids[i] = generator.nextId();
+                        }
+                        return ids;
+                    }
+                } );
+            }
+            for ( Future<?> future : futures )
+            {
+                for ( long id : (long[]) future.get() )
+                {
+                    assertTrue( "Id " + id + " handed out twice", ids.add( id ) );
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // THEN
+        assertEquals( 80_000, ids.size() );
+        assertTrue( generator.getHighId() >= 80_000 );
+        generator.close();
+    }
+
+    @Test
+    public void shouldReuseFreedIdsOnceBufferIsFlushed() throws Exception
+    {
+        // GIVEN
+        IdGenerator generator = newGenerator( 4 );
+        for ( int i = 0; i < 8; i++ )
+        {
+            generator.nextId();
+        }
+
+        // WHEN
+        for ( long id = 0; id < 4; id++ )
+        {
+            generator.freeId( id );
+        }
+        generator.close();
+
+        // THEN
+        generator = newGenerator( 4 );
+        Set<Long> reused = new HashSet<>();
+        for ( int i = 0; i < 4; i++ )
+        {
+            reused.add( generator.nextId() );
+        }
+        assertEquals( asSet( 0L, 1L, 2L, 3L ), reused );
+        generator.close();
+    }
+
+    @Test
+    public void shouldFreeUnusedPartOfRangesOnClose() throws Exception
+    {
+        // GIVEN
+        IdGenerator generator = newGenerator( 10 );
+        generator.nextId();
+        generator.nextId();
+
+        // WHEN
+        generator.close();
+
+        // THEN
+        generator = newGenerator( 10 );
+        Set<Long> reused = new HashSet<>();
+        for ( int i = 0; i < 8; i++ )
+        {
+            reused.add( generator.nextId() );
+        }
+        assertEquals( asSet( 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L ), reused );
+        generator.close();
+    }
+
+    @Test
+    public void shouldNotHandOutIdsFromRangesGrabbedBeforeHighIdWasSet() throws Exception
+    {
+        // GIVEN
+        IdGenerator generator = newGenerator( 10 );
+        generator.nextId();
+
+        // WHEN
+        generator.setHighId( 100 );
+
+        // THEN
+        assertEquals( 100, generator.nextId() );
+        generator.close();
+    }
+
+    @Test
+    public void shouldSkipIntegerMinusOne() throws Exception
+    {
+        // GIVEN
+        IdGenerator generator = newGenerator( 10 );
+        generator.setHighId( IdGeneratorImpl.INTEGER_MINUS_ONE - 1 );
+
+        // WHEN
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        // THEN
+        assertEquals( IdGeneratorImpl.INTEGER_MINUS_ONE - 1, first );
+        assertEquals( IdGeneratorImpl.INTEGER_MINUS_ONE + 1, second );
+        generator.close();
+    }
+
+    @Test
+    public void shouldMergeFreedIdsInTheBackground() throws Exception
+    {
+        // GIVEN
+        IdGenerator generator = newGenerator( 4 );
+        for ( int i = 0; i < 8; i++ )
+        {
+            generator.nextId();
+        }
+        for ( long id = 0; id < 4; id++ )
+        {
+            generator.freeId( id );
+        }
+        assertEquals( 0, delegate.getDefragCount() );
+
+        // WHEN
+        scheduler.runJobs();
+
+        // THEN
+        assertEquals( 4, delegate.getDefragCount() );
+        generator.close();
+    }
+
+    @Test
+    public void shouldTakeOverRangeOfThreadThatHasDied() throws Exception
+    {
+        // GIVEN
+        final IdGenerator generator = newGenerator( 10 );
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                generator.nextId();
+            }
+        };
+        thread.start();
+        thread.join();
+
+        // WHEN
+        long id = generator.nextId();
+
+        // THEN
+        assertEquals( 1, id );
+        assertEquals( 10, generator.getHighId() );
+        generator.close();
+    }
+
+    @Test
+    public void shouldFreeUnusedPartOfRangeOfThreadThatHasDiedOnClose() throws Exception
+    {
+        // GIVEN
+        final IdGenerator generator = newGenerator( 10 );
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                for ( int i = 0; i < 3; i++ )
+                {
+                    generator.nextId();
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+
+        // WHEN
+        generator.close();
+
+        // THEN
+        IdGenerator reopened = newGenerator( 10 );
+        Set<Long> reused = new HashSet<>();
+        for ( int i = 0; i < 7; i++ )
+        {
+            reused.add( reopened.nextId() );
+        }
+        assertEquals( asSet( 3L, 4L, 5L, 6L, 7L, 8L, 9L ), reused );
+        reopened.close();
+    }
+
+    private IdGenerator newGenerator( int batchSize )
+    {
+        if ( !fsRule.get().fileExists( file ) )
+        {
+            IdGeneratorImpl.createGenerator( fsRule.get(), file, 0 );
+        }
+        delegate = new IdGeneratorImpl( fsRule.get(), file, 100, Long.MAX_VALUE, false, 0 );
+        return new ConcurrentIdGenerator( delegate, batchSize, 4, scheduler );
+    }
+
+    private static Set<Long> asSet( Long... values )
+    {
+        Set<Long> set = new HashSet<>();
+        for ( Long value : values )
+        {
+            set.add( value );
+        }
+        return set;
+    }
+
+    private static class OnDemandJobScheduler extends LifecycleAdapter implements JobScheduler
+    {
+        private final List<Runnable> jobs = new ArrayList<>();
+
+        @Override
+        public synchronized void schedule( Group group, Runnable job )
+        {
+            jobs.add( job );
+        }
+
+        @Override
+        public void scheduleRecurring( Group group, Runnable runnable, long period, TimeUnit timeUnit )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void scheduleRecurring( Group group, Runnable runnable, long initialDelay, long period,
+                                       TimeUnit timeUnit )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cancelRecurring( Group group, Runnable runnable )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        synchronized void runJobs()
+        {
+            for ( Runnable job : jobs )
+            {
+                job.run();
+            }
+            jobs.clear();
+        }
+    }
+}
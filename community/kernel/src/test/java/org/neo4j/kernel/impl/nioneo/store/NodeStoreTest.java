@@ -36,6 +36,8 @@ import static java.util.Arrays.asList;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import static org.neo4j.kernel.impl.nioneo.store.DynamicArrayStore.allocateFromNumbers;
@@ -131,6 +133,33 @@ public class NodeStoreTest
         fs.shutdown();
     }
 
+    @Test
+    public void shouldLoadNoLightNodeBeyondTheHighId() throws Exception
+    {
+        // GIVEN
+        EphemeralFileSystemAbstraction fs = new EphemeralFileSystemAbstraction();
+        StoreFactory factory = new StoreFactory( new Config(), new DefaultIdGeneratorFactory(),
+                new DefaultWindowPoolFactory(), fs, DEV_NULL, new DefaultTxHook() );
+        File nodeStoreFileName = new File( "nodestore" );
+        factory.createNodeStore( nodeStoreFileName );
+        NodeStore nodeStore = factory.newNodeStore( nodeStoreFileName );
+        NodeRecord record = new NodeRecord( nodeStore.nextId(), false, NO_NEXT_RELATIONSHIP.intValue(),
+                NO_NEXT_PROPERTY.intValue() );
+        record.setInUse( true );
+        nodeStore.updateRecord( record );
+
+        // WHEN
+        NodeRecord beyondHighId = nodeStore.loadLightNode( nodeStore.getHighId() + 10 );
+
+        // THEN
+        assertNull( beyondHighId );
+        assertNotNull( nodeStore.loadLightNode( record.getId() ) );
+
+        // CLEANUP
+        nodeStore.close();
+        fs.shutdown();
+    }
+
     @Test
     public void shouldKeepRecordLightWhenSettingLabelFieldWithoutDynamicRecords() throws Exception
     {
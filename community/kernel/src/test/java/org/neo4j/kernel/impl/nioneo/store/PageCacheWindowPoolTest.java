@@ -0,0 +1,392 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.test.ResourceCollection;
+import org.neo4j.test.TargetDirectory;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PageCacheWindowPoolTest
+{
+    private static final int RECORD_SIZE = 8;
+    private static final int PAGE_SIZE = RECORD_SIZE * 4;
+
+    private static final TargetDirectory target = TargetDirectory.forTest( PageCacheWindowPoolTest.class );
+    @Rule
+    public final ResourceCollection resources = new ResourceCollection();
+    @Rule
+    public final TargetDirectory.TestDirectory directory = target.testDirectory();
+
+    @Test
+    public void shouldWriteOutEvictedPagesAndReadThemBack() throws Exception
+    {
+        // given
+        SharedPageCache pageCache = new SharedPageCache( PAGE_SIZE * 2, PAGE_SIZE, false );
+        PageCacheWindowPool pool = new PageCacheWindowPool( new File( "test.store" ), RECORD_SIZE,
+                channel( "paged.file" ), pageCache, false, StringLogger.DEV_NULL );
+
+        // when
+        for ( long id = 0; id < 40; id++ )
+        {
+            writeRecord( pool, id, id * 3 );
+        }
+
+        // then
+        for ( long id = 0; id < 40; id++ )
+        {
+            assertEquals( id * 3, readRecord( pool, id ) );
+        }
+        assertTrue( pageCache.evictions() > 0 );
+        assertTrue( pool.getStats().getWindowCount() <= 2 );
+        pool.close();
+    }
+
+    @Test
+    public void shouldShareSlotsBetweenPools() throws Exception
+    {
+        // given
+        SharedPageCache pageCache = new SharedPageCache( PAGE_SIZE * 3, PAGE_SIZE, false );
+        PageCacheWindowPool hot = new PageCacheWindowPool( new File( "hot.store" ), RECORD_SIZE,
+                channel( "hot.file" ), pageCache, false, StringLogger.DEV_NULL );
+        PageCacheWindowPool cold = new PageCacheWindowPool( new File( "cold.store" ), RECORD_SIZE,
+                channel( "cold.file" ), pageCache, false, StringLogger.DEV_NULL );
+
+        // when
+        writeRecord( cold, 0, 42 );
+        for ( int round = 0; round < 10; round++ )
+        {
+            for ( long id = 0; id < 12; id++ )
+            {
+                writeRecord( hot, id, id );
+            }
+        }
+
+        // then
+        assertEquals( 3, hot.getStats().getWindowCount() );
+        assertEquals( 0, cold.getStats().getWindowCount() );
+        assertEquals( 42, readRecord( cold, 0 ) );
+        hot.close();
+        cold.close();
+    }
+
+    @Test
+    public void shouldWriteOutDirtyPagesWhenFlushingInTheBackground() throws Exception
+    {
+        // given
+        SharedPageCache pageCache = new SharedPageCache( PAGE_SIZE * 2, PAGE_SIZE, false );
+        StoreChannel channel = channel( "flushed.file" );
+        PageCacheWindowPool pool = new PageCacheWindowPool( new File( "test.store" ), RECORD_SIZE,
+                channel, pageCache, false, StringLogger.DEV_NULL );
+        writeRecord( pool, 5, 1337 );
+
+        // when
+        pageCache.flushDirtyPages();
+
+        // then
+        ByteBuffer onDisk = ByteBuffer.allocate( RECORD_SIZE );
+        channel.read( onDisk, 5 * RECORD_SIZE );
+        onDisk.flip();
+        assertEquals( 1337, onDisk.getLong() );
+        pool.close();
+    }
+
+    @Test
+    public void shouldReadResidentPagesOptimistically() throws Exception
+    {
+        // given
+        SharedPageCache pageCache = new SharedPageCache( PAGE_SIZE * 2, PAGE_SIZE, false );
+        PageCacheWindowPool pool = new PageCacheWindowPool( new File( "test.store" ), RECORD_SIZE,
+                channel( "optimistic.file" ), pageCache, false, StringLogger.DEV_NULL );
+        assertNull( pool.acquireOptimistic( 2 ) );
+        writeRecord( pool, 2, 42 );
+
+        // when
+        PersistenceWindow window = pool.acquireOptimistic( 2 );
+
+        // then
+        assertNotNull( window );
+        assertEquals( 42, window.getOffsettedBuffer( 2 ).getLong() );
+        assertTrue( pool.validate( window ) );
+        pool.close();
+    }
+
+    @Test
+    public void shouldNotValidateOptimisticReadOfPageWrittenToMeanwhile() throws Exception
+    {
+        // given
+        SharedPageCache pageCache = new SharedPageCache( PAGE_SIZE * 2, PAGE_SIZE, false );
+        PageCacheWindowPool pool = new PageCacheWindowPool( new File( "test.store" ), RECORD_SIZE,
+                channel( "optimistic.file" ), pageCache, false, StringLogger.DEV_NULL );
+        writeRecord( pool, 2, 42 );
+        PersistenceWindow window = pool.acquireOptimistic( 2 );
+        window.getOffsettedBuffer( 2 ).getLong();
+
+        // when
+        writeRecord( pool, 3, 43 );
+
+        // then
+        assertFalse( pool.validate( window ) );
+        pool.close();
+    }
+
+    @Test
+    public void shouldNotReadWriteLockedPageOptimistically() throws Exception
+    {
+        // given
+        SharedPageCache pageCache = new SharedPageCache( PAGE_SIZE * 2, PAGE_SIZE, false );
+        PageCacheWindowPool pool = new PageCacheWindowPool( new File( "test.store" ), RECORD_SIZE,
+                channel( "optimistic.file" ), pageCache, false, StringLogger.DEV_NULL );
+        writeRecord( pool, 2, 42 );
+
+        // when
+        PersistenceWindow writeWindow = pool.acquire( 2, OperationType.WRITE );
+        try
+        {
+            // then
+            assertNull( pool.acquireOptimistic( 2 ) );
+        }
+        finally
+        {
+            pool.release( writeWindow );
+        }
+        assertNotNull( pool.acquireOptimistic( 2 ) );
+        pool.close();
+    }
+
+    @Test
+    public void shouldCloseEvictedPagesInReadOnlyMode() throws Exception
+    {
+        // given
+        SharedPageCache pageCache = new SharedPageCache( PAGE_SIZE, PAGE_SIZE, false );
+        StoreChannel channel = channel( "readonly.file" );
+        channel.write( ByteBuffer.allocate( PAGE_SIZE * 2 ), 0 );
+        PageCacheWindowPool pool = new PageCacheWindowPool( new File( "test.store" ), RECORD_SIZE,
+                channel, pageCache, true, StringLogger.DEV_NULL );
+        PageCacheWindow evicted = (PageCacheWindow) pool.acquire( 0, OperationType.READ );
+        pool.release( evicted );
+
+        // when
+        readRecord( pool, RECORD_SIZE * 4 );
+
+        // then
+        assertTrue( evicted.isClosed() );
+        assertFalse( evicted.markAsInUse() );
+        pool.close();
+    }
+
+    @Test
+    public void shouldNotBlockTheCacheWhileWaitingForAPageToBeReleased() throws Exception
+    {
+        // given
+        final SharedPageCache pageCache = new SharedPageCache( PAGE_SIZE, PAGE_SIZE, false );
+        final PageCacheWindowPool pool = new PageCacheWindowPool( new File( "test.store" ), RECORD_SIZE,
+                channel( "waiting.file" ), pageCache, false, StringLogger.DEV_NULL );
+        PersistenceWindow held = pool.acquire( 0, OperationType.READ );
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try
+        {
+            Future<Long> waiting = executor.submit( new Callable<Long>()
+            {
+                @Override
+                public Long call() throws Exception
+                {
+                    return readRecord( pool, RECORD_SIZE * 4 );
+                }
+            } );
+            Thread.sleep( 100 );
+            assertFalse( waiting.isDone() );
+
+            // when
+            Future<?> flushing = executor.submit( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    pageCache.flushDirtyPages();
+                }
+            } );
+
+            // then
+            flushing.get( 10, SECONDS );
+            assertFalse( waiting.isDone() );
+            pool.release( held );
+            assertEquals( 0L, waiting.get( 10, SECONDS ).longValue() );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        pool.close();
+    }
+
+    @Test
+    public void shouldNotEvictAPageLockedByTheThreadReservingASlot() throws Exception
+    {
+        // given
+        SharedPageCache pageCache = new SharedPageCache( PAGE_SIZE * 2, PAGE_SIZE, false );
+        PageCacheWindowPool pool = new PageCacheWindowPool( new File( "test.store" ), RECORD_SIZE,
+                channel( "owned.file" ), pageCache, false, StringLogger.DEV_NULL );
+        PersistenceWindow held = pool.acquire( 0, OperationType.WRITE );
+        held.getOffsettedBuffer( 0 ).putLong( 42 );
+
+        // when
+        for ( long id = 4; id < 40; id++ )
+        {
+            writeRecord( pool, id, id );
+        }
+
+        // then
+        assertFalse( ((PageCacheWindow) held).isClosed() );
+        assertEquals( 42, held.getOffsettedBuffer( 0 ).getLong() );
+        pool.release( held );
+        assertEquals( 42, readRecord( pool, 0 ) );
+        pool.close();
+    }
+
+    @Test
+    public void shouldWriteOutEvictedPagesWithoutBlockingOtherReservations() throws Exception
+    {
+        // given
+        SharedPageCache pageCache = new SharedPageCache( PAGE_SIZE * 2, PAGE_SIZE, false );
+        final CountDownLatch writing = new CountDownLatch( 1 );
+        final CountDownLatch letWrite = new CountDownLatch( 1 );
+        final AtomicBoolean blockWrites = new AtomicBoolean();
+        String filename = new File( directory.directory(), "slow.file" ).getAbsolutePath();
+        RandomAccessFile file = resources.add( new RandomAccessFile( filename, "rw" ) );
+        StoreChannel slowChannel = new StoreFileChannel( file.getChannel() )
+        {
+            @Override
+            public int write( ByteBuffer src, long position ) throws IOException
+            {
+                if ( blockWrites.compareAndSet( true, false ) )
+                {
+                    writing.countDown();
+                    try
+                    {
+                        letWrite.await();
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        throw new IOException( e );
+                    }
+                }
+                return super.write( src, position );
+            }
+        };
+        final PageCacheWindowPool slow = new PageCacheWindowPool( new File( "slow.store" ), RECORD_SIZE,
+                slowChannel, pageCache, false, StringLogger.DEV_NULL );
+        final PageCacheWindowPool other = new PageCacheWindowPool( new File( "other.store" ), RECORD_SIZE,
+                channel( "other.file" ), pageCache, false, StringLogger.DEV_NULL );
+        writeRecord( slow, 0, 42 );
+        readRecord( other, 0 );
+        blockWrites.set( true );
+        ExecutorService executor = Executors.newFixedThreadPool( 3 );
+        try
+        {
+            Future<Long> evicting = executor.submit( readTask( other, 4 ) );
+            assertTrue( writing.await( 10, SECONDS ) );
+
+            // when
+            Future<Long> reserving = executor.submit( readTask( other, 8 ) );
+            Future<Long> reloading = executor.submit( readTask( slow, 0 ) );
+
+            // then
+            assertEquals( 0L, reserving.get( 10, SECONDS ).longValue() );
+            Thread.sleep( 100 );
+            assertFalse( reloading.isDone() );
+            letWrite.countDown();
+            assertEquals( 0L, evicting.get( 10, SECONDS ).longValue() );
+            assertEquals( 42L, reloading.get( 10, SECONDS ).longValue() );
+        }
+        finally
+        {
+            letWrite.countDown();
+            executor.shutdownNow();
+        }
+        slow.close();
+        other.close();
+    }
+
+    private Callable<Long> readTask( final PageCacheWindowPool pool, final long id )
+    {
+        return new Callable<Long>()
+        {
+            @Override
+            public Long call() throws Exception
+            {
+                return readRecord( pool, id );
+            }
+        };
+    }
+
+    private StoreChannel channel( String name ) throws Exception
+    {
+        String filename = new File( directory.directory(), name ).getAbsolutePath();
+        RandomAccessFile file = resources.add( new RandomAccessFile( filename, "rw" ) );
+        return new StoreFileChannel( file.getChannel() );
+    }
+
+    private void writeRecord( PageCacheWindowPool pool, long id, long value )
+    {
+        PersistenceWindow window = pool.acquire( id, OperationType.WRITE );
+        try
+        {
+            window.getOffsettedBuffer( id ).putLong( value );
+        }
+        finally
+        {
+            pool.release( window );
+        }
+    }
+
+    private long readRecord( PageCacheWindowPool pool, long id )
+    {
+        PersistenceWindow window = pool.acquire( id, OperationType.READ );
+        try
+        {
+            return window.getOffsettedBuffer( id ).getLong();
+        }
+        finally
+        {
+            pool.release( window );
+        }
+    }
+}
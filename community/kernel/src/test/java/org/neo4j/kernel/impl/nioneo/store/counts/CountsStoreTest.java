@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.store.counts;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.test.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.graphdb.Direction.BOTH;
+import static org.neo4j.graphdb.Direction.INCOMING;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+import static org.neo4j.kernel.impl.nioneo.store.counts.CountsStore.ANY;
+
+public class CountsStoreTest
+{
+    @Rule public EphemeralFileSystemRule fs = new EphemeralFileSystemRule();
+    private final File file = new File( CountsStore.FILE_NAME );
+
+    @Test
+    public void shouldApplyDeltasOfConsecutiveTransactions() throws Exception
+    {
+        // GIVEN
+        CountsStore counts = emptyCountsAt( 5 );
+
+        // WHEN
+        counts.apply( nodeAndRelationship( 1, 2, 3 ), 6 );
+        counts.apply( nodeAndRelationship( 1, 2, 3 ), 7 );
+
+        // THEN
+        assertEquals( 2, counts.nodeCount( ANY ) );
+        assertEquals( 2, counts.nodeCount( 1 ) );
+        assertEquals( 0, counts.nodeCount( 2 ) );
+        assertEquals( 2, counts.relationshipCount( 1, 3, OUTGOING ) );
+        assertEquals( 2, counts.relationshipCount( 1, ANY, OUTGOING ) );
+        assertEquals( 2, counts.relationshipCount( ANY, 3, INCOMING ) );
+        assertEquals( 4, counts.relationshipCount( ANY, ANY, BOTH ) );
+        assertEquals( 7, counts.lastTxId() );
+        assertFalse( counts.isStale() );
+    }
+
+    @Test
+    public void shouldBecomeStaleWhenATransactionIsSkipped() throws Exception
+    {
+        // GIVEN
+        CountsStore counts = emptyCountsAt( 5 );
+
+        // WHEN
+        counts.apply( nodeAndRelationship( 1, 2, 3 ), 7 );
+
+        // THEN
+        assertTrue( counts.isStale() );
+    }
+
+    @Test
+    public void shouldRefuseToServeStaleCounts() throws Exception
+    {
+        // GIVEN
+        CountsStore counts = emptyCountsAt( 5 );
+        counts.apply( nodeAndRelationship( 1, 2, 3 ), 6 );
+
+        // WHEN
+        counts.invalidate();
+
+        // THEN
+        try
+        {
+            counts.nodeCount( 1 );
+            fail( "Should not serve stale counts" );
+        }
+        catch ( StaleCountsException e )
+        {   // Expected
+        }
+        try
+        {
+            counts.relationshipCount( ANY, 3, BOTH );
+            fail( "Should not serve stale counts" );
+        }
+        catch ( StaleCountsException e )
+        {   // Expected
+        }
+    }
+
+    @Test
+    public void shouldReadBackWrittenCounts() throws Exception
+    {
+        // GIVEN
+        CountsStore counts = emptyCountsAt( 5 );
+        counts.apply( nodeAndRelationship( 1, 2, 3 ), 6 );
+
+        // WHEN
+        counts.write( fs.get(), file );
+        CountsStore loaded = CountsStore.load( fs.get(), file );
+
+        // THEN
+        assertFalse( loaded.isStale() );
+        assertEquals( 6, loaded.lastTxId() );
+        assertEquals( 1, loaded.nodeCount( 1 ) );
+        assertEquals( 1, loaded.relationshipCount( 2, 3, INCOMING ) );
+    }
+
+    @Test
+    public void shouldDeleteTheFileInsteadOfWritingStaleCounts() throws Exception
+    {
+        // GIVEN
+        CountsStore counts = emptyCountsAt( 5 );
+        counts.write( fs.get(), file );
+
+        // WHEN
+        counts.invalidate();
+        counts.write( fs.get(), file );
+
+        // THEN
+        assertFalse( fs.get().fileExists( file ) );
+        assertTrue( CountsStore.load( fs.get(), file ).isStale() );
+    }
+
+    private CountsStore emptyCountsAt( long txId )
+    {
+        return new CountsStore( txId, false );
+    }
+
+    private CountsDelta nodeAndRelationship( int startLabel, int endLabel, int type )
+    {
+        CountsDelta delta = new CountsDelta();
+        delta.nodeWithLabels( new long[] {startLabel}, 1 );
+        delta.relationshipsOfNodeWithLabels( new long[] {startLabel}, type, OUTGOING, 1 );
+        delta.relationshipsOfNodeWithLabels( new long[] {endLabel}, type, INCOMING, 1 );
+        return delta;
+    }
+}
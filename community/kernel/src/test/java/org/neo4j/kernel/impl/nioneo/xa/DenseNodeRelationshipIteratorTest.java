@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.xa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.impl.MyRelTypes;
+import org.neo4j.kernel.impl.nioneo.store.NeoStore;
+import org.neo4j.kernel.impl.util.RelIdArray.DirectionWrapper;
+import org.neo4j.test.ImpermanentDatabaseRule;
+
+import static java.util.Arrays.asList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DenseNodeRelationshipIteratorTest
+{
+    @Rule
+    public final ImpermanentDatabaseRule dbRule = new ImpermanentDatabaseRule()
+    {
+        @Override
+        protected void configure( GraphDatabaseBuilder builder )
+        {
+            builder.setConfig( GraphDatabaseSettings.dense_node_threshold, "5" );
+        }
+    };
+
+    @Test
+    public void shouldEndTheChainAtARelationshipDeletedWhileIterating() throws Exception
+    {
+        // GIVEN
+        GraphDatabaseService db = dbRule.getGraphDatabaseService();
+        List<Relationship> relationships = new ArrayList<>();
+        Node node;
+        try ( Transaction tx = db.beginTx() )
+        {
+            node = db.createNode();
+            for ( int i = 0; i < 10; i++ )
+            {
+                relationships.add( node.createRelationshipTo( db.createNode(), MyRelTypes.TEST ) );
+            }
+            tx.success();
+        }
+        NeoStore neoStore = neoStore();
+        int type = neoStore.getRelationshipStore().getRecord( relationships.get( 0 ).getId() ).getType();
+        DenseNodeRelationshipIterator iterator = new DenseNodeRelationshipIterator( node.getId(),
+                neoStore.getNodeStore().getRecord( node.getId() ).getNextRel(), DirectionWrapper.OUTGOING,
+                new int[] {type}, neoStore.getRelationshipGroupStore(), neoStore.getRelationshipStore() );
+
+        // Relationships are added first in the chain, so the last one created is visited first
+        assertTrue( iterator.hasNext() );
+        assertEquals( relationships.get( 9 ).getId(), iterator.next() );
+        assertTrue( iterator.hasNext() );
+        assertEquals( relationships.get( 8 ).getId(), iterator.next() );
+
+        // WHEN
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( Relationship relationship : asList( relationships.get( 7 ), relationships.get( 6 ) ) )
+            {
+                relationship.delete();
+            }
+            tx.success();
+        }
+
+        // THEN
+        assertFalse( iterator.hasNext() );
+    }
+
+    private NeoStore neoStore()
+    {
+        return dbRule.getGraphDatabaseAPI().getDependencyResolver()
+                .resolveDependency( NeoStoreXaDataSource.class ).getNeoStore();
+    }
+}
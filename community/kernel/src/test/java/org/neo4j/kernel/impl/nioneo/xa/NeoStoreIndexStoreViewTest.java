@@ -19,10 +19,12 @@
  */
 package org.neo4j.kernel.impl.nioneo.xa;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.junit.After;
 import org.junit.Before;
@@ -47,6 +49,7 @@ import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
 import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
 import org.neo4j.kernel.api.properties.Property;
+import org.neo4j.kernel.impl.api.index.IndexStoreView;
 import org.neo4j.kernel.impl.api.index.StoreScan;
 import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
 import org.neo4j.kernel.impl.locking.Lock;
@@ -102,6 +105,34 @@ public class NeoStoreIndexStoreViewTest
             ), visitor.getUpdates() );
     }
 
+    @Test
+    public void shouldScanExistingNodesInParallel() throws Exception
+    {
+        // given
+        final Set<NodePropertyUpdate> updates = Collections.newSetFromMap(
+                new ConcurrentHashMap<NodePropertyUpdate, Boolean>() );
+        StoreScan<Exception> storeScan = storeView.visitNodesInParallel( new int[] { labelId },
+                new int[] { propertyKeyId }, 4, new IndexStoreView.NodeBatchVisitor<Exception>()
+        {
+            @Override
+            public boolean visit( long fromNodeId, long toNodeId, List<NodePropertyUpdate> batch )
+            {
+                updates.addAll( batch );
+                return false;
+            }
+        } );
+
+        // when
+        storeScan.run();
+
+        // then
+        assertEquals(
+            asSet(
+                NodePropertyUpdate.add( alistair.getId(), propertyKeyId, "Alistair", new long[] { labelId } ),
+                NodePropertyUpdate.add( stefan.getId(), propertyKeyId, "Stefan", new long[] { labelId } )
+            ), updates );
+    }
+
     @Test
     public void shouldIgnoreDeletedNodesDuringScan() throws Exception
     {
@@ -154,7 +185,7 @@ public class NeoStoreIndexStoreViewTest
         assertTrue( property.valueEquals( "Alistair" ) );
     }
 
-    Map<Long, Lock> lockMocks = new HashMap<>();
+    Map<Long, Lock> lockMocks = new ConcurrentHashMap<>();
 
     @Before
     public void before() throws KernelException
@@ -77,6 +77,7 @@ import org.neo4j.kernel.impl.nioneo.store.RelationshipRecord;
 import org.neo4j.kernel.impl.nioneo.store.SchemaRule;
 import org.neo4j.kernel.impl.nioneo.store.SchemaStore;
 import org.neo4j.kernel.impl.nioneo.store.StoreFactory;
+import org.neo4j.kernel.impl.nioneo.store.counts.CountsStore;
 import org.neo4j.kernel.impl.nioneo.xa.Command.PropertyCommand;
 import org.neo4j.kernel.impl.nioneo.xa.Command.SchemaRuleCommand;
 import org.neo4j.kernel.impl.transaction.KernelHealth;
@@ -568,6 +569,78 @@ public class NeoStoreTransactionTest
                 indexingService.updates );
     }
 
+    @Test
+    public void shouldUpdateCountsForCommittedNodesRelationshipsAndLabels() throws Exception
+    {
+        shouldUpdateCounts();
+    }
+
+    @Test
+    public void shouldUpdateCountsForCommittedNodesRelationshipsAndLabelsOfDenseNodes() throws Exception
+    {
+        instantiateNeoStore( 1 );
+        shouldUpdateCounts();
+    }
+
+    private void shouldUpdateCounts() throws Exception
+    {
+        // GIVEN
+        int label1 = 1, label2 = 2, type0 = 0, type1 = 1;
+        long a = nextId( NODE ), b = nextId( NODE ), c = nextId( NODE );
+        long ab = nextId( RELATIONSHIP ), ac = nextId( RELATIONSHIP ), ba = nextId( RELATIONSHIP );
+        NeoStoreTransaction tx = newWriteTransaction().first();
+        tx.nodeCreate( a );
+        tx.nodeCreate( b );
+        tx.nodeCreate( c );
+        tx.addLabelToNode( label1, a );
+        tx.relationshipCreate( ab, type0, a, b );
+        tx.relationshipCreate( ac, type0, a, c );
+        tx.relationshipCreate( ba, type1, b, a );
+        prepareAndCommit( tx );
+
+        assertEquals( 3, counts.nodeCount( CountsStore.ANY ) );
+        assertEquals( 1, counts.nodeCount( label1 ) );
+        assertEquals( 2, counts.relationshipCount( label1, type0, OUTGOING ) );
+        assertEquals( 1, counts.relationshipCount( label1, type1, INCOMING ) );
+        assertEquals( 3, counts.relationshipCount( label1, CountsStore.ANY, Direction.BOTH ) );
+        assertEquals( 3, counts.relationshipCount( CountsStore.ANY, CountsStore.ANY, OUTGOING ) );
+
+        // WHEN
+        tx = newWriteTransaction().first();
+        tx.removeLabelFromNode( label1, a );
+        tx.addLabelToNode( label2, a );
+        tx.relDelete( ac );
+        prepareAndCommit( tx );
+        tx = newWriteTransaction().first();
+        tx.nodeDelete( c );
+        prepareAndCommit( tx );
+
+        // THEN
+        assertEquals( 2, counts.nodeCount( CountsStore.ANY ) );
+        assertEquals( 0, counts.nodeCount( label1 ) );
+        assertEquals( 1, counts.nodeCount( label2 ) );
+        assertEquals( 0, counts.relationshipCount( label1, CountsStore.ANY, Direction.BOTH ) );
+        assertEquals( 1, counts.relationshipCount( label2, type0, OUTGOING ) );
+        assertEquals( 1, counts.relationshipCount( label2, type1, INCOMING ) );
+        assertEquals( 2, counts.relationshipCount( CountsStore.ANY, CountsStore.ANY, INCOMING ) );
+        assertEquals( neoStore.getLastCommittedTx(), counts.lastTxId() );
+
+        CountsStore rebuilt = CountsStore.empty();
+        rebuilt.rebuildIfNeeded( neoStore );
+        for ( int label : new int[] {CountsStore.ANY, label1, label2} )
+        {
+            assertEquals( rebuilt.nodeCount( label ), counts.nodeCount( label ) );
+            for ( int type : new int[] {CountsStore.ANY, type0, type1} )
+            {
+                for ( Direction direction : new Direction[] {OUTGOING, INCOMING} )
+                {
+                    assertEquals( rebuilt.relationshipCount( label, type, direction ),
+                            counts.relationshipCount( label, type, direction ) );
+                }
+            }
+        }
+    }
+
     @Test
     public void shouldUpdateHighIdsOnRecoveredTransaction() throws Exception
     {
@@ -1187,6 +1260,7 @@ public class NeoStoreTransactionTest
     private final DefaultIdGeneratorFactory idGeneratorFactory = new DefaultIdGeneratorFactory();
     private final DefaultWindowPoolFactory windowPoolFactory = new DefaultWindowPoolFactory();
     private NeoStore neoStore;
+    private CountsStore counts;
     private LockService locks;
     private CacheAccessBackDoor cacheAccessBackDoor;
     private final List<Lock> lockMocks = new ArrayList<>();
@@ -1210,6 +1284,8 @@ public class NeoStoreTransactionTest
         StoreFactory storeFactory = new StoreFactory( config, idGeneratorFactory, windowPoolFactory,
                 fs.get(), DEV_NULL, new DefaultTxHook() );
         neoStore = storeFactory.createNeoStore( new File( "neostore" ) );
+        counts = CountsStore.empty();
+        counts.rebuildIfNeeded( neoStore );
         locks = mock( LockService.class, new Answer()
         {
             @Override
@@ -1302,7 +1378,7 @@ public class NeoStoreTransactionTest
         context.bind( transactionState );
         NeoStoreTransaction result = new NeoStoreTransaction( 0l, log, neoStore,
                 cacheAccessBackDoor, indexing, NO_LABEL_SCAN_STORE, new IntegrityValidator( neoStore, indexing ),
-                kernelTransaction, locks, context );
+                kernelTransaction, locks, counts, null, null, context );
         result.setIdentifier( 0 );
         result.setCommitTxId( neoStore.getLastCommittedTx()+1 );
         return Pair.of( result, context );
@@ -1319,7 +1395,7 @@ public class NeoStoreTransactionTest
                     new NeoStoreIndexStoreView( locks, neoStore ),
                     null,
                     new KernelSchemaStateStore(),
-                    new SingleLoggingService( DEV_NULL ), IndexingService.NO_MONITOR
+                    new SingleLoggingService( DEV_NULL ), IndexingService.NO_MONITOR, 0
                 );
         }
 
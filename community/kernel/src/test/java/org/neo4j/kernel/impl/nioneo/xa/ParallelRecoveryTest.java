@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.nioneo.xa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.helpers.collection.IteratorUtil;
+import org.neo4j.kernel.InternalAbstractGraphDatabase.Configuration;
+import org.neo4j.test.TestGraphDatabaseFactory;
+import org.neo4j.test.impl.EphemeralFileSystemAbstraction;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import static org.neo4j.graphdb.DynamicLabel.label;
+
+public class ParallelRecoveryTest
+{
+    private static final Label LABEL = label( "Recovered" );
+    private static final RelationshipType TYPE = DynamicRelationshipType.withName( "KNOWS" );
+
+    @Test
+    public void shouldRecoverTransactionsAppliedByMultipleThreads() throws Exception
+    {
+        // GIVEN
+        database = startDatabase( fs );
+        List<Long> nodes = new ArrayList<>();
+        List<Long> relationships = new ArrayList<>();
+        for ( int i = 0; i < 200; i++ )
+        {
+            try ( Transaction tx = database.beginTx() )
+            {
+                Node node = database.createNode( LABEL );
+                node.setProperty( "name", "node-" + i );
+                if ( !nodes.isEmpty() )
+                {
+                    Node other = database.getNodeById( nodes.get( i / 2 ) );
+                    Relationship relationship = node.createRelationshipTo( other, TYPE );
+                    relationship.setProperty( "since", i );
+                    relationships.add( relationship.getId() );
+                }
+                nodes.add( node.getId() );
+                tx.success();
+            }
+        }
+
+        // WHEN
+        try ( Transaction tx = database.beginTx() )
+        {   // delete every tenth relationship and change the labels of some of the nodes
+            for ( int i = 0; i < relationships.size(); i += 10 )
+            {
+                database.getRelationshipById( relationships.get( i ) ).delete();
+            }
+            for ( int i = 0; i < nodes.size(); i += 3 )
+            {
+                database.getNodeById( nodes.get( i ) ).removeLabel( LABEL );
+            }
+            tx.success();
+        }
+        EphemeralFileSystemAbstraction snapshot = fs.snapshot();
+        database.shutdown();
+        database = startDatabase( snapshot );
+
+        // THEN
+        try ( Transaction tx = database.beginTx() )
+        {
+            for ( int i = 0; i < nodes.size(); i++ )
+            {
+                Node node = database.getNodeById( nodes.get( i ) );
+                assertEquals( "node-" + i, node.getProperty( "name" ) );
+                assertEquals( i % 3 != 0, node.hasLabel( LABEL ) );
+            }
+            for ( int i = 0; i < relationships.size(); i++ )
+            {
+                if ( i % 10 == 0 )
+                {
+                    assertDeleted( relationships.get( i ) );
+                }
+                else
+                {
+                    assertEquals( i + 1, database.getRelationshipById( relationships.get( i ) ).getProperty( "since" ) );
+                }
+            }
+            assertEquals( nodes.size() - (nodes.size() + 2) / 3,
+                    IteratorUtil.count( GlobalGraphOperations.at( database ).getAllNodesWithLabel( LABEL ) ) );
+            tx.success();
+        }
+    }
+
+    @Test
+    public void shouldContinueAllocatingIdsAfterTheRecoveredOnes() throws Exception
+    {
+        // GIVEN
+        database = startDatabase( fs );
+        long lastNode;
+        try ( Transaction tx = database.beginTx() )
+        {
+            Node node = null;
+            for ( int i = 0; i < 100; i++ )
+            {
+                node = database.createNode();
+            }
+            lastNode = node.getId();
+            tx.success();
+        }
+        EphemeralFileSystemAbstraction snapshot = fs.snapshot();
+        database.shutdown();
+
+        // WHEN
+        database = startDatabase( snapshot );
+        long newNode;
+        try ( Transaction tx = database.beginTx() )
+        {
+            newNode = database.createNode().getId();
+            tx.success();
+        }
+
+        // THEN
+        assertTrue( newNode > lastNode );
+    }
+
+    private void assertDeleted( long relationshipId )
+    {
+        try
+        {
+            database.getRelationshipById( relationshipId );
+            fail( "Relationship " + relationshipId + " should have been deleted" );
+        }
+        catch ( NotFoundException e )
+        {   // Good
+        }
+    }
+
+    private GraphDatabaseService startDatabase( EphemeralFileSystemAbstraction fileSystem )
+    {
+        return new TestGraphDatabaseFactory().setFileSystem( fileSystem ).newImpermanentDatabaseBuilder()
+                .setConfig( Configuration.recovery_threads, "4" ).newGraphDatabase();
+    }
+
+    @After
+    public void tearDown()
+    {
+        if ( database != null )
+        {
+            database.shutdown();
+        }
+        fs.shutdown();
+    }
+
+    public final EphemeralFileSystemAbstraction fs = new EphemeralFileSystemAbstraction();
+    private GraphDatabaseService database;
+}
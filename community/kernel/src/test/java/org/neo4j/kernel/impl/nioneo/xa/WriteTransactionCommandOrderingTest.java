@@ -39,6 +39,7 @@ import org.neo4j.kernel.impl.nioneo.store.PropertyRecord;
 import org.neo4j.kernel.impl.nioneo.store.PropertyStore;
 import org.neo4j.kernel.impl.nioneo.store.RelationshipRecord;
 import org.neo4j.kernel.impl.nioneo.store.RelationshipStore;
+import org.neo4j.kernel.impl.nioneo.store.counts.CountsStore;
 import org.neo4j.kernel.impl.transaction.xaframework.XaLogicalLog;
 
 import static org.hamcrest.Matchers.equalTo;
@@ -171,7 +172,7 @@ public class WriteTransactionCommandOrderingTest
                 store, mock( CacheAccessBackDoor.class ), mock( IndexingService.class ),
                 NeoStoreTransactionTest.NO_LABEL_SCAN_STORE, mock( IntegrityValidator.class ),
                 mock( KernelTransactionImplementation.class ), mock( LockService.class, RETURNS_MOCKS ),
-                context
+                CountsStore.empty(), null, null, context
         );
         tx.setCommitTxId( store.getLastCommittedTx() + 1 );
         return tx;
@@ -22,8 +22,10 @@ package org.neo4j.kernel.impl.storemigration;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.Before;
@@ -87,6 +89,7 @@ public class StoreMigratorIT
         assertEquals( 100, monitor.events.size() );
         assertTrue( monitor.started );
         assertTrue( monitor.finished );
+        assertTrue( monitor.migrated.get( "relationships" ) > 0 );
 
         GraphDatabaseService database = cleanup.add( new GraphDatabaseFactory().newEmbeddedDatabase(
                 storeDir.getAbsolutePath() ) );
@@ -324,6 +327,7 @@ public class StoreMigratorIT
     private class ListAccumulatorMigrationProgressMonitor implements MigrationProgressMonitor
     {
         private final List<Integer> events = new ArrayList<>();
+        private final Map<String, Long> migrated = new HashMap<>();
         private boolean started = false;
         private boolean finished = false;
 
@@ -339,6 +343,12 @@ public class StoreMigratorIT
             events.add( percent );
         }
 
+        @Override
+        public void migrated( String what, long count, long millis )
+        {
+            migrated.put( what, count );
+        }
+
         @Override
         public void finished()
         {
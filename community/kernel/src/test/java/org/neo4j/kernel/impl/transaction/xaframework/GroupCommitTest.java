@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.xaframework;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class GroupCommitTest
+{
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger forces = new AtomicInteger();
+    private final GroupCommit.Force countingForce = new GroupCommit.Force()
+    {
+        @Override
+        public void force()
+        {
+            forces.incrementAndGet();
+        }
+    };
+    private final GroupCommit.Monitor noMonitor = new GroupCommit.Monitor()
+    {
+        @Override
+        public void forced( int batchSize )
+        {
+        }
+    };
+
+    @After
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldForceSingleCommitWithoutDelay() throws Exception
+    {
+        // GIVEN
+        GroupCommit groupCommit = new GroupCommit( 0, TimeUnit.MILLISECONDS, 10, noMonitor );
+        groupCommit.appended( 1 );
+
+        // WHEN
+        groupCommit.awaitForced( 1, countingForce );
+
+        // THEN
+        assertEquals( 1, forces.get() );
+        assertEquals( 1, groupCommit.getForceCount() );
+    }
+
+    @Test
+    public void shouldNotForceAgainForAlreadyForcedCommit() throws Exception
+    {
+        // GIVEN
+        GroupCommit groupCommit = new GroupCommit( 0, TimeUnit.MILLISECONDS, 10, noMonitor );
+        groupCommit.appended( 1 );
+        groupCommit.appended( 2 );
+        groupCommit.awaitForced( 2, countingForce );
+
+        // WHEN
+        groupCommit.awaitForced( 1, countingForce );
+
+        // THEN
+        assertEquals( 1, forces.get() );
+    }
+
+    @Test
+    public void shouldNotForceCommitsCoveredByForcedAll() throws Exception
+    {
+        // GIVEN
+        GroupCommit groupCommit = new GroupCommit( 0, TimeUnit.MILLISECONDS, 10, noMonitor );
+        groupCommit.appended( 1 );
+        groupCommit.forcedAll();
+
+        // WHEN
+        groupCommit.awaitForced( 1, countingForce );
+
+        // THEN
+        assertEquals( 0, forces.get() );
+    }
+
+    @Test
+    public void shouldShareOneForceBetweenConcurrentCommitsOnceBatchIsFull() throws Exception
+    {
+        // GIVEN
+        final int batchSize = 5;
+        final GroupCommit groupCommit = new GroupCommit( 1, TimeUnit.MINUTES, batchSize, noMonitor );
+        List<Future<Void>> committers = new ArrayList<>();
+
+        // WHEN
+        for ( int i = 1; i <= batchSize; i++ )
+        {
+            final long txId = i;
+            committers.add( executor.submit( new Callable<Void>()
+            {
+                @Override
+                public Void call() throws Exception
+                {
+                    groupCommit.appended( txId );
+                    groupCommit.awaitForced( txId, countingForce );
+                    return null;
+                }
+            } ) );
+        }
+        for ( Future<Void> committer : committers )
+        {
+            committer.get( 10, TimeUnit.SECONDS );
+        }
+
+        // THEN
+        assertEquals( 1, forces.get() );
+        assertEquals( batchSize, groupCommit.getAverageBatchSize(), 0.0 );
+    }
+
+    @Test
+    public void shouldLeavePendingCommitsForNextLeaderIfForceFails() throws Exception
+    {
+        // GIVEN
+        GroupCommit groupCommit = new GroupCommit( 0, TimeUnit.MILLISECONDS, 10, noMonitor );
+        groupCommit.appended( 1 );
+        try
+        {
+            groupCommit.awaitForced( 1, new GroupCommit.Force()
+            {
+                @Override
+                public void force() throws IOException
+                {
+                    throw new IOException( "Disk full" );
+                }
+            } );
+            fail( "Should have failed" );
+        }
+        catch ( IOException e )
+        {   // Expected
+        }
+
+        // WHEN
+        groupCommit.awaitForced( 1, countingForce );
+
+        // THEN
+        assertEquals( 1, forces.get() );
+        assertEquals( 1, groupCommit.getForceCount() );
+        assertEquals( 1, groupCommit.getAverageBatchSize(), 0.0 );
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.xaframework;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.logical_log_group_commit;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.logical_log_group_commit_max_batch_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.logical_log_group_commit_max_delay;
+
+public class GroupCommitVisibilityTest
+{
+    private static final String KEY = "value";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final GraphDatabaseService db = new TestGraphDatabaseFactory().newImpermanentDatabaseBuilder()
+            .setConfig( logical_log_group_commit, "true" )
+            .setConfig( logical_log_group_commit_max_delay, "60s" )
+            .setConfig( logical_log_group_commit_max_batch_size, "2" )
+            .newGraphDatabase();
+
+    @After
+    public void shutdown()
+    {
+        executor.shutdownNow();
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldNotMakeCommitVisibleBeforeItsGroupForce() throws Exception
+    {
+        // GIVEN
+        final AtomicReference<Thread> committer = new AtomicReference<>();
+        final long node = inBatchWith( new Callable<Long>()
+        {
+            @Override
+            public Long call()
+            {
+                return createNode( 1 );
+            }
+        } );
+        Future<Void> update = executor.submit( new Callable<Void>()
+        {
+            @Override
+            public Void call()
+            {
+                committer.set( Thread.currentThread() );
+                setValue( node, 2 );
+                return null;
+            }
+        } );
+        awaitGroupForce( committer );
+
+        // WHEN
+        Object valueBeforeForce = getValue( node );
+        createNode( 0 );
+        update.get( 10, TimeUnit.SECONDS );
+
+        // THEN
+        assertEquals( 1, valueBeforeForce );
+        assertEquals( 2, getValue( node ) );
+    }
+
+    private <T> T inBatchWith( Callable<T> commit ) throws Exception
+    {
+        Future<T> result = executor.submit( commit );
+        createNode( 0 );
+        return result.get( 10, TimeUnit.SECONDS );
+    }
+
+    private long createNode( int value )
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node node = db.createNode();
+            node.setProperty( KEY, value );
+            tx.success();
+            return node.getId();
+        }
+    }
+
+    private void setValue( long node, int value )
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            db.getNodeById( node ).setProperty( KEY, value );
+            tx.success();
+        }
+    }
+
+    private Object getValue( long node )
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            return db.getNodeById( node ).getProperty( KEY );
+        }
+    }
+
+    private void awaitGroupForce( AtomicReference<Thread> committer ) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( 10 );
+        while ( System.currentTimeMillis() < end )
+        {
+            Thread thread = committer.get();
+            if ( thread != null && thread.getState() == Thread.State.TIMED_WAITING )
+            {
+                for ( StackTraceElement element : thread.getStackTrace() )
+                {
+                    if ( element.getClassName().equals( GroupCommit.class.getName() ) )
+                    {
+                        return;
+                    }
+                }
+            }
+            Thread.sleep( 10 );
+        }
+        throw new AssertionError( "First commit never started waiting for its group force" );
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.xaframework;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import org.neo4j.helpers.Pair;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PipelinedTransactionApplierTest
+{
+    private final List<Pair<XaDataSource, ReadableByteChannel>> transactions = new ArrayList<>();
+    private final List<List<LogEntry>> read = new ArrayList<>();
+
+    @Test
+    public void shouldApplyTransactionsInBatchesOfOneDataSourceEach() throws Exception
+    {
+        // GIVEN
+        XaDataSource first = mock( XaDataSource.class );
+        XaDataSource second = mock( XaDataSource.class );
+        transactions( first, 5 );
+        transactions( second, 2 );
+        transactions( first, 1 );
+
+        // WHEN
+        new PipelinedTransactionApplier( 3 ).apply( transactions.iterator() );
+
+        // THEN
+        InOrder inOrder = inOrder( first, second );
+        inOrder.verify( first ).applyCommittedTransactions( asList( read.get( 0 ), read.get( 1 ), read.get( 2 ) ) );
+        inOrder.verify( first ).applyCommittedTransactions( asList( read.get( 3 ), read.get( 4 ) ) );
+        inOrder.verify( second ).applyCommittedTransactions( asList( read.get( 5 ), read.get( 6 ) ) );
+        inOrder.verify( first ).applyCommittedTransactions( asList( read.get( 7 ) ) );
+        inOrder.verifyNoMoreInteractions();
+        for ( Pair<XaDataSource, ReadableByteChannel> transaction : transactions )
+        {
+            verify( transaction.other() ).close();
+        }
+    }
+
+    @Test
+    public void shouldApplyTransactionsReadBeforeFailingToReadOne() throws Exception
+    {
+        // GIVEN
+        XaDataSource dataSource = mock( XaDataSource.class );
+        transactions( dataSource, 5 );
+        IOException failure = new IOException( "Connection lost" );
+        when( dataSource.readCommittedTransaction( transactions.get( 3 ).other() ) ).thenThrow( failure );
+
+        // WHEN
+        try
+        {
+            new PipelinedTransactionApplier( 2 ).apply( transactions.iterator() );
+            fail( "Should have failed" );
+        }
+        catch ( IOException e )
+        {
+            // THEN
+            assertSame( failure, e );
+        }
+        verify( dataSource ).applyCommittedTransactions( asList( read.get( 0 ), read.get( 1 ) ) );
+        verify( dataSource, times( 1 ) ).applyCommittedTransactions( any( List.class ) );
+    }
+
+    @Test
+    public void shouldStopReadingWhenFailingToApply() throws Exception
+    {
+        // GIVEN
+        XaDataSource dataSource = mock( XaDataSource.class );
+        transactions( dataSource, 100 );
+        IOException failure = new IOException( "Store failure" );
+        doThrow( failure ).when( dataSource ).applyCommittedTransactions( any( List.class ) );
+
+        // WHEN
+        try
+        {
+            new PipelinedTransactionApplier( 2 ).apply( transactions.iterator() );
+            fail( "Should have failed" );
+        }
+        catch ( IOException e )
+        {
+            // THEN
+            assertSame( failure, e );
+        }
+        verify( dataSource, times( 1 ) ).applyCommittedTransactions( any( List.class ) );
+        // At most the batch that failed, one waiting to be applied and one the reader was blocked on handing over
+        verify( dataSource, atMost( 6 ) ).readCommittedTransaction( any( ReadableByteChannel.class ) );
+    }
+
+    private void transactions( XaDataSource dataSource, int count ) throws IOException
+    {
+        for ( int i = 0; i < count; i++ )
+        {
+            ReadableByteChannel channel = mock( ReadableByteChannel.class );
+            List<LogEntry> entries = Collections.<LogEntry>singletonList( new LogEntry.Done( read.size() ) );
+            when( dataSource.readCommittedTransaction( channel ) ).thenReturn( entries );
+            transactions.add( Pair.of( dataSource, channel ) );
+            read.add( entries );
+        }
+    }
+}
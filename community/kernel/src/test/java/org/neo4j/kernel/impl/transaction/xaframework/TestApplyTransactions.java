@@ -21,12 +21,17 @@ package org.neo4j.kernel.impl.transaction.xaframework;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.Rule;
 import org.junit.Test;
 
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.helpers.Pair;
 import org.neo4j.helpers.Predicate;
 import org.neo4j.helpers.collection.Iterables;
 import org.neo4j.kernel.GraphDatabaseAPI;
@@ -37,11 +42,14 @@ import org.neo4j.test.EphemeralFileSystemRule;
 import org.neo4j.test.LogTestUtils;
 import org.neo4j.test.TestGraphDatabaseFactory;
 import org.neo4j.test.impl.EphemeralFileSystemAbstraction;
+import org.neo4j.tooling.GlobalGraphOperations;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
+import static org.neo4j.helpers.collection.IteratorUtil.count;
 import static org.neo4j.test.EphemeralFileSystemRule.shutdownDb;
 import static org.neo4j.kernel.impl.transaction.xaframework.LogMatchers.logEntries;
 import static org.neo4j.test.LogTestUtils.filterNeostoreLogicalLog;
@@ -89,6 +97,61 @@ public class TestApplyTransactions
         assertEquals( latestTxId, extractedTxId );
     }
 
+    @Test
+    public void shouldApplyReceivedTransactionsInBatches() throws Exception
+    {
+        // GIVEN
+        File baseStoreDir = new File( "base" );
+        GraphDatabaseAPI origin = (GraphDatabaseAPI) new TestGraphDatabaseFactory().setFileSystem( fs.get() )
+                .newImpermanentDatabase( new File( baseStoreDir, "origin" ).getPath() );
+        GraphDatabaseAPI dest = (GraphDatabaseAPI) new TestGraphDatabaseFactory().setFileSystem( fs.get() )
+                .newImpermanentDatabase( new File( baseStoreDir, "destination" ).getPath() );
+        Label label = DynamicLabel.label( "Person" );
+        try ( Transaction tx = origin.beginTx() )
+        {
+            origin.schema().indexFor( label ).on( "name" ).create();
+            tx.success();
+        }
+        for ( int i = 0; i < 10; i++ )
+        {
+            try ( Transaction tx = origin.beginTx() )
+            {
+                origin.createNode( label ).setProperty( "name", "Person " + i );
+                tx.success();
+            }
+        }
+        XaDataSource destNeoDataSource = xaDs( dest );
+        long firstTxId = destNeoDataSource.getLastCommittedTxId() + 1;
+        long lastTxId = xaDs( origin ).getLastCommittedTxId();
+        List<Pair<XaDataSource, ReadableByteChannel>> transactions = new ArrayList<>();
+        LogExtractor extractor = xaDs( origin ).getLogExtractor( firstTxId, lastTxId );
+        for ( long txId = firstTxId; txId <= lastTxId; txId++ )
+        {
+            InMemoryLogBuffer transaction = new InMemoryLogBuffer();
+            assertEquals( txId, extractor.extractNext( transaction ) );
+            transactions.add( Pair.<XaDataSource, ReadableByteChannel>of( destNeoDataSource, transaction ) );
+        }
+        extractor.close();
+        origin.shutdown();
+
+        // WHEN
+        new PipelinedTransactionApplier( 3 ).apply( transactions.iterator() );
+
+        // THEN
+        assertEquals( lastTxId, destNeoDataSource.getLastCommittedTxId() );
+        try ( Transaction tx = dest.beginTx() )
+        {
+            dest.schema().awaitIndexesOnline( 10, SECONDS );
+            assertEquals( 10, count( GlobalGraphOperations.at( dest ).getAllNodesWithLabel( label ) ) );
+            for ( int i = 0; i < 10; i++ )
+            {
+                assertEquals( 1, count( dest.findNodesByLabelAndProperty( label, "name", "Person " + i ) ) );
+            }
+            tx.success();
+        }
+        dest.shutdown();
+    }
+
     private XaDataSource xaDs( GraphDatabaseAPI origin )
     {
         return origin.getDependencyResolver().resolveDependency( XaDataSourceManager.class ).getXaDataSource(
@@ -20,10 +20,13 @@
 package org.neo4j.kernel.impl.transaction.xaframework;
 
 import static org.hamcrest.number.OrderingComparison.lessThan;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
@@ -38,6 +41,9 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.transaction.xa.XAException;
 import javax.transaction.xa.Xid;
@@ -179,6 +185,85 @@ public class XaLogicalLogTest
         assertEquals( initialLogVersion+1, log.getHighestLogVersion() );
     }
 
+    @Test
+    public void shouldCopyTransactionsWrittenInOneGoWithoutReadingTheirCommands() throws Exception
+    {
+        // GIVEN
+        ephemeralFs.get().mkdir( new File("asd") );
+        FixedSizeXaCommandFactory commandFactory = new FixedSizeXaCommandFactory();
+        XaLogicalLog log = new XaLogicalLog( new File( "asd/log" ),
+                mock( XaResourceManager.class ),
+                commandFactory,
+                new VersionRespectingXaTransactionFactory(),
+                ephemeralFs.get(),
+                new Monitors(),
+                new DevNullLoggingService(),
+                NO_PRUNING,
+                mock( TransactionStateFactory.class ),
+                mock( KernelHealth.class ),
+                25 * 1024 * 1024,
+                ALLOW_ALL );
+        log.open();
+        commitInOneGo( log, 1 );
+        int second = log.start( xid, -1, -1, 1337 );
+        log.writeStartEntry( second );
+        log.writeCommand( new FixedSizeXaCommand( 100 ), second );
+        int third = log.start( xid, -1, -1, 1337 );
+        log.writeStartEntry( third );
+        log.writeCommand( new FixedSizeXaCommand( 100 ), third );
+        log.writeCommand( new FixedSizeXaCommand( 100 ), second );
+        log.commitOnePhase( second, 2, forced );
+        log.done( second );
+        log.commitOnePhase( third, 3, forced );
+        log.done( third );
+        commitInOneGo( log, 4 );
+
+        // WHEN
+        byte[][] copied = extract( log.getLogExtractor( 1, 4 ), 4 );
+        int commandsReadWhenCopying = commandFactory.commandsRead;
+        byte[][] read = extract( new LogExtractor( new LogExtractor.LogPositionCache(), log, commandFactory, 1, 4 ), 4 );
+
+        // THEN only the commands of the interleaved transactions were read
+        assertEquals( 3, commandsReadWhenCopying );
+        assertEquals( 3 + 3 + 2 + 2, commandFactory.commandsRead );
+        for ( int i = 0; i < read.length; i++ )
+        {
+            assertArrayEquals( read[i], copied[i] );
+        }
+        log.close();
+    }
+
+    private void commitInOneGo( XaLogicalLog log, long txId ) throws Exception
+    {
+        int identifier = log.start( xid, -1, -1, 1337 );
+        log.writeStartEntry( identifier );
+        log.writeCommand( new FixedSizeXaCommand( 100 ), identifier );
+        log.writeCommand( new FixedSizeXaCommand( 50 ), identifier );
+        log.commitOnePhase( identifier, txId, forced );
+        log.done( identifier );
+    }
+
+    private byte[][] extract( LogExtractor extractor, int count ) throws IOException
+    {
+        byte[][] transactions = new byte[count][];
+        try
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                InMemoryLogBuffer buffer = new InMemoryLogBuffer();
+                assertEquals( i+1, extractor.extractNext( buffer ) );
+                ByteBuffer bytes = ByteBuffer.allocate( 1024 );
+                buffer.read( bytes );
+                transactions[i] = Arrays.copyOf( bytes.array(), bytes.position() );
+            }
+        }
+        finally
+        {
+            extractor.close();
+        }
+        return transactions;
+    }
+
     @Test
     public void shouldDetermineHighestArchivedLogVersionFromFileNamesIfTheyArePresent() throws Exception
     {
@@ -394,6 +479,92 @@ public class XaLogicalLogTest
         }
     }
 
+    @Test
+    public void shouldPanicIfCommitCanNotBeForced() throws Exception
+    {
+        // GIVEN
+        Logging mockLogging = mock( Logging.class );
+        when( mockLogging.getMessagesLog( Matchers.<Class>any() ) ).thenReturn( mock( StringLogger.class ) );
+        KernelHealth health = new KernelHealth( mock( KernelPanicEventGenerator.class ), mockLogging );
+        final AtomicBoolean failForces = new AtomicBoolean();
+        FileSystemAbstraction fs = spy( ephemeralFs.get() );
+        File dir = TargetDirectory.forTest( fs, XaLogicalLogTest.class ).cleanDirectory( "forcefail" );
+        when( fs.open( new File( dir, "logical.log.1" ), "rw" ) ).thenAnswer( new Answer<StoreChannel>()
+        {
+            @Override
+            public StoreChannel answer( InvocationOnMock invocation ) throws Throwable
+            {
+                StoreChannel channel = (StoreChannel) invocation.callRealMethod();
+                StoreChannel failing = mock( channel.getClass(), withSettings()
+                        .spiedInstance( channel )
+                        .defaultAnswer( CALLS_REAL_METHODS ) );
+                doAnswer( new Answer<Void>()
+                {
+                    @Override
+                    public Void answer( InvocationOnMock invocation ) throws Throwable
+                    {
+                        if ( failForces.get() )
+                        {
+                            throw new IOException( "Disk gone" );
+                        }
+                        invocation.callRealMethod();
+                        return null;
+                    }
+                } ).when( failing ).force( anyBoolean() );
+                return failing;
+            }
+        } );
+        XaLogicalLog log = new XaLogicalLog( new File( dir, "logical.log" ),
+                mock( XaResourceManager.class ),
+                new FixedSizeXaCommandFactory(),
+                new VersionRespectingXaTransactionFactory(),
+                fs,
+                new Monitors(),
+                new DevNullLoggingService(),
+                NO_PRUNING,
+                mock( TransactionStateFactory.class ), health, 25 * 1024 * 1024, ALLOW_ALL );
+        log.open();
+        log.setGroupCommit( new GroupCommit( 0, TimeUnit.MILLISECONDS, 1, mock( GroupCommit.Monitor.class ) ) );
+        int identifier = log.start( new XidImpl( getNewGlobalId( DEFAULT_SEED, 1 ), RESOURCE_ID ), -1, 0, 1337 );
+        log.writeStartEntry( identifier );
+        log.commitOnePhase( identifier, 2, ForceMode.forced );
+        failForces.set( true );
+
+        // WHEN
+        try
+        {
+            log.awaitCommitForced( 2 );
+            fail( "Should have failed to force the commit" );
+        }
+        catch ( XAException e )
+        {
+            assertEquals( IOException.class, e.getCause().getClass() );
+        }
+
+        // THEN
+        try
+        {
+            health.assertHealthy( IllegalStateException.class );
+            fail( "Kernel should have panicked" );
+        }
+        catch ( IllegalStateException e )
+        {   // Expected
+        }
+        try
+        {
+            int next = log.start( new XidImpl( getNewGlobalId( DEFAULT_SEED, 2 ), RESOURCE_ID ), -1, 0, 1337 );
+            log.writeStartEntry( next );
+            log.commitOnePhase( next, 3, ForceMode.forced );
+            fail( "No transaction should commit after the panic" );
+        }
+        catch ( XAException e )
+        {   // Expected
+        }
+        failForces.set( false );
+        health.healed();
+        log.close();
+    }
+
     private static class FixedSizeXaCommand extends XaCommand
     {
         private final byte[] data;
@@ -418,11 +589,14 @@ public class XaLogicalLogTest
 
     private static class FixedSizeXaCommandFactory extends XaCommandFactory
     {
+        private int commandsRead;
+
         @Override
         public XaCommand readCommand( ReadableByteChannel byteChannel, ByteBuffer buffer ) throws IOException
         {
             short dataSize = IoPrimitiveUtils.readShort( byteChannel, buffer );
-            IoPrimitiveUtils.readBytes( byteChannel, new byte[dataSize] );
+            IoPrimitiveUtils.readBytes( byteChannel, new byte[dataSize-2] );
+            commandsRead++;
             return new FixedSizeXaCommand( dataSize );
         }
     }
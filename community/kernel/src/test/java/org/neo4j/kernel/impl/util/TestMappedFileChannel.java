@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.kernel.DefaultFileSystemAbstraction;
+import org.neo4j.kernel.impl.nioneo.store.FileSystemAbstraction;
+import org.neo4j.kernel.impl.nioneo.store.StoreChannel;
+import org.neo4j.kernel.monitoring.ByteCounterMonitor;
+import org.neo4j.kernel.monitoring.Monitors;
+import org.neo4j.test.TargetDirectory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestMappedFileChannel
+{
+    @Rule
+    public TargetDirectory.TestDirectory dir = TargetDirectory.testDirForTest( getClass() );
+    private final FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+
+    @Test
+    public void shouldReadMappedFile() throws Exception
+    {
+        // GIVEN
+        File file = fileWithBytes( 100 );
+        StoreChannel channel = openReadOnly( file );
+        ByteBuffer buffer = ByteBuffer.allocate( 30 );
+
+        // WHEN
+        channel.position( 80 );
+        int read = channel.read( buffer );
+
+        // THEN
+        assertTrue( channel instanceof MappedFileChannel );
+        assertEquals( 20, read );
+        buffer.flip();
+        for ( int value = 80; buffer.hasRemaining(); value++ )
+        {
+            assertEquals( (byte) value, buffer.get() );
+        }
+        assertEquals( -1, channel.read( buffer ) );
+        channel.close();
+    }
+
+    @Test
+    public void shouldBeAbleToDeleteFileRightAfterClosingTheChannel() throws Exception
+    {
+        // GIVEN
+        File file = fileWithBytes( 100 );
+        StoreChannel channel = openReadOnly( file );
+        channel.read( ByteBuffer.allocate( 10 ) );
+
+        // WHEN
+        channel.close();
+
+        // THEN
+        assertTrue( fs.deleteFile( file ) );
+        assertFalse( fs.fileExists( file ) );
+    }
+
+    @Test
+    public void shouldNotReadFromClosedChannel() throws Exception
+    {
+        // GIVEN
+        StoreChannel channel = openReadOnly( fileWithBytes( 100 ) );
+        channel.close();
+
+        // WHEN
+        try
+        {
+            channel.read( ByteBuffer.allocate( 10 ) );
+            fail( "Should not be able to read from a closed channel" );
+        }
+        catch ( ClosedChannelException e )
+        {   // THEN good
+        }
+        assertFalse( channel.isOpen() );
+    }
+
+    private StoreChannel openReadOnly( File file ) throws IOException
+    {
+        return MappedFileChannel.openReadOnly( fs, file, new Monitors().newMonitor( ByteCounterMonitor.class ) );
+    }
+
+    private File fileWithBytes( int count ) throws IOException
+    {
+        File file = new File( dir.directory(), "log" );
+        try ( StoreChannel channel = fs.open( file, "rw" ) )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( count );
+            for ( int i = 0; i < count; i++ )
+            {
+                buffer.put( (byte) i );
+            }
+            buffer.flip();
+            channel.write( buffer );
+        }
+        return file;
+    }
+}
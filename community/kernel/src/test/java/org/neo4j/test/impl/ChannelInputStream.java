@@ -44,7 +44,7 @@ public class ChannelInputStream extends InputStream
         if ( !readAndFlip( channel, buffer, 1 ) )
             return -1;
         position++;
-        return buffer.get();
+        return buffer.get() & 0xFF;
     }
 
     @Override
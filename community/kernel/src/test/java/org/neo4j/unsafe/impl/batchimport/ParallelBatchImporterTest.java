@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.unsafe.impl.batchimport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.DefaultFileSystemAbstraction;
+import org.neo4j.test.TargetDirectory;
+import org.neo4j.test.TargetDirectory.TestDirectory;
+import org.neo4j.tooling.GlobalGraphOperations;
+import org.neo4j.unsafe.impl.batchimport.input.InputNode;
+import org.neo4j.unsafe.impl.batchimport.input.InputRelationship;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import static org.neo4j.helpers.collection.IteratorUtil.count;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+
+public class ParallelBatchImporterTest
+{
+    private static final int DENSE_NODE_THRESHOLD = 10;
+    private static final String[] TYPES = {"KNOWS", "LIKES", "OWNS"};
+    private static final String[] LABELS = {"Person", "Employee", "Customer", "Admin", "Guest", "Robot", "Alien"};
+
+    public final @Rule TestDirectory directory = TargetDirectory.testDirForTest( getClass() );
+
+    private final Random random = new Random( 1234 );
+
+    @Test
+    public void shouldImportNodesAndRelationshipsIncludingDenseNodesAndLoops() throws Exception
+    {
+        // GIVEN
+        int nodeCount = 1_000;
+        List<InputNode> nodes = new ArrayList<>();
+        for ( int id = 0; id < nodeCount; id++ )
+        {
+            nodes.add( new InputNode( id, nodeProperties( id ), labels( id ) ) );
+        }
+        List<InputRelationship> relationships = new ArrayList<>();
+        for ( int i = 0; i < 5_000; i++ )
+        {
+            // A handful of the nodes get most of the relationships, making them dense
+            long startNode = random.nextInt( 4 ) == 0 ? random.nextInt( 5 ) : random.nextInt( nodeCount );
+            long endNode = random.nextInt( 20 ) == 0 ? startNode : random.nextInt( nodeCount );
+            relationships.add( new InputRelationship( startNode, endNode, TYPES[random.nextInt( TYPES.length )],
+                    new Object[] {"index", i} ) );
+        }
+
+        // WHEN
+        newImporter( new Configuration( 100, 5, 3 ) ).doImport( nodes, relationships );
+
+        // THEN
+        GraphDatabaseService db = new GraphDatabaseFactory().newEmbeddedDatabaseBuilder( directory.absolutePath() )
+                .setConfig( GraphDatabaseSettings.dense_node_threshold, String.valueOf( DENSE_NODE_THRESHOLD ) )
+                .newGraphDatabase();
+        try ( Transaction tx = db.beginTx() )
+        {
+            assertEquals( nodeCount, count( GlobalGraphOperations.at( db ).getAllNodes() ) );
+            assertEquals( relationships.size(), count( GlobalGraphOperations.at( db ).getAllRelationships() ) );
+            for ( InputNode input : nodes )
+            {
+                Node node = db.getNodeById( input.id() );
+                assertNodeEquals( input, node );
+                assertRelationships( relationships, node );
+            }
+            for ( Relationship relationship : GlobalGraphOperations.at( db ).getAllRelationships() )
+            {
+                InputRelationship input = relationships.get( (Integer) relationship.getProperty( "index" ) );
+                assertEquals( input.startNode(), relationship.getStartNode().getId() );
+                assertEquals( input.endNode(), relationship.getEndNode().getId() );
+                assertEquals( input.type(), relationship.getType().name() );
+            }
+            tx.success();
+        }
+        finally
+        {
+            db.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldFailOnRelationshipToNodeNotImported() throws Exception
+    {
+        // GIVEN
+        List<InputNode> nodes = Arrays.asList( new InputNode( 0, new Object[0] ), new InputNode( 1, new Object[0] ) );
+        List<InputRelationship> relationships =
+                Arrays.asList( new InputRelationship( 0, 5, TYPES[0], new Object[0] ) );
+
+        // WHEN
+        try
+        {
+            newImporter( Configuration.DEFAULT ).doImport( nodes, relationships );
+            fail( "Should have failed" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // THEN
+            assertTrue( e.getMessage().contains( "5" ) );
+        }
+    }
+
+    private BatchImporter newImporter( Configuration config )
+    {
+        return new ParallelBatchImporter( directory.absolutePath(), new DefaultFileSystemAbstraction(), config,
+                stringMap( GraphDatabaseSettings.dense_node_threshold.name(), String.valueOf( DENSE_NODE_THRESHOLD ) ) );
+    }
+
+    private void assertNodeEquals( InputNode input, Node node )
+    {
+        Set<String> expectedLabels = new HashSet<>( Arrays.asList( input.labels() ) );
+        Set<String> labels = new HashSet<>();
+        for ( Label label : node.getLabels() )
+        {
+            labels.add( label.name() );
+        }
+        assertEquals( expectedLabels, labels );
+
+        assertEquals( input.propertyCount(), count( node.getPropertyKeys() ) );
+        for ( int i = 0; i < input.propertyCount(); i++ )
+        {
+            Object expected = input.propertyValue( i );
+            Object value = node.getProperty( input.propertyKey( i ) );
+            if ( expected.getClass().isArray() )
+            {
+                assertArrayEquals( (long[]) expected, (long[]) value );
+            }
+            else
+            {
+                assertEquals( expected, value );
+            }
+        }
+    }
+
+    private void assertRelationships( List<InputRelationship> relationships, Node node )
+    {
+        Set<Integer> expectedAll = new HashSet<>();
+        Set<Integer> expectedOutgoing = new HashSet<>();
+        Set<Integer> expectedIncoming = new HashSet<>();
+        for ( int i = 0; i < relationships.size(); i++ )
+        {
+            InputRelationship relationship = relationships.get( i );
+            if ( relationship.startNode() == node.getId() )
+            {
+                expectedOutgoing.add( i );
+                expectedAll.add( i );
+            }
+            if ( relationship.endNode() == node.getId() )
+            {
+                expectedIncoming.add( i );
+                expectedAll.add( i );
+            }
+        }
+        assertEquals( expectedAll, indexes( node.getRelationships() ) );
+        assertEquals( expectedOutgoing, indexes( node.getRelationships( Direction.OUTGOING ) ) );
+        assertEquals( expectedIncoming, indexes( node.getRelationships( Direction.INCOMING ) ) );
+        assertEquals( expectedAll.size(), node.getDegree() );
+    }
+
+    private Set<Integer> indexes( Iterable<Relationship> relationships )
+    {
+        Set<Integer> indexes = new HashSet<>();
+        for ( Relationship relationship : relationships )
+        {
+            assertTrue( "Duplicate " + relationship, indexes.add( (Integer) relationship.getProperty( "index" ) ) );
+        }
+        return indexes;
+    }
+
+    private Object[] nodeProperties( int id )
+    {
+        switch ( id % 4 )
+        {
+        case 0:
+            return new Object[0];
+        case 1:
+            return new Object[] {"name", "Node " + id};
+        case 2:
+            // Long enough to need dynamic records, and enough properties to need more than one property record
+            return new Object[] {"name", longString( id ), "age", id, "score", (long) id * 3, "weight", id / 2f,
+                    "active", id % 3 == 0};
+        default:
+            long[] array = new long[random.nextInt( 200 ) + 1];
+            for ( int i = 0; i < array.length; i++ )
+            {
+                array[i] = random.nextLong();
+            }
+            return new Object[] {"values", array, "name", "Node " + id};
+        }
+    }
+
+    private String longString( int id )
+    {
+        StringBuilder builder = new StringBuilder();
+        while ( builder.length() < 300 )
+        {
+            builder.append( "A long string for node " ).append( id ).append( ". " );
+        }
+        return builder.toString();
+    }
+
+    private String[] labels( int id )
+    {
+        // Some nodes get more labels than fit inlined in the node record
+        int count = id % LABELS.length == 0 ? 1 : id % LABELS.length;
+        String[] labels = new String[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            labels[i] = LABELS[(id + i) % LABELS.length];
+        }
+        return labels;
+    }
+}
@@ -24,8 +24,10 @@ import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Fieldable;
 import org.apache.lucene.index.FieldInfo.IndexOptions;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TermRangeQuery;
 import org.apache.lucene.util.NumericUtils;
 
 import org.neo4j.kernel.api.index.ArrayEncoder;
@@ -205,6 +207,43 @@ public class LuceneDocumentStructure
         throw new IllegalArgumentException( format( "Unable to create newQuery for %s", value ) );
     }
 
+    /**
+     * Numbers are indexed as doubles, so a bound that a double can't represent exactly is always included.
+     * Excluding it would also exclude the values that are indexed as the same double but lie inside the range.
+     * Such a bound may match values just outside the range, the same way {@link #newQuery(Object)} does.
+     */
+    public Query newRangeSeekByNumberQuery( Number lower, boolean includeLower, Number upper, boolean includeUpper )
+    {
+        return new TermRangeQuery( ValueEncoding.Number.key(),
+                lower == null ? null : NumericUtils.doubleToPrefixCoded( lower.doubleValue() ),
+                upper == null ? null : NumericUtils.doubleToPrefixCoded( upper.doubleValue() ),
+                includeLower || !isExactDouble( lower ), includeUpper || !isExactDouble( upper ) );
+    }
+
+    private static boolean isExactDouble( Number number )
+    {
+        if ( number == null || number instanceof Double || number instanceof Float )
+        {
+            return true;
+        }
+        if ( number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte )
+        {
+            double value = number.doubleValue();
+            return value < 0x1p63 && (long) value == number.longValue();
+        }
+        return false;
+    }
+
+    public Query newRangeSeekByStringQuery( String lower, boolean includeLower, String upper, boolean includeUpper )
+    {
+        return new TermRangeQuery( ValueEncoding.String.key(), lower, upper, includeLower, includeUpper );
+    }
+
+    public Query newRangeSeekByPrefixQuery( String prefix )
+    {
+        return new PrefixQuery( new Term( ValueEncoding.String.key(), prefix ) );
+    }
+
     public Term newQueryForChangeOrRemove( long nodeId )
     {
         return new Term( NODE_ID_KEY, "" + nodeId );
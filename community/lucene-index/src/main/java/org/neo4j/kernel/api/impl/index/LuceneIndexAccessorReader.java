@@ -21,12 +21,16 @@ package org.neo4j.kernel.api.impl.index;
 
 import java.io.IOException;
 
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermEnum;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
 import org.apache.lucene.search.SearcherManager;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.index.impl.lucene.Hits;
 import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
 
 class LuceneIndexAccessorReader implements IndexReader
 {
@@ -43,10 +47,74 @@ class LuceneIndexAccessorReader implements IndexReader
 
     @Override
     public PrimitiveLongIterator lookup( final Object value )
+    {
+        return query( documentLogic.newQuery( value ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                    Number upper, boolean includeUpper )
+    {
+        return query( documentLogic.newRangeSeekByNumberQuery( lower, includeLower, upper, includeUpper ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower,
+                                                    String upper, boolean includeUpper )
+    {
+        return query( documentLogic.newRangeSeekByStringQuery( lower, includeLower, upper, includeUpper ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+    {
+        return query( documentLogic.newRangeSeekByPrefixQuery( prefix ) );
+    }
+
+    /**
+     * Each document holds a single value, as a single term in the field of its {@link
+     * LuceneDocumentStructure.ValueEncoding encoding}, so the number of distinct values is the number of terms in
+     * those fields. Terms of deleted documents linger until their segments are merged, which makes this an upper
+     * bound.
+     */
+    @Override
+    public IndexSample sampleIndex()
+    {
+        org.apache.lucene.index.IndexReader reader = searcher.getIndexReader();
+        long uniqueValues = 0;
+        try
+        {
+            for ( LuceneDocumentStructure.ValueEncoding encoding : LuceneDocumentStructure.ValueEncoding.values() )
+            {
+                String field = encoding.key();
+                TermEnum terms = reader.terms( new Term( field, "" ) );
+                try
+                {
+                    for ( Term term = terms.term(); term != null && term.field().equals( field );
+                          term = terms.next() ? terms.term() : null )
+                    {
+                        uniqueValues++;
+                    }
+                }
+                finally
+                {
+                    terms.close();
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( e );
+        }
+        long indexSize = reader.numDocs();
+        return new IndexSample( indexSize, Math.min( uniqueValues, indexSize ) );
+    }
+
+    private PrimitiveLongIterator query( Query query )
     {
         try
         {
-            Hits hits = new Hits( searcher, documentLogic.newQuery( value ), null );
+            Hits hits = new Hits( searcher, query, null );
             return new HitsPrimitiveLongIterator( hits, documentLogic );
         }
         catch ( IOException e )
@@ -28,6 +28,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.neo4j.kernel.api.index.IndexEntryConflictException;
 import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
 import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
@@ -120,6 +121,99 @@ public class LuceneIndexAccessorTest
         reader.close();
     }
 
+    @Test
+    public void canRangeSeekByNumber() throws Exception
+    {
+        // GIVEN
+        updateAndCommit( asList(
+                add( 1, 10 ),
+                add( 2, 20.5d ),
+                add( 3, 30L ),
+                add( 4, "25" ),
+                add( 5, -5 ) ) );
+        IndexReader reader = accessor.newReader();
+
+        // THEN
+        assertEquals( asSet( 1L, 2L, 3L ), asUniqueSet( reader.rangeSeekByNumber( 10, true, 30, true ) ) );
+        assertEquals( asSet( 2L, 3L ), asUniqueSet( reader.rangeSeekByNumber( 15, false, null, false ) ) );
+        assertEquals( asSet( 5L, 1L ), asUniqueSet( reader.rangeSeekByNumber( null, false, 10, true ) ) );
+        reader.close();
+    }
+
+    @Test
+    public void shouldExcludeExclusiveBoundsOfNumberRanges() throws Exception
+    {
+        // GIVEN
+        long large = (1L << 53) + 1;
+        updateAndCommit( asList(
+                add( 1, 10 ),
+                add( 2, 20.5d ),
+                add( 3, 30L ),
+                add( 4, large ) ) );
+        IndexReader reader = accessor.newReader();
+
+        // THEN
+        assertEquals( asSet( 2L ), asUniqueSet( reader.rangeSeekByNumber( 10, false, 30, false ) ) );
+        assertEquals( asSet( 1L ), asUniqueSet( reader.rangeSeekByNumber( 5.5d, false, 20.5d, false ) ) );
+        // a bound a double can't represent exactly is included, the caller filters out what lies outside the range
+        assertEquals( asSet( 4L ), asUniqueSet( reader.rangeSeekByNumber( large, false, null, false ) ) );
+        reader.close();
+    }
+
+    @Test
+    public void canRangeSeekByString() throws Exception
+    {
+        // GIVEN
+        updateAndCommit( asList(
+                add( 1, "Anna" ),
+                add( 2, "Bob" ),
+                add( 3, "Bobby" ),
+                add( 4, "Carl" ),
+                add( 5, 42 ) ) );
+        IndexReader reader = accessor.newReader();
+
+        // THEN
+        assertEquals( asSet( 2L, 3L ), asUniqueSet( reader.rangeSeekByString( "B", true, "C", false ) ) );
+        assertEquals( asSet( 3L, 4L ), asUniqueSet( reader.rangeSeekByString( "Bob", false, null, false ) ) );
+        assertEquals( asSet( 1L, 2L ), asUniqueSet( reader.rangeSeekByString( null, false, "Bob", true ) ) );
+        reader.close();
+    }
+
+    @Test
+    public void canRangeSeekByPrefix() throws Exception
+    {
+        // GIVEN
+        updateAndCommit( asList(
+                add( 1, "Anna" ),
+                add( 2, "Bob" ),
+                add( 3, "Bobby" ),
+                add( 4, "bob" ) ) );
+        IndexReader reader = accessor.newReader();
+
+        // THEN
+        assertEquals( asSet( 2L, 3L ), asUniqueSet( reader.rangeSeekByPrefix( "Bob" ) ) );
+        assertEquals( emptySetOf( Long.class ), asUniqueSet( reader.rangeSeekByPrefix( "Cecil" ) ) );
+        reader.close();
+    }
+
+    @Test
+    public void canSampleDistinctValues() throws Exception
+    {
+        // GIVEN
+        updateAndCommit( asList(
+                add( 1, true ),
+                add( 2, true ),
+                add( 3, false ),
+                add( 4, 10 ),
+                add( 5, 10L ),
+                add( 6, "10" ) ) );
+        IndexReader reader = accessor.newReader();
+
+        // THEN
+        assertEquals( new IndexSample( 6, 4 ), reader.sampleIndex() );
+        reader.close();
+    }
+
     private final long nodeId = 1, nodeId2 = 2;
     private final Object value = "value", value2 = 40;
     private final LuceneDocumentStructure documentLogic = new LuceneDocumentStructure();
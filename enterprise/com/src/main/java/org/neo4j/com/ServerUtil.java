@@ -42,9 +42,10 @@ import org.neo4j.com.storecopy.StoreWriter;
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.event.ErrorState;
 import org.neo4j.helpers.Exceptions;
+import org.neo4j.helpers.Pair;
 import org.neo4j.helpers.Predicate;
 import org.neo4j.helpers.Triplet;
-import org.neo4j.helpers.collection.IteratorUtil;
+import org.neo4j.helpers.collection.IteratorWrapper;
 import org.neo4j.kernel.GraphDatabaseAPI;
 import org.neo4j.kernel.impl.core.KernelPanicEventGenerator;
 import org.neo4j.kernel.impl.nioneo.store.FileSystemAbstraction;
@@ -54,6 +55,7 @@ import org.neo4j.kernel.impl.transaction.XaDataSourceManager;
 import org.neo4j.kernel.impl.transaction.xaframework.InMemoryLogBuffer;
 import org.neo4j.kernel.impl.transaction.xaframework.LogBuffer;
 import org.neo4j.kernel.impl.transaction.xaframework.LogExtractor;
+import org.neo4j.kernel.impl.transaction.xaframework.PipelinedTransactionApplier;
 import org.neo4j.kernel.impl.transaction.xaframework.XaDataSource;
 import org.neo4j.kernel.impl.util.StringLogger;
 import org.neo4j.kernel.monitoring.BackupMonitor;
@@ -445,26 +447,28 @@ public class ServerUtil
         }
     };
 
-    public static <T> void applyReceivedTransactions( Response<T> response, XaDataSourceManager xaDsm,
-                                                      TxHandler txHandler ) throws IOException
+    /**
+     * Applies the transactions of {@code response} in batches, see {@link PipelinedTransactionApplier}.
+     * {@link TxHandler#accept(Triplet, XaDataSource)} is called as each transaction is received, which may be
+     * in another thread and before the transactions before it have been applied.
+     */
+    public static <T> void applyReceivedTransactions( Response<T> response, final XaDataSourceManager xaDsm,
+                                                      final TxHandler txHandler ) throws IOException
     {
         try
         {
-            for ( Triplet<String, Long, TxExtractor> tx : IteratorUtil.asIterable( response.transactions() ) )
+            new PipelinedTransactionApplier().apply( new IteratorWrapper<Pair<XaDataSource, ReadableByteChannel>,
+                    Triplet<String, Long, TxExtractor>>( response.transactions() )
             {
-                String resourceName = tx.first();
-                XaDataSource dataSource = xaDsm.getXaDataSource( resourceName );
-                txHandler.accept( tx, dataSource );
-                ReadableByteChannel txStream = tx.third().extract();
-                try
+                @Override
+                protected Pair<XaDataSource, ReadableByteChannel> underlyingObjectToObject(
+                        Triplet<String, Long, TxExtractor> tx )
                 {
-                    dataSource.applyCommittedTransaction( tx.second(), txStream );
+                    XaDataSource dataSource = xaDsm.getXaDataSource( tx.first() );
+                    txHandler.accept( tx, dataSource );
+                    return Pair.of( dataSource, tx.third().extract() );
                 }
-                finally
-                {
-                    txStream.close();
-                }
-            }
+            } );
             txHandler.done();
         }
         finally
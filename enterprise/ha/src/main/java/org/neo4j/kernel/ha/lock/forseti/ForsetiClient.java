@@ -45,6 +45,9 @@ public class ForsetiClient implements Locks.Client
     /** Handle to return client to pool when closed. */
     private final FlyweightPool<ForsetiClient> clientPool;
 
+    /** Told about lock waits and deadlocks. */
+    private final Locks.Monitor monitor;
+
     // TODO We should really look into some kind of primitive maps here.
     // TODO As a stop-gap, we could start out by using AtomicInteger values, and thereby remove a lot
     // TODO of object creation due to the boxing of the integers.
@@ -63,12 +66,14 @@ public class ForsetiClient implements Locks.Client
     public ForsetiClient( int id,
                           ConcurrentMap[] lockMaps,
                           WaitStrategy[] waitStrategies,
-                          FlyweightPool<ForsetiClient> clientPool )
+                          FlyweightPool<ForsetiClient> clientPool,
+                          Locks.Monitor monitor )
     {
         this.myId                = id;
         this.lockMaps            = lockMaps;
         this.waitStrategies      = waitStrategies;
         this.clientPool          = clientPool;
+        this.monitor             = monitor;
         this.sharedLockCounts    = new HashMap[lockMaps.length];
         this.exclusiveLockCounts = new HashMap[lockMaps.length];
 
@@ -105,6 +110,7 @@ public class ForsetiClient implements Locks.Client
             }
 
             int tries = 0;
+            long waitStartNanos = 0;
             SharedLock mySharedLock = null;
             while(true)
             {
@@ -143,11 +149,19 @@ public class ForsetiClient implements Locks.Client
                     throw new UnsupportedOperationException( "Unknown lock type: " + existingLock );
                 }
 
+                if ( tries == 0 )
+                {
+                    waitStartNanos = System.nanoTime();
+                }
                 waitStrategies[resourceType.typeId()].apply( tries++ );
                 markAsWaitingFor( existingLock, resourceType, resourceId );
             }
 
             clearWaitList();
+            if ( tries > 0 )
+            {
+                monitor.lockWaited( resourceType, resourceId, System.nanoTime() - waitStartNanos );
+            }
             heldShareLocks.put( resourceId, 1 );
         }
     }
@@ -171,6 +185,7 @@ public class ForsetiClient implements Locks.Client
             // Grab the global lock
             ForsetiLockManager.Lock existingLock;
             int tries = 0;
+            long waitStartNanos = 0;
             while( (existingLock = lockMap.putIfAbsent( resourceId, myExclusiveLock )) != null)
             {
                 // If this is a shared lock:
@@ -186,11 +201,19 @@ public class ForsetiClient implements Locks.Client
                     }
                 }
 
+                if ( tries == 0 )
+                {
+                    waitStartNanos = System.nanoTime();
+                }
                 waitStrategies[resourceType.typeId()].apply( tries++ );
                 markAsWaitingFor( existingLock, resourceType, resourceId );
             }
 
             clearWaitList();
+            if ( tries > 0 )
+            {
+                monitor.lockWaited( resourceType, resourceId, System.nanoTime() - waitStartNanos );
+            }
             heldLocks.put( resourceId, 1 );
         }
     }
@@ -605,6 +628,7 @@ public class ForsetiClient implements Locks.Client
         if(lock.anyHolderIsWaitingFor( myId ) && lock.holderWaitListSize() >= waitListSize())
         {
             waitList.clear();
+            monitor.deadlockDetected( type, resourceId );
             throw new DeadlockDetectedException( this + " can't acquire " + lock + " on " + type + "("+resourceId+"), because holders of that lock " +
                     "are waiting for " + this + ".\n Wait list:" + lock.describeWaitList() );
         }
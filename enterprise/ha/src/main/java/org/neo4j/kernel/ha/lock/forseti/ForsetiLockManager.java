@@ -71,6 +71,11 @@ public class ForsetiLockManager extends LifecycleAdapter implements Locks
     private final FlyweightPool<ForsetiClient> clientPool;
 
     public ForsetiLockManager( ResourceType... resourceTypes )
+    {
+        this( new Monitor.Adapter(), resourceTypes );
+    }
+
+    public ForsetiLockManager( Monitor monitor, ResourceType... resourceTypes )
     {
         this.lockMaps = new ConcurrentMap[findMaxResourceId( resourceTypes )];
         this.waitStrategies = new WaitStrategy[findMaxResourceId( resourceTypes )];
@@ -87,7 +92,7 @@ public class ForsetiLockManager extends LifecycleAdapter implements Locks
         // TODO be good enough. In fact, we could add the required fields for such a stack
         // TODO to the ForsetiClient objects themselves, making the stack garbage-free in
         // TODO the (presumably) common case of client re-use.
-        clientPool = new ForsetiClientFlyweightPool( lockMaps, waitStrategies );
+        clientPool = new ForsetiClientFlyweightPool( lockMaps, waitStrategies, monitor );
     }
 
     @Override
@@ -134,12 +139,15 @@ public class ForsetiLockManager extends LifecycleAdapter implements Locks
         private final Queue<Integer> unusedIds = new ConcurrentLinkedQueue<>();
         private final ConcurrentMap[] lockMaps;
         private final WaitStrategy[] waitStrategies;
+        private final Locks.Monitor monitor;
 
-        public ForsetiClientFlyweightPool( ConcurrentMap[] lockMaps, WaitStrategy[] waitStrategies )
+        public ForsetiClientFlyweightPool( ConcurrentMap[] lockMaps, WaitStrategy[] waitStrategies,
+                                           Locks.Monitor monitor )
         {
             super( 128 );
             this.lockMaps = lockMaps;
             this.waitStrategies = waitStrategies;
+            this.monitor = monitor;
         }
 
         @Override
@@ -150,7 +158,7 @@ public class ForsetiLockManager extends LifecycleAdapter implements Locks
             {
                 id = clientIds.getAndIncrement();
             }
-            return new ForsetiClient(id, lockMaps, waitStrategies, this );
+            return new ForsetiClient(id, lockMaps, waitStrategies, this, monitor );
         }
 
         @Override